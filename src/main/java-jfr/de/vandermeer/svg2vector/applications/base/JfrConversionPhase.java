@@ -0,0 +1,205 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A conversion phase recorded as flight recorder event.
+ * This class is only built on Java 11 and later (profile {@code env-jfr}) and only loaded if the JVM has a flight recorder.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+final class JfrConversionPhase extends ConversionPhase {
+
+	/** The recorder loaded by {@link ConversionPhase}. */
+	static final Recorder RECORDER = JfrConversionPhase::record;
+
+	/** One event per kind, used to test if the event is enabled without creating a new event. */
+	private static final PhaseEvent[] PROBES = JfrConversionPhase.createProbes();
+
+	/** The event of the phase. */
+	private final PhaseEvent event;
+
+	/**
+	 * Creates a new recorded phase.
+	 * @param event the begun event
+	 * @param kind the kind of phase to record in the statistics, null to not record the phase in the statistics
+	 */
+	private JfrConversionPhase(PhaseEvent event, Kind kind){
+		super(kind);
+		this.event = event;
+	}
+
+	/**
+	 * Begins a phase.
+	 * @param kind the kind of phase
+	 * @param stats true to record the phase in the statistics, false otherwise
+	 * @return new recorded phase if the event for the kind is enabled, a phase for the statistics or {@link ConversionPhase#NONE} otherwise
+	 */
+	static ConversionPhase record(Kind kind, boolean stats){
+		if(!PROBES[kind.ordinal()].isEnabled()){
+			return (stats)?new ConversionPhase(kind):NONE;
+		}
+		PhaseEvent event = JfrConversionPhase.createEvent(kind);
+		event.begin();
+		return new JfrConversionPhase(event, (stats)?kind:null);
+	}
+
+	/**
+	 * Creates a new event for a kind of phase.
+	 * @param kind the kind of phase
+	 * @return new event
+	 */
+	private static PhaseEvent createEvent(Kind kind){
+		switch(kind){
+			case DOCUMENT_LOAD:
+				return new DocumentLoad();
+			case LAYER_SCAN:
+				return new LayerScan();
+			case LAYER_SWITCH:
+				return new LayerSwitch();
+			case GVT_BUILD:
+				return new GvtBuild();
+			case PAINT:
+				return new Paint();
+			case OUTPUT_WRITE:
+				return new OutputWrite();
+			default:
+				return new InkscapeExec();
+		}
+	}
+
+	/**
+	 * Creates one event per kind of phase.
+	 * @return events in the order of the kinds
+	 */
+	private static PhaseEvent[] createProbes(){
+		PhaseEvent[] ret = new PhaseEvent[Kind.values().length];
+		for(Kind kind : Kind.values()){
+			ret[kind.ordinal()] = JfrConversionPhase.createEvent(kind);
+		}
+		return ret;
+	}
+
+	@Override
+	public boolean isRecorded(){
+		return true;
+	}
+
+	@Override
+	public ConversionPhase file(String file){
+		this.event.file = file;
+		return this;
+	}
+
+	@Override
+	public ConversionPhase layer(String layer){
+		this.event.layer = layer;
+		return this;
+	}
+
+	@Override
+	public ConversionPhase target(SvgTargets target){
+		this.event.target = (target==null)?null:target.name();
+		return super.target(target);
+	}
+
+	@Override
+	public ConversionPhase bytes(long bytes){
+		this.event.bytes = bytes;
+		return super.bytes(bytes);
+	}
+
+	@Override
+	public void end(){
+		this.event.commit();
+		super.end();
+	}
+
+	/**
+	 * Base of all phase events with the common fields.
+	 */
+	@Category("svg2vector")
+	abstract static class PhaseEvent extends Event {
+
+		/** File name or URI. */
+		@Label("File")
+		String file;
+
+		/** Layer label. */
+		@Label("Layer")
+		String layer;
+
+		/** Conversion target. */
+		@Label("Target")
+		String target;
+
+		/** Bytes read or written. */
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+	}
+
+	/** Event for loading a document. */
+	@Name("de.vandermeer.svg2vector.DocumentLoad")
+	@Label("Document Load")
+	@Description("Loading an SVG document")
+	static final class DocumentLoad extends PhaseEvent {}
+
+	/** Event for scanning layers. */
+	@Name("de.vandermeer.svg2vector.LayerScan")
+	@Label("Layer Scan")
+	@Description("Scanning an SVG document for layers")
+	static final class LayerScan extends PhaseEvent {}
+
+	/** Event for switching layers. */
+	@Name("de.vandermeer.svg2vector.LayerSwitch")
+	@Label("Layer Switch")
+	@Description("Switching layers for processing a single layer")
+	static final class LayerSwitch extends PhaseEvent {}
+
+	/** Event for building a graphics tree. */
+	@Name("de.vandermeer.svg2vector.GvtBuild")
+	@Label("GVT Build")
+	@Description("Building the graphics tree of an SVG document")
+	static final class GvtBuild extends PhaseEvent {}
+
+	/** Event for painting. */
+	@Name("de.vandermeer.svg2vector.Paint")
+	@Label("Paint")
+	@Description("Painting a graphics tree to a target")
+	static final class Paint extends PhaseEvent {}
+
+	/** Event for writing an output file. */
+	@Name("de.vandermeer.svg2vector.OutputWrite")
+	@Label("Output Write")
+	@Description("Writing an output file")
+	static final class OutputWrite extends PhaseEvent {}
+
+	/** Event for running Inkscape. */
+	@Name("de.vandermeer.svg2vector.InkscapeExec")
+	@Label("Inkscape Exec")
+	@Description("Running an Inkscape process")
+	static final class InkscapeExec extends PhaseEvent {}
+}
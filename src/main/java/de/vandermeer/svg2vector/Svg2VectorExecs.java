@@ -17,6 +17,7 @@ package de.vandermeer.svg2vector;
 
 import de.vandermeer.execs.ExecS;
 import de.vandermeer.svg2vector.applications.fh.Svg2Vector_FH;
+import de.vandermeer.svg2vector.applications.info.Svg2Vector_Info;
 import de.vandermeer.svg2vector.applications.is.Svg2Vector_IS;
 
 /**
@@ -36,6 +37,7 @@ public class Svg2VectorExecs extends ExecS {
 
 		this.addApplication(Svg2Vector_FH.APP_NAME,			Svg2Vector_FH.class);
 		this.addApplication(Svg2Vector_IS.APP_NAME,			Svg2Vector_IS.class);
+		this.addApplication(Svg2Vector_Info.APP_NAME,		Svg2Vector_Info.class);
 	}
 
 	/**
@@ -0,0 +1,68 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import org.apache.commons.cli.Option;
+import org.apache.commons.lang3.text.StrBuilder;
+
+import de.vandermeer.execs.options.AbstractApplicationOption;
+
+/**
+ * Application option `archive`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AO_Archive extends AbstractApplicationOption<String> {
+
+	/**
+	 * Returns the new option.
+	 */
+	public AO_Archive(){
+		super("write layer outputs into a single archive",
+				"When processing layers, write all output files as entries of a single archive in the output directory instead of one file per layer. " +
+				"The archive is named after the base name of the output files, entry names are generated the same way as file names for layers. " +
+				"Supported formats are: " + new StrBuilder().appendWithSeparators(ArchiveFormat.values(), ", ")
+		);
+
+		Option.Builder builder = Option.builder();
+		builder.longOpt("archive");
+		builder.hasArg().argName("FORMAT");
+		builder.required(false);
+		this.setCliOption(builder.build());
+	}
+
+	@Override
+	public String convertValue(Object value) {
+		if(value==null){
+			return null;
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Returns the archive format for a given set value.
+	 * @return the archive format, null if no value was set or the value is not a supported format
+	 */
+	public ArchiveFormat getArchiveFormat(){
+		try{
+			return ArchiveFormat.valueOf(this.getValue());
+		}
+		catch(Exception ignore) {}
+		return null;
+	}
+}
@@ -0,0 +1,51 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import org.apache.commons.cli.Option;
+
+import de.vandermeer.execs.options.AbstractApplicationOption;
+
+/**
+ * Application option `clean-svg`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AO_CleanSvg extends AbstractApplicationOption<String> {
+
+	/**
+	 * Returns the new option.
+	 */
+	public AO_CleanSvg(){
+		super("remove editor metadata and unreferenced definitions", "Removes editor content (sodipodi and Inkscape elements and attributes, except the Inkscape layer attributes), metadata, and definitions that are not referenced from the document before it is processed. For s2v-fh the loaded document is cleaned before the graphics tree is built, for s2v-is the temporary SVG files of option svg-first are cleaned.");
+
+		Option.Builder builder = Option.builder();
+		builder.longOpt("clean-svg");
+		builder.required(false);
+		this.setCliOption(builder.build());
+	}
+
+	@Override
+	public String convertValue(Object value) {
+		if(value==null){
+			return null;
+		}
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,56 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import org.apache.commons.cli.Option;
+
+import de.vandermeer.execs.options.AbstractApplicationOption;
+
+/**
+ * Application option `events`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AO_Events extends AbstractApplicationOption<String> {
+
+	/**
+	 * Returns the new option.
+	 */
+	public AO_Events(){
+		super("write events as NDJSON to file", 
+				"Writes all messages activated in the message mode as events to the given file, as newline delimited JSON with one object per event. " +
+				"Events are file and layer started, phase finished, progress, detail, warning, and error. " +
+				"Use '-' to write events to standard out instead of printing messages."
+		);
+
+		Option.Builder builder = Option.builder();
+		builder.longOpt("events");
+		builder.hasArg().argName("FILE");
+		builder.required(false);
+		this.setCliOption(builder.build());
+	}
+
+	@Override
+	public String convertValue(Object value) {
+		if(value==null){
+			return null;
+		}
+		return value.toString();
+	}
+
+}
@@ -0,0 +1,61 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.Option;
+
+import de.vandermeer.execs.options.AbstractApplicationOption;
+
+/**
+ * Application option `exclude-layers`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AO_ExcludeLayers extends AbstractApplicationOption<String> {
+
+	/**
+	 * Returns the new option.
+	 */
+	public AO_ExcludeLayers(){
+		super("do not process layers with matching label", "When processing layers, do not process layers whose label contains a match of the given regular expression, e.g. \"draft\". Exclusion is applied after inclusion.");
+
+		Option.Builder builder = Option.builder();
+		builder.longOpt("exclude-layers");
+		builder.hasArg().argName("REGEX");
+		builder.required(false);
+		this.setCliOption(builder.build());
+	}
+
+	@Override
+	public String convertValue(Object value) {
+		if(value==null){
+			return null;
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Returns the pattern for a given set value.
+	 * @return the pattern, null if no value was set or the value is not a valid regular expression
+	 */
+	public Pattern getPattern(){
+		return LayerFilter.parsePattern(this.getValue());
+	}
+}
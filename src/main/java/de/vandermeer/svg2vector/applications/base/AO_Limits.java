@@ -0,0 +1,65 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import org.apache.commons.cli.Option;
+
+import de.vandermeer.execs.options.AbstractApplicationOption;
+
+/**
+ * Application option `limits`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AO_Limits extends AbstractApplicationOption<String> {
+
+	/**
+	 * Returns the new option.
+	 */
+	public AO_Limits(){
+		super("limits for input size, elements, nesting depth, layers, and time", 
+				"Sets resource limits as comma separated list of key=value pairs, for instance \"bytes=10m,elements=100000,depth=64,layers=50,time=60s\". " +
+				"Bytes, elements, nesting depth, and layers are tested while loading the input, the time limit applies to the whole conversion including Inkscape processes. " +
+				"A conversion exceeding a limit fails with an error. " +
+				"Bytes can use the suffix k, m, or g, time the suffix ms, s, or m."
+		);
+
+		Option.Builder builder = Option.builder();
+		builder.longOpt("limits");
+		builder.hasArg().argName("LIMITS");
+		builder.required(false);
+		this.setCliOption(builder.build());
+	}
+
+	@Override
+	public String convertValue(Object value) {
+		if(value==null){
+			return null;
+		}
+		return value.toString();
+	}
+
+	/**
+	 * Returns the limits of the option.
+	 * @return limits, null if the value is not valid
+	 */
+	public ResourceLimits getLimits(){
+		return ResourceLimits.parse(this.getValue());
+	}
+
+}
@@ -15,7 +15,10 @@
 
 package de.vandermeer.svg2vector.applications.base;
 
+import java.util.ArrayList;
+
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.text.StrBuilder;
 
@@ -62,6 +65,7 @@ public class AO_TargetExt extends AO_Target {
 
 		StrBuilder ret = new StrBuilder();
 		ret.append(descr);
+		ret.append(" Multiple targets can be given as a comma separated list, e.g. pdf,emf,svg, the document is then loaded once and converted to all of them.");
 		ret.append(" Supported targets are: ").appendWithSeparators(supportedTargets, ", ");
 		return ret.toString();
 	}
@@ -76,15 +80,39 @@ public class AO_TargetExt extends AO_Target {
 
 	/**
 	 * Returns the target for a given set value.
-	 * @return the target if valid value in the option, null if no value was set or the required target not in the list of supported targets
+	 * If a list of targets is set, the first target of the list is returned.
+	 * @return the target if valid value in the option, null if no value was set or any required target not in the list of supported targets
 	 */
 	public SvgTargets getTarget(){
-		SvgTargets target = null;
-		try{
-			target = SvgTargets.valueOf(this.getValue());
+		SvgTargets[] targets = this.getTargets();
+		return (targets==null)?null:targets[0];
+	}
+
+	/**
+	 * Returns all targets for a given set value, which can be a comma separated list of targets.
+	 * Duplicate targets are ignored.
+	 * @return the targets in the order given if all values in the option are valid, null if no value was set or any required target not in the list of supported targets
+	 */
+	public SvgTargets[] getTargets(){
+		if(StringUtils.isBlank(this.getValue())){
+			return null;
 		}
-		catch(Exception ignore) {}
 
-		return (ArrayUtils.contains(supportedTargets, target))?target:null;
+		ArrayList<SvgTargets> ret = new ArrayList<>();
+		for(String value : StringUtils.split(this.getValue(), ',')){
+			SvgTargets target = null;
+			try{
+				target = SvgTargets.valueOf(value.trim());
+			}
+			catch(Exception ignore) {}
+
+			if(!ArrayUtils.contains(supportedTargets, target)){
+				return null;
+			}
+			if(!ret.contains(target)){
+				ret.add(target);
+			}
+		}
+		return (ret.size()==0)?null:ret.toArray(new SvgTargets[ret.size()]);
 	}
 }
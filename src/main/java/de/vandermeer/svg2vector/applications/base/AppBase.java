@@ -15,6 +15,14 @@
 
 package de.vandermeer.svg2vector.applications.base;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.text.StrBuilder;
 
@@ -24,6 +32,8 @@ import de.vandermeer.execs.options.ExecS_CliParser;
 
 /**
  * Abstract base class for Svg2Vector applications.
+ * Messages are sent as events to application listeners, by default to a console listener.
+ * Messages given as supplier are only created if their type is activated in the message mode.
  *
  * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
  * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
@@ -37,6 +47,18 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 	/** The properties of the application. */
 	final private P props;
 
+	/** The listeners for application events. */
+	final private List<AppListener> listeners = new CopyOnWriteArrayList<>();
+
+	/** The listener writing events as NDJSON, set from the command line. */
+	private NdjsonListener ndjson;
+
+	/** The deadline of the conversion, created from the resource limits when the application is executed. */
+	private Deadline deadline;
+
+	/** The sampling profiler set from the command line, null if not sampling. */
+	private SamplingProfiler sampler;
+
 	/**
 	 * Creates a new base application.
 	 * @param props the application properties
@@ -48,6 +70,42 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 
 		this.cli = new ExecS_CliParser();
 		this.cli.addAllOptions(this.props.getAppOptions());
+
+		this.listeners.add(new ConsoleListener());
+	}
+
+	/**
+	 * Adds a listener for application events.
+	 * @param listener new listener, ignored if null
+	 */
+	public void addListener(AppListener listener){
+		if(listener!=null){
+			this.listeners.add(listener);
+		}
+	}
+
+	/**
+	 * Removes a listener for application events, for instance the default console listener.
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(AppListener listener){
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Returns the listeners for application events.
+	 * @return unmodifiable list of listeners
+	 */
+	public List<AppListener> getListeners(){
+		return Collections.unmodifiableList(this.listeners);
+	}
+
+	/**
+	 * Returns the deadline of the conversion, which can also be used to cancel the conversion from another thread.
+	 * @return deadline, null if the application was not executed
+	 */
+	public Deadline getDeadline(){
+		return this.deadline;
 	}
 
 	/**
@@ -61,6 +119,13 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 		}
 	}
 
+	/**
+	 * Configures the document loader from application specific options, called after the command line is parsed and before the input is loaded.
+	 * The default implementation does nothing.
+	 * @param loader the document loader
+	 */
+	protected void configureLoader(L loader){}
+
 	@Override
 	public int executeApplication(String[] args) {
 		// parse command line, exit with help screen if error
@@ -70,6 +135,40 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 		}
 
 		this.props.setMessageMode();
+		if(this.props.getEventsFn()!=null){
+			String fn = this.props.getEventsFn();
+			try{
+				this.ndjson = ("-".equals(fn))?new NdjsonListener(System.out, false):new NdjsonListener(new FileOutputStream(fn), true);
+				if("-".equals(fn)){
+					//standard out is for events only
+					this.listeners.removeIf(listener -> listener instanceof ConsoleListener);
+				}
+				this.listeners.add(this.ndjson);
+			}
+			catch(IOException ex){
+				this.printErrorMessage("cannot open events file <" + fn + "> - " + ex.getMessage());
+				return -14;
+			}
+		}
+		if(this.props.doesJmx()){
+			String err = ConversionStats.register();
+			if(err!=null){
+				this.printErrorMessage(err);
+				return -15;
+			}
+		}
+		if(this.props.getSampleProfileFn()!=null){
+			this.sampler = new SamplingProfiler(SamplingProfiler.DEFAULT_INTERVAL);
+			this.sampler.start();
+		}
+		ResourceLimits limits = this.props.getLimits();
+		if(limits==null){
+			this.printErrorMessage("resource limits <" + this.props.getLimitsValue() + "> not valid, use limits like \"bytes=10m,elements=100000,depth=64,layers=50,time=60s\"");
+			return -16;
+		}
+		this.deadline = limits.newDeadline();
+		this.props.getLoader().setLimits(limits);
+		this.props.getLoader().setDeadline(this.deadline);
 
 		SvgTargets target = this.props.getTarget();
 		if(target==null){
@@ -79,10 +178,14 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 
 		String err = null;
 
+		this.configureLoader(this.props.getLoader());
+		long start = System.currentTimeMillis();
 		if((err = this.props.setInput()) != null){
 			this.printErrorMessage(err);
 			return -11;
 		}
+		this.fireEvent(AppEvent.Type.FILE_STARTED, this.props.getFinFn(), -1, () -> "processing input " + this.props.getFinFn());
+		this.firePhaseFinished("load input", start);
 		this.printWarnings();
 
 		if((err = this.props.setOutput()) != null){
@@ -93,16 +196,25 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 
 		if(this.props.doesNoLayers()){
 			this.printProgressMessage("processing single output, no layers");
-			this.printDetailMessage("target:           " + target.name());
+			this.printDetailMessage("target:           " + new StrBuilder().appendWithSeparators(this.props.getTargets(), ", "));
 			this.printDetailMessage("input fn:         " + this.props.getFinFn());
 			this.printDetailMessage("output fn:        " + this.props.getFoutFn());
+			for(SvgTargets other : this.props.getTargets()){
+				if(other!=target){
+					this.printDetailMessage("output fn:        " + this.props.getFoutFile(other).getPath());
+				}
+			}
 		}
 		else if(props.doesLayers()){
 			this.printProgressMessage("processing multi layer, multi file output");
-			this.printDetailMessage("target:           " + target.name());
+			this.printDetailMessage("target:           " + new StrBuilder().appendWithSeparators(this.props.getTargets(), ", "));
 			this.printDetailMessage("input fn:         " + this.props.getFinFn());
 			this.printDetailMessage("output dir:       " + this.props.getDout());
 			this.printDetailMessage("fn pattern:       " + this.props.getFoutPattern());
+			this.printDetailMessage("layers selected:  " + this.props.getSelectedLayers().size() + " of " + this.props.getLoader().getLayers().size());
+			if(this.props.doesArchive()){
+				this.printDetailMessage("archive:          " + this.props.getArchiveFile().getPath());
+			}
 		}
 		else{
 			this.printErrorMessage("implementation error: something wrong with property settings");
@@ -156,48 +268,117 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 	}
 
 	/**
-	 * Prints a detail message if activated in mode
-	 * @param msg the detail message, not printed if null
+	 * Tests if an event type is activated in the message mode.
+	 * @param type the event type
+	 * @return true if events of the type are sent to listeners, false otherwise
 	 */
-	public void printDetailMessage(String msg){
-		this.printMessage(msg, AppProperties.P_OPTION_DEAILS);
+	public boolean isActive(AppEvent.Type type){
+		return this.isSet(type.getMsgType());
 	}
 
 	/**
-	 * Prints a error message if activated in mode
-	 * @param err the error message, not printed if null
+	 * Sends an event to all listeners if its type is activated in the message mode.
+	 * @param type the event type
+	 * @param subject subject of the event (file, layer, phase), null if none
+	 * @param duration duration in milliseconds, -1 if none
+	 * @param msg supplier for the message, only called if the type is activated, nothing sent if the supplier returns null
 	 */
-	public void printErrorMessage(String err){
-		this.printMessage(err, AppProperties.P_OPTION_ERROR);
+	public void fireEvent(AppEvent.Type type, String subject, long duration, Supplier<String> msg){
+		if(!this.isActive(type)){
+			return;
+		}
+		String message = msg.get();
+		if(message!=null){
+			AppEvent event = new AppEvent(this.getAppName(), type, subject, duration, message);
+			for(AppListener listener : this.listeners){
+				listener.onEvent(event);
+			}
+		}
 	}
 
 	/**
-	 * Prints a message of give type.
-	 * @param msg the message, not printed if null
-	 * @param type the message type, nothing printed if not set in message mode
+	 * Sends a layer started event if progress messages are activated.
+	 * @param layer the layer label
 	 */
-	private void printMessage(String msg, int type){
-		if(msg==null){
-			return;
+	public void fireLayerStarted(String layer){
+		this.fireEvent(AppEvent.Type.LAYER_STARTED, layer, -1, () -> "processing layer " + layer);
+	}
+
+	/**
+	 * Sends a phase finished event if detail messages are activated.
+	 * @param phase the phase name
+	 * @param start start time of the phase in milliseconds, as returned by {@link System#currentTimeMillis()}
+	 */
+	public void firePhaseFinished(String phase, long start){
+		long duration = System.currentTimeMillis() - start;
+		this.fireEvent(AppEvent.Type.PHASE_FINISHED, phase, duration, () -> phase + " finished in " + duration + " ms");
+	}
+
+	/**
+	 * Waits until all listeners wrote the events sent so far.
+	 */
+	public void flushMessages(){
+		for(AppListener listener : this.listeners){
+			listener.flush();
 		}
+	}
 
-		if(this.isSet(type)){
-			if(type==AppProperties.P_OPTION_ERROR){
-				System.err.println(this.getAppName() + " error: " + msg);
-			}
-			else if(type==AppProperties.P_OPTION_WARNING){
-				System.out.println(this.getAppName() + " warning: " + msg);
-			}
-			else if(type==AppProperties.P_OPTION_PROGRESS){
-				System.out.println(this.getAppName() + ": --- " + msg);
-			}
-			else if(type==AppProperties.P_OPTION_DEAILS){
-				System.out.println(this.getAppName() + ": === " + msg);
-			}
-			else{
-				throw new IllegalArgumentException("messaging: unknown type: " + type);
-			}
+	/**
+	 * Stops the sampling profiler set from the command line and writes the sampled stacks, called when the application finishes.
+	 * @return 0 on success or if not sampling, -17 if the profile could not be written
+	 */
+	protected int finishSampling(){
+		if(this.sampler==null){
+			return 0;
+		}
+		SamplingProfiler profiler = this.sampler;
+		this.sampler = null;
+		profiler.stop();
+
+		String fn = this.props.getSampleProfileFn();
+		String err = profiler.write(new File(fn));
+		if(err!=null){
+			this.printErrorMessage(err);
+			return -17;
 		}
+		this.printDetailMessage(() -> "wrote sample profile " + fn + " with " + profiler.getSamples() + " samples, " + profiler.getStacks().size() + " stacks");
+		return 0;
+	}
+
+	/**
+	 * Flushes all listeners and closes the NDJSON listener set from the command line, called when the application finishes.
+	 */
+	protected void finishMessages(){
+		this.flushMessages();
+		if(this.ndjson!=null){
+			this.ndjson.close();
+			this.listeners.remove(this.ndjson);
+			this.ndjson = null;
+		}
+	}
+
+	/**
+	 * Prints a detail message if activated in mode
+	 * @param msg the detail message, not printed if null
+	 */
+	public void printDetailMessage(String msg){
+		this.fireEvent(AppEvent.Type.DETAIL, null, -1, () -> msg);
+	}
+
+	/**
+	 * Prints a detail message if activated in mode, the message is only created if activated.
+	 * @param msg supplier for the detail message, not printed if it returns null
+	 */
+	public void printDetailMessage(Supplier<String> msg){
+		this.fireEvent(AppEvent.Type.DETAIL, null, -1, msg);
+	}
+
+	/**
+	 * Prints a error message if activated in mode
+	 * @param err the error message, not printed if null
+	 */
+	public void printErrorMessage(String err){
+		this.fireEvent(AppEvent.Type.ERROR, null, -1, () -> err);
 	}
 
 	/**
@@ -205,7 +386,15 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 	 * @param msg the progress message, not printed if null
 	 */
 	public void printProgressMessage(String msg){
-		this.printMessage(msg, AppProperties.P_OPTION_PROGRESS);
+		this.fireEvent(AppEvent.Type.PROGRESS, null, -1, () -> msg);
+	}
+
+	/**
+	 * Prints a progress message if activated in mode, the message is only created if activated.
+	 * @param msg supplier for the progress message, not printed if it returns null
+	 */
+	public void printProgressMessage(Supplier<String> msg){
+		this.fireEvent(AppEvent.Type.PROGRESS, null, -1, msg);
 	}
 
 	/**
@@ -213,7 +402,7 @@ public abstract class AppBase <L extends SV_DocumentLoader, P extends AppPropert
 	 * @param msg the warning message, not printed if null
 	 */
 	public void printWarningMessage(String msg){
-		this.printMessage(msg, AppProperties.P_OPTION_WARNING);
+		this.fireEvent(AppEvent.Type.WARNING, null, -1, () -> msg);
 	}
 
 	/**
@@ -0,0 +1,162 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * An event of an application, sent to all application listeners.
+ * Events are only created for message types activated in the message mode of the application, so the message is always resolved.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class AppEvent {
+
+	/**
+	 * The type of an event.
+	 */
+	public enum Type {
+
+		/** Processing of an input file started, subject is the file name. */
+		FILE_STARTED(AppProperties.P_OPTION_PROGRESS),
+
+		/** Processing of a layer started, subject is the layer label. */
+		LAYER_STARTED(AppProperties.P_OPTION_PROGRESS),
+
+		/** A processing phase finished, subject is the phase name, with duration. */
+		PHASE_FINISHED(AppProperties.P_OPTION_DEAILS),
+
+		/** A progress message. */
+		PROGRESS(AppProperties.P_OPTION_PROGRESS),
+
+		/** A detail message. */
+		DETAIL(AppProperties.P_OPTION_DEAILS),
+
+		/** A warning. */
+		WARNING(AppProperties.P_OPTION_WARNING),
+
+		/** An error. */
+		ERROR(AppProperties.P_OPTION_ERROR),
+		;
+
+		/** The message type of the event type. */
+		private final int msgType;
+
+		/**
+		 * Creates a new event type.
+		 * @param msgType the message type, as used in the message mode of application properties
+		 */
+		Type(int msgType){
+			this.msgType = msgType;
+		}
+
+		/**
+		 * Returns the message type.
+		 * @return message type, as used in the message mode of application properties
+		 */
+		public int getMsgType(){
+			return this.msgType;
+		}
+	}
+
+	/** The name of the application. */
+	private final String app;
+
+	/** The event type. */
+	private final Type type;
+
+	/** Subject of the event (file, layer, phase), null for messages. */
+	private final String subject;
+
+	/** Duration in milliseconds, -1 if not set. */
+	private final long duration;
+
+	/** The message. */
+	private final String message;
+
+	/** Time of the event in milliseconds since the epoch. */
+	private final long time;
+
+	/**
+	 * Creates a new event.
+	 * @param app the application name
+	 * @param type the event type, must not be null
+	 * @param subject subject of the event, null if none
+	 * @param duration duration in milliseconds, -1 if none
+	 * @param message the message, must not be null
+	 * @throws NullPointerException if type or message was null
+	 */
+	public AppEvent(String app, Type type, String subject, long duration, String message){
+		Validate.notNull(type);
+		Validate.notNull(message);
+		this.app = app;
+		this.type = type;
+		this.subject = subject;
+		this.duration = duration;
+		this.message = message;
+		this.time = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the application name.
+	 * @return application name
+	 */
+	public String getApp(){
+		return this.app;
+	}
+
+	/**
+	 * Returns the event type.
+	 * @return event type
+	 */
+	public Type getType(){
+		return this.type;
+	}
+
+	/**
+	 * Returns the subject.
+	 * @return subject (file, layer, phase), null for messages
+	 */
+	public String getSubject(){
+		return this.subject;
+	}
+
+	/**
+	 * Returns the duration.
+	 * @return duration in milliseconds, -1 if not set
+	 */
+	public long getDuration(){
+		return this.duration;
+	}
+
+	/**
+	 * Returns the message.
+	 * @return message
+	 */
+	public String getMessage(){
+		return this.message;
+	}
+
+	/**
+	 * Returns the time of the event.
+	 * @return time in milliseconds since the epoch
+	 */
+	public long getTime(){
+		return this.time;
+	}
+}
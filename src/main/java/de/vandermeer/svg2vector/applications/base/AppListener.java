@@ -0,0 +1,39 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+/**
+ * A listener for application events, replacing direct printing of messages.
+ * Listeners can be called from several threads, implementations must be thread-safe.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public interface AppListener {
+
+	/**
+	 * Processes an event, should not block.
+	 * @param event the event
+	 */
+	void onEvent(AppEvent event);
+
+	/**
+	 * Waits until all events received so far are written.
+	 * The default implementation does nothing.
+	 */
+	default void flush(){}
+}
@@ -18,6 +18,7 @@ package de.vandermeer.svg2vector.applications.base;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -93,6 +94,18 @@ public class AppProperties <L extends SV_DocumentLoader> {
 	/** Application option to switch off error messages. */
 	final private AO_NoErrors aoNoErrors = new AO_NoErrors();
 
+	/** Application option for writing events as NDJSON. */
+	final private AO_Events aoEvents = new AO_Events();
+
+	/** Application option for providing conversion statistics as JMX MBean. */
+	final private AO_Jmx aoJmx = new AO_Jmx();
+
+	/** Application option for resource limits. */
+	final private AO_Limits aoLimits = new AO_Limits();
+
+	/** Application option for writing a sampling profile. */
+	final private AO_SampleProfile aoSampleProfile = new AO_SampleProfile();
+
 	/** Application option for target. */
 	final private AO_TargetExt aoTarget;
 
@@ -141,12 +154,36 @@ public class AppProperties <L extends SV_DocumentLoader> {
 	/** Application option for text-as-shape mode. */
 	final private AO_TextAsShape aoTextAsShape = new AO_TextAsShape();
 
+	/** Application option for writing layer outputs into a single archive. */
+	final private AO_Archive aoArchive = new AO_Archive();
+
+	/** Application option for layer labels to include. */
+	final private AO_IncludeLayers aoIncludeLayers = new AO_IncludeLayers();
+
+	/** Application option for layer labels to exclude. */
+	final private AO_ExcludeLayers aoExcludeLayers = new AO_ExcludeLayers();
+
+	/** Application option for layer indexes to include. */
+	final private AO_IncludeIndex aoIncludeIndex = new AO_IncludeIndex();
+
+	/** Application option for layer indexes to exclude. */
+	final private AO_ExcludeIndex aoExcludeIndex = new AO_ExcludeIndex();
+
+	/** Application option for splitting layers in a single streaming pass. */
+	final private AO_StreamSplit aoStreamSplit = new AO_StreamSplit();
+
+	/** Application option for removing editor content and unreferenced definitions. */
+	final private AO_CleanSvg aoCleanSvg = new AO_CleanSvg();
+
 	/** The file name of the input file. */
 	private String fin;
 
 	/** The file object for an output file (no layer mode only). */
 	private File fout;
 
+	/** The file objects for the output file of each target, in target order (no layer mode only). */
+	private final Map<SvgTargets, File> foutFiles = new LinkedHashMap<>();
+
 	/** The output directory name (layer mode only). */
 	private String dout;
 
@@ -156,9 +193,18 @@ public class AppProperties <L extends SV_DocumentLoader> {
 	/** A pattern for generating fout when processing layers, in StrSubstitutor format. */
 	private String foutPattern;
 
+	/** The archive file for all layer outputs (layer mode with archive only). */
+	private File archiveFile;
+
+	/** The filter selecting layers for processing (layer mode only). */
+	private LayerFilter layerFilter;
+
 	/** The SVG document loader. */
 	private L loader;
 
+	/** Flag for scanning instead of loading the input, set by applications that do not need a loaded document. */
+	private boolean scanInput;
+
 	/** List of warning messages collected during process. */
 	protected ArrayList<String> warnings = new ArrayList<>();
 
@@ -179,6 +225,10 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		this.addOption(this.aoMsgDetail);
 		this.addOption(this.aoMsgWarning);
 		this.addOption(this.aoNoErrors);
+		this.addOption(this.aoEvents);
+		this.addOption(this.aoJmx);
+		this.addOption(this.aoLimits);
+		this.addOption(this.aoSampleProfile);
 
 		this.addOption(this.aoTarget);
 		this.addOption(this.aoSimulate);
@@ -198,6 +248,13 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		this.addOption(this.aoFoutLayerId);
 		this.addOption(this.aoFoutNoBasename);
 		this.addOption(this.aoUseBaseName);
+		this.addOption(this.aoArchive);
+		this.addOption(this.aoIncludeLayers);
+		this.addOption(this.aoExcludeLayers);
+		this.addOption(this.aoIncludeIndex);
+		this.addOption(this.aoExcludeIndex);
+		this.addOption(this.aoStreamSplit);
+		this.addOption(this.aoCleanSvg);
 
 		this.addOption(this.aoTextAsShape);
 
@@ -206,6 +263,12 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		this.noLayersWarnings.add(this.aoFoutLayerId);
 		this.noLayersWarnings.add(this.aoFoutNoBasename);
 		this.noLayersWarnings.add(this.aoUseBaseName);
+		this.noLayersWarnings.add(this.aoArchive);
+		this.noLayersWarnings.add(this.aoIncludeLayers);
+		this.noLayersWarnings.add(this.aoExcludeLayers);
+		this.noLayersWarnings.add(this.aoIncludeIndex);
+		this.noLayersWarnings.add(this.aoExcludeIndex);
+		this.noLayersWarnings.add(this.aoStreamSplit);
 
 		this.withLayersWarnings = new ArrayList<>();
 		this.withLayersWarnings.add(this.aoSwitchOnLayers);
@@ -238,6 +301,14 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.getFoutFn()!=null && this.getDout()==null && this.getFoutPattern()==null;
 	}
 
+	/**
+	 * Tests if the properties are set to write all layer outputs into a single archive.
+	 * @return true if set to process layers into an archive, false otherwise
+	 */
+	public boolean doesArchive(){
+		return this.doesLayers() && this.archiveFile!=null;
+	}
+
 	/**
 	 * Returns the simulation flag.
 	 * @return true if application is in simulation mode, false otherwise
@@ -246,6 +317,71 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.aoSimulate.inCli();
 	}
 
+	/**
+	 * Tests if conversion statistics should be provided as JMX MBean.
+	 * @return true if the option was used, false otherwise
+	 */
+	public boolean doesJmx(){
+		return this.aoJmx.inCli();
+	}
+
+	/**
+	 * Returns the resource limits.
+	 * @return limits, {@link ResourceLimits#NONE} if the option was not used, null if the option value is not valid
+	 */
+	public ResourceLimits getLimits(){
+		return (this.aoLimits.inCli())?this.aoLimits.getLimits():ResourceLimits.NONE;
+	}
+
+	/**
+	 * Returns the value of the resource limits option.
+	 * @return option value, null if the option was not used
+	 */
+	public String getLimitsValue(){
+		return (this.aoLimits.inCli())?this.aoLimits.getValue():null;
+	}
+
+	/**
+	 * Tests if layers should be split in a single streaming pass.
+	 * @return true if layers are processed and split in a streaming pass, false otherwise
+	 */
+	public boolean doesStreamSplit(){
+		return this.aoStreamSplit.inCli() && this.doesLayers();
+	}
+
+	/**
+	 * Tests if the application requested to split layers in a single streaming pass, independent of layers being processed.
+	 * @return true if the option was used, false otherwise
+	 */
+	public boolean requestsStreamSplit(){
+		return this.aoStreamSplit.inCli();
+	}
+
+	/**
+	 * Tests if editor content and unreferenced definitions should be removed before processing.
+	 * @return true if the option was used, false otherwise
+	 */
+	public boolean doesCleanSvg(){
+		return this.aoCleanSvg.inCli();
+	}
+
+	/**
+	 * Tests if all layers should be switched on when no layers are processed.
+	 * @return true if the option was used, false otherwise
+	 */
+	public boolean doesSwitchOnLayers(){
+		return this.aoSwitchOnLayers.inCli();
+	}
+
+	/**
+	 * Sets the flag for scanning instead of loading the input, must be set before the input is set.
+	 * Applications set this flag if they never paint the loaded document, so the input is not loaded into memory.
+	 * @param scanInput true to scan the input, false to load it (unless in simulation mode)
+	 */
+	public void setScanInput(boolean scanInput){
+		this.scanInput = scanInput;
+	}
+
 	/**
 	 * Tests if the application is allowed to write output files and directories.
 	 * @return true if allowed, false otherwise
@@ -278,6 +414,22 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.options.toArray(new ApplicationOption<?>[]{});
 	}
 
+	/**
+	 * Returns the archive file for processing layers into an archive.
+	 * @return archive file, null if not set or errors on setting
+	 */
+	public File getArchiveFile(){
+		return this.archiveFile;
+	}
+
+	/**
+	 * Returns the archive format for processing layers into an archive.
+	 * @return archive format, null if not set or if the set value is not a supported format
+	 */
+	public ArchiveFormat getArchiveFormat(){
+		return this.aoArchive.getArchiveFormat();
+	}
+
 	/**
 	 * Returns the output directory name for processing layers.
 	 * @return directory name, null if not set or errors on setting
@@ -348,6 +500,15 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.fout;
 	}
 
+	/**
+	 * Returns the file for a single output file of a given target when not processing layers.
+	 * @param target the target
+	 * @return file, null if not set, if errors on setting, or if the target was not set for the conversion
+	 */
+	public File getFoutFile(SvgTargets target){
+		return this.foutFiles.get(target);
+	}
+
 	/**
 	 * Returns the generated pattern for output files.
 	 * @return generated pattern, null if not set
@@ -364,6 +525,22 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.loader;
 	}
 
+	/**
+	 * Returns the file name for writing events as NDJSON.
+	 * @return file name, '-' for standard out, null if not set
+	 */
+	public String getEventsFn(){
+		return (this.aoEvents.inCli())?this.aoEvents.getValue():null;
+	}
+
+	/**
+	 * Returns the file name for the sampling profile.
+	 * @return file name, null if no profile should be written
+	 */
+	public String getSampleProfileFn(){
+		return (this.aoSampleProfile.inCli())?this.aoSampleProfile.getValue():null;
+	}
+
 	/**
 	 * Returns the message mode.
 	 * @return message mode: 0 for quiet, bit mask otherwise
@@ -372,6 +549,26 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.msgMode;
 	}
 
+	/**
+	 * Returns the layers selected for processing, using the include and exclude options.
+	 * @return selected layers (layer name to index) in document order, all layers of the loader if no filter option was used
+	 */
+	public Map<String, Integer> getSelectedLayers(){
+		return this.getSelectedLayers(this.loader.getLayers());
+	}
+
+	/**
+	 * Returns the layers selected for processing from a map of layers, using the include and exclude options.
+	 * @param layers map of layers (layer name to index), for instance from a document loaded again
+	 * @return selected layers (layer name to index) in the order of the given map, the given map if no filter option was used
+	 */
+	public Map<String, Integer> getSelectedLayers(Map<String, Integer> layers){
+		if(this.layerFilter==null){
+			return layers;
+		}
+		return this.layerFilter.select(layers);
+	}
+
 	/**
 	 * Returns the supported targets.
 	 * @return supported targets
@@ -388,6 +585,14 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return this.aoTarget.getTarget();
 	}
 
+	/**
+	 * Returns all application targets.
+	 * @return application targets in the order set, null if none set or if any set target was not in the list of supported targets
+	 */
+	public SvgTargets[] getTargets(){
+		return this.aoTarget.getTargets();
+	}
+
 	/**
 	 * Returns the set value of the target option.
 	 * @return target option value
@@ -414,6 +619,7 @@ public class AppProperties <L extends SV_DocumentLoader> {
 
 	/**
 	 * Tests input file settings and loads it.
+	 * In simulation mode nothing is rendered, so the input is only scanned, the same is done if the application requested scanning.
 	 * @return null in success, error string on error
 	 */
 	public String setInput(){
@@ -434,7 +640,7 @@ public class AppProperties <L extends SV_DocumentLoader> {
 			}
 			this.fin = fn;
 		}
-		return this.loader.load(this.fin);
+		return (this.aoSimulate.inCli() || this.scanInput)?this.loader.scan(this.fin):this.loader.load(this.fin);
 	}
 
 	/**
@@ -471,8 +677,8 @@ public class AppProperties <L extends SV_DocumentLoader> {
 	public String setOutput(){
 		//fin, fout, dout, l, layer-i, layers-I, b, L
 
-		SvgTargets target = this.getTarget();
-		if(target==null){
+		SvgTargets[] targets = this.getTargets();
+		if(targets==null){
 			return "implementation error: cannot set output file w/o a valid target";
 		}
 		if(this.getFinFn()==null){
@@ -484,19 +690,19 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		}
 
 		if((this.aoLayers.inCli() || this.aoLayersIfExists.inCli()) && this.loader.hasInkscapeLayers()){
-			return this.setOutputWithLayers(target);
+			return this.setOutputWithLayers(targets[0]);
 		}
 		else{
-			return this.setOutputNoLayers(target);
+			return this.setOutputNoLayers(targets);
 		}
 	}
 
 	/**
 	 * Set output and do all tests for no layer processing.
-	 * @param target the set target
+	 * @param targets the set targets, first one is used for the output file name
 	 * @return null on success, error message on error
 	 */
-	private String setOutputNoLayers(SvgTargets target){
+	private String setOutputNoLayers(SvgTargets[] targets){
 		//warnings first
 		for(ApplicationOption<?> ao : this.noLayersWarnings){
 			if(ao.inCli()){
@@ -510,16 +716,20 @@ public class AppProperties <L extends SV_DocumentLoader> {
 			if(StringUtils.isBlank(fn)){
 				return "output filename is blank";
 			}
-			if(fn.endsWith("." + target.name())){
-				return "output filename <" + fn + "> should not contain target file extension";
+			for(SvgTargets target : targets){
+				if(fn.endsWith("." + target.name())){
+					return "output filename <" + fn + "> should not contain target file extension";
+				}
 			}
 		}
 		else if(this.fin!=null){
 			fn = this.fin;
-			if(fn.endsWith("." + target.name())){
-				return "no output name given and target extension same as input extension, do not want to overwrite input file";
+			for(SvgTargets target : targets){
+				if(fn.endsWith("." + target.name())){
+					return "no output name given and target extension same as input extension, do not want to overwrite input file";
+				}
 			}
-			else if(fn.endsWith(".svg")){
+			if(fn.endsWith(".svg")){
 				fn = fn.substring(0, fn.lastIndexOf('.'));
 			}
 			else if(fn.endsWith(".svgz")){
@@ -542,17 +752,23 @@ public class AppProperties <L extends SV_DocumentLoader> {
 			fn = StringUtils.replace(fn, "//", "/");
 		}
 
-		fn += "." + target.name();
-		File fnF = new File(fn);
-		if(fnF.exists() && fnF.isDirectory()){
-			return "output file <" + fn + "> exists but is a directory";
-		}
-		if(fnF.exists() && !this.aoOverwriteExisting.inCli()){
-			return "output file <" + fn + "> exists and no option <" + this.aoOverwriteExisting.getCliOption().getLongOpt() + "> used";
-		}
-		if(fnF.exists() && !fnF.canWrite() && this.aoOverwriteExisting.inCli()){
-			return "output file <" + fn + "> exists but cannot write to it";
+		Map<SvgTargets, File> files = new LinkedHashMap<>();
+		for(SvgTargets target : targets){
+			String fnT = fn + "." + target.name();
+			File fnF = new File(fnT);
+			if(fnF.exists() && fnF.isDirectory()){
+				return "output file <" + fnT + "> exists but is a directory";
+			}
+			if(fnF.exists() && !this.aoOverwriteExisting.inCli()){
+				return "output file <" + fnT + "> exists and no option <" + this.aoOverwriteExisting.getCliOption().getLongOpt() + "> used";
+			}
+			if(fnF.exists() && !fnF.canWrite() && this.aoOverwriteExisting.inCli()){
+				return "output file <" + fnT + "> exists but cannot write to it";
+			}
+			files.put(target, fnF);
 		}
+		fn += "." + targets[0].name();
+		File fnF = files.get(targets[0]);
 		File fnFParent = fnF.getParentFile();
 		if(fnFParent!=null){
 			if(fnFParent.exists() && !fnFParent.isDirectory()){
@@ -571,6 +787,8 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		//all tests ok, out fn into Fout
 		this.aoFileOut.setDefaultValue(fn);
 		this.fout = fnF;
+		this.foutFiles.clear();
+		this.foutFiles.putAll(files);
 		return null;
 	}
 
@@ -609,15 +827,37 @@ public class AppProperties <L extends SV_DocumentLoader> {
 			pattern.append('/');
 		}
 
-		if(!this.aoFoutNoBasename.inCli()){
-			if(this.aoUseBaseName.inCli()){
-				pattern.append(this.aoUseBaseName.getValue());
+		String bn;
+		if(this.aoUseBaseName.inCli()){
+			bn = this.aoUseBaseName.getValue();
+		}
+		else{
+			bn = StringUtils.substringAfterLast(this.fin, "/");
+			bn = StringUtils.substringBeforeLast(bn, ".");
+		}
+
+		if(this.aoArchive.inCli()){
+			ArchiveFormat format = this.aoArchive.getArchiveFormat();
+			if(format==null){
+				return "archive format <" + this.aoArchive.getValue() + "> not supported. Use one of the supported formats: " + new StrBuilder().appendWithSeparators(ArchiveFormat.values(), ", ");
 			}
-			else{
-				String bn = StringUtils.substringAfterLast(this.fin, "/");
-				bn = StringUtils.substringBeforeLast(bn, ".");
-				pattern.append(bn);
+			File af = new File(pattern.toString() + bn + "." + format.getExtension());
+			if(af.exists() && af.isDirectory()){
+				return "archive file <" + af.getPath().replace('\\', '/') + "> exists but is a directory";
+			}
+			if(af.exists() && !this.aoOverwriteExisting.inCli()){
+				return "archive file <" + af.getPath().replace('\\', '/') + "> exists and no option <" + this.aoOverwriteExisting.getCliOption().getLongOpt() + "> used";
 			}
+			this.archiveFile = af;
+		}
+
+		String err = this.setLayerFilter();
+		if(err!=null){
+			return err;
+		}
+
+		if(!this.aoFoutNoBasename.inCli()){
+			pattern.append(bn);
 		}
 
 
@@ -641,6 +881,40 @@ public class AppProperties <L extends SV_DocumentLoader> {
 		return null;
 	}
 
+	/**
+	 * Tests all layer filter options and sets the layer filter.
+	 * @return null on success, error message on error
+	 */
+	private String setLayerFilter(){
+		if(this.aoIncludeLayers.inCli() && this.aoIncludeLayers.getPattern()==null){
+			return "layer pattern <" + this.aoIncludeLayers.getValue() + "> for option <" + this.aoIncludeLayers.getCliOption().getLongOpt() + "> is not a valid regular expression";
+		}
+		if(this.aoExcludeLayers.inCli() && this.aoExcludeLayers.getPattern()==null){
+			return "layer pattern <" + this.aoExcludeLayers.getValue() + "> for option <" + this.aoExcludeLayers.getCliOption().getLongOpt() + "> is not a valid regular expression";
+		}
+		if(this.aoIncludeIndex.inCli() && this.aoIncludeIndex.getRanges()==null){
+			return "layer index ranges <" + this.aoIncludeIndex.getValue() + "> for option <" + this.aoIncludeIndex.getCliOption().getLongOpt() + "> not valid, use ranges like \"1-3,7\"";
+		}
+		if(this.aoExcludeIndex.inCli() && this.aoExcludeIndex.getRanges()==null){
+			return "layer index ranges <" + this.aoExcludeIndex.getValue() + "> for option <" + this.aoExcludeIndex.getCliOption().getLongOpt() + "> not valid, use ranges like \"1-3,7\"";
+		}
+
+		this.layerFilter = null;
+		LayerFilter filter = new LayerFilter(
+				(this.aoIncludeLayers.inCli())?this.aoIncludeLayers.getPattern():null,
+				(this.aoExcludeLayers.inCli())?this.aoExcludeLayers.getPattern():null,
+				(this.aoIncludeIndex.inCli())?this.aoIncludeIndex.getRanges():null,
+				(this.aoExcludeIndex.inCli())?this.aoExcludeIndex.getRanges():null
+		);
+		if(!filter.selectsAll()){
+			this.layerFilter = filter;
+			if(this.getSelectedLayers().size()==0){
+				this.warnings.add("layer filter options used but no layer selected, nothing will be converted");
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Tests if the application should keep (not remove) temporary artifacts (files and directories).
 	 * @return true if artifacts should be kept, false otherwise
@@ -0,0 +1,55 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+/**
+ * Archive formats for writing all outputs of a layer run into a single file.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public enum ArchiveFormat {
+
+	/** ZIP archive, entries are deflated and streamed directly into the archive. */
+	zip("zip"),
+
+	/** TAR archive, not compressed. */
+	tar("tar"),
+
+	/** TAR archive, compressed with GZIP. */
+	tgz("tar.gz"),
+	;
+
+	/** The file extension for the format. */
+	private final String extension;
+
+	/**
+	 * Creates a new archive format.
+	 * @param extension the file extension without leading dot
+	 */
+	ArchiveFormat(String extension){
+		this.extension = extension;
+	}
+
+	/**
+	 * Returns the file extension for the format.
+	 * @return file extension, without leading dot
+	 */
+	public String getExtension(){
+		return this.extension;
+	}
+}
@@ -0,0 +1,427 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Writes a set of outputs as entries of a single archive file.
+ * Entries are written one at a time: an entry is started with {@link #nextEntry(String)} and finished by closing the returned stream.
+ * 
+ * ZIP entries are streamed directly into the archive.
+ * TAR headers require the entry size, so a TAR entry of unknown size is streamed behind a placeholder header, which is rewritten with the size when the entry stream is closed.
+ * A compressed TAR (tgz) cannot be rewritten, so its entries must be started with their size using {@link #nextEntry(String, long)}, see {@link #requiresSize()}.
+ * No entry is ever buffered in memory or on disk.
+ * TAR entries are limited to {@link #TAR_MAX_SIZE} bytes, the largest size of the octal size field.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ArchiveOutput implements Closeable {
+
+	/** Size of a TAR record. */
+	protected static final int TAR_RECORD = 512;
+
+	/** Largest TAR entry size, 11 octal digits. */
+	public static final long TAR_MAX_SIZE = 077777777777L;
+
+	/** The archive file. */
+	protected final File file;
+
+	/** The archive format. */
+	protected final ArchiveFormat format;
+
+	/** The stream of the archive file, compressed if the format requires it. */
+	protected final OutputStream out;
+
+	/** ZIP stream, only used for ZIP format. */
+	protected final ZipOutputStream zip;
+
+	/** Channel of the archive file to rewrite entry headers, only used for uncompressed TAR format. */
+	protected final FileChannel channel;
+
+	/** The currently open entry stream, null if none open. */
+	protected OutputStream entry;
+
+	/** Number of entries written. */
+	protected int entries;
+
+	/**
+	 * Creates a new archive.
+	 * @param file the archive file, will be overwritten if it exists
+	 * @param format the archive format
+	 * @throws NullPointerException if any argument was null
+	 * @throws IOException if the archive file could not be created
+	 */
+	public ArchiveOutput(File file, ArchiveFormat format) throws IOException {
+		Validate.notNull(file);
+		Validate.notNull(format);
+
+		this.file = file;
+		this.format = format;
+		FileOutputStream fos = new FileOutputStream(file);
+		OutputStream os = new BufferedOutputStream(fos, 64*1024);
+		switch(format){
+			case zip:
+				this.zip = new ZipOutputStream(os);
+				this.channel = null;
+				this.out = this.zip;
+				break;
+			case tgz:
+				this.zip = null;
+				this.channel = null;
+				this.out = new GZIPOutputStream(os, 64*1024);
+				break;
+			case tar:
+			default:
+				this.zip = null;
+				this.channel = fos.getChannel();
+				this.out = os;
+				break;
+		}
+	}
+
+	/**
+	 * Tests if entries must be started with their size, which is the case for compressed TAR archives.
+	 * @return true if entries must be started with {@link #nextEntry(String, long)}, false if {@link #nextEntry(String)} can be used
+	 */
+	public boolean requiresSize(){
+		return this.format==ArchiveFormat.tgz;
+	}
+
+	/**
+	 * Starts a new entry of known size in the archive.
+	 * Closing the returned stream finishes the entry, the archive itself stays open.
+	 * @param name the entry name, must not be blank
+	 * @param size the number of bytes that will be written to the entry
+	 * @return stream for the entry content, closing it fails if a different number of bytes was written
+	 * @throws NullPointerException if name was null
+	 * @throws IllegalArgumentException if name was blank or size was negative or too large for a TAR entry
+	 * @throws IllegalStateException if the previous entry was not closed
+	 * @throws IOException if the entry could not be started
+	 */
+	public OutputStream nextEntry(final String name, long size) throws IOException {
+		Validate.notBlank(name);
+		Validate.isTrue(size>=0 && size<=TAR_MAX_SIZE, "archive entry size %d out of range", size);
+		if(this.zip!=null){
+			return this.nextEntry(name);
+		}
+		Validate.validState(this.entry==null, "previous archive entry not closed");
+		this.entry = new TarEntry(name, size);
+		return this.entry;
+	}
+
+	/**
+	 * Starts a new entry in the archive.
+	 * Closing the returned stream finishes the entry, the archive itself stays open.
+	 * @param name the entry name, must not be blank
+	 * @return stream for the entry content
+	 * @throws NullPointerException if name was null
+	 * @throws IllegalArgumentException if name was blank
+	 * @throws IllegalStateException if the previous entry was not closed or the archive requires the entry size
+	 * @throws IOException if the entry could not be started
+	 */
+	public OutputStream nextEntry(final String name) throws IOException {
+		Validate.notBlank(name);
+		Validate.validState(this.entry==null, "previous archive entry not closed");
+		Validate.validState(!this.requiresSize(), "entries of a %s archive require their size", this.format);
+
+		if(this.zip!=null){
+			this.zip.putNextEntry(new ZipEntry(name));
+			this.entry = new FilterOutputStream(this.zip){
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					this.out.write(b, off, len);
+				}
+
+				@Override
+				public void close() throws IOException {
+					if(ArchiveOutput.this.entry==this){
+						ArchiveOutput.this.zip.closeEntry();
+						ArchiveOutput.this.entry = null;
+						ArchiveOutput.this.entries++;
+					}
+				}
+			};
+		}
+		else{
+			this.entry = new TarEntry(name, -1);
+		}
+		return this.entry;
+	}
+
+	/**
+	 * Adds a file as a new entry to the archive, reading the file as a stream.
+	 * @param name the entry name, must not be blank
+	 * @param file the file to add, must not be null
+	 * @throws IOException if the file could not be read or the entry not be written
+	 */
+	public void addFile(String name, File file) throws IOException {
+		Validate.notNull(file);
+		try(InputStream in = new FileInputStream(file); OutputStream os = this.nextEntry(name, file.length())){
+			byte[] buffer = new byte[64*1024];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				os.write(buffer, 0, read);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries written so far.
+	 * @return number of entries
+	 */
+	public int getEntries(){
+		return this.entries;
+	}
+
+	/**
+	 * Writes the GNU long name entry for a TAR entry name longer than the name field of the header.
+	 * @param name entry name
+	 * @throws IOException on write errors
+	 */
+	protected void writeTarLongName(byte[] name) throws IOException {
+		if(name.length>100){
+			//GNU long name extension: an 'L' entry with the name as content
+			byte[] longName = new byte[name.length + 1];
+			System.arraycopy(name, 0, longName, 0, name.length);
+			this.writeTarHeader("././@LongLink".getBytes(StandardCharsets.US_ASCII), longName.length, 'L');
+			this.out.write(longName);
+			this.writeTarPadding(longName.length);
+		}
+	}
+
+	/**
+	 * Writes a TAR header record.
+	 * @param name entry name, truncated to 100 bytes
+	 * @param size entry size
+	 * @param type entry type flag
+	 * @throws IOException on write errors
+	 */
+	protected void writeTarHeader(byte[] name, long size, char type) throws IOException {
+		this.out.write(this.tarHeader(name, size, type));
+	}
+
+	/**
+	 * Creates a TAR header record.
+	 * @param name entry name, truncated to 100 bytes
+	 * @param size entry size
+	 * @param type entry type flag
+	 * @return the header record
+	 * @throws IllegalArgumentException if size does not fit the size field
+	 */
+	protected byte[] tarHeader(byte[] name, long size, char type){
+		byte[] header = new byte[TAR_RECORD];
+		System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+		this.tarOctal(header, 100, 8, 0644);
+		this.tarOctal(header, 108, 8, 0);
+		this.tarOctal(header, 116, 8, 0);
+		this.tarOctal(header, 124, 12, size);
+		this.tarOctal(header, 136, 12, System.currentTimeMillis() / 1000);
+		header[156] = (byte)type;
+		System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+		header[263] = '0';
+		header[264] = '0';
+
+		//checksum is calculated with the checksum field set to spaces
+		for(int i=148; i<156; i++){
+			header[i] = ' ';
+		}
+		long checksum = 0;
+		for(byte b : header){
+			checksum += (b & 0xff);
+		}
+		this.tarOctal(header, 148, 7, checksum);
+		header[155] = ' ';
+		return header;
+	}
+
+	/**
+	 * Writes the padding of TAR content to full records.
+	 * @param length number of content bytes
+	 * @throws IOException on write errors
+	 */
+	protected void writeTarPadding(long length) throws IOException {
+		int pad = (int)((TAR_RECORD - (length % TAR_RECORD)) % TAR_RECORD);
+		if(pad>0){
+			this.out.write(new byte[pad]);
+		}
+	}
+
+	/**
+	 * Writes a zero-padded, NUL-terminated octal number into a TAR header field.
+	 * @param header the header
+	 * @param offset field offset
+	 * @param length field length, including the terminating NUL
+	 * @param value the value to write
+	 * @throws IllegalArgumentException if value is negative or has more octal digits than the field
+	 */
+	protected void tarOctal(byte[] header, int offset, int length, long value){
+		String octal = Long.toOctalString(value);
+		int digits = length - 1;
+		Validate.isTrue(value>=0 && octal.length()<=digits, "value %d does not fit a TAR field of %d octal digits", value, digits);
+		for(int i=0; i<digits; i++){
+			int idx = octal.length() - digits + i;
+			header[offset + i] = (byte)((idx<0)?'0':octal.charAt(idx));
+		}
+		header[offset + digits] = 0;
+	}
+
+	/**
+	 * Aborts the archive after an error, closing and deleting the archive file so that no truncated archive is left.
+	 * An archive that was closed or aborted cannot be used any more.
+	 */
+	public void abort(){
+		this.entry = null;
+		try{
+			this.out.close();
+		}
+		catch(IOException ignore){}
+		this.file.delete();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(this.entry!=null){
+			this.entry.close();
+		}
+		if(this.zip==null){
+			//end of TAR archive: two empty records
+			this.out.write(new byte[2*TAR_RECORD]);
+		}
+		this.out.close();
+	}
+
+	/**
+	 * Entry of a TAR archive, streamed into the archive.
+	 * An entry of known size is written behind its final header.
+	 * An entry of unknown size is written behind a placeholder header, which is rewritten with the size on close.
+	 */
+	protected class TarEntry extends OutputStream {
+
+		/** The entry name. */
+		protected final byte[] name;
+
+		/** Size given when the entry was started, -1 if the header is rewritten on close. */
+		protected final long expected;
+
+		/** Position of the entry header in the archive file, -1 if the header is not rewritten. */
+		protected final long position;
+
+		/** Number of content bytes written. */
+		protected long size;
+
+		/**
+		 * Starts a new entry, writing its header.
+		 * @param name the entry name
+		 * @param expected the entry size, -1 to write a placeholder header rewritten on close
+		 * @throws IOException on write errors
+		 */
+		protected TarEntry(String name, long expected) throws IOException {
+			this.name = name.getBytes(StandardCharsets.UTF_8);
+			this.expected = expected;
+			ArchiveOutput.this.writeTarLongName(this.name);
+			if(expected<0){
+				ArchiveOutput.this.out.flush();
+				this.position = ArchiveOutput.this.channel.position();
+				ArchiveOutput.this.writeTarHeader(this.name, 0, '0');
+			}
+			else{
+				this.position = -1;
+				ArchiveOutput.this.writeTarHeader(this.name, expected, '0');
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.write(new byte[]{(byte)b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			long max = (this.expected<0)?TAR_MAX_SIZE:this.expected;
+			if(this.size + len > max){
+				throw new IOException("archive entry exceeds its size of " + max + " bytes");
+			}
+			ArchiveOutput.this.out.write(b, off, len);
+			this.size += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(ArchiveOutput.this.entry==this){
+				//an entry shorter than its header stays open, so closing it again and closing the archive fail as well
+				if(this.expected>=0 && this.size!=this.expected){
+					throw new IOException("archive entry has " + this.size + " bytes, its header has " + this.expected + " bytes");
+				}
+				ArchiveOutput.this.entry = null;
+				ArchiveOutput.this.writeTarPadding(this.size);
+				if(this.position>=0){
+					ArchiveOutput.this.out.flush();
+					ByteBuffer header = ByteBuffer.wrap(ArchiveOutput.this.tarHeader(this.name, this.size, '0'));
+					while(header.hasRemaining()){
+						ArchiveOutput.this.channel.write(header, this.position + header.position());
+					}
+				}
+				ArchiveOutput.this.entries++;
+			}
+		}
+	}
+
+	/**
+	 * Stream discarding its content, counting the bytes written to find the size of an entry before it is written.
+	 */
+	public static class CountingOutputStream extends OutputStream {
+
+		/** Number of bytes written. */
+		protected long count;
+
+		@Override
+		public void write(int b) {
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.count += len;
+		}
+
+		/**
+		 * Returns the number of bytes written.
+		 * @return number of bytes
+		 */
+		public long getCount(){
+			return this.count;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Application listener printing events to standard out and errors to standard error, in the format of the applications.
+ * Events are formatted on the calling thread and written asynchronously in batches by a single process-wide daemon thread.
+ * Only that thread takes lines from the queue, so lines are written in the order they were added, flushing waits for it.
+ * Events still queued when the JVM shuts down are written by a shutdown hook.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ConsoleListener implements AppListener {
+
+	@Override
+	public void onEvent(AppEvent event){
+		Writer.INSTANCE.add(event.getType()==AppEvent.Type.ERROR, format(event));
+	}
+
+	@Override
+	public void flush(){
+		Writer.INSTANCE.flush();
+	}
+
+	/**
+	 * Formats an event as console line.
+	 * @param event the event
+	 * @return formatted line
+	 */
+	public static String format(AppEvent event){
+		switch(event.getType()){
+			case ERROR:
+				return event.getApp() + " error: " + event.getMessage();
+			case WARNING:
+				return event.getApp() + " warning: " + event.getMessage();
+			case FILE_STARTED:
+			case LAYER_STARTED:
+			case PROGRESS:
+				return event.getApp() + ": --- " + event.getMessage();
+			default:
+				return event.getApp() + ": === " + event.getMessage();
+		}
+	}
+
+	/**
+	 * The process-wide writer, created on first use.
+	 */
+	private static final class Writer implements Runnable {
+
+		/** The writer. */
+		static final Writer INSTANCE = new Writer();
+
+		/** Maximum number of lines written in one batch. */
+		static final int BATCH = 256;
+
+		/** Queued lines, each with a flag for standard error. */
+		private final LinkedBlockingQueue<Object[]> queue = new LinkedBlockingQueue<>();
+
+		/** Number of lines added. */
+		private long added;
+
+		/** Number of lines written. */
+		private long written;
+
+		/** The thread writing lines. */
+		private final Thread thread;
+
+		/**
+		 * Creates the writer and starts its thread.
+		 */
+		private Writer(){
+			this.thread = new Thread(this, "s2v-console");
+			this.thread.setDaemon(true);
+			this.thread.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "s2v-console-flush"));
+		}
+
+		/**
+		 * Adds a line.
+		 * @param err true for standard error, false for standard out
+		 * @param line the line
+		 */
+		void add(boolean err, String line){
+			synchronized(this){
+				this.added++;
+			}
+			this.queue.add(new Object[]{err, line});
+		}
+
+		/**
+		 * Waits until all lines added before the call are written.
+		 * If the writer thread is gone, the calling thread writes the queued lines.
+		 */
+		void flush(){
+			if(Thread.currentThread()==this.thread){
+				return;
+			}
+			synchronized(this){
+				long target = this.added;
+				while(this.written<target){
+					if(!this.thread.isAlive()){
+						Object[] first = this.queue.poll();
+						if(first==null){
+							return;
+						}
+						this.write(first);
+						continue;
+					}
+					try{
+						this.wait(10);
+					}
+					catch(InterruptedException ex){
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+
+		@Override
+		public void run(){
+			while(true){
+				try{
+					Object[] first = this.queue.take();
+					this.write(first);
+				}
+				catch(InterruptedException ex){
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Writes a line and all lines queued after it, one batch per stream change.
+		 * @param first the first line
+		 */
+		private synchronized void write(Object[] first){
+			List<Object[]> lines = new ArrayList<>();
+			lines.add(first);
+			this.queue.drainTo(lines, BATCH - 1);
+
+			StringBuilder out = new StringBuilder();
+			boolean err = (Boolean)first[0];
+			for(Object[] line : lines){
+				if((Boolean)line[0]!=err){
+					this.print(err, out);
+					err = (Boolean)line[0];
+				}
+				out.append(line[1]).append(System.lineSeparator());
+			}
+			this.print(err, out);
+			this.written += lines.size();
+			this.notifyAll();
+		}
+
+		/**
+		 * Prints a batch of lines and clears it.
+		 * @param err true for standard error, false for standard out
+		 * @param batch the lines
+		 */
+		private void print(boolean err, StringBuilder batch){
+			if(batch.length()>0){
+				PrintStream ps = (err)?System.err:System.out;
+				ps.print(batch);
+				ps.flush();
+				batch.setLength(0);
+			}
+		}
+	}
+}
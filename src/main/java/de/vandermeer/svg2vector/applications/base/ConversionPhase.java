@@ -0,0 +1,225 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+/**
+ * A phase of a conversion, recorded as Java Flight Recorder event if a recording with the event enabled is running.
+ * While {@link ConversionStats} are collected, the end of a phase is also recorded in the statistics.
+ * Without either, or on a JVM without flight recorder and no statistics, {@link #begin(Kind)} returns a shared instance that does nothing.
+ * The flight recorder implementation is built from a separate source folder on Java 11 and later and loaded reflectively,
+ * so the class can be built and used on Java 8 without {@code jdk.jfr}.
+ * While a {@link SamplingProfiler} is running, the phase is also set as current phase of the thread for the sampled stacks.
+ * Setting fields and ending a phase then costs a method call, so phases can be used in all code paths.
+ * 
+ * A phase is used by one thread: begun, given fields, and ended.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ConversionPhase {
+
+	/**
+	 * The kinds of conversion phases, each recorded as its own event type.
+	 */
+	public enum Kind {
+
+		/** Loading a document. */
+		DOCUMENT_LOAD,
+
+		/** Scanning a document for layers. */
+		LAYER_SCAN,
+
+		/** Switching layers for processing a single layer. */
+		LAYER_SWITCH,
+
+		/** Building the graphics (GVT) tree of a document. */
+		GVT_BUILD,
+
+		/** Painting a graphics tree to a target. */
+		PAINT,
+
+		/** Writing an output file. */
+		OUTPUT_WRITE,
+
+		/** Running an Inkscape process. */
+		INKSCAPE_EXEC,
+		;
+	}
+
+	/**
+	 * Begins a phase recorded as flight recorder event.
+	 */
+	interface Recorder {
+
+		/**
+		 * Begins a phase.
+		 * @param kind the kind of phase
+		 * @param stats true to record the phase in the statistics, false otherwise
+		 * @return new recorded phase if the event for the kind is enabled, a phase for the statistics or {@link ConversionPhase#NONE} otherwise
+		 */
+		ConversionPhase record(Kind kind, boolean stats);
+	}
+
+	/** Recorder for a JVM with flight recorder, null if the JVM has no flight recorder or the implementation was not built. */
+	private static final Recorder JFR = ConversionPhase.loadRecorder();
+
+	/** Phase that is not recorded. */
+	static final ConversionPhase NONE = new ConversionPhase(null);
+
+	/** The kind of phase recorded in the statistics, null if not recorded in the statistics. */
+	private final Kind kind;
+
+	/** Start time in nanoseconds, for the statistics. */
+	private final long start;
+
+	/** The target, for the statistics. */
+	private SvgTargets target;
+
+	/** Number of bytes, for the statistics. */
+	private long bytes;
+
+	/** Flag for a phase set as current phase of the thread for sampling. */
+	private boolean sampled;
+
+	/** The phase of the thread before this phase, for sampling. */
+	private Kind previous;
+
+	/**
+	 * Creates a phase.
+	 * @param kind the kind of phase to record in the statistics, null to not record the phase in the statistics
+	 */
+	protected ConversionPhase(Kind kind){
+		this.kind = kind;
+		this.start = (kind==null)?0:System.nanoTime();
+	}
+
+	/**
+	 * Begins a phase.
+	 * @param kind the kind of phase
+	 * @return new recorded phase if an event for the kind is enabled, a shared phase doing nothing otherwise
+	 */
+	public static ConversionPhase begin(Kind kind){
+		boolean stats = ConversionStats.getInstance().isCollecting();
+		ConversionPhase ret;
+		if(JFR!=null){
+			ret = JFR.record(kind, stats);
+		}
+		else{
+			ret = (stats)?new ConversionPhase(kind):NONE;
+		}
+		if(SamplingProfiler.isSampling()){
+			if(ret==NONE){
+				ret = new ConversionPhase(null);
+			}
+			ret.sampled = true;
+			ret.previous = SamplingProfiler.enter(kind);
+		}
+		return ret;
+	}
+
+	/**
+	 * Tests if the phase is recorded.
+	 * @return true if the phase is recorded as flight recorder event or in the statistics, false otherwise
+	 */
+	public boolean isRecorded(){
+		return this.kind!=null;
+	}
+
+	/**
+	 * Sets the file of the phase.
+	 * @param file file name or URI of input or output
+	 * @return self to allow chaining
+	 */
+	public ConversionPhase file(String file){
+		return this;
+	}
+
+	/**
+	 * Sets the layer of the phase.
+	 * @param layer the layer label
+	 * @return self to allow chaining
+	 */
+	public ConversionPhase layer(String layer){
+		return this;
+	}
+
+	/**
+	 * Sets the target of the phase.
+	 * @param target the target
+	 * @return self to allow chaining
+	 */
+	public ConversionPhase target(SvgTargets target){
+		if(this.kind!=null){
+			this.target = target;
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the number of bytes read or written in the phase.
+	 * @param bytes number of bytes
+	 * @return self to allow chaining
+	 */
+	public ConversionPhase bytes(long bytes){
+		if(this.kind!=null){
+			this.bytes = bytes;
+		}
+		return this;
+	}
+
+	/**
+	 * Ends the phase, committing its event and adding it to the statistics if it is recorded.
+	 */
+	public void end(){
+		if(this.kind!=null){
+			ConversionStats.getInstance().record(this.kind, this.target, this.bytes, System.nanoTime() - this.start);
+		}
+		if(this.sampled){
+			this.sampled = false;
+			SamplingProfiler.exit(this.previous);
+		}
+	}
+
+	/**
+	 * Tests if the JVM has a flight recorder, without loading its classes if not.
+	 * @return true if flight recorder classes exist and the flight recorder is available, false otherwise
+	 */
+	private static boolean isFlightRecorderAvailable(){
+		try{
+			return (Boolean)Class.forName("jdk.jfr.FlightRecorder").getMethod("isAvailable").invoke(null);
+		}
+		catch(Exception | LinkageError ex){
+			return false;
+		}
+	}
+
+	/**
+	 * Loads the flight recorder implementation, if the JVM has a flight recorder.
+	 * @return the recorder, null if the JVM has no flight recorder or the implementation is not on the class path
+	 */
+	private static Recorder loadRecorder(){
+		if(!ConversionPhase.isFlightRecorderAvailable()){
+			return null;
+		}
+		try{
+			return (Recorder)Class.forName(ConversionPhase.class.getPackage().getName() + ".JfrConversionPhase").getDeclaredField("RECORDER").get(null);
+		}
+		catch(Exception | LinkageError ex){
+			return null;
+		}
+	}
+}
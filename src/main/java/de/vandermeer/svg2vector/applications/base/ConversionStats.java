@@ -0,0 +1,336 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Process-wide conversion statistics, provided as JMX MBean for long running processes.
+ * Phase statistics are fed by {@link ConversionPhase} when a phase ends, they are collected only while the statistics are registered.
+ * The service, the Inkscape application, and the caches feed the other values.
+ * All counters are lock-free, so feeding them does not serialize conversions running in parallel.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class ConversionStats implements ConversionStatsMXBean {
+
+	/** The JMX object name of the statistics. */
+	public static final String OBJECT_NAME = "de.vandermeer.svg2vector:type=ConversionStats";
+
+	/** The statistics. */
+	private static final ConversionStats INSTANCE = new ConversionStats();
+
+	/** Flag for collecting phase statistics, set while registered. */
+	private static volatile boolean collecting;
+
+	/** Number of finished service conversions. */
+	private final LongAdder conversions = new LongAdder();
+
+	/** Number of failed service conversions. */
+	private final LongAdder failed = new LongAdder();
+
+	/** Number of queued service conversions. */
+	private final AtomicInteger queued = new AtomicInteger();
+
+	/** Number of running service conversions. */
+	private final AtomicInteger active = new AtomicInteger();
+
+	/** Number of running Inkscape processes. */
+	private final AtomicInteger inkscape = new AtomicInteger();
+
+	/** Outputs per target. */
+	private final Map<SvgTargets, LongAdder> targets = new EnumMap<>(SvgTargets.class);
+
+	/** Number of selected layers. */
+	private final LongAdder layers = new LongAdder();
+
+	/** Bytes of loaded documents. */
+	private final LongAdder bytesIn = new LongAdder();
+
+	/** Bytes of written outputs. */
+	private final LongAdder bytesOut = new LongAdder();
+
+	/** Latencies in microseconds per phase. */
+	private final Map<ConversionPhase.Kind, LatencyHistogram> phases = new EnumMap<>(ConversionPhase.Kind.class);
+
+	/** Registered caches, hit and miss counters by name. */
+	private final Map<String, LongSupplier[]> caches = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the statistics.
+	 */
+	private ConversionStats(){
+		for(SvgTargets target : SvgTargets.values()){
+			this.targets.put(target, new LongAdder());
+		}
+		for(ConversionPhase.Kind kind : ConversionPhase.Kind.values()){
+			this.phases.put(kind, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Returns the statistics.
+	 * @return process-wide statistics
+	 */
+	public static ConversionStats getInstance(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Registers the statistics with the platform MBean server and starts collecting phase statistics.
+	 * Nothing happens if the statistics are already registered.
+	 * @return null on success, error message otherwise
+	 */
+	public static synchronized String register(){
+		if(collecting){
+			return null;
+		}
+		try{
+			ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+		}
+		catch(JMException ex){
+			return "cannot register statistics MBean <" + OBJECT_NAME + "> - " + ex.getMessage();
+		}
+		collecting = true;
+		return null;
+	}
+
+	/**
+	 * Removes the statistics from the platform MBean server and stops collecting phase statistics.
+	 * Nothing happens if the statistics are not registered.
+	 * @return null on success, error message otherwise
+	 */
+	public static synchronized String unregister(){
+		if(!collecting){
+			return null;
+		}
+		collecting = false;
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try{
+			server.unregisterMBean(new ObjectName(OBJECT_NAME));
+		}
+		catch(JMException ex){
+			return "cannot unregister statistics MBean <" + OBJECT_NAME + "> - " + ex.getMessage();
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a cache, replacing a cache of the same name.
+	 * @param name the cache name
+	 * @param hits supplier for the number of hits
+	 * @param misses supplier for the number of misses
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if name was blank
+	 */
+	public void addCache(String name, LongSupplier hits, LongSupplier misses){
+		Validate.notBlank(name);
+		Validate.notNull(hits);
+		Validate.notNull(misses);
+		this.caches.put(name, new LongSupplier[]{hits, misses});
+	}
+
+	/**
+	 * Records the end of a conversion phase.
+	 * @param kind the kind of phase
+	 * @param target the target of the phase, null if none
+	 * @param bytes number of bytes read or written in the phase
+	 * @param nanos duration of the phase in nanoseconds
+	 */
+	void record(ConversionPhase.Kind kind, SvgTargets target, long bytes, long nanos){
+		this.phases.get(kind).record(nanos / 1000);
+		switch(kind){
+			case DOCUMENT_LOAD:
+				this.bytesIn.add(bytes);
+				break;
+			case LAYER_SWITCH:
+				this.layers.increment();
+				break;
+			case PAINT:
+				if(target!=null){
+					this.targets.get(target).increment();
+				}
+				break;
+			case OUTPUT_WRITE:
+				this.bytesOut.add(bytes);
+				break;
+			case INKSCAPE_EXEC:
+				if(target!=null){
+					this.targets.get(target).increment();
+				}
+				this.bytesOut.add(bytes);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Records a service conversion submitted to an executor.
+	 */
+	public void conversionQueued(){
+		this.queued.incrementAndGet();
+	}
+
+	/**
+	 * Records a queued service conversion that was cancelled before it started.
+	 */
+	public void conversionDequeued(){
+		this.queued.decrementAndGet();
+	}
+
+	/**
+	 * Records the start of a service conversion.
+	 * @param wasQueued true if the conversion was recorded as queued before, false otherwise
+	 */
+	public void conversionStarted(boolean wasQueued){
+		if(wasQueued){
+			this.queued.decrementAndGet();
+		}
+		this.active.incrementAndGet();
+	}
+
+	/**
+	 * Records the end of a service conversion.
+	 * @param success true if the conversion was successful, false otherwise
+	 */
+	public void conversionFinished(boolean success){
+		this.active.decrementAndGet();
+		this.conversions.increment();
+		if(!success){
+			this.failed.increment();
+		}
+	}
+
+	/**
+	 * Records the start of an Inkscape process.
+	 */
+	public void inkscapeStarted(){
+		this.inkscape.incrementAndGet();
+	}
+
+	/**
+	 * Records the end of an Inkscape process.
+	 */
+	public void inkscapeFinished(){
+		this.inkscape.decrementAndGet();
+	}
+
+	@Override
+	public boolean isCollecting(){
+		return collecting;
+	}
+
+	@Override
+	public long getConversions(){
+		return this.conversions.sum();
+	}
+
+	@Override
+	public long getFailedConversions(){
+		return this.failed.sum();
+	}
+
+	@Override
+	public int getQueuedConversions(){
+		return this.queued.get();
+	}
+
+	@Override
+	public int getActiveConversions(){
+		return this.active.get();
+	}
+
+	@Override
+	public int getActiveInkscapeProcesses(){
+		return this.inkscape.get();
+	}
+
+	@Override
+	public Map<String, Long> getConversionsByTarget(){
+		Map<String, Long> ret = new TreeMap<>();
+		for(Entry<SvgTargets, LongAdder> entry : this.targets.entrySet()){
+			ret.put(entry.getKey().name(), entry.getValue().sum());
+		}
+		return ret;
+	}
+
+	@Override
+	public long getLayersProcessed(){
+		return this.layers.sum();
+	}
+
+	@Override
+	public long getBytesIn(){
+		return this.bytesIn.sum();
+	}
+
+	@Override
+	public long getBytesOut(){
+		return this.bytesOut.sum();
+	}
+
+	@Override
+	public Map<String, PhaseLatency> getPhaseLatencies(){
+		Map<String, PhaseLatency> ret = new TreeMap<>();
+		for(Entry<ConversionPhase.Kind, LatencyHistogram> entry : this.phases.entrySet()){
+			ret.put(entry.getKey().name(), PhaseLatency.from(entry.getValue()));
+		}
+		return ret;
+	}
+
+	@Override
+	public Map<String, Double> getCacheHitRates(){
+		Map<String, Double> ret = new TreeMap<>();
+		for(Entry<String, LongSupplier[]> entry : this.caches.entrySet()){
+			long hits = entry.getValue()[0].getAsLong();
+			long lookups = hits + entry.getValue()[1].getAsLong();
+			ret.put(entry.getKey(), (lookups==0)?0.0:(double)hits / lookups);
+		}
+		return ret;
+	}
+
+	@Override
+	public void reset(){
+		this.conversions.reset();
+		this.failed.reset();
+		for(LongAdder adder : this.targets.values()){
+			adder.reset();
+		}
+		this.layers.reset();
+		this.bytesIn.reset();
+		this.bytesOut.reset();
+		for(LatencyHistogram histogram : this.phases.values()){
+			histogram.reset();
+		}
+	}
+}
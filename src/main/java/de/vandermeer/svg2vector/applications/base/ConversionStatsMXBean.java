@@ -0,0 +1,107 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.Map;
+
+/**
+ * Management interface of the conversion statistics, registered as {@link ConversionStats#OBJECT_NAME}.
+ * Phase statistics (latencies, bytes, conversions by target, layers) are collected once the statistics are registered.
+ * Queued and active conversions, Inkscape processes, and cache hit rates are always available.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public interface ConversionStatsMXBean {
+
+	/**
+	 * Tests if phase statistics are collected.
+	 * @return true if collected, false otherwise
+	 */
+	boolean isCollecting();
+
+	/**
+	 * Returns the number of finished service conversions.
+	 * @return number of conversions, successful or failed
+	 */
+	long getConversions();
+
+	/**
+	 * Returns the number of failed service conversions.
+	 * @return number of failed conversions
+	 */
+	long getFailedConversions();
+
+	/**
+	 * Returns the number of service conversions submitted but not yet started.
+	 * @return queue depth
+	 */
+	int getQueuedConversions();
+
+	/**
+	 * Returns the number of service conversions in flight.
+	 * @return number of running conversions
+	 */
+	int getActiveConversions();
+
+	/**
+	 * Returns the number of running Inkscape child processes.
+	 * @return number of processes
+	 */
+	int getActiveInkscapeProcesses();
+
+	/**
+	 * Returns the number of outputs painted or created by Inkscape, per target.
+	 * @return map of target name to number of outputs
+	 */
+	Map<String, Long> getConversionsByTarget();
+
+	/**
+	 * Returns the number of layers selected for processing.
+	 * @return number of layers
+	 */
+	long getLayersProcessed();
+
+	/**
+	 * Returns the number of bytes of loaded documents.
+	 * @return bytes read
+	 */
+	long getBytesIn();
+
+	/**
+	 * Returns the number of bytes of written outputs.
+	 * @return bytes written
+	 */
+	long getBytesOut();
+
+	/**
+	 * Returns the latencies of conversion phases.
+	 * @return map of phase name to latency
+	 */
+	Map<String, PhaseLatency> getPhaseLatencies();
+
+	/**
+	 * Returns the hit rates of the registered caches.
+	 * @return map of cache name to hit rate (0 to 1), 0 for caches without lookups
+	 */
+	Map<String, Double> getCacheHitRates();
+
+	/**
+	 * Resets all counters and histograms, gauges (queued and active conversions, Inkscape processes) and caches are not changed.
+	 */
+	void reset();
+}
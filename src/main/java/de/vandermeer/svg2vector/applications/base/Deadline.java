@@ -0,0 +1,121 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * The deadline of a conversion, which can also be cancelled.
+ * Long running steps of a conversion (parsing, building the graphics tree, painting, Inkscape processes) test the deadline cooperatively and stop when it is exceeded.
+ * The deadline is thread-safe, it can be cancelled from any thread.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Deadline {
+
+	/** The time limit in milliseconds, 0 for none. */
+	protected final long millis;
+
+	/** The end of the time limit in nanoseconds, as given by {@link System#nanoTime()}. */
+	protected final long end;
+
+	/** Flag for a cancelled conversion. */
+	protected volatile boolean cancelled;
+
+	/**
+	 * Creates a new deadline starting now.
+	 * @param millis the time limit in milliseconds, 0 for a deadline without time limit that can only be cancelled
+	 * @throws IllegalArgumentException if millis was negative
+	 */
+	public Deadline(long millis){
+		Validate.isTrue(millis>=0, "time limit must not be negative, was %d", millis);
+		this.millis = millis;
+		this.end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	/**
+	 * Cancels the conversion, it stops at its next test of the deadline.
+	 */
+	public void cancel(){
+		this.cancelled = true;
+	}
+
+	/**
+	 * Tests if the conversion was cancelled.
+	 * @return true if cancelled, false otherwise
+	 */
+	public boolean isCancelled(){
+		return this.cancelled;
+	}
+
+	/**
+	 * Returns the time limit.
+	 * @return time limit in milliseconds, 0 for none
+	 */
+	public long getMillis(){
+		return this.millis;
+	}
+
+	/**
+	 * Tests if the deadline is exceeded or the conversion was cancelled.
+	 * @return true if exceeded or cancelled, false otherwise
+	 */
+	public boolean isExceeded(){
+		return this.cancelled || (this.millis>0 && System.nanoTime() - this.end >= 0);
+	}
+
+	/**
+	 * Returns the time left until the deadline.
+	 * @return remaining time in milliseconds, 0 if exceeded or cancelled, {@link Long#MAX_VALUE} if the deadline has no time limit
+	 */
+	public long getRemainingMillis(){
+		if(this.cancelled){
+			return 0;
+		}
+		if(this.millis==0){
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.end - System.nanoTime()));
+	}
+
+	/**
+	 * Returns the error for an exceeded deadline.
+	 * @return null if the deadline is not exceeded, error message otherwise
+	 */
+	public String getError(){
+		if(this.cancelled){
+			return "conversion cancelled";
+		}
+		if(this.isExceeded()){
+			return "conversion exceeded time limit of " + this.millis + " ms";
+		}
+		return null;
+	}
+
+	/**
+	 * Tests the deadline.
+	 * @throws DeadlineExceededException if the deadline is exceeded or the conversion was cancelled
+	 */
+	public void check(){
+		if(this.isExceeded()){
+			throw new DeadlineExceededException(this.getError());
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+/**
+ * Exception thrown when a conversion exceeded its deadline or was cancelled, see {@link Deadline#check()}.
+ * It unwinds painting and building of graphics trees, converters catch it and return its message as error.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+	/** Serial version UID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new exception.
+	 * @param message the error message
+	 */
+	public DeadlineExceededException(String message){
+		super(message);
+	}
+}
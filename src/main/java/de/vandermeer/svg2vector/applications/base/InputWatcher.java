@@ -0,0 +1,216 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A watcher for input files, reporting changed files after a burst of changes has settled.
+ * Inputs can be files or directories, for directories all SVG files (extension svg or svgz) in the directory are watched.
+ * Editors often save a file in several steps (write a temporary file, rename it, change attributes), so changes are collected until no change was seen for the debounce time and then reported together.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class InputWatcher implements Closeable {
+
+	/** Default debounce time in milliseconds. */
+	public static final long DEFAULT_DEBOUNCE = 300;
+
+	/** The watch service. */
+	protected final WatchService service;
+
+	/** Watched files, absolute and normalized. */
+	protected final Set<Path> files = new HashSet<>();
+
+	/** Watched directories, absolute and normalized. */
+	protected final Set<Path> dirs = new HashSet<>();
+
+	/** Debounce time in milliseconds. */
+	protected final long debounce;
+
+	/**
+	 * Creates a new watcher and registers all inputs.
+	 * @param inputs files and directories to watch, must not be empty
+	 * @param debounce time in milliseconds without changes before changes are reported, must not be negative
+	 * @throws IOException if the watch service could not be created or an input could not be registered
+	 * @throws NullPointerException if inputs was null or had null elements
+	 * @throws IllegalArgumentException if inputs was empty or debounce was negative
+	 */
+	public InputWatcher(Collection<Path> inputs, long debounce) throws IOException {
+		Validate.notEmpty(inputs);
+		Validate.noNullElements(inputs);
+		Validate.isTrue(debounce>=0, "debounce must not be negative, was %d", debounce);
+		this.debounce = debounce;
+		this.service = FileSystems.getDefault().newWatchService();
+
+		Set<Path> registered = new HashSet<>();
+		for(Path input : inputs){
+			Path path = input.toAbsolutePath().normalize();
+			Path dir = path;
+			if(Files.isDirectory(path)){
+				this.dirs.add(path);
+			}
+			else{
+				this.files.add(path);
+				dir = path.getParent();
+			}
+			if(registered.add(dir)){
+				dir.register(this.service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			}
+		}
+	}
+
+	/**
+	 * Tests if a changed path is watched.
+	 * @param path the absolute path
+	 * @return true if the path is a watched file or an SVG file in a watched directory, false otherwise
+	 */
+	public boolean accepts(Path path){
+		if(this.files.contains(path)){
+			return true;
+		}
+		String name = path.getFileName().toString();
+		return this.dirs.contains(path.getParent()) && (name.endsWith(".svg") || name.endsWith(".svgz"));
+	}
+
+	/**
+	 * Watches all inputs until the watcher is closed or the calling thread is interrupted.
+	 * Each settled burst of changes is given to the listener on the calling thread, so the listener should hand long work to another thread.
+	 * @param listener the listener for changes, must not be null
+	 * @throws InterruptedException if interrupted while waiting for changes
+	 * @throws NullPointerException if listener was null
+	 */
+	public void run(Consumer<Change> listener) throws InterruptedException {
+		Validate.notNull(listener);
+		Set<Path> pending = new LinkedHashSet<>();
+		long first = 0;
+		long last = 0;
+		try{
+			while(true){
+				WatchKey key = (pending.isEmpty())?this.service.take():this.service.poll(this.debounce, TimeUnit.MILLISECONDS);
+				if(key==null){
+					listener.accept(new Change(pending, first, last));
+					pending = new LinkedHashSet<>();
+					continue;
+				}
+
+				Path dir = (Path)key.watchable();
+				for(WatchEvent<?> event : key.pollEvents()){
+					Set<Path> changed = new HashSet<>();
+					if(event.kind()==StandardWatchEventKinds.OVERFLOW){
+						changed.addAll(this.files);
+					}
+					else{
+						Path path = dir.resolve((Path)event.context());
+						if(this.accepts(path)){
+							changed.add(path);
+						}
+					}
+					if(changed.size()>0){
+						last = System.currentTimeMillis();
+						if(pending.isEmpty()){
+							first = last;
+						}
+						pending.addAll(changed);
+					}
+				}
+				key.reset();
+			}
+		}
+		catch(ClosedWatchServiceException ex){
+			return;
+		}
+	}
+
+	/**
+	 * Stops watching, a running {@link #run(Consumer)} returns.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.service.close();
+	}
+
+	/**
+	 * A settled burst of changes.
+	 */
+	public static class Change {
+
+		/** The changed paths. */
+		protected final Set<Path> paths;
+
+		/** Time of the first change event in milliseconds. */
+		protected final long first;
+
+		/** Time of the last change event in milliseconds. */
+		protected final long last;
+
+		/**
+		 * Creates a new change.
+		 * @param paths the changed paths
+		 * @param first time of the first change event
+		 * @param last time of the last change event
+		 */
+		public Change(Set<Path> paths, long first, long last){
+			this.paths = Collections.unmodifiableSet(paths);
+			this.first = first;
+			this.last = last;
+		}
+
+		/**
+		 * Returns the changed paths.
+		 * @return absolute paths in the order of their first change
+		 */
+		public Set<Path> getPaths(){
+			return this.paths;
+		}
+
+		/**
+		 * Returns the time of the first change event of the burst.
+		 * @return time in milliseconds since the epoch
+		 */
+		public long getFirst(){
+			return this.first;
+		}
+
+		/**
+		 * Returns the time of the last change event of the burst.
+		 * @return time in milliseconds since the epoch
+		 */
+		public long getLast(){
+			return this.last;
+		}
+	}
+}
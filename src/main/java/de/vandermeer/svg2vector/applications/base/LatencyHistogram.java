@@ -0,0 +1,156 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A lock-free histogram of non-negative values, for instance latencies in microseconds.
+ * Values are counted in buckets with four buckets per power of two, so percentiles are reported with an error of at most 25%.
+ * Values below 4 are counted exactly.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class LatencyHistogram {
+
+	/** Number of buckets, enough for all non-negative long values. */
+	static final int BUCKETS = 248;
+
+	/** The buckets. */
+	protected final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	/** Number of recorded values. */
+	protected final LongAdder count = new LongAdder();
+
+	/** Sum of recorded values. */
+	protected final LongAdder total = new LongAdder();
+
+	/** Largest recorded value. */
+	protected final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+	/**
+	 * Records a value.
+	 * @param value the value, negative values are recorded as 0
+	 */
+	public void record(long value){
+		if(value<0){
+			value = 0;
+		}
+		this.buckets.incrementAndGet(LatencyHistogram.bucket(value));
+		this.count.increment();
+		this.total.add(value);
+		this.max.accumulate(value);
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 * @return number of values
+	 */
+	public long getCount(){
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the sum of all recorded values.
+	 * @return sum of values
+	 */
+	public long getTotal(){
+		return this.total.sum();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 * @return largest value, 0 if none recorded
+	 */
+	public long getMax(){
+		return this.max.get();
+	}
+
+	/**
+	 * Returns a percentile of the recorded values.
+	 * @param percentile the percentile, from 0 to 100
+	 * @return upper bound of the bucket with the percentile, not larger than the largest value; 0 if no value recorded
+	 * @throws IllegalArgumentException if percentile was not between 0 and 100
+	 */
+	public long getPercentile(double percentile){
+		Validate.inclusiveBetween(0.0, 100.0, percentile);
+
+		long[] counts = new long[BUCKETS];
+		long n = 0;
+		for(int i=0; i<BUCKETS; i++){
+			counts[i] = this.buckets.get(i);
+			n += counts[i];
+		}
+		if(n==0){
+			return 0;
+		}
+
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for(int i=0; i<BUCKETS; i++){
+			seen += counts[i];
+			if(seen>=rank){
+				return Math.min(LatencyHistogram.upperBound(i), this.getMax());
+			}
+		}
+		return this.getMax();
+	}
+
+	/**
+	 * Removes all recorded values.
+	 * Values recorded at the same time can be partially kept.
+	 */
+	public void reset(){
+		for(int i=0; i<BUCKETS; i++){
+			this.buckets.set(i, 0);
+		}
+		this.count.reset();
+		this.total.reset();
+		this.max.reset();
+	}
+
+	/**
+	 * Returns the bucket for a value.
+	 * @param value non-negative value
+	 * @return bucket index
+	 */
+	static int bucket(long value){
+		if(value<4){
+			return (int)value;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		return 4 * (exp - 1) + (int)((value >>> (exp - 2)) & 3);
+	}
+
+	/**
+	 * Returns the largest value counted in a bucket.
+	 * @param bucket bucket index
+	 * @return largest value of the bucket
+	 */
+	static long upperBound(int bucket){
+		if(bucket<4){
+			return bucket;
+		}
+		int exp = bucket / 4 + 1;
+		return ((4L + bucket % 4 + 1) << (exp - 2)) - 1;
+	}
+}
@@ -0,0 +1,190 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A filter selecting layers for processing by label and by index.
+ * A layer is selected if it matches all include settings and no exclude setting, settings not used are ignored.
+ * A label matches a pattern if the pattern is found in the label, an index matches ranges if it is in any of the ranges.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class LayerFilter {
+
+	/** Pattern for labels to include, null to include all. */
+	protected final Pattern include;
+
+	/** Pattern for labels to exclude, null to exclude none. */
+	protected final Pattern exclude;
+
+	/** Index ranges to include, null to include all. */
+	protected final List<int[]> includeIndex;
+
+	/** Index ranges to exclude, null to exclude none. */
+	protected final List<int[]> excludeIndex;
+
+	/**
+	 * Creates a new filter.
+	 * @param include pattern for labels to include, null to include all
+	 * @param exclude pattern for labels to exclude, null to exclude none
+	 * @param includeIndex index ranges to include, null to include all
+	 * @param excludeIndex index ranges to exclude, null to exclude none
+	 */
+	public LayerFilter(Pattern include, Pattern exclude, List<int[]> includeIndex, List<int[]> excludeIndex){
+		this.include = include;
+		this.exclude = exclude;
+		this.includeIndex = includeIndex;
+		this.excludeIndex = excludeIndex;
+	}
+
+	/**
+	 * Tests if the filter selects all layers.
+	 * @return true if no include or exclude setting is used, false otherwise
+	 */
+	public boolean selectsAll(){
+		return this.include==null && this.exclude==null && this.includeIndex==null && this.excludeIndex==null;
+	}
+
+	/**
+	 * Tests if a layer is selected.
+	 * @param label the layer label
+	 * @param index the layer index
+	 * @return true if the layer is selected, false otherwise
+	 */
+	public boolean accept(String label, int index){
+		String l = (label==null)?"":label;
+		if(this.include!=null && !this.include.matcher(l).find()){
+			return false;
+		}
+		if(this.includeIndex!=null && !inRanges(index, this.includeIndex)){
+			return false;
+		}
+		if(this.exclude!=null && this.exclude.matcher(l).find()){
+			return false;
+		}
+		if(this.excludeIndex!=null && inRanges(index, this.excludeIndex)){
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the selected layers.
+	 * @param layers map of layers (layer name to index)
+	 * @return map of selected layers, in the iteration order of the given map
+	 */
+	public Map<String, Integer> select(Map<String, Integer> layers){
+		Map<String, Integer> ret = new LinkedHashMap<>();
+		for(Entry<String, Integer> entry : layers.entrySet()){
+			if(this.accept(entry.getKey(), (entry.getValue()==null)?0:entry.getValue())){
+				ret.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Parses a regular expression.
+	 * @param regex the regular expression
+	 * @return the pattern, null if regex was blank or is not a valid regular expression
+	 */
+	public static Pattern parsePattern(String regex){
+		if(StringUtils.isBlank(regex)){
+			return null;
+		}
+		try{
+			return Pattern.compile(regex);
+		}
+		catch(PatternSyntaxException ex){
+			return null;
+		}
+	}
+
+	/**
+	 * Parses index ranges, separated by comma, each range either a single index or two indexes separated by a dash, e.g. "1-3,7".
+	 * @param ranges the ranges
+	 * @return list of ranges as from-to pairs, null if ranges was blank or has invalid ranges
+	 */
+	public static List<int[]> parseRanges(String ranges){
+		if(StringUtils.isBlank(ranges)){
+			return null;
+		}
+		List<int[]> ret = new ArrayList<>();
+		try{
+			for(String range : StringUtils.split(ranges, ',')){
+				String from = StringUtils.substringBefore(range, "-").trim();
+				String to = (range.contains("-"))?StringUtils.substringAfter(range, "-").trim():from;
+				int[] r = new int[]{Integer.parseInt(from), Integer.parseInt(to)};
+				if(r[0]>r[1]){
+					return null;
+				}
+				ret.add(r);
+			}
+		}
+		catch(NumberFormatException ex){
+			return null;
+		}
+		return (ret.size()==0)?null:ret;
+	}
+
+	@Override
+	public String toString(){
+		return "include=" + this.include + ", exclude=" + this.exclude + ", include-index=" + toString(this.includeIndex) + ", exclude-index=" + toString(this.excludeIndex);
+	}
+
+	/**
+	 * Returns ranges in the format read by {@link #parseRanges(String)}.
+	 * @param ranges the ranges
+	 * @return ranges as string, "null" if ranges was null
+	 */
+	protected static String toString(List<int[]> ranges){
+		if(ranges==null){
+			return "null";
+		}
+		List<String> ret = new ArrayList<>();
+		for(int[] r : ranges){
+			ret.add((r[0]==r[1])?Integer.toString(r[0]):r[0] + "-" + r[1]);
+		}
+		return StringUtils.join(ret, ',');
+	}
+
+	/**
+	 * Tests if an index is in any of the given ranges.
+	 * @param index the index
+	 * @param ranges the ranges
+	 * @return true if index is in a range, false otherwise
+	 */
+	protected static boolean inRanges(int index, List<int[]> ranges){
+		for(int[] r : ranges){
+			if(index>=r[0] && index<=r[1]){
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,121 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Application listener writing events as newline delimited JSON, one object per line, for machine consumers.
+ * Each object has the members `time`, `app`, `type`, `subject`, `duration`, and `message`, members not set are null.
+ * Lines are buffered and written when the buffer is full or the listener is flushed.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class NdjsonListener implements AppListener {
+
+	/** The writer for events. */
+	protected final Writer writer;
+
+	/** Flag for closing the stream on flush, false for streams like standard out. */
+	protected final boolean close;
+
+	/** The first write error, null if none. */
+	protected IOException error;
+
+	/**
+	 * Creates a new listener.
+	 * @param out stream to write events to, must not be null
+	 * @param close true to close the stream on {@link #close()}, false to only flush it
+	 * @throws NullPointerException if out was null
+	 */
+	public NdjsonListener(OutputStream out, boolean close){
+		Validate.notNull(out);
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.close = close;
+	}
+
+	@Override
+	public synchronized void onEvent(AppEvent event){
+		if(this.error!=null){
+			return;
+		}
+		try{
+			this.writer.write(toJson(event));
+			this.writer.write('\n');
+		}
+		catch(IOException ex){
+			this.error = ex;
+		}
+	}
+
+	@Override
+	public synchronized void flush(){
+		try{
+			this.writer.flush();
+		}
+		catch(IOException ex){
+			if(this.error==null){
+				this.error = ex;
+			}
+		}
+	}
+
+	/**
+	 * Flushes the listener and closes the stream if requested.
+	 */
+	public synchronized void close(){
+		this.flush();
+		if(this.close){
+			try{
+				this.writer.close();
+			}
+			catch(IOException ignore){}
+		}
+	}
+
+	/**
+	 * Returns the first write error.
+	 * @return write error, null if none
+	 */
+	public IOException getError(){
+		return this.error;
+	}
+
+	/**
+	 * Returns an event as JSON object.
+	 * @param event the event
+	 * @return JSON object in a single line
+	 */
+	public static String toJson(AppEvent event){
+		return "{\"time\": " + event.getTime()
+				+ ", \"app\": " + SvgPrescan.jsonString(event.getApp())
+				+ ", \"type\": " + SvgPrescan.jsonString(event.getType().name().toLowerCase().replace('_', '-'))
+				+ ", \"subject\": " + SvgPrescan.jsonString(event.getSubject())
+				+ ", \"duration\": " + ((event.getDuration()<0)?"null":Long.toString(event.getDuration()))
+				+ ", \"message\": " + SvgPrescan.jsonString(event.getMessage())
+				+ "}"
+		;
+	}
+}
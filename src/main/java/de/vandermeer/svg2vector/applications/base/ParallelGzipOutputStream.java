@@ -0,0 +1,235 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * An output stream writing GZIP data, compressing blocks of the input in parallel.
+ * Each block is compressed into an independent GZIP member and members are written in order, so the result is a multi-member GZIP file any standard tool can read (same as pigz does).
+ * 
+ * The number of blocks being compressed at any time is bounded, so memory use is limited to a few blocks per available processor regardless of the output size.
+ * Closing the stream closes the underlying stream.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	/** Default block size, 1 MiB. */
+	public static final int DEFAULT_BLOCK_SIZE = 1024*1024;
+
+	/** Number of threads used for compression. */
+	public static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	/** The underlying stream. */
+	protected final OutputStream out;
+
+	/** Size of blocks compressed independently. */
+	protected final int blockSize;
+
+	/** Maximum number of blocks submitted but not yet written. */
+	protected final int maxPending;
+
+	/** Blocks submitted for compression, in write order. */
+	protected final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+	/** The current block. */
+	protected byte[] block;
+
+	/** Number of bytes in the current block. */
+	protected int count;
+
+	/** Number of GZIP members submitted. */
+	protected int members;
+
+	/** Flag for closed stream. */
+	protected boolean closed;
+
+	/**
+	 * Creates a new stream with default block size.
+	 * @param out the underlying stream, must not be null
+	 * @throws NullPointerException if out was null
+	 */
+	public ParallelGzipOutputStream(OutputStream out){
+		this(out, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a new stream.
+	 * @param out the underlying stream, must not be null
+	 * @param blockSize size of independently compressed blocks, must be positive
+	 * @throws NullPointerException if out was null
+	 * @throws IllegalArgumentException if block size was not positive
+	 */
+	public ParallelGzipOutputStream(OutputStream out, int blockSize){
+		Validate.notNull(out);
+		Validate.isTrue(blockSize>0, "block size must be positive, was %d", blockSize);
+
+		this.out = out;
+		this.blockSize = blockSize;
+		this.maxPending = 2 * THREADS;
+		this.block = new byte[blockSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		this.ensureOpen();
+		this.block[this.count++] = (byte)b;
+		if(this.count==this.blockSize){
+			this.submitBlock();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		this.ensureOpen();
+		while(len>0){
+			int n = Math.min(len, this.blockSize - this.count);
+			System.arraycopy(b, off, this.block, this.count, n);
+			this.count += n;
+			off += n;
+			len -= n;
+			if(this.count==this.blockSize){
+				this.submitBlock();
+			}
+		}
+	}
+
+	/**
+	 * Writes all members that are already compressed and flushes the underlying stream.
+	 * The current block is not submitted, flushing does not reduce block size or compression ratio.
+	 */
+	@Override
+	public void flush() throws IOException {
+		this.ensureOpen();
+		while(!this.pending.isEmpty() && this.pending.peek().isDone()){
+			this.writeMember();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(this.closed){
+			return;
+		}
+		this.closed = true;
+		try{
+			if(this.count>0 || this.members==0){
+				this.submitBlock();
+			}
+			while(!this.pending.isEmpty()){
+				this.writeMember();
+			}
+		}
+		finally{
+			for(Future<byte[]> f : this.pending){
+				f.cancel(true);
+			}
+			this.pending.clear();
+			this.block = null;
+			this.out.close();
+		}
+	}
+
+	/**
+	 * Submits the current block for compression and starts a new block.
+	 * Blocks until the oldest member is written if too many blocks are pending.
+	 * @throws IOException if writing a member failed
+	 */
+	protected void submitBlock() throws IOException {
+		final byte[] data = this.block;
+		final int length = this.count;
+		this.pending.add(Compressor.EXECUTOR.submit(() -> compress(data, length)));
+		this.members++;
+		this.block = new byte[this.blockSize];
+		this.count = 0;
+
+		while(this.pending.size()>this.maxPending){
+			this.writeMember();
+		}
+	}
+
+	/**
+	 * Waits for the oldest pending member and writes it to the underlying stream.
+	 * @throws IOException if compression failed, the thread was interrupted, or writing failed
+	 */
+	protected void writeMember() throws IOException {
+		Future<byte[]> f = this.pending.poll();
+		try{
+			this.out.write(f.get());
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for compressed block");
+		}
+		catch(ExecutionException ex){
+			throw new IOException("error compressing block: " + ex.getCause().getMessage(), ex.getCause());
+		}
+	}
+
+	/**
+	 * Throws an exception if the stream is closed.
+	 * @throws IOException if the stream is closed
+	 */
+	protected void ensureOpen() throws IOException {
+		if(this.closed){
+			throw new IOException("stream closed");
+		}
+	}
+
+	/**
+	 * Compresses data into a complete GZIP member.
+	 * @param data the data
+	 * @param length number of bytes to compress
+	 * @return GZIP member
+	 * @throws IOException on compression errors
+	 */
+	protected static byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(length/4 + 64);
+		try(GZIPOutputStream gz = new GZIPOutputStream(bos, 64*1024)){
+			gz.write(data, 0, length);
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Holder for the compression executor, created on first use.
+	 * Threads are daemon threads, so an application can terminate without shutting the executor down.
+	 */
+	private static final class Compressor {
+
+		/** The executor for compression tasks. */
+		static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+			Thread t = new Thread(r, "s2v-gzip");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+}
@@ -0,0 +1,130 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Latency of a conversion phase, a snapshot of the phase's histogram as provided by {@link ConversionStatsMXBean}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class PhaseLatency {
+
+	/** Number of phases. */
+	protected final long count;
+
+	/** Mean latency in milliseconds. */
+	protected final double meanMillis;
+
+	/** Median latency in milliseconds. */
+	protected final double p50Millis;
+
+	/** 90th percentile of the latency in milliseconds. */
+	protected final double p90Millis;
+
+	/** 99th percentile of the latency in milliseconds. */
+	protected final double p99Millis;
+
+	/** Largest latency in milliseconds. */
+	protected final double maxMillis;
+
+	/**
+	 * Creates a new latency.
+	 * @param count number of phases
+	 * @param meanMillis mean latency in milliseconds
+	 * @param p50Millis median latency in milliseconds
+	 * @param p90Millis 90th percentile of the latency in milliseconds
+	 * @param p99Millis 99th percentile of the latency in milliseconds
+	 * @param maxMillis largest latency in milliseconds
+	 */
+	@ConstructorProperties({"count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+	public PhaseLatency(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis){
+		this.count = count;
+		this.meanMillis = meanMillis;
+		this.p50Millis = p50Millis;
+		this.p90Millis = p90Millis;
+		this.p99Millis = p99Millis;
+		this.maxMillis = maxMillis;
+	}
+
+	/**
+	 * Creates a new latency from a histogram of latencies in microseconds.
+	 * @param histogram the histogram
+	 * @return new latency
+	 */
+	public static PhaseLatency from(LatencyHistogram histogram){
+		long count = histogram.getCount();
+		return new PhaseLatency(
+				count,
+				(count==0)?0:histogram.getTotal() / 1000.0 / count,
+				histogram.getPercentile(50) / 1000.0,
+				histogram.getPercentile(90) / 1000.0,
+				histogram.getPercentile(99) / 1000.0,
+				histogram.getMax() / 1000.0
+		);
+	}
+
+	/**
+	 * Returns the number of phases.
+	 * @return number of phases
+	 */
+	public long getCount(){
+		return this.count;
+	}
+
+	/**
+	 * Returns the mean latency.
+	 * @return mean latency in milliseconds
+	 */
+	public double getMeanMillis(){
+		return this.meanMillis;
+	}
+
+	/**
+	 * Returns the median latency.
+	 * @return median latency in milliseconds
+	 */
+	public double getP50Millis(){
+		return this.p50Millis;
+	}
+
+	/**
+	 * Returns the 90th percentile of the latency.
+	 * @return 90th percentile in milliseconds
+	 */
+	public double getP90Millis(){
+		return this.p90Millis;
+	}
+
+	/**
+	 * Returns the 99th percentile of the latency.
+	 * @return 99th percentile in milliseconds
+	 */
+	public double getP99Millis(){
+		return this.p99Millis;
+	}
+
+	/**
+	 * Returns the largest latency.
+	 * @return largest latency in milliseconds
+	 */
+	public double getMaxMillis(){
+		return this.maxMillis;
+	}
+}
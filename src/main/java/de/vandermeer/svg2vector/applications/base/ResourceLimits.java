@@ -0,0 +1,243 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Limits for the resources a conversion can use: input bytes, number of elements, nesting depth, number of layers, and time.
+ * Document limits are tested while loading, so that a conversion of a malformed or very large document fails fast instead of exhausting memory.
+ * The time limit is enforced by a {@link Deadline} created for each conversion.
+ * A limit of 0 means no limit.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class ResourceLimits {
+
+	/** Limits without any limit. */
+	public static final ResourceLimits NONE = new ResourceLimits(0, 0, 0, 0, 0);
+
+	/** Maximum number of input bytes. */
+	private final long maxBytes;
+
+	/** Maximum number of elements. */
+	private final long maxElements;
+
+	/** Maximum nesting depth of elements. */
+	private final int maxDepth;
+
+	/** Maximum number of layers. */
+	private final int maxLayers;
+
+	/** Maximum time of a conversion in milliseconds. */
+	private final long maxMillis;
+
+	/**
+	 * Creates new limits.
+	 * @param maxBytes maximum number of input bytes, 0 for no limit
+	 * @param maxElements maximum number of elements, 0 for no limit
+	 * @param maxDepth maximum nesting depth of elements, the root element has depth 1, 0 for no limit
+	 * @param maxLayers maximum number of layers, 0 for no limit
+	 * @param maxMillis maximum time of a conversion in milliseconds, 0 for no limit
+	 * @throws IllegalArgumentException if any limit was negative
+	 */
+	public ResourceLimits(long maxBytes, long maxElements, int maxDepth, int maxLayers, long maxMillis){
+		Validate.isTrue(maxBytes>=0 && maxElements>=0 && maxDepth>=0 && maxLayers>=0 && maxMillis>=0, "limits must not be negative");
+		this.maxBytes = maxBytes;
+		this.maxElements = maxElements;
+		this.maxDepth = maxDepth;
+		this.maxLayers = maxLayers;
+		this.maxMillis = maxMillis;
+	}
+
+	/**
+	 * Parses limits, separated by comma, each a key and value separated by '=', e.g. "bytes=10m,elements=100000,depth=64,layers=50,time=60s".
+	 * Keys are bytes, elements, depth, layers, and time.
+	 * Bytes can have the suffix k, m, or g (1024 based), time the suffix ms (default), s, or m.
+	 * Keys not given have no limit.
+	 * @param limits the limits
+	 * @return the limits, null if limits was blank or has invalid keys or values
+	 */
+	public static ResourceLimits parse(String limits){
+		if(StringUtils.isBlank(limits)){
+			return null;
+		}
+		long[] values = new long[5];
+		try{
+			for(String limit : StringUtils.split(limits, ',')){
+				String key = StringUtils.substringBefore(limit, "=").trim().toLowerCase();
+				String value = StringUtils.substringAfter(limit, "=").trim().toLowerCase();
+				switch(key){
+					case "bytes":
+						values[0] = ResourceLimits.parseValue(value, new String[]{"k", "m", "g"}, new long[]{1024, 1024*1024, 1024*1024*1024});
+						break;
+					case "elements":
+						values[1] = Long.parseLong(value);
+						break;
+					case "depth":
+						values[2] = Integer.parseInt(value);
+						break;
+					case "layers":
+						values[3] = Integer.parseInt(value);
+						break;
+					case "time":
+						values[4] = ResourceLimits.parseValue(value, new String[]{"ms", "s", "m"}, new long[]{1, 1000, 60*1000});
+						break;
+					default:
+						return null;
+				}
+			}
+		}
+		catch(NumberFormatException | ArithmeticException ex){
+			return null;
+		}
+		for(long value : values){
+			if(value<0){
+				return null;
+			}
+		}
+		return new ResourceLimits(values[0], values[1], (int)values[2], (int)values[3], values[4]);
+	}
+
+	/**
+	 * Parses a number with an optional unit suffix.
+	 * @param value the value
+	 * @param suffixes the unit suffixes
+	 * @param factors the factors for the suffixes
+	 * @return the value multiplied with the factor of its suffix
+	 * @throws NumberFormatException if the value is not a number with a known suffix
+	 * @throws ArithmeticException if the value overflows
+	 */
+	private static long parseValue(String value, String[] suffixes, long[] factors){
+		for(int i=0; i<suffixes.length; i++){
+			if(value.endsWith(suffixes[i])){
+				return Math.multiplyExact(Long.parseLong(StringUtils.removeEnd(value, suffixes[i]).trim()), factors[i]);
+			}
+		}
+		return Long.parseLong(value);
+	}
+
+	/**
+	 * Returns the maximum number of input bytes.
+	 * @return maximum, 0 for no limit
+	 */
+	public long getMaxBytes(){
+		return this.maxBytes;
+	}
+
+	/**
+	 * Returns the maximum number of elements.
+	 * @return maximum, 0 for no limit
+	 */
+	public long getMaxElements(){
+		return this.maxElements;
+	}
+
+	/**
+	 * Returns the maximum nesting depth of elements.
+	 * @return maximum, 0 for no limit
+	 */
+	public int getMaxDepth(){
+		return this.maxDepth;
+	}
+
+	/**
+	 * Returns the maximum number of layers.
+	 * @return maximum, 0 for no limit
+	 */
+	public int getMaxLayers(){
+		return this.maxLayers;
+	}
+
+	/**
+	 * Returns the maximum time of a conversion.
+	 * @return maximum in milliseconds, 0 for no limit
+	 */
+	public long getMaxMillis(){
+		return this.maxMillis;
+	}
+
+	/**
+	 * Creates a deadline for a conversion starting now.
+	 * @return new deadline with the time limit
+	 */
+	public Deadline newDeadline(){
+		return new Deadline(this.maxMillis);
+	}
+
+	/**
+	 * Tests the number of input bytes.
+	 * @param bytes number of bytes
+	 * @return null if in the limit, error message otherwise
+	 */
+	public String checkBytes(long bytes){
+		return (this.maxBytes>0 && bytes>this.maxBytes)?"document exceeds limit of " + this.maxBytes + " bytes":null;
+	}
+
+	/**
+	 * Tests the number of elements.
+	 * @param elements number of elements
+	 * @return null if in the limit, error message otherwise
+	 */
+	public String checkElements(long elements){
+		return (this.maxElements>0 && elements>this.maxElements)?"document exceeds limit of " + this.maxElements + " elements":null;
+	}
+
+	/**
+	 * Tests the nesting depth of elements.
+	 * @param depth nesting depth
+	 * @return null if in the limit, error message otherwise
+	 */
+	public String checkDepth(int depth){
+		return (this.maxDepth>0 && depth>this.maxDepth)?"document exceeds limit of " + this.maxDepth + " for element nesting depth":null;
+	}
+
+	/**
+	 * Tests the number of layers.
+	 * @param layers number of layers
+	 * @return null if in the limit, error message otherwise
+	 */
+	public String checkLayers(int layers){
+		return (this.maxLayers>0 && layers>this.maxLayers)?"document exceeds limit of " + this.maxLayers + " layers":null;
+	}
+
+	@Override
+	public String toString(){
+		List<String> ret = new ArrayList<>();
+		if(this.maxBytes>0){
+			ret.add("bytes=" + this.maxBytes);
+		}
+		if(this.maxElements>0){
+			ret.add("elements=" + this.maxElements);
+		}
+		if(this.maxDepth>0){
+			ret.add("depth=" + this.maxDepth);
+		}
+		if(this.maxLayers>0){
+			ret.add("layers=" + this.maxLayers);
+		}
+		if(this.maxMillis>0){
+			ret.add("time=" + this.maxMillis);
+		}
+		return (ret.size()==0)?"none":StringUtils.join(ret, ',');
+	}
+}
@@ -15,10 +15,15 @@
 
 package de.vandermeer.svg2vector.applications.base;
 
+import java.io.File;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import org.apache.commons.lang3.Validate;
 
 /**
  * Base class for an SVG document loader.
+ * A loader holds one document at a time, {@link #reset()} releases it so that the loader can load another document.
  *
  * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
  * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
@@ -29,12 +34,21 @@ public abstract class SV_DocumentLoader {
 	/** Flag indicating if a document is loaded or not. */
 	protected boolean isLoaded;
 
-	/** List of layers with identifier and index. */
-	protected final HashMap<String, Integer> layers = new HashMap<>();
+	/** List of layers with identifier and index, in document order. */
+	protected final HashMap<String, Integer> layers = new LinkedHashMap<>();
+
+	/** Result of a pre-scan, null if no pre-scan was done. */
+	protected SvgPrescan prescan;
+
+	/** Resource limits tested while loading. */
+	protected ResourceLimits limits = ResourceLimits.NONE;
+
+	/** Deadline of the conversion, null if none. */
+	protected Deadline deadline;
 
 	/**
 	 * Loads the SVG file.
-	 * This method will not re-load an SVG file once the loader already has a document loaded.
+	 * This method will not re-load an SVG file once the loader already has a document loaded, use {@link #reset()} to load another file.
 	 * @param fn the file name for the SVG document
 	 * @return null on success, error message on error
 	 * @throws NullPointerException if argument was null
@@ -42,6 +56,100 @@ public abstract class SV_DocumentLoader {
 	 */
 	public abstract String load(String fn); 
 
+	/**
+	 * Scans the SVG file for size and layers without loading a document, for processing that does not render the document (e.g. simulation).
+	 * Layer switching has no effect on a scanned but not loaded document.
+	 * This method does nothing if the loader already has a document loaded or scanned.
+	 * Loaders that need the loaded document for layer handling can overwrite this method and load the document.
+	 * @param fn the file name for the SVG document
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if argument was null
+	 * @throws IllegalArgumentException if argument was blank
+	 */
+	public String scan(String fn){
+		Validate.notBlank(fn);
+
+		if(this.isLoaded || this.prescan!=null){
+			return null;
+		}
+		String err = this.limits.checkBytes(new File(fn).length());
+		if(err!=null){
+			return err;
+		}
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.LAYER_SCAN).file(fn);
+		try{
+			SvgPrescan scan = new SvgPrescan();
+			err = scan.scan(fn);
+			if(err!=null){
+				return err;
+			}
+			err = this.limits.checkLayers(scan.getLayers().size());
+			if(err!=null){
+				return err;
+			}
+			this.prescan = scan;
+			this.layers.putAll(scan.getLayers());
+			if(phase.isRecorded()){
+				phase.bytes(new File(fn).length());
+			}
+			return null;
+		}
+		finally{
+			phase.end();
+		}
+	}
+
+	/**
+	 * Resets the loader so that it can load or scan another document.
+	 * The loaded or scanned document, its layers, and all objects created for it are released, settings like limits and deadline are kept.
+	 * Loaders holding resources for a document should overwrite this method, release the resources, and call this method.
+	 */
+	public void reset(){
+		this.isLoaded = false;
+		this.layers.clear();
+		this.prescan = null;
+	}
+
+	/**
+	 * Sets the resource limits tested while loading, must be set before loading.
+	 * @param limits the limits, null for no limits
+	 */
+	public void setLimits(ResourceLimits limits){
+		this.limits = (limits==null)?ResourceLimits.NONE:limits;
+	}
+
+	/**
+	 * Returns the resource limits tested while loading.
+	 * @return limits
+	 */
+	public ResourceLimits getLimits(){
+		return this.limits;
+	}
+
+	/**
+	 * Sets the deadline of the conversion, tested while loading and building graphics trees.
+	 * @param deadline the deadline, null for none
+	 */
+	public void setDeadline(Deadline deadline){
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Returns the deadline of the conversion.
+	 * @return deadline, null if none
+	 */
+	public Deadline getDeadline(){
+		return this.deadline;
+	}
+
+	/**
+	 * Returns the result of a pre-scan.
+	 * @return pre-scan result, null if no pre-scan was done
+	 */
+	public SvgPrescan getPrescan(){
+		return this.prescan;
+	}
+
 	/**
 	 * Returns the status of the loader.
 	 * @return true if document is loaded, false otherwise
@@ -51,11 +159,11 @@ public abstract class SV_DocumentLoader {
 	}
 
 	/**
-	 * Tests if the loaded document has Inkscape layers.
+	 * Tests if the loaded or scanned document has Inkscape layers.
 	 * @return true if the document has Inkscape layers (2 or more layers), false otherwise (0 or 1 layer)
 	 */
 	public boolean hasInkscapeLayers(){
-		return isLoaded && this.layers.size()>1;
+		return (isLoaded || this.prescan!=null) && this.layers.size()>1;
 	}
 
 	/**
@@ -74,9 +182,30 @@ public abstract class SV_DocumentLoader {
 	 */
 	public abstract void switchOnLayer(String layer);
 
+	/**
+	 * Selects a single layer for processing: all other layers are switched off and the given layer is switched on.
+	 * Loaders can also remove other layers from the document, in which case {@link #restoreLayers()} must be called once all layers are processed.
+	 * @param layer the layer to be selected
+	 */
+	public void selectLayer(String layer){
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.LAYER_SWITCH).layer(layer);
+		try{
+			this.switchOffAllLayers();
+			this.switchOnLayer(layer);
+		}
+		finally{
+			phase.end();
+		}
+	}
+
+	/**
+	 * Restores all layers removed from the document by {@link #selectLayer(String)}, nothing happens if no layers have been removed.
+	 */
+	public void restoreLayers(){}
+
 	/**
 	 * Returns the map of layers (layer name to index), empty if no layers found.
-	 * @return map of layers
+	 * @return map of layers in document order
 	 */
 	public HashMap<String, Integer> getLayers(){
 		return this.layers;
@@ -0,0 +1,292 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.vandermeer.svg2vector.applications.base.ConversionPhase.Kind;
+
+/**
+ * A sampling profiler running in the process, for runs where no external profiler can be attached.
+ * A daemon thread takes the stacks of the worker threads in a fixed interval and counts equal stacks.
+ * Worker threads are the thread that created the profiler, all threads with a name starting with `s2v-`, and all threads in a conversion phase.
+ * Only running threads are sampled, so threads waiting for other threads or for a process do not add samples.
+ * 
+ * Stacks are written in collapsed format as used by flame graph tools: one line per stack with the frames from the root separated by `;`, followed by a space and the number of samples.
+ * Stacks sampled in a {@link ConversionPhase} start with the phase as frame, for instance `[document_load]`, `[gvt_build]`, `[paint]`, or `[output_write]`.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class SamplingProfiler {
+
+	/** Default sampling interval in milliseconds. */
+	public static final long DEFAULT_INTERVAL = 10;
+
+	/** Name prefix of worker threads. */
+	public static final String THREAD_PREFIX = "s2v-";
+
+	/** Current phase of threads in a conversion phase, maintained while a profiler is running. */
+	private static final Map<Thread, Kind> PHASES = new ConcurrentHashMap<>();
+
+	/** Number of running profilers. */
+	private static final AtomicInteger RUNNING = new AtomicInteger();
+
+	/** The sampling interval in milliseconds. */
+	private final long interval;
+
+	/** The thread that created the profiler. */
+	private final Thread owner;
+
+	/** Thread bean for taking stacks. */
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	/** Number of samples per collapsed stack. */
+	private final Map<String, long[]> stacks = new HashMap<>();
+
+	/** Number of sampling rounds. */
+	private long samples;
+
+	/** The sampling thread, null if not running. */
+	private Thread sampler;
+
+	/**
+	 * Creates a new profiler for the calling thread and all other worker threads.
+	 * @param interval sampling interval in milliseconds, the default interval is used if not positive
+	 */
+	public SamplingProfiler(long interval){
+		this.interval = (interval>0)?interval:DEFAULT_INTERVAL;
+		this.owner = Thread.currentThread();
+	}
+
+	/**
+	 * Tests if any profiler is running.
+	 * @return true if a profiler is running, false otherwise
+	 */
+	public static boolean isSampling(){
+		return RUNNING.get()>0;
+	}
+
+	/**
+	 * Sets the phase of the calling thread, called when a phase begins.
+	 * @param kind the kind of phase
+	 * @return the phase the thread was in before, null if none
+	 */
+	static Kind enter(Kind kind){
+		return PHASES.put(Thread.currentThread(), kind);
+	}
+
+	/**
+	 * Resets the phase of the calling thread, called when a phase ends.
+	 * @param previous the phase the thread was in before the ended phase, null if none
+	 */
+	static void exit(Kind previous){
+		if(previous==null){
+			PHASES.remove(Thread.currentThread());
+		}
+		else{
+			PHASES.put(Thread.currentThread(), previous);
+		}
+	}
+
+	/**
+	 * Returns the sampling interval.
+	 * @return interval in milliseconds
+	 */
+	public long getInterval(){
+		return this.interval;
+	}
+
+	/**
+	 * Starts sampling on a new daemon thread, does nothing if already started.
+	 */
+	public synchronized void start(){
+		if(this.sampler!=null){
+			return;
+		}
+		this.sampler = new Thread(() -> {
+			try{
+				while(!Thread.currentThread().isInterrupted()){
+					Thread.sleep(this.interval);
+					this.sample();
+				}
+			}
+			catch(InterruptedException ignore){}
+		}, THREAD_PREFIX + "sample");
+		this.sampler.setDaemon(true);
+		RUNNING.incrementAndGet();
+		this.sampler.start();
+	}
+
+	/**
+	 * Stops sampling and waits for the sampling thread to finish, does nothing if not started.
+	 */
+	public void stop(){
+		Thread thread;
+		synchronized(this){
+			thread = this.sampler;
+			this.sampler = null;
+		}
+		if(thread==null){
+			return;
+		}
+		thread.interrupt();
+		try{
+			thread.join();
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+		}
+		finally{
+			RUNNING.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Takes one sample of the stacks of all running worker threads.
+	 */
+	protected void sample(){
+		List<Thread> workers = this.getWorkers();
+		long[] ids = new long[workers.size()];
+		for(int i=0; i<ids.length; i++){
+			ids[i] = workers.get(i).getId();
+		}
+		ThreadInfo[] infos = this.threads.getThreadInfo(ids, Integer.MAX_VALUE);
+
+		synchronized(this){
+			this.samples++;
+			for(int i=0; i<infos.length; i++){
+				if(infos[i]==null || infos[i].getThreadState()!=Thread.State.RUNNABLE || infos[i].getStackTrace().length==0){
+					continue;
+				}
+				String stack = SamplingProfiler.collapse(PHASES.get(workers.get(i)), infos[i].getStackTrace());
+				this.stacks.computeIfAbsent(stack, k -> new long[1])[0]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns all live worker threads, without the sampling thread.
+	 * @return worker threads
+	 */
+	protected List<Thread> getWorkers(){
+		ThreadGroup root = Thread.currentThread().getThreadGroup();
+		while(root.getParent()!=null){
+			root = root.getParent();
+		}
+		Thread[] all = new Thread[root.activeCount() * 2 + 8];
+		int count = root.enumerate(all, true);
+
+		List<Thread> ret = new ArrayList<>();
+		for(int i=0; i<count; i++){
+			Thread thread = all[i];
+			if(thread==this.sampler){
+				continue;
+			}
+			if(thread==this.owner || thread.getName().startsWith(THREAD_PREFIX) || PHASES.containsKey(thread)){
+				ret.add(thread);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Collapses a stack into a single line of frames from the root.
+	 * @param phase the phase of the sampled thread, null if none
+	 * @param trace the stack trace, top frame first
+	 * @return collapsed stack
+	 */
+	static String collapse(Kind phase, StackTraceElement[] trace){
+		StringBuilder ret = new StringBuilder();
+		if(phase!=null){
+			ret.append('[').append(phase.name().toLowerCase()).append(']');
+		}
+		for(int i=trace.length-1; i>=0; i--){
+			if(ret.length()>0){
+				ret.append(';');
+			}
+			ret.append(trace[i].getClassName()).append('.').append(trace[i].getMethodName());
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Returns the number of sampling rounds.
+	 * @return number of rounds, including rounds in which no worker thread was running
+	 */
+	public synchronized long getSamples(){
+		return this.samples;
+	}
+
+	/**
+	 * Returns the sampled stacks.
+	 * @return map of collapsed stacks to number of samples, sorted by stack
+	 */
+	public synchronized Map<String, Long> getStacks(){
+		Map<String, Long> ret = new TreeMap<>();
+		for(Entry<String, long[]> entry : this.stacks.entrySet()){
+			ret.put(entry.getKey(), entry.getValue()[0]);
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes the sampled stacks in collapsed format.
+	 * @param writer the writer to write to
+	 * @throws IOException if writing failed
+	 */
+	public void write(Writer writer) throws IOException{
+		for(Entry<String, Long> entry : this.getStacks().entrySet()){
+			writer.write(entry.getKey());
+			writer.write(' ');
+			writer.write(Long.toString(entry.getValue()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the sampled stacks in collapsed format to a file.
+	 * @param file the file to write to
+	 * @return null on success, an error message otherwise
+	 */
+	public String write(File file){
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)){
+			this.write(writer);
+		}
+		catch(IOException ex){
+			return "cannot write sample profile <" + file + "> - " + ex.getMessage();
+		}
+		return null;
+	}
+}
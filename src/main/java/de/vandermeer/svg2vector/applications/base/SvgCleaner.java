@@ -0,0 +1,588 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * A cleaner removing content from SVG documents that is not required to render them.
+ * Removed are editor content (sodipodi and Inkscape elements and attributes, except the Inkscape layer attributes `label` and `groupmode`),
+ * metadata elements, and entries of definitions (direct children of `defs` elements) that are not referenced from the document.
+ * A definition is referenced if its identifier or the identifier of one of its descendants is referenced from content outside the definitions or from a referenced definition,
+ * as a link like `#id` or a paint reference like `url(#id)` (also quoted, like `url("#id")`) in an attribute or in a style element.
+ * Definitions without an identifier are never removed.
+ * 
+ * Documents can be cleaned as DOM or streamed from a file into an output stream, with two passes over the file.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class SvgCleaner {
+
+	/** The SVG name space. */
+	public static final String SVG_NS = "http://www.w3.org/2000/svg";
+
+	/** The sodipodi name space. */
+	public static final String SODIPODI_NS = "http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd";
+
+	/** Name space of name space declarations in a DOM. */
+	private static final String XMLNS_NS = "http://www.w3.org/2000/xmlns/";
+
+	/** Name spaces used only by metadata (RDF, Creative Commons, Dublin Core), their declarations are removed. */
+	private static final Set<String> METADATA_NS = new HashSet<>(Arrays.asList(
+			"http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+			"http://creativecommons.org/ns#",
+			"http://purl.org/dc/elements/1.1/"
+	));
+
+	/** Parser factory, safe for concurrent use once configured. */
+	private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+	/** Writer factory, safe for concurrent use once configured. */
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	/** Event factory for changed events. */
+	private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
+	/** Paint reference to a local identifier, with optional quotes and white space, the identifier is group 1. */
+	private static final Pattern URL_REFERENCE = Pattern.compile("url\\(\\s*['\"]?\\s*#([^'\")\\s]+)\\s*['\"]?\\s*\\)");
+
+	/** Line break written after events outside the root element. */
+	private static final XMLEvent NEWLINE = EVENT_FACTORY.createCharacters("\n");
+
+	/** Number of elements removed in the last clean. */
+	protected int elements;
+
+	/** Number of attributes removed in the last clean. */
+	protected int attributes;
+
+	/**
+	 * Cleans a document.
+	 * @param doc the document
+	 * @throws NullPointerException if doc was null
+	 */
+	public void clean(Document doc){
+		Validate.notNull(doc);
+		this.elements = 0;
+		this.attributes = 0;
+
+		Element root = doc.getDocumentElement();
+		this.removeEditorContent(root);
+
+		Map<String, Node> entries = new HashMap<>();
+		Map<String, String> owners = new HashMap<>();
+		Map<String, Set<String>> entryRefs = new LinkedHashMap<>();
+		Set<String> refs = new HashSet<>();
+		SvgCleaner.analyze(root, null, entries, owners, entryRefs, refs);
+
+		for(String id : SvgCleaner.unreferenced(owners, entryRefs, refs)){
+			Node node = entries.get(id);
+			node.getParentNode().removeChild(node);
+			this.elements++;
+		}
+	}
+
+	/**
+	 * Cleans an SVG file, writing the result to a stream.
+	 * The output stream is flushed but not closed.
+	 * @param fn the file name of the SVG file, plain or GZIP compressed
+	 * @param out the stream for the cleaned SVG (UTF-8)
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if fn was blank
+	 */
+	public String clean(String fn, OutputStream out){
+		Validate.notBlank(fn);
+		Validate.notNull(out);
+		this.elements = 0;
+		this.attributes = 0;
+
+		try{
+			Set<String> unreferenced;
+			try(InputStream in = SvgPrescan.open(fn)){
+				XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+				try{
+					unreferenced = SvgCleaner.analyze(reader);
+				}
+				finally{
+					reader.close();
+				}
+			}
+			try(InputStream in = SvgPrescan.open(fn)){
+				XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+				try{
+					this.copy(reader, OUTPUT_FACTORY.createXMLEventWriter(out, "UTF-8"), unreferenced);
+				}
+				finally{
+					reader.close();
+				}
+			}
+		}
+		catch(IOException ex){
+			return this.getClass().getSimpleName() + ": IO error reading file <" + fn + ">: " + ex.getMessage();
+		}
+		catch(XMLStreamException ex){
+			return this.getClass().getSimpleName() + ": error cleaning file <" + fn + ">: " + ex.getMessage();
+		}
+		return null;
+	}
+
+	/**
+	 * Cleans an SVG file in place, the cleaned file is written as plain SVG.
+	 * @param file the file
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if file was null
+	 */
+	public String clean(File file){
+		Validate.notNull(file);
+
+		File tmp = new File(file.getPath() + ".clean");
+		String err;
+		try(OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 64*1024)){
+			err = this.clean(file.getPath(), out);
+		}
+		catch(IOException ex){
+			err = this.getClass().getSimpleName() + ": IO error writing file <" + tmp + ">: " + ex.getMessage();
+		}
+		try{
+			if(err==null){
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch(IOException ex){
+			err = this.getClass().getSimpleName() + ": IO error replacing file <" + file + ">: " + ex.getMessage();
+		}
+		finally{
+			tmp.delete();
+		}
+		return err;
+	}
+
+	/**
+	 * Returns the number of elements removed in the last clean, removed descendants are not counted.
+	 * @return number of elements removed
+	 */
+	public int getElements(){
+		return this.elements;
+	}
+
+	/**
+	 * Returns the number of attributes (including name space declarations) removed in the last clean.
+	 * @return number of attributes removed
+	 */
+	public int getAttributes(){
+		return this.attributes;
+	}
+
+	/**
+	 * Removes editor elements and attributes from an element and its descendants.
+	 * @param element the element to start with
+	 */
+	protected void removeEditorContent(Element element){
+		NamedNodeMap nnm = element.getAttributes();
+		for(int i=nnm.getLength()-1; i>=0; i--){
+			Attr attr = (Attr)nnm.item(i);
+			if(isEditorAttribute(attr.getNamespaceURI(), getLocalName(attr), attr.getValue())){
+				element.removeAttributeNode(attr);
+				this.attributes++;
+			}
+		}
+
+		Node child = element.getFirstChild();
+		while(child!=null){
+			Node next = child.getNextSibling();
+			if(child.getNodeType()==Node.ELEMENT_NODE){
+				if(isEditorElement(child.getNamespaceURI(), getLocalName(child))){
+					element.removeChild(child);
+					this.elements++;
+				}
+				else{
+					this.removeEditorContent((Element)child);
+				}
+			}
+			child = next;
+		}
+	}
+
+	/**
+	 * Collects definitions, their identifiers, and all references in a node and its descendants.
+	 * @param node the node to start with
+	 * @param entry identifier of the definition the node belongs to, null if none
+	 * @param entries map to add definitions to (identifier to node)
+	 * @param owners map to add identifiers inside definitions to (identifier to definition identifier)
+	 * @param entryRefs map to add references made by definitions to (definition identifier to referenced identifiers)
+	 * @param refs set to add references made outside definitions to
+	 */
+	protected static void analyze(Node node, String entry, Map<String, Node> entries, Map<String, String> owners, Map<String, Set<String>> entryRefs, Set<String> refs){
+		if(node.getNodeType()!=Node.ELEMENT_NODE){
+			return;
+		}
+
+		Element element = (Element)node;
+		String id = (element.hasAttribute("id"))?element.getAttribute("id"):null;
+		if(entry==null && id!=null && "defs".equals(getLocalName(element.getParentNode()))){
+			entry = SvgCleaner.addEntry(id, entryRefs, refs);
+			entries.put(id, element);
+		}
+		if(entry!=null && id!=null && !owners.containsKey(id)){
+			owners.put(id, entry);
+		}
+
+		Set<String> target = (entry==null)?refs:entryRefs.get(entry);
+		NamedNodeMap nnm = element.getAttributes();
+		for(int i=0; i<nnm.getLength(); i++){
+			SvgCleaner.addReferences(nnm.item(i).getNodeValue(), target);
+		}
+		boolean style = "style".equals(getLocalName(element));
+		for(Node child=element.getFirstChild(); child!=null; child=child.getNextSibling()){
+			if(style){
+				SvgCleaner.addReferences(child.getNodeValue(), target);
+			}
+			SvgCleaner.analyze(child, entry, entries, owners, entryRefs, refs);
+		}
+	}
+
+	/**
+	 * Collects definitions, their identifiers, and all references from a parser, ignoring editor content.
+	 * @param reader the parser
+	 * @return identifiers of all unreferenced definitions
+	 * @throws XMLStreamException on parser errors
+	 */
+	protected static Set<String> analyze(XMLEventReader reader) throws XMLStreamException {
+		Map<String, String> owners = new HashMap<>();
+		Map<String, Set<String>> entryRefs = new LinkedHashMap<>();
+		Set<String> refs = new HashSet<>();
+
+		Deque<String> names = new ArrayDeque<>();
+		String entry = null;
+		int entryDepth = 0;
+		int skip = 0;
+
+		while(reader.hasNext()){
+			XMLEvent event = reader.nextEvent();
+			if(event.isStartElement()){
+				StartElement start = event.asStartElement();
+				QName name = start.getName();
+				String parent = names.peek();
+				names.push(name.getLocalPart());
+				if(skip>0 || isEditorElement(name.getNamespaceURI(), name.getLocalPart())){
+					skip++;
+					continue;
+				}
+
+				Attribute idAttr = start.getAttributeByName(new QName("id"));
+				String id = (idAttr==null)?null:idAttr.getValue();
+				if(entry==null && id!=null && "defs".equals(parent)){
+					entry = SvgCleaner.addEntry(id, entryRefs, refs);
+					entryDepth = names.size();
+				}
+				if(entry!=null && id!=null && !owners.containsKey(id)){
+					owners.put(id, entry);
+				}
+
+				Set<String> target = (entry==null)?refs:entryRefs.get(entry);
+				for(Iterator<?> it = start.getAttributes(); it.hasNext();){
+					Attribute attr = (Attribute)it.next();
+					if(!isEditorAttribute(attr.getName().getNamespaceURI(), attr.getName().getLocalPart(), attr.getValue())){
+						SvgCleaner.addReferences(attr.getValue(), target);
+					}
+				}
+			}
+			else if(event.isEndElement()){
+				if(skip>0){
+					skip--;
+				}
+				else if(entry!=null && names.size()==entryDepth){
+					entry = null;
+				}
+				names.pop();
+			}
+			else if(event.isCharacters() && skip==0 && "style".equals(names.peek())){
+				SvgCleaner.addReferences(event.asCharacters().getData(), (entry==null)?refs:entryRefs.get(entry));
+			}
+		}
+		return SvgCleaner.unreferenced(owners, entryRefs, refs);
+	}
+
+	/**
+	 * Reads all events of a parser and writes them without editor content and unreferenced definitions.
+	 * @param reader the parser
+	 * @param writer the writer
+	 * @param unreferenced identifiers of unreferenced definitions
+	 * @throws XMLStreamException on parser or writer errors
+	 */
+	protected void copy(XMLEventReader reader, XMLEventWriter writer, Set<String> unreferenced) throws XMLStreamException {
+		Deque<String> names = new ArrayDeque<>();
+		int skip = 0;
+
+		while(reader.hasNext()){
+			XMLEvent event = reader.nextEvent();
+
+			if(event.isStartDocument()){
+				StartDocument doc = (StartDocument)event;
+				event = EVENT_FACTORY.createStartDocument("UTF-8", doc.getVersion(), doc.isStandalone());
+			}
+			else if(event.isStartElement()){
+				StartElement start = event.asStartElement();
+				QName name = start.getName();
+				String parent = names.peek();
+				names.push(name.getLocalPart());
+				if(skip>0){
+					skip++;
+					continue;
+				}
+				Attribute idAttr = start.getAttributeByName(new QName("id"));
+				if(isEditorElement(name.getNamespaceURI(), name.getLocalPart()) || ("defs".equals(parent) && idAttr!=null && unreferenced.contains(idAttr.getValue()))){
+					skip = 1;
+					this.elements++;
+					continue;
+				}
+				event = this.strip(start);
+			}
+			else if(event.isEndElement()){
+				names.pop();
+				if(skip>0){
+					skip--;
+					continue;
+				}
+			}
+			else if(skip>0){
+				continue;
+			}
+
+			writer.add(event);
+
+			//parsers do not report white space outside the root element, keep prolog and epilog on separate lines
+			if(names.isEmpty() && !event.isEndDocument()){
+				writer.add(NEWLINE);
+			}
+		}
+		writer.flush();
+		writer.close();
+	}
+
+	/**
+	 * Returns a start element without editor attributes and name space declarations.
+	 * @param start the original start element
+	 * @return start element without editor attributes, the original element if it has none
+	 */
+	protected StartElement strip(StartElement start){
+		List<Attribute> attributes = new ArrayList<>();
+		List<Namespace> namespaces = new ArrayList<>();
+		int removed = 0;
+		for(Iterator<?> it = start.getAttributes(); it.hasNext();){
+			Attribute attr = (Attribute)it.next();
+			if(isEditorAttribute(attr.getName().getNamespaceURI(), attr.getName().getLocalPart(), attr.getValue())){
+				removed++;
+			}
+			else{
+				attributes.add(attr);
+			}
+		}
+		for(Iterator<?> it = start.getNamespaces(); it.hasNext();){
+			Namespace ns = (Namespace)it.next();
+			if(isEditorNamespace(ns.getNamespaceURI())){
+				removed++;
+			}
+			else{
+				namespaces.add(ns);
+			}
+		}
+		if(removed==0){
+			return start;
+		}
+
+		this.attributes += removed;
+		QName name = start.getName();
+		return EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), attributes.iterator(), namespaces.iterator(), start.getNamespaceContext());
+	}
+
+	/**
+	 * Adds a definition.
+	 * A definition with an identifier used by another definition is added as referenced, so that neither is removed.
+	 * @param id the identifier of the definition
+	 * @param entryRefs map of definition identifier to referenced identifiers
+	 * @param refs references made outside definitions
+	 * @return the identifier of the definition
+	 */
+	private static String addEntry(String id, Map<String, Set<String>> entryRefs, Set<String> refs){
+		if(entryRefs.containsKey(id)){
+			refs.add(id);
+		}
+		else{
+			entryRefs.put(id, new HashSet<>());
+		}
+		return id;
+	}
+
+	/**
+	 * Computes all definitions that are not referenced from outside the definitions, directly or through other referenced definitions.
+	 * @param owners map of identifiers inside definitions to definition identifier
+	 * @param entryRefs map of definition identifier to referenced identifiers
+	 * @param refs references made outside definitions
+	 * @return identifiers of all unreferenced definitions, in document order
+	 */
+	protected static Set<String> unreferenced(Map<String, String> owners, Map<String, Set<String>> entryRefs, Set<String> refs){
+		Set<String> kept = new HashSet<>();
+		Deque<String> todo = new ArrayDeque<>();
+		for(String ref : refs){
+			String entry = owners.get(ref);
+			if(entry!=null && kept.add(entry)){
+				todo.add(entry);
+			}
+		}
+		while(!todo.isEmpty()){
+			for(String ref : entryRefs.get(todo.poll())){
+				String entry = owners.get(ref);
+				if(entry!=null && kept.add(entry)){
+					todo.add(entry);
+				}
+			}
+		}
+
+		Set<String> ret = new LinkedHashSet<>(entryRefs.keySet());
+		ret.removeAll(kept);
+		return Collections.unmodifiableSet(ret);
+	}
+
+	/**
+	 * Collects all local references (links like "#id" and paint references like "url(#id)", "url('#id')", or "url( \"#id\" )") in a value.
+	 * @param value the value, for instance of an attribute, can be null
+	 * @param refs set to add the referenced identifiers to
+	 */
+	public static void addReferences(String value, Set<String> refs){
+		if(value==null || value.indexOf('#')<0){
+			return;
+		}
+		if(value.startsWith("#")){
+			refs.add(value.substring(1).trim());
+		}
+		Matcher m = URL_REFERENCE.matcher(value);
+		while(m.find()){
+			refs.add(m.group(1));
+		}
+	}
+
+	/**
+	 * Tests if an element is editor content.
+	 * @param namespace name space of the element, can be null
+	 * @param localName local name of the element
+	 * @return true if the element is a sodipodi, Inkscape, or metadata element, false otherwise
+	 */
+	public static boolean isEditorElement(String namespace, String localName){
+		if(SODIPODI_NS.equals(namespace) || SvgPrescan.INKSCAPE_NS.equals(namespace)){
+			return true;
+		}
+		return "metadata".equals(localName) && (StringUtils.isEmpty(namespace) || SVG_NS.equals(namespace));
+	}
+
+	/**
+	 * Tests if an attribute is editor content.
+	 * @param namespace name space of the attribute, can be null
+	 * @param localName local name of the attribute
+	 * @param value value of the attribute, the declared name space for name space declarations
+	 * @return true if the attribute is a sodipodi attribute, an Inkscape attribute other than `label` or `groupmode`, or the declaration of an editor name space, false otherwise
+	 */
+	public static boolean isEditorAttribute(String namespace, String localName, String value){
+		if(SODIPODI_NS.equals(namespace)){
+			return true;
+		}
+		if(SvgPrescan.INKSCAPE_NS.equals(namespace)){
+			return !"label".equals(localName) && !"groupmode".equals(localName);
+		}
+		if(XMLNS_NS.equals(namespace)){
+			return isEditorNamespace(value);
+		}
+		return false;
+	}
+
+	/**
+	 * Tests if a name space is used only by editor content, the Inkscape name space is required for layers and not an editor name space.
+	 * @param namespace the name space
+	 * @return true if the name space is the sodipodi name space or a metadata name space, false otherwise
+	 */
+	public static boolean isEditorNamespace(String namespace){
+		return SODIPODI_NS.equals(namespace) || METADATA_NS.contains(namespace);
+	}
+
+	/**
+	 * Returns the local name of a node, the node name if the node was created without name space support.
+	 * @param node the node, can be null
+	 * @return local name, null if node was null
+	 */
+	private static String getLocalName(Node node){
+		if(node==null){
+			return null;
+		}
+		return (node.getLocalName()==null)?node.getNodeName():node.getLocalName();
+	}
+
+	/**
+	 * Returns a new parser factory.
+	 * @return parser factory, name space aware and without DTD support
+	 */
+	private static XMLInputFactory newInputFactory(){
+		XMLInputFactory ret = XMLInputFactory.newInstance();
+		ret.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		ret.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		ret.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return ret;
+	}
+}
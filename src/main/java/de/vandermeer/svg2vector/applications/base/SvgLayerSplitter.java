@@ -0,0 +1,239 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A streaming splitter writing one SVG file per layer from a single read of the input.
+ * All content outside layers (for instance definitions, styles, and elements that are not in a layer) is copied to every output.
+ * The content of a layer is copied only to the output of that layer, layers without an output are dropped, and the layer is switched on in its output.
+ * The input is read once with a StAX parser and events are written as they are read, so memory use does not depend on the file size.
+ * Layers are found the same way the document loaders find them: direct children of the root element that are groups with an Inkscape group mode.
+ * Content referenced from one layer but defined in another layer is not available in the output of the first layer.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class SvgLayerSplitter {
+
+	/** Parser factory, safe for concurrent use once configured. */
+	private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+	/** Writer factory, safe for concurrent use once configured. */
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	/** Event factory for changed events. */
+	private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+
+	/** Line break written after events outside the root element. */
+	private static final XMLEvent NEWLINE = EVENT_FACTORY.createCharacters("\n");
+
+	/** Number of layers written in the last split. */
+	protected int layers;
+
+	/** Number of events read in the last split. */
+	protected long events;
+
+	/**
+	 * Splits an SVG file into one SVG output per layer.
+	 * The output streams are flushed but not closed.
+	 * @param fn the file name of the SVG file, plain or GZIP compressed
+	 * @param outputs map of layers (layer name to output stream), layers not in the map are not written
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if fn was blank
+	 */
+	public String split(String fn, Map<String, OutputStream> outputs){
+		Validate.notBlank(fn);
+		Validate.notNull(outputs);
+
+		this.layers = 0;
+		this.events = 0;
+
+		try(InputStream in = SvgPrescan.open(fn)){
+			XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(in);
+			Map<String, XMLEventWriter> writers = new LinkedHashMap<>();
+			try{
+				for(Entry<String, OutputStream> entry : outputs.entrySet()){
+					writers.put(entry.getKey(), OUTPUT_FACTORY.createXMLEventWriter(entry.getValue(), "UTF-8"));
+				}
+				this.split(reader, writers);
+			}
+			finally{
+				reader.close();
+			}
+		}
+		catch(IOException ex){
+			return this.getClass().getSimpleName() + ": IO error reading file <" + fn + ">: " + ex.getMessage();
+		}
+		catch(XMLStreamException ex){
+			return this.getClass().getSimpleName() + ": error splitting file <" + fn + ">: " + ex.getMessage();
+		}
+		return null;
+	}
+
+	/**
+	 * Reads all events of a parser and writes them to the outputs.
+	 * @param reader the parser
+	 * @param writers map of layers (layer name to writer)
+	 * @throws XMLStreamException on parser or writer errors
+	 */
+	protected void split(XMLEventReader reader, Map<String, XMLEventWriter> writers) throws XMLStreamException {
+		Collection<XMLEventWriter> all = writers.values();
+		Collection<XMLEventWriter> targets = all;
+		int depth = 0;
+		int layerDepth = 0;
+
+		while(reader.hasNext()){
+			XMLEvent event = reader.nextEvent();
+			this.events++;
+
+			if(event.isStartDocument()){
+				StartDocument doc = (StartDocument)event;
+				event = EVENT_FACTORY.createStartDocument("UTF-8", doc.getVersion(), doc.isStandalone());
+			}
+			else if(event.isStartElement()){
+				depth++;
+				StartElement start = event.asStartElement();
+				if(depth==2 && "g".equals(start.getName().getLocalPart()) && getInkscapeAttribute(start, "groupmode")!=null){
+					XMLEventWriter writer = writers.get(getInkscapeAttribute(start, "label"));
+					targets = (writer==null)?Collections.<XMLEventWriter>emptyList():Collections.singletonList(writer);
+					layerDepth = depth;
+					if(writer!=null){
+						this.layers++;
+						event = switchOn(start);
+					}
+				}
+			}
+
+			for(XMLEventWriter writer : targets){
+				writer.add(event);
+			}
+
+			if(event.isEndElement()){
+				if(depth==layerDepth){
+					targets = all;
+					layerDepth = 0;
+				}
+				depth--;
+			}
+
+			//parsers do not report white space outside the root element, keep prolog and epilog on separate lines
+			if(depth==0 && !event.isEndDocument()){
+				for(XMLEventWriter writer : targets){
+					writer.add(NEWLINE);
+				}
+			}
+		}
+
+		for(XMLEventWriter writer : all){
+			writer.flush();
+			writer.close();
+		}
+	}
+
+	/**
+	 * Returns the number of layers written in the last split.
+	 * @return number of layers written
+	 */
+	public int getLayers(){
+		return this.layers;
+	}
+
+	/**
+	 * Returns the number of parser events read in the last split.
+	 * @return number of events
+	 */
+	public long getEvents(){
+		return this.events;
+	}
+
+	/**
+	 * Returns the value of an Inkscape attribute of an element.
+	 * @param start the start element
+	 * @param name the local name of the attribute
+	 * @return attribute value, null if not set
+	 */
+	protected static String getInkscapeAttribute(StartElement start, String name){
+		for(Iterator<?> it = start.getAttributes(); it.hasNext();){
+			Attribute attr = (Attribute)it.next();
+			if(SvgPrescan.isInkscapeAttribute(attr.getName().getNamespaceURI(), attr.getName().getPrefix(), attr.getName().getLocalPart(), name)){
+				return attr.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a layer start element with the layer switched on.
+	 * @param start the original start element
+	 * @return start element with display set to inline in the style attribute, the original element if it has no style attribute
+	 */
+	protected static StartElement switchOn(StartElement start){
+		if(start.getAttributeByName(new QName("style"))==null){
+			return start;
+		}
+
+		List<Attribute> attributes = new ArrayList<>();
+		for(Iterator<?> it = start.getAttributes(); it.hasNext();){
+			Attribute attr = (Attribute)it.next();
+			if("style".equals(attr.getName().getLocalPart()) && attr.getName().getNamespaceURI().isEmpty()){
+				attr = EVENT_FACTORY.createAttribute("style", SvgPrescan.DISPLAY_NONE.matcher(attr.getValue()).replaceAll("display:inline"));
+			}
+			attributes.add(attr);
+		}
+		QName name = start.getName();
+		return EVENT_FACTORY.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), attributes.iterator(), start.getNamespaces(), start.getNamespaceContext());
+	}
+
+	/**
+	 * Returns a new parser factory.
+	 * @return parser factory, name space aware and without DTD support
+	 */
+	private static XMLInputFactory newInputFactory(){
+		XMLInputFactory ret = XMLInputFactory.newInstance();
+		ret.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		ret.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		ret.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return ret;
+	}
+}
@@ -0,0 +1,460 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import java.awt.Dimension;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.text.StrBuilder;
+
+/**
+ * A streaming pre-scan of an SVG file, reading root size, Inkscape layers, and element counts without building a document.
+ * Plain and GZIP compressed (SVGZ) files are supported.
+ * A pre-scan reads the file once with a StAX parser, so its memory use does not depend on the file size.
+ * Layers are found the same way the document loaders find them: direct children of the root element that are groups with an Inkscape group mode.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class SvgPrescan {
+
+	/** Inkscape name space. */
+	public static final String INKSCAPE_NS = "http://www.inkscape.org/namespaces/inkscape";
+
+	/** Pattern for the declaration of a switched off layer in a style attribute, allowing whitespace around the colon. */
+	protected static final Pattern DISPLAY_NONE = Pattern.compile("display\\s*:\\s*none");
+
+	/** Parser factory, safe for concurrent use once configured. */
+	private static final XMLInputFactory FACTORY = newFactory();
+
+	/** The file name of the scanned file. */
+	protected String fn;
+
+	/** Width attribute of the root element. */
+	protected String width;
+
+	/** Height attribute of the root element. */
+	protected String height;
+
+	/** View box attribute of the root element. */
+	protected String viewBox;
+
+	/** Layers found, in document order. */
+	protected final List<Layer> layerList = new ArrayList<>();
+
+	/** Number of elements by element name. */
+	protected final Map<String, Integer> elementCounts = new TreeMap<>();
+
+	/** Number of all elements. */
+	protected int elements;
+
+	/**
+	 * Scans an SVG file.
+	 * Any results of an earlier scan are removed.
+	 * @param fn the file name of the SVG file, plain or GZIP compressed
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if argument was null
+	 * @throws IllegalArgumentException if argument was blank
+	 */
+	public String scan(String fn){
+		Validate.notBlank(fn);
+
+		this.fn = fn;
+		this.width = null;
+		this.height = null;
+		this.viewBox = null;
+		this.layerList.clear();
+		this.elementCounts.clear();
+		this.elements = 0;
+
+		try(InputStream in = open(fn)){
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+			try{
+				this.scan(reader);
+			}
+			finally{
+				reader.close();
+			}
+		}
+		catch(IOException ex){
+			return this.getClass().getSimpleName() + ": IO error reading file <" + fn + ">: " + ex.getMessage();
+		}
+		catch(XMLStreamException ex){
+			return this.getClass().getSimpleName() + ": error parsing file <" + fn + ">: " + ex.getMessage();
+		}
+		return null;
+	}
+
+	/**
+	 * Reads all events of a parser.
+	 * @param reader the parser
+	 * @throws XMLStreamException on parser errors
+	 */
+	protected void scan(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 0;
+		while(reader.hasNext()){
+			int event = reader.next();
+			if(event==XMLStreamConstants.START_ELEMENT){
+				depth++;
+				this.elements++;
+				this.elementCounts.merge(reader.getLocalName(), 1, Integer::sum);
+
+				if(depth==1){
+					this.width = reader.getAttributeValue(null, "width");
+					this.height = reader.getAttributeValue(null, "height");
+					this.viewBox = reader.getAttributeValue(null, "viewBox");
+				}
+				else if(depth==2 && "g".equals(reader.getLocalName()) && getInkscapeAttribute(reader, "groupmode")!=null){
+					String id = reader.getAttributeValue(null, "id");
+					String style = reader.getAttributeValue(null, "style");
+					this.layerList.add(new Layer(
+							id,
+							getInkscapeAttribute(reader, "label"),
+							getIndex(id),
+							style==null || !DISPLAY_NONE.matcher(style).find()
+					));
+				}
+			}
+			else if(event==XMLStreamConstants.END_ELEMENT){
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Returns the file name of the scanned file.
+	 * @return file name, null if no scan done
+	 */
+	public String getFn(){
+		return this.fn;
+	}
+
+	/**
+	 * Returns the width attribute of the root element.
+	 * @return width, null if not set
+	 */
+	public String getWidth(){
+		return this.width;
+	}
+
+	/**
+	 * Returns the height attribute of the root element.
+	 * @return height, null if not set
+	 */
+	public String getHeight(){
+		return this.height;
+	}
+
+	/**
+	 * Returns the view box attribute of the root element.
+	 * @return view box, null if not set
+	 */
+	public String getViewBox(){
+		return this.viewBox;
+	}
+
+	/**
+	 * Returns the document size, as the document loaders calculate it from width and height.
+	 * @return document size, null if width or height are not set or are not plain numbers
+	 */
+	public Dimension getSize(){
+		try{
+			Dimension ret = new Dimension();
+			ret.setSize(Double.valueOf(this.width), Double.valueOf(this.height));
+			return ret;
+		}
+		catch(Exception ex){
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the layers found.
+	 * @return layers in document order, empty if none found
+	 */
+	public List<Layer> getLayerList(){
+		return this.layerList;
+	}
+
+	/**
+	 * Returns the map of layers (layer name to index), same as document loaders create it.
+	 * @return map of layers, empty if no layers found
+	 */
+	public Map<String, Integer> getLayers(){
+		Map<String, Integer> ret = new LinkedHashMap<>();
+		for(Layer layer : this.layerList){
+			ret.put(layer.getLabel(), layer.getIndex());
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of elements by element name.
+	 * @return element counts sorted by element name, empty if no scan done
+	 */
+	public Map<String, Integer> getElementCounts(){
+		return this.elementCounts;
+	}
+
+	/**
+	 * Returns the number of all elements.
+	 * @return number of elements
+	 */
+	public int getElements(){
+		return this.elements;
+	}
+
+	/**
+	 * Returns the scan result as a JSON object.
+	 * @return JSON object
+	 */
+	public String toJson(){
+		StrBuilder ret = new StrBuilder();
+		ret.append('{').appendNewLine();
+		ret.append("  \"file\": ").append(jsonString(this.fn)).append(',').appendNewLine();
+		ret.append("  \"width\": ").append(jsonString(this.width)).append(',').appendNewLine();
+		ret.append("  \"height\": ").append(jsonString(this.height)).append(',').appendNewLine();
+		ret.append("  \"viewBox\": ").append(jsonString(this.viewBox)).append(',').appendNewLine();
+		ret.append("  \"layers\": [");
+		for(int i=0; i<this.layerList.size(); i++){
+			Layer layer = this.layerList.get(i);
+			ret.append((i==0)?"":",").appendNewLine();
+			ret.append("    {\"id\": ").append(jsonString(layer.getId()));
+			ret.append(", \"label\": ").append(jsonString(layer.getLabel()));
+			ret.append(", \"index\": ").append(layer.getIndex());
+			ret.append(", \"visible\": ").append(layer.isVisible()).append('}');
+		}
+		if(this.layerList.size()>0){
+			ret.appendNewLine().append("  ");
+		}
+		ret.append("],").appendNewLine();
+		ret.append("  \"elements\": ").append(this.elements).append(',').appendNewLine();
+		ret.append("  \"elementCounts\": {");
+		boolean first = true;
+		for(Entry<String, Integer> entry : this.elementCounts.entrySet()){
+			ret.append((first)?"":",").appendNewLine();
+			ret.append("    ").append(jsonString(entry.getKey())).append(": ").append(entry.getValue());
+			first = false;
+		}
+		if(!first){
+			ret.appendNewLine().append("  ");
+		}
+		ret.append('}').appendNewLine();
+		ret.append('}');
+		return ret.toString();
+	}
+
+	/**
+	 * Opens a plain or GZIP compressed file, testing for the GZIP magic number.
+	 * @param fn the file name
+	 * @return input stream with plain content
+	 * @throws IOException if the file could not be opened or read
+	 */
+	protected static InputStream open(String fn) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(new FileInputStream(fn), 64*1024);
+		try{
+			in.mark(2);
+			int b1 = in.read();
+			int b2 = in.read();
+			in.reset();
+			if(b1==(GZIPInputStream.GZIP_MAGIC & 0xff) && b2==(GZIPInputStream.GZIP_MAGIC >> 8)){
+				return new GZIPInputStream(in, 64*1024);
+			}
+			return in;
+		}
+		catch(IOException ex){
+			in.close();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the value of an Inkscape attribute of the current element.
+	 * @param reader the parser, positioned on a start element
+	 * @param name the local name of the attribute
+	 * @return attribute value, null if not set
+	 */
+	protected static String getInkscapeAttribute(XMLStreamReader reader, String name){
+		for(int i=0; i<reader.getAttributeCount(); i++){
+			if(isInkscapeAttribute(reader.getAttributeNamespace(i), reader.getAttributePrefix(i), reader.getAttributeLocalName(i), name)){
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Tests if an attribute is a given Inkscape attribute, by its name space or by the `inkscape` prefix.
+	 * @param namespace the name space of the attribute, can be null
+	 * @param prefix the prefix of the attribute, can be null
+	 * @param localName the local name of the attribute
+	 * @param name the local name of the Inkscape attribute
+	 * @return true if the attribute is the Inkscape attribute, false otherwise
+	 */
+	protected static boolean isInkscapeAttribute(String namespace, String prefix, String localName, String name){
+		return name.equals(localName) && (INKSCAPE_NS.equals(namespace) || "inkscape".equals(prefix));
+	}
+
+	/**
+	 * Returns the Inkscape index (actual id with layer removed) for a given layer id.
+	 * @param id the layer id
+	 * @return 0 if id was null or has no numeric index, index otherwise
+	 */
+	protected static int getIndex(String id){
+		try{
+			return Integer.valueOf(StringUtils.substringAfter(id, "layer"));
+		}
+		catch(NumberFormatException ex){
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns a JSON string value.
+	 * @param value the value
+	 * @return quoted and escaped value, null literal if value was null
+	 */
+	protected static String jsonString(String value){
+		if(value==null){
+			return "null";
+		}
+		StrBuilder ret = new StrBuilder(value.length() + 2);
+		ret.append('"');
+		for(char c : value.toCharArray()){
+			switch(c){
+				case '"':
+					ret.append("\\\"");
+					break;
+				case '\\':
+					ret.append("\\\\");
+					break;
+				case '\n':
+					ret.append("\\n");
+					break;
+				case '\r':
+					ret.append("\\r");
+					break;
+				case '\t':
+					ret.append("\\t");
+					break;
+				default:
+					if(c<0x20){
+						ret.append(String.format("\\u%04x", (int)c));
+					}
+					else{
+						ret.append(c);
+					}
+			}
+		}
+		ret.append('"');
+		return ret.toString();
+	}
+
+	/**
+	 * Creates the parser factory, external entities and DTDs are not loaded.
+	 * @return new factory
+	 */
+	private static XMLInputFactory newFactory(){
+		XMLInputFactory ret = XMLInputFactory.newInstance();
+		ret.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		ret.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		ret.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return ret;
+	}
+
+	/**
+	 * An Inkscape layer found by a pre-scan.
+	 */
+	public static class Layer {
+
+		/** The layer id. */
+		protected final String id;
+
+		/** The Inkscape label of the layer. */
+		protected final String label;
+
+		/** The layer index. */
+		protected final int index;
+
+		/** Flag for a visible layer. */
+		protected final boolean visible;
+
+		/**
+		 * Creates a new layer.
+		 * @param id the layer id
+		 * @param label the Inkscape label
+		 * @param index the layer index
+		 * @param visible true if the layer is visible, false otherwise
+		 */
+		public Layer(String id, String label, int index, boolean visible){
+			this.id = id;
+			this.label = label;
+			this.index = index;
+			this.visible = visible;
+		}
+
+		/**
+		 * Returns the layer id.
+		 * @return layer id, null if not set
+		 */
+		public String getId(){
+			return this.id;
+		}
+
+		/**
+		 * Returns the Inkscape label of the layer.
+		 * @return label, null if not set
+		 */
+		public String getLabel(){
+			return this.label;
+		}
+
+		/**
+		 * Returns the layer index.
+		 * @return layer index, 0 if the id has no numeric index
+		 */
+		public int getIndex(){
+			return this.index;
+		}
+
+		/**
+		 * Returns the visibility of the layer.
+		 * @return true if the layer is visible, false if it is switched off (display:none)
+		 */
+		public boolean isVisible(){
+			return this.visible;
+		}
+	}
+}
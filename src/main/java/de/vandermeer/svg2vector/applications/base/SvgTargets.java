@@ -27,6 +27,9 @@ public enum SvgTargets {
 	/** SVG (plain) as target. */
 	svg,
 
+	/** SVG (plain) compressed with GZIP as target. */
+	svgz,
+
 	/** PDF as target, optionally with PDF version. */
 	pdf,
 
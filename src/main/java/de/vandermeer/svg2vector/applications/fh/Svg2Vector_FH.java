@@ -16,26 +16,64 @@
 package de.vandermeer.svg2vector.applications.fh;
 
 import java.awt.Color;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.freehep.graphicsbase.util.UserProperties;
 
 import de.vandermeer.svg2vector.applications.base.AppBase;
 import de.vandermeer.svg2vector.applications.base.AppProperties;
+import de.vandermeer.svg2vector.applications.base.ArchiveOutput;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.InputWatcher;
+import de.vandermeer.svg2vector.applications.base.InputWatcher.Change;
+import de.vandermeer.svg2vector.applications.base.SvgCleaner;
+import de.vandermeer.svg2vector.applications.base.SvgLayerSplitter;
 import de.vandermeer.svg2vector.applications.base.SvgTargets;
 import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikObjects;
 import de.vandermeer.svg2vector.applications.fh.converters.FhConverter;
+import de.vandermeer.svg2vector.applications.fh.converters.FhMultiConverter;
 import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Emf;
 import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Pdf;
 import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Svg;
+import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Svgz;
+import de.vandermeer.svg2vector.applications.fh.converters.FilterCache;
+import de.vandermeer.svg2vector.applications.fh.converters.FontCache;
+import de.vandermeer.svg2vector.applications.fh.converters.GlyphOutlineCache;
+import de.vandermeer.svg2vector.applications.fh.converters.RenderProfiler;
+import de.vandermeer.svg2vector.applications.fh.converters.ResourceCache;
+import de.vandermeer.svg2vector.applications.fh.converters.SvgOptimizer;
 
 /**
  * The Svg2Vector application using the FreeHep library.
  * It an SVG graphic to a vector format.
- * Currently supported are EMF, PDF and SVG.
+ * Currently supported are EMF, PDF, SVG and SVGZ, several targets can be created from a single load of the input.
  * The tool does support SVG and SVGZ input formats from file or URI.
  * It also can deal with SVG layers.
  * All options can be set via command line.
@@ -67,86 +105,530 @@ public class Svg2Vector_FH extends AppBase<BatikLoader, AppProperties<BatikLoade
 	/** Application option for no-background mode. */
 	AO_NoBackground optionNoBackground = new AO_NoBackground(false, 'b', "switch off background property");
 
+	/** Application option for fonts to load before conversion. */
+	AO_FontWarmup optionFontWarmup = new AO_FontWarmup(false, "loads the given font families into the process-wide font cache before any document is converted, e.g. \"Arial, DejaVu Sans\"");
+
+	/** Application option for using a dynamic bridge context. */
+	AO_DynamicBridge optionDynamicBridge = new AO_DynamicBridge(false, "loads the input with a dynamic bridge context and a default user agent instead of the static profile without DOM listeners and script loading");
+
+	/** Application option for serializing the document for SVG targets. */
+	AO_SvgSerialize optionSvgSerialize = new AO_SvgSerialize(false, "writes targets svg and svgz by serializing the document with the current layer settings instead of painting it, groups, ids, and text are kept");
+
+	/** Application option for loading only local resources. */
+	AO_Offline optionOffline = new AO_Offline(false, "loads only local resources, linked images, style sheets, and documents with a URL other than a file or data URL are refused");
+
+	/** Application option for painting all nodes without culling. */
+	AO_NoCull optionNoCull = new AO_NoCull(false, "paints all nodes of the document, by default nodes entirely outside the page and invisible nodes are removed before painting");
+
+	/** Application option for optimizing the geometry before conversion. */
+	AO_Optimize optionOptimize = new AO_Optimize(false, "simplifies the loaded document before conversion: drops invisible elements and shapes not larger than the tolerance in user units, removes identity transforms and empty groups, and merges adjacent paths with the same style, e.g. \"0.1\"");
+
+	/** Application option for watching the input and converting it again on changes. */
+	AO_Watch optionWatch = new AO_Watch(false, "keeps running after the conversion and converts the input again whenever it changes, when processing layers only changed layers are converted again, not supported for archive output");
+
+	/** Application option for profiling painting. */
+	AO_ProfileRender optionProfileRender = new AO_ProfileRender(false, "profiles painting and writes a report per layer (or for the single output) next to the outputs as <name>.profile.txt, with time and output bytes per element type and for the most expensive elements by id (default " + AO_ProfileRender.DEFAULT_TOP + "), targets are painted one after another");
+
+	/** Profiler for painting, null if painting is not profiled. */
+	private RenderProfiler profiler;
+
 	/**
 	 * Returns a new application.
 	 */
 	public Svg2Vector_FH(){
-		super(new AppProperties<BatikLoader>(new SvgTargets[]{SvgTargets.pdf, SvgTargets.emf, SvgTargets.svg}, new BatikLoader()));
+		super(new AppProperties<BatikLoader>(new SvgTargets[]{SvgTargets.pdf, SvgTargets.emf, SvgTargets.svg, SvgTargets.svgz}, new BatikLoader()));
 
 		this.addOption(this.optionNotTransparent);
 		this.addOption(this.optionClip);
 		this.addOption(this.optionBackgroundColor);
 		this.addOption(this.optionNoBackground);
+		this.addOption(this.optionFontWarmup);
+		this.addOption(this.optionDynamicBridge);
+		this.addOption(this.optionSvgSerialize);
+		this.addOption(this.optionOffline);
+		this.addOption(this.optionNoCull);
+		this.addOption(this.optionOptimize);
+		this.addOption(this.optionWatch);
+		this.addOption(this.optionProfileRender);
+	}
+
+	@Override
+	protected void configureLoader(BatikLoader loader){
+		loader.setDynamic(this.optionDynamicBridge.inCli());
+		loader.setOffline(this.optionOffline.inCli());
+		loader.setClean(this.getProps().doesCleanSvg());
+		loader.setCull(!this.optionNoCull.inCli());
+		loader.setOptimize((this.optionOptimize.inCli())?this.optionOptimize.getTolerance():null);
+
+		//only svg outputs split from the input, the document is never painted so a scan is sufficient, unless it needs optimizing
+		SvgTargets[] targets = this.getProps().getTargets();
+		this.getProps().setScanInput(this.getProps().requestsStreamSplit() && this.getProps().processLayers() && targets.length==1 && targets[0]==SvgTargets.svg && !this.optionOptimize.inCli());
 	}
 
 	@Override
 	public int executeApplication(String[] args) {
+		int ret = this.executeConversion(args);
+		int sampled = this.finishSampling();
+		this.finishMessages();
+		return (ret!=0)?ret:sampled;
+	}
+
+	/**
+	 * Parses the command line and converts the input.
+	 * @param args command line arguments
+	 * @return 0 on success, negative on error
+	 */
+	protected int executeConversion(String[] args) {
 		// parse command line, exit with help screen if error
 		int ret = super.executeApplication(args);
 		if(ret!=0){
 			return ret;
 		}
 
-		SvgTargets target = this.getProps().getTarget();
+		SvgTargets[] targets = this.getProps().getTargets();
+
+		boolean split = this.getProps().doesStreamSplit() && ArrayUtils.contains(targets, SvgTargets.svg);
+		if(this.getProps().doesStreamSplit() && !split){
+			this.printWarningMessage("target is not <svg> but CLI option <stream-split> used, will be ignored");
+		}
+		SvgTargets[] paintTargets = (split)?ArrayUtils.removeElement(targets, SvgTargets.svg):targets;
+
+		boolean watch = this.optionWatch.inCli() && !this.getProps().doesArchive() && this.getProps().canWriteFiles();
+		if(this.optionWatch.inCli() && !watch){
+			this.printWarningMessage("archive output or simulation used with CLI option <" + this.optionWatch.getCliOption().getLongOpt() + ">, will be ignored");
+		}
+
+		if(this.optionSvgSerialize.inCli() && !ArrayUtils.contains(targets, SvgTargets.svg) && !ArrayUtils.contains(targets, SvgTargets.svgz)){
+			this.printWarningMessage("target is not <svg> or <svgz> but CLI option <" + this.optionSvgSerialize.getCliOption().getLongOpt() + "> used, will be ignored");
+		}
+
+		FhMultiConverter converters = new FhMultiConverter();
+		for(SvgTargets target : paintTargets){
+			if(this.optionSvgSerialize.inCli() && (target==SvgTargets.svg || target==SvgTargets.svgz)){
+				this.printDetailMessage("serializing document for target " + target.name());
+				converters.addSerializedTarget(target);
+				continue;
+			}
+
+			FhConverter converter = TARGET_2_CONVERTER(target);
+			if(converter==null){
+				this.printErrorMessage("no converter found for target <" + target.name() + ">");
+				return -20;
+			}
+
+			converter.setPropertyTransparent(!this.optionNotTransparent.inCli());
+			converter.setPropertyClip(this.optionClip.inCli());
+			converter.setPropertyBackground(!this.optionNoBackground.inCli());
+			converter.setPropertyTextAsShapes(this.getProps().doesTextAsShape());
+			if(this.optionBackgroundColor.inCli()){
+				Color color = Color.getColor(this.optionBackgroundColor.getValue());
+				converter.setPropertyBackgroundColor(color);
+			}
 
-		FhConverter converter = TARGET_2_CONVERTER(target);
-		if(converter==null){
-			this.printErrorMessage("no converter found for target <" + target.name() + ">");
-			return -20;
+			UserProperties up = converter.getProperties();
+			Set<Object> keys = up.keySet();
+			Iterator<Object>it = keys.iterator();
+			while(it.hasNext()){
+				String key = it.next().toString();
+				String val = up.getProperty(key);
+				key=key.substring(key.lastIndexOf('.')+1, key.length());
+				this.printDetailMessage("using SVG property " + key + "=" + val + ((paintTargets.length>1)?" for target " + target.name():""));
+			}
+			converters.addConverter(target, converter);
 		}
+		converters.setDeadline(this.getDeadline());
 
-		converter.setPropertyTransparent(!this.optionNotTransparent.inCli());
-		converter.setPropertyClip(this.optionClip.inCli());
-		converter.setPropertyBackground(!this.optionNoBackground.inCli());
-		converter.setPropertyTextAsShapes(this.getProps().doesTextAsShape());
-		if(this.optionBackgroundColor.inCli()){
-			Color color = Color.getColor(this.optionBackgroundColor.getValue());
-			converter.setPropertyBackgroundColor(color);
+		if(this.optionProfileRender.inCli()){
+			if(this.optionProfileRender.getTop()<1){
+				this.printErrorMessage("number of elements <" + this.optionProfileRender.getValue() + "> for CLI option <" + this.optionProfileRender.getCliOption().getLongOpt() + "> not a positive number");
+				return -25;
+			}
+			this.profiler = new RenderProfiler(this.optionProfileRender.getTop());
+			this.getProps().getLoader().setProfiler(this.profiler);
+			converters.setProfiler(this.profiler);
 		}
 
-		UserProperties up = converter.getProperties();
-		Set<Object> keys = up.keySet();
-		Iterator<Object>it = keys.iterator();
-		while(it.hasNext()){
-			String key = it.next().toString();
-			String val = up.getProperty(key);
-			key=key.substring(key.lastIndexOf('.')+1, key.length());
-			this.printDetailMessage("using SVG property " + key + "=" + val);
+		if(this.optionFontWarmup.inCli()){
+			this.printProgressMessage("loading fonts");
+			for(String family : FontCache.getInstance().warmUp(this.optionFontWarmup.getFontFamilies())){
+				this.printWarningMessage("font family <" + family + "> not found, not loaded");
+			}
 		}
 
 		String err;
 		BatikLoader loader = this.getProps().getLoader();
+		if(loader.getCleaner()!=null){
+			this.printDetailMessage(() -> "cleaned document: " + loader.getCleaner().getElements() + " elements, " + loader.getCleaner().getAttributes() + " attributes removed");
+		}
+		if(loader.getOptimizer()!=null){
+			SvgOptimizer optimizer = loader.getOptimizer();
+			this.printDetailMessage(() -> "optimized document: " + optimizer.getElementsBefore() + " -> " + optimizer.getElementsAfter() + " elements, " + optimizer.getDropped() + " dropped, " + optimizer.getMerged() + " merged, " + optimizer.getFlattened() + " flattened");
+		}
+		//digests of the document as loaded, before layers are switched, to find changed layers when watching
+		Map<String, Long> digests = (watch)?loader.getDigests():null;
+		long start = System.currentTimeMillis();
 		if(this.getProps().doesLayers()){
-			for(Entry<String, Integer> entry : loader.getLayers().entrySet()){
-				loader.switchOffAllLayers();
-				loader.switchOnLayer(entry.getKey());
-				this.printProgressMessage("processing layer " + entry.getKey());
-				this.printDetailMessage("writing to file " + this.getProps().getFnOut(entry) + "." + target.name());
+			ArchiveOutput archive = null;
+			if(this.getProps().doesArchive() && this.getProps().canWriteFiles()){
+				try{
+					archive = new ArchiveOutput(this.getProps().getArchiveFile(), this.getProps().getArchiveFormat());
+				}
+				catch(IOException ex){
+					this.printErrorMessage("cannot create archive file <" + this.getProps().getArchiveFile() + "> - " + ex.getMessage());
+					return -21;
+				}
+			}
+
+			if(split){
+				err = this.splitLayers(archive);
+				if(err!=null){
+					this.printErrorMessage(err);
+					if(archive!=null){
+						archive.abort();
+					}
+					return -23;
+				}
+			}
+
+			for(Entry<String, Integer> entry : this.getProps().getSelectedLayers().entrySet()){
+				if(paintTargets.length==0){
+					break;
+				}
+				loader.selectLayer(entry.getKey());
+				this.fireLayerStarted(entry.getKey());
+				Map<SvgTargets, File> files = new LinkedHashMap<>();
+				for(SvgTargets target : paintTargets){
+					if(this.getProps().doesArchive()){
+						this.printDetailMessage(() -> "writing to archive entry " + this.getProps().getFnOutNoDir(entry) + "." + target.name());
+					}
+					else{
+						this.printDetailMessage(() -> "writing to file " + this.getProps().getFnOut(entry) + "." + target.name());
+						files.put(target, new File(this.getProps().getFnOut(entry) + "." + target.name()));
+					}
+				}
 				if(this.getProps().canWriteFiles()){
-					err = converter.convertDocument(loader, new File(this.getProps().getFnOut(entry) + "." + target.name()));
+					if(archive!=null){
+						err = converters.convertDocument(loader, archive, this.getProps().getFnOutNoDir(entry));
+					}
+					else{
+						err = converters.convertDocument(loader, files);
+					}
 					if(err!=null){
 						this.printErrorMessage(err);
+						loader.restoreLayers();
+						if(archive!=null){
+							archive.abort();
+						}
 						return -99;//TODO
 					}
+					//reports for archive entries are written next to the archive
+					this.writeRenderProfiles((archive!=null)?new File(this.getProps().getArchiveFile().getParentFile(), this.getProps().getFnOutNoDir(entry)).getPath():this.getProps().getFnOut(entry));
+				}
+			}
+			loader.restoreLayers();
+
+			if(archive!=null){
+				try{
+					archive.close();
+				}
+				catch(IOException ex){
+					this.printErrorMessage("error closing archive file <" + this.getProps().getArchiveFile() + "> - " + ex.getMessage());
+					archive.abort();
+					return -22;
 				}
 			}
 		}
 		else{
 			this.printProgressMessage("converting input");
-			this.printDetailMessage("writing to file " + this.getProps().getFoutFile());
+			Map<SvgTargets, File> files = new LinkedHashMap<>();
+			for(SvgTargets target : targets){
+				this.printDetailMessage(() -> "writing to file " + this.getProps().getFoutFile(target));
+				files.put(target, this.getProps().getFoutFile(target));
+			}
 			if(this.getProps().canWriteFiles()){
-				err = converter.convertDocument(loader, this.getProps().getFoutFile());
+				err = converters.convertDocument(loader, files);
 				if(err!=null){
 					this.printErrorMessage(err);
 					return -99;//TODO
 				}
+				this.writeRenderProfiles(StringUtils.removeEnd(files.get(targets[0]).getPath(), "." + targets[0].name()));
 			}
 		}
 
+		this.firePhaseFinished("convert", start);
+
+		GlyphOutlineCache glyphs = GlyphOutlineCache.getInstance();
+		this.printDetailMessage(() -> "glyph cache:      " + glyphs.getHits() + " hits, " + glyphs.getMisses() + " misses, " + glyphs.size() + " outlines cached");
+		FontCache fonts = FontCache.getInstance();
+		this.printDetailMessage(() -> "font cache:       families " + fonts.getFamilyHits() + " hits, " + fonts.getFamilyMisses() + " misses - fonts " + fonts.getFontHits() + " hits, " + fonts.getFontMisses() + " misses");
+		ResourceCache resources = ResourceCache.getInstance();
+		this.printDetailMessage(() -> "resource cache:   " + resources.getHits() + " hits, " + resources.getMisses() + " misses, " + resources.size() + " files cached, " + resources.getBytes() + " bytes");
+		FilterCache filters = loader.getFilterCache();
+		this.printDetailMessage(() -> "filter cache:     " + filters.getHits() + " hits, " + filters.getMisses() + " misses, " + filters.size() + " outputs cached, " + filters.getBytes() + " bytes");
+		this.printDetailMessage(() -> "batik objects:    " + BatikObjects.getCreated() + " created, " + BatikObjects.getReused() + " reused");
+		if(loader.getCuller()!=null){
+			this.printDetailMessage(() -> "culled nodes:     " + loader.getCuller().getOffPage() + " off page, " + loader.getCuller().getHidden() + " invisible");
+		}
+
+		if(watch){
+			return this.watch(converters, digests, split);
+		}
 		this.printProgressMessage("finished successfully");
 		return 0;
 	}
 
+	/**
+	 * Watches the input and converts it again when it changes, until the watch is interrupted.
+	 * Conversions run one after another on a background thread with a newly loaded document, while the process-wide caches stay warm.
+	 * Changes during a conversion are collected and converted once the running conversion is finished.
+	 * @param converters the converters for all painted and serialized targets
+	 * @param digests the digests of the converted document, null if the document was not loaded
+	 * @param split true if svg outputs are split from the input
+	 * @return 0 when the watch is interrupted, negative if the input cannot be watched
+	 */
+	protected int watch(FhMultiConverter converters, Map<String, Long> digests, boolean split){
+		String fin = this.getProps().getFinFn();
+		this.printProgressMessage("watching input " + fin + " for changes");
+		//the digests are taken, so the document is not needed while waiting for changes
+		this.getProps().getLoader().reset();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "s2v-watch");
+			t.setDaemon(true);
+			return t;
+		});
+		AtomicReference<Map<String, Long>> state = new AtomicReference<>(digests);
+		AtomicReference<Change> latest = new AtomicReference<>();
+		AtomicBoolean queued = new AtomicBoolean();
+		try(InputWatcher watcher = new InputWatcher(Collections.singletonList(Paths.get(fin)), InputWatcher.DEFAULT_DEBOUNCE)){
+			watcher.run(change -> {
+				latest.set(change);
+				if(queued.compareAndSet(false, true)){
+					executor.execute(() -> {
+						queued.set(false);
+						this.reconvert(converters, state, split, latest.get());
+					});
+				}
+			});
+		}
+		catch(IOException ex){
+			this.printErrorMessage("cannot watch input <" + fin + "> - " + ex.getMessage());
+			return -24;
+		}
+		catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+		}
+		finally{
+			executor.shutdownNow();
+		}
+		return 0;
+	}
+
+	/**
+	 * Converts the input again after a change.
+	 * When processing layers, only layers with a changed digest are converted, all layers if content outside layers changed.
+	 * @param converters the converters for all painted and serialized targets
+	 * @param state the digests of the last converted document, updated after the conversion without the digests of layers that failed, so that they are converted again on the next change
+	 * @param split true if svg outputs are split from the input
+	 * @param change the last change of the input
+	 */
+	protected void reconvert(FhMultiConverter converters, AtomicReference<Map<String, Long>> state, boolean split, Change change){
+		long start = System.currentTimeMillis();
+		this.printProgressMessage("input changed, converting again");
+
+		String err = null;
+		if(split){
+			err = this.splitLayers(null);
+		}
+
+		Set<SvgTargets> targets = new LinkedHashSet<>(converters.getSerializedTargets());
+		targets.addAll(converters.getConverters().keySet());
+		int count = 0;
+		int total = 0;
+		if(err==null && targets.size()>0){
+			//the loader keeps its settings and profiler, the document of the last conversion was released
+			BatikLoader loader = this.getProps().getLoader();
+			loader.reset();
+			Deadline deadline = this.getProps().getLimits().newDeadline();
+			loader.setDeadline(deadline);
+			converters.setDeadline(deadline);
+			err = loader.load(this.getProps().getFinFn());
+			if(err==null){
+				Map<String, Long> digests = loader.getDigests();
+				Map<String, Long> before = state.get();
+				if(this.getProps().doesLayers()){
+					boolean all = before==null || !Objects.equals(before.get(""), digests.get(""));
+					Map<String, Long> converted = new HashMap<>(digests);
+					Map<String, Integer> layers = this.getProps().getSelectedLayers(loader.getLayers());
+					total = layers.size();
+					for(Entry<String, Integer> entry : layers.entrySet()){
+						if(!all && Objects.equals(before.get(entry.getKey()), digests.get(entry.getKey()))){
+							continue;
+						}
+						if(err!=null){
+							//not converted after an earlier error
+							converted.remove(entry.getKey());
+							continue;
+						}
+						loader.selectLayer(entry.getKey());
+						this.printDetailMessage(() -> "processing layer " + entry.getKey());
+						Map<SvgTargets, File> files = new LinkedHashMap<>();
+						for(SvgTargets target : targets){
+							files.put(target, new File(this.getProps().getFnOut(entry) + "." + target.name()));
+						}
+						err = converters.convertDocument(loader, files);
+						if(err!=null){
+							converted.remove(entry.getKey());
+							continue;
+						}
+						this.writeRenderProfiles(this.getProps().getFnOut(entry));
+						count++;
+					}
+					loader.restoreLayers();
+					state.set(converted);
+				}
+				else{
+					if(this.getProps().doesSwitchOnLayers()){
+						loader.switchOnAllLayers();
+					}
+					Map<SvgTargets, File> files = new LinkedHashMap<>();
+					for(SvgTargets target : targets){
+						files.put(target, this.getProps().getFoutFile(target));
+					}
+					err = converters.convertDocument(loader, files);
+					if(err==null){
+						state.set(digests);
+						SvgTargets first = targets.iterator().next();
+						this.writeRenderProfiles(StringUtils.removeEnd(files.get(first).getPath(), "." + first.name()));
+					}
+				}
+			}
+			loader.reset();
+		}
+
+		if(err!=null){
+			this.printErrorMessage(err);
+			this.flushMessages();
+			return;
+		}
+		long end = System.currentTimeMillis();
+		int layers = count;
+		int all = total;
+		this.printProgressMessage(() -> "converted again in " + (end - start) + " ms" + ((all>0)?", " + layers + " of " + all + " layers":"") + ", latency " + (end - change.getLast()) + " ms after the last change");
+		this.flushMessages();
+	}
+
+	/**
+	 * Writes the profiles of the paintings since the last report to a report file, if painting is profiled.
+	 * @param fn file name of the report without extension
+	 */
+	protected void writeRenderProfiles(String fn){
+		if(this.profiler==null){
+			return;
+		}
+		List<RenderProfiler.Profile> profiles = this.profiler.takeProfiles();
+		if(profiles.size()==0){
+			return;
+		}
+		File file = new File(fn + ".profile.txt");
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)){
+			for(RenderProfiler.Profile profile : profiles){
+				writer.write(profile.getReport(this.profiler.getTop()));
+				writer.write(System.lineSeparator());
+			}
+		}
+		catch(IOException ex){
+			this.printWarningMessage("cannot write render profile <" + file + "> - " + ex.getMessage());
+			return;
+		}
+		this.printDetailMessage(() -> "wrote render profile " + file);
+	}
+
+	/**
+	 * Writes the svg outputs of all selected layers in a single streaming pass over the input.
+	 * Outputs for an archive are written to temporary files first, since archive entries can only be written one at a time.
+	 * @param archive the archive for the outputs, null to write output files
+	 * @return null on success, error message on error
+	 */
+	private String splitLayers(ArchiveOutput archive){
+		this.printProgressMessage("splitting layers into SVG files");
+		Map<String, Integer> layers = this.getProps().getSelectedLayers();
+		for(Entry<String, Integer> entry : layers.entrySet()){
+			if(this.getProps().doesArchive()){
+				this.printDetailMessage(() -> "writing to archive entry " + this.getProps().getFnOutNoDir(entry) + ".svg");
+			}
+			else{
+				this.printDetailMessage(() -> "writing to file " + this.getProps().getFnOut(entry) + ".svg");
+			}
+		}
+		if(!this.getProps().canWriteFiles()){
+			return null;
+		}
+
+		Path tmpDir = null;
+		Map<String, File> files = new LinkedHashMap<>();
+		Map<String, OutputStream> outputs = new LinkedHashMap<>();
+		try{
+			if(archive!=null){
+				tmpDir = Files.createTempDirectory("svg2vector-split");
+			}
+			for(Entry<String, Integer> entry : layers.entrySet()){
+				File file = (tmpDir==null)?new File(this.getProps().getFnOut(entry) + ".svg"):new File(tmpDir.toFile(), this.getProps().getFnOutNoDir(entry) + ".svg");
+				files.put(entry.getKey(), file);
+				outputs.put(entry.getKey(), new BufferedOutputStream(new FileOutputStream(file), 64*1024));
+			}
+
+			SvgLayerSplitter splitter = new SvgLayerSplitter();
+			String err = splitter.split(this.getProps().getFinFn(), outputs);
+			if(err!=null){
+				return err;
+			}
+			for(OutputStream out : outputs.values()){
+				out.close();
+			}
+			this.printDetailMessage("split layers:     " + splitter.getLayers() + " layers from " + splitter.getEvents() + " events");
+
+			if(this.getProps().doesCleanSvg()){
+				SvgCleaner cleaner = new SvgCleaner();
+				int elements = 0;
+				int attributes = 0;
+				for(File file : files.values()){
+					err = cleaner.clean(file);
+					if(err!=null){
+						return err;
+					}
+					elements += cleaner.getElements();
+					attributes += cleaner.getAttributes();
+				}
+				this.printDetailMessage("cleaned files:    " + elements + " elements, " + attributes + " attributes removed");
+			}
+
+			if(archive!=null){
+				for(Entry<String, Integer> entry : layers.entrySet()){
+					archive.addFile(this.getProps().getFnOutNoDir(entry) + ".svg", files.get(entry.getKey()));
+				}
+			}
+		}
+		catch(IOException ex){
+			return "error splitting layers into SVG files - " + ex.getMessage();
+		}
+		finally{
+			for(OutputStream out : outputs.values()){
+				try{
+					out.close();
+				}
+				catch(IOException ignore){}
+			}
+			if(tmpDir!=null){
+				for(File file : files.values()){
+					file.delete();
+				}
+				tmpDir.toFile().delete();
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public String getAppName() {
 		return APP_NAME;
@@ -187,6 +669,8 @@ public class Svg2Vector_FH extends AppBase<BatikLoader, AppProperties<BatikLoade
 				return new Fh_Svg2Pdf();
 			case svg:
 				return new Fh_Svg2Svg();
+			case svgz:
+				return new Fh_Svg2Svgz();
 			case emf:
 				return new Fh_Svg2Emf();
 		}
@@ -16,14 +16,43 @@
 package de.vandermeer.svg2vector.applications.fh.converters;
 
 import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import org.apache.batik.bridge.BridgeContext;
 import org.apache.batik.bridge.DocumentLoader;
+import org.apache.batik.bridge.ExternalResourceSecurity;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.NoLoadExternalResourceSecurity;
+import org.apache.batik.bridge.NoLoadScriptSecurity;
+import org.apache.batik.bridge.ScriptSecurity;
 import org.apache.batik.bridge.UserAgent;
 import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.css.engine.CSSStylableElement;
+import org.apache.batik.dom.svg.SAXSVGDocumentFactory;
+import org.apache.batik.dom.util.DOMUtilities;
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.util.ParsedURL;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.w3c.dom.Document;
@@ -31,11 +60,21 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
 
+import de.vandermeer.svg2vector.applications.base.ConversionPhase;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+import de.vandermeer.svg2vector.applications.base.ResourceLimits;
 import de.vandermeer.svg2vector.applications.base.SV_DocumentLoader;
+import de.vandermeer.svg2vector.applications.base.SvgCleaner;
 
 /**
  * Loads an SVG document using Batik and provides some methods to deal with layers.
+ * By default, documents are loaded with a static bridge context and a user agent that does not load scripts.
+ * No DOM listeners are attached, layer visibility changes are applied by resetting the computed style of the layer nodes.
+ * The Batik objects for a document are taken from a pool of the loading thread, {@link #reset()} releases the document and returns them, so one loader can convert many small files.
  *
  * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
  * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
@@ -43,6 +82,9 @@ import de.vandermeer.svg2vector.applications.base.SV_DocumentLoader;
  */
 public class BatikLoader extends SV_DocumentLoader {
 
+	/** Batik objects of the loaded document, null if none loaded. */
+	private BatikObjects batik;
+
 	/** Local bridge context. */
 	private BridgeContext bridgeContext;
 
@@ -55,6 +97,51 @@ public class BatikLoader extends SV_DocumentLoader {
 	/** Mapping from node id to actual DOM node. */
 	private final Map<String, Node> layerNodes = new HashMap<>();
 
+	/** Layers with content referenced from elsewhere in the document, these layers are switched off but never removed, null if not yet computed. */
+	private Set<String> pinnedLayers;
+
+	/** Identifiers of all elements in layers, null if not yet collected. */
+	private Set<String> layerIds;
+
+	/** Mapping from layer nodes removed from the document to the placeholder nodes replacing them. */
+	private final Map<Node, Node> prunedLayers = new LinkedHashMap<>();
+
+	/** Flag for loading documents with a dynamic bridge context, default is false. */
+	private boolean dynamic = false;
+
+	/** Flag for loading only local resources, default is false. */
+	private boolean offline = false;
+
+	/** Flag for removing editor content and unreferenced definitions after loading, default is false. */
+	private boolean clean = false;
+
+	/** Cleaner used for the loaded document, null if not cleaned. */
+	private SvgCleaner cleaner;
+
+	/** Tolerance for optimizing the geometry after loading, null if the geometry is not optimized. */
+	private Double optimizeTolerance;
+
+	/** Optimizer used for the loaded document, null if not optimized. */
+	private SvgOptimizer optimizer;
+
+	/** Flag for removing nodes that paint nothing on the page from built graphics trees, default is true. */
+	private boolean cull = true;
+
+	/** Culler for the graphics trees of the loaded document, null if trees are not culled. */
+	private GraphicsNodeCuller culler;
+
+	/** Profiler instrumenting built graphics trees, null if painting is not profiled. */
+	private RenderProfiler profiler;
+
+	/** Cache for rendered filter outputs, shared by all graphics trees built for the loaded document. */
+	private final FilterCache filterCache = new FilterCache();
+
+	/** URI of the loaded document, null if none loaded. */
+	private String uri;
+
+	/** The layer selected for processing, null if none selected. */
+	private String selectedLayer;
+
 	/**
 	 * Returns the Inkscape label for a given node.
 	 * @param node XML/SVG node
@@ -98,26 +185,66 @@ public class BatikLoader extends SV_DocumentLoader {
 	@Override
 	public String load(String fn) {
 		Validate.notBlank(fn);
+		return this.load(new File(fn).toURI().toString(), null);
+	}
+
+	/**
+	 * Loads a document from a stream, nothing happens if a document is already loaded.
+	 * @param uri the URI of the document, relative links in the document are resolved against it
+	 * @param in the stream to read the document from, not closed, null to read the document from the URI
+	 * @return null on success, error message on error
+	 * @throws NullPointerException if uri was null
+	 * @throws IllegalArgumentException if uri was blank
+	 */
+	public String load(String uri, InputStream in) {
+		Validate.notBlank(uri);
 
 		if(!this.isLoaded){
-			this.bridgeContext = null;
-			this.svgDocument = null;
+			this.release();
+			if(this.optimizeTolerance!=null && !(this.optimizeTolerance>=0)){
+				return this.getClass().getSimpleName() + ": optimize tolerance <" + this.optimizeTolerance + "> not valid, use a non-negative number";
+			}
 
-			UserAgent userAgent = new UserAgentAdapter();
-			DocumentLoader documentLoader = new DocumentLoader(userAgent);
+			if(in==null){
+				String err = this.limits.checkBytes(BatikLoader.fileLength(uri));
+				if(err!=null){
+					return this.getClass().getSimpleName() + ": " + err;
+				}
+			}
 
-			this.bridgeContext = new BridgeContext(userAgent, documentLoader);
-			this.bridgeContext.setDynamic(true);
+			ResourceCache.install();
+			this.batik = BatikObjects.acquire(this.dynamic, this.offline, this.limits, this.deadline);
+			DocumentLoader documentLoader = this.batik.getDocumentLoader();
+			this.bridgeContext = this.batik.getBridgeContext();
 
+			ConversionPhase load = ConversionPhase.begin(ConversionPhase.Kind.DOCUMENT_LOAD).file(uri);
 			try{
-				this.svgDocument = documentLoader.loadDocument(new File(fn).toURI().toString());
+				CountingInputStream counted = ((load.isRecorded() || this.limits.getMaxBytes()>0) && in!=null)?new CountingInputStream(in, this.limits):null;
+				try{
+					this.svgDocument = (in==null)?documentLoader.loadDocument(uri):documentLoader.loadDocument(uri, (counted==null)?in:counted);
+				}
+				catch(Exception ex){
+					this.release();
+					return this.getClass().getSimpleName() + ": exception loading svgDocument - " + ex.getMessage();
+				}
+				documentLoader.dispose();
+				if(load.isRecorded()){
+					load.bytes((counted==null)?BatikLoader.fileLength(uri):counted.getCount());
+				}
 			}
-			catch(Exception ex){
-				this.bridgeContext = null;
-				this.svgDocument = null;
-				return this.getClass().getSimpleName() + ": exception loading svgDocument - " + ex.getMessage();
+			finally{
+				load.end();
+			}
+			this.uri = uri;
+
+			if(this.clean){
+				this.cleaner = new SvgCleaner();
+				this.cleaner.clean(this.svgDocument);
+			}
+			if(this.optimizeTolerance!=null){
+				this.optimizer = new SvgOptimizer(this.optimizeTolerance);
+				this.optimizer.optimize(this.svgDocument);
 			}
-			documentLoader.dispose();
 
 			Element elem = this.svgDocument.getDocumentElement();
 			this.size = new Dimension();
@@ -125,58 +252,97 @@ public class BatikLoader extends SV_DocumentLoader {
 				this.size.setSize(Double.valueOf(elem.getAttribute("width")), Double.valueOf(elem.getAttribute("height")));
 			}
 			catch(Exception ex){
-				this.bridgeContext = null;
-				this.svgDocument = null;
-				this.size = null;
+				this.release();
 				return this.getClass().getSimpleName() + ": exception setting docucment size - " + ex.getMessage();
 			}
+			if(this.cull){
+				this.culler = new GraphicsNodeCuller(new Rectangle2D.Double(0, 0, this.size.getWidth(), this.size.getHeight()));
+			}
 
-			NodeList nodes = elem.getChildNodes();
-			if(nodes!=null){
-				for(int i=0; i<nodes.getLength(); i++){
-					if("g".equals(nodes.item(i).getNodeName())){
-						NamedNodeMap nnm = nodes.item(i).getAttributes();
-						for(int node=0; node<nnm.getLength(); node++){
-							if("inkscape:groupmode".equals(nnm.item(node).getNodeName())){
-								String id = BatikLoader.getLabel(nodes.item(i));
-								int index = BatikLoader.getIndex(nodes.item(i));
-								this.layers.put(id, index);
-								this.layerNodes.put(id, nodes.item(i));
+			ConversionPhase scan = ConversionPhase.begin(ConversionPhase.Kind.LAYER_SCAN).file(uri);
+			try{
+				NodeList nodes = elem.getChildNodes();
+				if(nodes!=null){
+					for(int i=0; i<nodes.getLength(); i++){
+						if("g".equals(nodes.item(i).getNodeName())){
+							NamedNodeMap nnm = nodes.item(i).getAttributes();
+							for(int node=0; node<nnm.getLength(); node++){
+								if("inkscape:groupmode".equals(nnm.item(node).getNodeName())){
+									String id = BatikLoader.getLabel(nodes.item(i));
+									int index = BatikLoader.getIndex(nodes.item(i));
+									this.layers.put(id, index);
+									this.layerNodes.put(id, nodes.item(i));
+								}
 							}
 						}
 					}
 				}
 			}
+			finally{
+				scan.end();
+			}
+
+			String err = this.limits.checkLayers(this.layers.size());
+			if(err!=null){
+				this.release();
+				this.layers.clear();
+				this.layerNodes.clear();
+				return this.getClass().getSimpleName() + ": " + err;
+			}
 		}
 
 		this.isLoaded = true;
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * The document and all graphics trees built for it are released, the Batik objects of the document are returned to the pool of the calling thread.
+	 * Settings, the profiler, and the filter cache (emptied) are kept.
+	 */
+	@Override
+	public void reset(){
+		this.release();
+		this.layerNodes.clear();
+		this.pinnedLayers = null;
+		this.layerIds = null;
+		this.prunedLayers.clear();
+		this.selectedLayer = null;
+		this.uri = null;
+		super.reset();
+	}
+
+	/**
+	 * Releases the loaded document, the objects derived from it, and its Batik objects.
+	 */
+	private void release(){
+		if(this.batik!=null){
+			this.batik.dispose();
+			this.batik = null;
+		}
+		this.bridgeContext = null;
+		this.svgDocument = null;
+		this.size = null;
+		this.filterCache.clear();
+		this.cleaner = null;
+		this.optimizer = null;
+		this.culler = null;
+	}
+
 	@Override
 	public void switchOnAllLayers() {
 		for(Node node : this.layerNodes.values()){
-			NamedNodeMap nnm = node.getAttributes();
-			for(int i=0; i<nnm.getLength(); i++){
-				if("style".equals(nnm.item(i).getNodeName())){
-					nnm.item(i).setNodeValue("display:inline");
-					break;
-				}
-			}
+			BatikLoader.setDisplay(node, "display:inline");
 		}
+		this.filterCache.nextGeneration();
 	}
 
 	@Override
 	public void switchOffAllLayers() {
 		for(Node node : this.layerNodes.values()){
-			NamedNodeMap nnm = node.getAttributes();
-			for(int i=0; i<nnm.getLength(); i++){
-				if("style".equals(nnm.item(i).getNodeName())){
-					nnm.item(i).setNodeValue("display:none");
-					break;
-				}
-			}
+			BatikLoader.setDisplay(node, "display:none");
 		}
+		this.filterCache.nextGeneration();
 	}
 
 	@Override
@@ -189,16 +355,263 @@ public class BatikLoader extends SV_DocumentLoader {
 		if(node==null){
 			return;
 		}
+		BatikLoader.setDisplay(node, "display:inline");
+		this.filterCache.nextGeneration();
+	}
 
+	/**
+	 * Sets the style of a layer node and resets its computed style, so that the next GVT build uses the new style without DOM listeners.
+	 * Nothing happens if the node has no style attribute.
+	 * @param node the layer node
+	 * @param style the new style
+	 */
+	static void setDisplay(Node node, String style){
 		NamedNodeMap nnm = node.getAttributes();
 		for(int i=0; i<nnm.getLength(); i++){
 			if("style".equals(nnm.item(i).getNodeName())){
-				nnm.item(i).setNodeValue("display:inline");
+				nnm.item(i).setNodeValue(style);
+				if(node instanceof CSSStylableElement){
+					((CSSStylableElement)node).setComputedStyleMap(null, null);
+				}
 				return;
 			}
 		}
 	}
 
+	/**
+	 * Sets the flag for loading documents with a dynamic bridge context, must be set before a document is loaded.
+	 * A dynamic bridge context keeps the document bound to the graphics tree with DOM listeners, a static bridge context does not.
+	 * @param dynamic true for a dynamic bridge context and a default user agent, false for a static bridge context and a user agent that does not load scripts
+	 */
+	public void setDynamic(boolean dynamic){
+		this.dynamic = dynamic;
+	}
+
+	/**
+	 * Tests if documents are loaded with a dynamic bridge context.
+	 * @return true if dynamic, false if static
+	 */
+	public boolean isDynamic(){
+		return this.dynamic;
+	}
+
+	/**
+	 * Sets the flag for loading only local resources, must be set before a document is loaded.
+	 * Linked images, style sheets, and documents with a URL other than a file or data URL are then refused.
+	 * @param offline true to load only local resources, false to load any resource
+	 */
+	public void setOffline(boolean offline){
+		this.offline = offline;
+	}
+
+	/**
+	 * Tests if documents are loaded with local resources only.
+	 * @return true if offline, false otherwise
+	 */
+	public boolean isOffline(){
+		return this.offline;
+	}
+
+	/**
+	 * Sets the flag for removing editor content and unreferenced definitions after loading, must be set before a document is loaded.
+	 * @param clean true to clean loaded documents, false to keep them as they are
+	 */
+	public void setClean(boolean clean){
+		this.clean = clean;
+	}
+
+	/**
+	 * Returns the cleaner used for the loaded document.
+	 * @return cleaner with the number of removed elements and attributes, null if the document was not cleaned
+	 */
+	public SvgCleaner getCleaner(){
+		return this.cleaner;
+	}
+
+	/**
+	 * Sets the tolerance for optimizing the geometry after loading, must be set before a document is loaded.
+	 * @param tolerance size in user units up to which shapes are considered invisible, null to not optimize the geometry
+	 */
+	public void setOptimize(Double tolerance){
+		this.optimizeTolerance = tolerance;
+	}
+
+	/**
+	 * Returns the optimizer used for the loaded document.
+	 * @return optimizer with element counts, null if the document was not optimized
+	 */
+	public SvgOptimizer getOptimizer(){
+		return this.optimizer;
+	}
+
+	/**
+	 * Sets the culling of graphics trees, must be set before a document is loaded.
+	 * @param cull true to remove nodes outside the page and invisible nodes from built graphics trees (default), false to paint all nodes
+	 */
+	public void setCull(boolean cull){
+		this.cull = cull;
+	}
+
+	/**
+	 * Returns the culler for the graphics trees of the loaded document.
+	 * @return culler with the number of removed nodes of all trees built so far, null if trees are not culled
+	 */
+	public GraphicsNodeCuller getCuller(){
+		return this.culler;
+	}
+
+	/**
+	 * Sets a profiler instrumenting the graphics trees built afterwards, so that painting them can be profiled.
+	 * @param profiler the profiler, null to build trees without instrumentation (default)
+	 */
+	public void setProfiler(RenderProfiler profiler){
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Returns the profiler instrumenting built graphics trees.
+	 * @return profiler, null if not set
+	 */
+	public RenderProfiler getProfiler(){
+		return this.profiler;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * All other layers are removed from the document, so that a following GVT build does not walk them.
+	 * Layers with content referenced from elsewhere in the document, for instance gradients or symbols, are switched off but not removed.
+	 */
+	@Override
+	public void selectLayer(String layer){
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.LAYER_SWITCH).file(this.uri).layer(layer);
+		try{
+			this.restoreLayers();
+			this.switchOffAllLayers();
+			this.switchOnLayer(layer);
+			this.selectedLayer = layer;
+			if(this.svgDocument==null){
+				return;
+			}
+
+			if(this.pinnedLayers==null){
+				this.pinnedLayers = new HashSet<>();
+				Set<String> refs = new HashSet<>();
+				BatikLoader.collectReferences(this.svgDocument.getDocumentElement(), refs);
+				for(Entry<String, Node> entry : this.layerNodes.entrySet()){
+					Set<String> ids = new HashSet<>();
+					BatikLoader.collectIds(entry.getValue(), ids);
+					ids.retainAll(refs);
+					if(ids.size()>0){
+						this.pinnedLayers.add(entry.getKey());
+					}
+				}
+			}
+
+			for(Entry<String, Node> entry : this.layerNodes.entrySet()){
+				if(StringUtils.equals(entry.getKey(), layer) || this.pinnedLayers.contains(entry.getKey())){
+					continue;
+				}
+				Node node = entry.getValue();
+				Node placeholder = this.svgDocument.createTextNode("");
+				node.getParentNode().replaceChild(placeholder, node);
+				this.prunedLayers.put(node, placeholder);
+			}
+		}
+		finally{
+			phase.end();
+		}
+	}
+
+	@Override
+	public void restoreLayers(){
+		for(Entry<Node, Node> entry : this.prunedLayers.entrySet()){
+			entry.getValue().getParentNode().replaceChild(entry.getKey(), entry.getValue());
+		}
+		this.prunedLayers.clear();
+		this.selectedLayer = null;
+	}
+
+	/**
+	 * Returns the length of a file given by a URI.
+	 * @param uri the URI of the file
+	 * @return length of the file, 0 if the URI is not a file URI or the file does not exist
+	 */
+	static long fileLength(String uri){
+		try{
+			return new File(new URI(uri)).length();
+		}
+		catch(Exception ex){
+			return 0;
+		}
+	}
+
+	/**
+	 * Tests if the content of an element depends on the layer settings, so its filter output cannot be shared by graphics trees of different layers.
+	 * That is the case if the element contains layers (or placeholders of removed layers) or references an element in a layer.
+	 * @param element the element to test
+	 * @return true if the element depends on the layer settings, false otherwise
+	 */
+	boolean dependsOnLayers(Element element){
+		if(this.layerNodes.isEmpty()){
+			return false;
+		}
+		List<Node> nodes = new ArrayList<>(this.layerNodes.values());
+		nodes.addAll(this.prunedLayers.values());
+		for(Node node : nodes){
+			for(Node parent=node.getParentNode(); parent!=null; parent=parent.getParentNode()){
+				if(parent==element){
+					return true;
+				}
+			}
+		}
+		if(this.layerIds==null){
+			this.layerIds = new HashSet<>();
+			for(Node node : this.layerNodes.values()){
+				BatikLoader.collectIds(node, this.layerIds);
+			}
+		}
+		Set<String> refs = new HashSet<>();
+		BatikLoader.collectReferences(element, refs);
+		refs.retainAll(this.layerIds);
+		return refs.size()>0;
+	}
+
+	/**
+	 * Collects all element identifiers in a node and its descendants.
+	 * @param node the node to start with
+	 * @param ids set to add the identifiers to
+	 */
+	static void collectIds(Node node, Set<String> ids){
+		if(node.getNodeType()==Node.ELEMENT_NODE && ((Element)node).hasAttribute("id")){
+			ids.add(((Element)node).getAttribute("id"));
+		}
+		for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+			BatikLoader.collectIds(child, ids);
+		}
+	}
+
+	/**
+	 * Collects all local references (links like "#id" and paint references like "url(#id)") in a node and its descendants.
+	 * References are taken from attributes and from the content of style elements.
+	 * @param node the node to start with
+	 * @param refs set to add the referenced identifiers to
+	 */
+	static void collectReferences(Node node, Set<String> refs){
+		NamedNodeMap nnm = node.getAttributes();
+		if(nnm!=null){
+			for(int i=0; i<nnm.getLength(); i++){
+				SvgCleaner.addReferences(nnm.item(i).getNodeValue(), refs);
+			}
+		}
+		boolean style = "style".equals(node.getLocalName());
+		for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+			if(style){
+				SvgCleaner.addReferences(child.getNodeValue(), refs);
+			}
+			BatikLoader.collectReferences(child, refs);
+		}
+	}
+
 	/**
 	 * Returns the loader's document.
 	 * @return loaded document, null if none loaded
@@ -207,6 +620,31 @@ public class BatikLoader extends SV_DocumentLoader {
 		return this.svgDocument;
 	}
 
+	/**
+	 * Writes the loader's document as SVG (UTF-8), with the current layer settings.
+	 * Layers removed by {@link #selectLayer(String)} are not written.
+	 * @param out the stream to write to, it is flushed but not closed
+	 * @return null on success, error message on error
+	 */
+	public String writeDocument(OutputStream out){
+		if(this.svgDocument==null){
+			return this.getClass().getSimpleName() + ": no document loaded";
+		}
+		try{
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64*1024);
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+			for(Node node=this.svgDocument.getFirstChild(); node!=null; node=node.getNextSibling()){
+				DOMUtilities.writeNode(node, writer);
+				writer.write('\n');
+			}
+			writer.flush();
+		}
+		catch(IOException ex){
+			return this.getClass().getSimpleName() + ": exception writing document - " + ex.getMessage();
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the loader's bridge context.
 	 * @return bridge context, null if no document loaded
@@ -215,6 +653,70 @@ public class BatikLoader extends SV_DocumentLoader {
 		return this.bridgeContext;
 	}
 
+	/**
+	 * Returns digests of the content of the loaded document, one per layer and one for all content outside layers.
+	 * Digests are computed from element names, attributes, and text, so a changed digest of a document loaded again means a changed layer.
+	 * Layer settings change the document, so digests should be taken before layers are switched or selected.
+	 * @return map of layer name to digest, the content outside layers has the empty string as key, empty if no document loaded
+	 */
+	public Map<String, Long> getDigests(){
+		Map<String, Long> ret = new LinkedHashMap<>();
+		if(this.svgDocument==null){
+			return ret;
+		}
+
+		Map<Node, String> layers = new HashMap<>();
+		for(Entry<String, Node> entry : this.layerNodes.entrySet()){
+			layers.put(entry.getValue(), entry.getKey());
+		}
+		Element root = this.svgDocument.getDocumentElement();
+		long other = BatikLoader.digest(root.getAttributes(), 17);
+		for(Node node=root.getFirstChild(); node!=null; node=node.getNextSibling()){
+			if(layers.containsKey(node)){
+				ret.put(layers.get(node), BatikLoader.digest(node, 17));
+			}
+			else{
+				other = BatikLoader.digest(node, other);
+			}
+		}
+		ret.put("", other);
+		return ret;
+	}
+
+	/**
+	 * Adds a node and its descendants to a digest.
+	 * @param node the node
+	 * @param digest the digest so far
+	 * @return new digest
+	 */
+	static long digest(Node node, long digest){
+		long ret = digest * 31 + node.getNodeType();
+		ret = ret * 31 + ((node.getNodeName()==null)?0:node.getNodeName().hashCode());
+		ret = ret * 31 + ((node.getNodeValue()==null)?0:node.getNodeValue().hashCode());
+		ret = BatikLoader.digest(node.getAttributes(), ret);
+		for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+			ret = BatikLoader.digest(child, ret);
+		}
+		return ret * 31 + 1;
+	}
+
+	/**
+	 * Adds attributes to a digest.
+	 * @param nnm the attributes, can be null
+	 * @param digest the digest so far
+	 * @return new digest
+	 */
+	static long digest(NamedNodeMap nnm, long digest){
+		long ret = digest;
+		if(nnm!=null){
+			for(int i=0; i<nnm.getLength(); i++){
+				ret = ret * 31 + nnm.item(i).getNodeName().hashCode();
+				ret = ret * 31 + nnm.item(i).getNodeValue().hashCode();
+			}
+		}
+		return ret;
+	}
+
 	/**
 	 * Returns the document size.
 	 * @return document size, null if no document loaded
@@ -223,5 +725,385 @@ public class BatikLoader extends SV_DocumentLoader {
 		return this.size;
 	}
 
+	/**
+	 * Returns the cache for rendered filter outputs of the loaded document.
+	 * @return filter cache
+	 */
+	public FilterCache getFilterCache(){
+		return this.filterCache;
+	}
+
+	/**
+	 * Builds the graphics node tree for the loaded document with the current layer settings.
+	 * The tree can be painted to several targets.
+	 * Filtered nodes paint their filter output from the document's filter cache.
+	 * Unless culling is switched off, nodes outside the page and invisible nodes are removed from the tree.
+	 * With a profiler, shape and text nodes and filters are instrumented for profiling.
+	 * @return root node of the tree
+	 * @throws DeadlineExceededException if the deadline of the loader was exceeded while building the tree
+	 */
+	public GraphicsNode buildGraphicsNode(){
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.GVT_BUILD).file(this.uri).layer(this.selectedLayer);
+		try{
+			GraphicsNode ret = this.batik.getBuilder(this.filterCache, this::dependsOnLayers, this.deadline, this.profiler).build(this.bridgeContext, this.svgDocument);
+			if(this.culler!=null){
+				this.culler.cull(ret);
+			}
+			return ret;
+		}
+		finally{
+			phase.end();
+		}
+	}
+
+	/**
+	 * A stream counting the bytes read from another stream, closing it does not close the other stream.
+	 * Reading fails once more bytes than allowed by the limits are read.
+	 */
+	protected static class CountingInputStream extends FilterInputStream {
+
+		/** The limits for the number of bytes. */
+		protected final ResourceLimits limits;
+
+		/** Number of bytes read. */
+		protected long count;
+
+		/**
+		 * Creates a new counting stream.
+		 * @param in the stream to read from
+		 * @param limits the limits for the number of bytes
+		 */
+		public CountingInputStream(InputStream in, ResourceLimits limits){
+			super(in);
+			this.limits = limits;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int ret = super.read();
+			if(ret>=0){
+				this.add(1);
+			}
+			return ret;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int ret = super.read(b, off, len);
+			if(ret>0){
+				this.add(ret);
+			}
+			return ret;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long ret = super.skip(n);
+			this.add(ret);
+			return ret;
+		}
+
+		/**
+		 * Adds read bytes to the count.
+		 * @param bytes number of bytes read
+		 * @throws IOException if the limit for the number of bytes was exceeded
+		 */
+		protected void add(long bytes) throws IOException {
+			this.count += bytes;
+			String err = this.limits.checkBytes(this.count);
+			if(err!=null){
+				throw new IOException(err);
+			}
+		}
+
+		@Override
+		public boolean markSupported(){
+			return false;
+		}
+
+		@Override
+		public void close(){}
+
+		/**
+		 * Returns the number of bytes read.
+		 * @return number of bytes
+		 */
+		public long getCount(){
+			return this.count;
+		}
+	}
+
+	/**
+	 * A document loader testing element count, nesting depth, and deadline while parsing.
+	 */
+	protected static class LimitingDocumentLoader extends DocumentLoader {
+
+		/**
+		 * Creates a new document loader.
+		 * @param userAgent the user agent
+		 * @param limits the limits for element count and nesting depth
+		 * @param deadline the deadline, null if none
+		 */
+		public LimitingDocumentLoader(UserAgent userAgent, ResourceLimits limits, Deadline deadline){
+			super(userAgent);
+			this.documentFactory = new LimitingDocumentFactory(userAgent.getXMLParserClassName(), limits, deadline);
+			this.documentFactory.setValidating(userAgent.isXMLParserValidating());
+		}
+
+		/**
+		 * Sets the limits and deadline tested while parsing the next documents.
+		 * @param limits the limits for element count and nesting depth
+		 * @param deadline the deadline, null if none
+		 */
+		public void setLimits(ResourceLimits limits, Deadline deadline){
+			((LimitingDocumentFactory)this.documentFactory).set(limits, deadline);
+		}
+	}
+
+	/**
+	 * A document factory stopping the parser when the element count or nesting depth exceeds the limits or the deadline is exceeded.
+	 * Parsing stops at the element exceeding a limit, so a too large document is never completely built in memory.
+	 */
+	protected static class LimitingDocumentFactory extends SAXSVGDocumentFactory {
+
+		/** The limits for element count and nesting depth. */
+		protected ResourceLimits limits;
+
+		/** The deadline, null if none. */
+		protected Deadline deadline;
+
+		/** Number of elements parsed. */
+		protected long elements;
+
+		/** Current nesting depth. */
+		protected int depth;
+
+		/**
+		 * Creates a new document factory.
+		 * @param parser the class name of the XML parser
+		 * @param limits the limits for element count and nesting depth
+		 * @param deadline the deadline, null if none
+		 */
+		public LimitingDocumentFactory(String parser, ResourceLimits limits, Deadline deadline){
+			super(parser, true);
+			this.set(limits, deadline);
+		}
+
+		/**
+		 * Sets the limits and deadline tested while parsing the next documents.
+		 * @param limits the limits for element count and nesting depth, null for no limits
+		 * @param deadline the deadline, null if none
+		 */
+		public void set(ResourceLimits limits, Deadline deadline){
+			this.limits = (limits==null)?ResourceLimits.NONE:limits;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public void startDocument() throws SAXException {
+			this.elements = 0;
+			this.depth = 0;
+			super.startDocument();
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String rawName, Attributes attributes) throws SAXException {
+			this.elements++;
+			this.depth++;
+			String err = this.limits.checkElements(this.elements);
+			if(err==null){
+				err = this.limits.checkDepth(this.depth);
+			}
+			if(err==null && this.deadline!=null){
+				err = this.deadline.getError();
+			}
+			if(err!=null){
+				throw new SAXException(err);
+			}
+			super.startElement(uri, localName, rawName, attributes);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String rawName) throws SAXException {
+			this.depth--;
+			super.endElement(uri, localName, rawName);
+		}
+	}
+
+	/**
+	 * A user agent for batch conversion, optionally without scripts and without resources other than local files.
+	 */
+	protected static class BatchUserAgent extends UserAgentAdapter {
+
+		/** Flag for loading scripts. */
+		protected final boolean scripts;
+
+		/** Flag for loading only local resources. */
+		protected boolean offline;
+
+		/**
+		 * Creates a new user agent.
+		 * @param scripts true to load scripts, false otherwise
+		 * @param offline true to load only file and data URLs, false to load any resource
+		 */
+		public BatchUserAgent(boolean scripts, boolean offline){
+			this.scripts = scripts;
+			this.offline = offline;
+		}
+
+		/**
+		 * Sets the flag for loading only local resources.
+		 * @param offline true to load only file and data URLs, false to load any resource
+		 */
+		public void setOffline(boolean offline){
+			this.offline = offline;
+		}
+
+		@Override
+		public ScriptSecurity getScriptSecurity(String scriptType, ParsedURL scriptURL, ParsedURL docURL){
+			if(this.scripts){
+				return super.getScriptSecurity(scriptType, scriptURL, docURL);
+			}
+			return new NoLoadScriptSecurity(scriptType);
+		}
+
+		@Override
+		public void checkLoadScript(String scriptType, ParsedURL scriptURL, ParsedURL docURL) throws SecurityException {
+			if(!this.scripts){
+				throw new SecurityException("script loading disabled for static conversion");
+			}
+			super.checkLoadScript(scriptType, scriptURL, docURL);
+		}
+
+		@Override
+		public ExternalResourceSecurity getExternalResourceSecurity(ParsedURL resourceURL, ParsedURL docURL){
+			if(this.offline && resourceURL!=null && !isLocal(resourceURL.getProtocol())){
+				return new NoLoadExternalResourceSecurity();
+			}
+			return super.getExternalResourceSecurity(resourceURL, docURL);
+		}
+
+		/**
+		 * Tests if a URL protocol refers to a local resource.
+		 * @param protocol the protocol, can be null
+		 * @return true if file or data (or no protocol), false otherwise
+		 */
+		static boolean isLocal(String protocol){
+			return protocol==null || "file".equals(protocol) || "data".equals(protocol);
+		}
+	}
+
+	/**
+	 * A graphics tree builder wrapping the filter of every filtered node into a caching filter for its element.
+	 * Elements depending on the layer settings are cached per generation of the cache.
+	 * With a profiler, every node is instrumented for the element it was built for.
+	 */
+	protected static class FilterCachingGVTBuilder extends GVTBuilder {
+
+		/** The cache for rendered filter outputs. */
+		protected FilterCache cache;
+
+		/** Test for elements depending on the layer settings, null if none does. */
+		protected Predicate<Element> layered;
+
+		/** The deadline tested for every element, null if none. */
+		protected Deadline deadline;
+
+		/** The profiler instrumenting nodes, null if none. */
+		protected RenderProfiler profiler;
+
+		/**
+		 * Creates a new builder.
+		 * @param cache the cache for rendered filter outputs
+		 * @param layered test for elements depending on the layer settings, null if none does
+		 * @param deadline the deadline tested for every element, null if none
+		 * @param profiler the profiler instrumenting nodes, null if none
+		 */
+		public FilterCachingGVTBuilder(FilterCache cache, Predicate<Element> layered, Deadline deadline, RenderProfiler profiler){
+			this.set(cache, layered, deadline, profiler);
+		}
+
+		/**
+		 * Sets up the builder for the next builds.
+		 * @param cache the cache for rendered filter outputs
+		 * @param layered test for elements depending on the layer settings, null if none does
+		 * @param deadline the deadline tested for every element, null if none
+		 * @param profiler the profiler instrumenting nodes, null if none
+		 */
+		public void set(FilterCache cache, Predicate<Element> layered, Deadline deadline, RenderProfiler profiler){
+			this.cache = cache;
+			this.layered = layered;
+			this.deadline = deadline;
+			this.profiler = profiler;
+		}
+
+		@Override
+		protected void buildGraphicsNode(BridgeContext ctx, Element e, CompositeGraphicsNode parentNode){
+			if(this.deadline!=null){
+				this.deadline.check();
+			}
+			int children = parentNode.size();
+			super.buildGraphicsNode(ctx, e, parentNode);
+
+			//a node was added for the element only if the parent grew, otherwise the last child belongs to a sibling
+			if(parentNode.size()>children){
+				GraphicsNode node = (GraphicsNode)parentNode.get(parentNode.size() - 1);
+				if(node.getFilter()!=null && !(node.getFilter() instanceof CachingFilter)){
+					node.setFilter(new CachingFilter(node.getFilter(), e, this.cache, this.layered!=null && this.layered.test(e)));
+				}
+				if(this.profiler!=null){
+					this.profiler.instrument(node, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A bridge context using a font family map shared with other bridge contexts, unless the document defines its own fonts.
+	 */
+	protected static class SharedFontsBridgeContext extends BridgeContext {
+
+		/** The font cache providing the shared font family map. */
+		protected final FontCache fontCache;
+
+		/**
+		 * Creates a new bridge context.
+		 * @param userAgent the user agent
+		 * @param documentLoader the document loader
+		 * @param fontCache the font cache providing the shared font family map
+		 */
+		public SharedFontsBridgeContext(UserAgent userAgent, DocumentLoader documentLoader, FontCache fontCache){
+			super(userAgent, documentLoader);
+			this.fontCache = fontCache;
+		}
+
+		@Override
+		protected void setDocument(Document document) {
+			//setting a document resets the font family map
+			super.setDocument(document);
+			if(document!=null && !FontCache.hasFontDefinitions(document)){
+				this.setFontFamilyMap(this.fontCache.newFontFamilyMap());
+			}
+		}
+
+		/**
+		 * Releases the document and the bindings of elements to graphics nodes, so the context can be used for another document.
+		 * Only for static contexts, which have no DOM listeners to remove.
+		 */
+		protected void release(){
+			this.document = null;
+			this.gvtBuilder = null;
+			this.documentSize = null;
+			this.elementNodeMap = null;
+			this.nodeElementMap = null;
+			this.elementDataMap = null;
+			this.setFontFamilyMap(null);
+			//keep the viewport of the user agent, created by the constructor
+			Set<?> viewports = this.viewportMap.keySet();
+			viewports.retainAll(Collections.singleton(this.userAgent));
+			//created again when the next build opens a viewport
+			this.viewportStack = null;
+		}
+	}
 
 }
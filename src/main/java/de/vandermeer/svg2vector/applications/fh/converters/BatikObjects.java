@@ -0,0 +1,205 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.DocumentLoader;
+import org.w3c.dom.Element;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.ResourceLimits;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader.BatchUserAgent;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader.FilterCachingGVTBuilder;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader.LimitingDocumentLoader;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader.SharedFontsBridgeContext;
+
+/**
+ * The Batik objects for loading one document and building its graphics trees: user agent, document loader, bridge context, and graphics tree builder.
+ * Objects for a static bridge context are taken from a pool of the calling thread and returned to it by {@link #dispose()}, so a batch of small documents reuses them.
+ * Disposing releases the document and the graphics trees bound to the objects, objects for a dynamic bridge context are disposed and not pooled.
+ * 
+ * Objects are used by one thread at a time, they must not be used after they are disposed.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class BatikObjects {
+
+	/** Maximum number of idle objects per thread. */
+	public static final int MAX_IDLE = 4;
+
+	/** The idle objects per thread. */
+	private static final ThreadLocal<Deque<BatikObjects>> IDLE = ThreadLocal.withInitial(ArrayDeque::new);
+
+	/** Number of objects created for static bridge contexts. */
+	private static final LongAdder CREATED = new LongAdder();
+
+	/** Number of objects taken from a pool. */
+	private static final LongAdder REUSED = new LongAdder();
+
+	static{
+		ConversionStats.getInstance().addCache("batik", REUSED::sum, CREATED::sum);
+	}
+
+	/** The user agent. */
+	private final BatchUserAgent userAgent;
+
+	/** The document loader. */
+	private final LimitingDocumentLoader documentLoader;
+
+	/** The bridge context. */
+	private final SharedFontsBridgeContext bridgeContext;
+
+	/** The graphics tree builder. */
+	private final FilterCachingGVTBuilder builder;
+
+	/** Flag for a dynamic bridge context. */
+	private final boolean dynamic;
+
+	/** Flag for disposed objects. */
+	private boolean disposed;
+
+	/**
+	 * Creates new objects.
+	 * @param dynamic true for a dynamic bridge context and a user agent loading scripts, false for a static bridge context and a user agent that does not load scripts
+	 */
+	private BatikObjects(boolean dynamic){
+		this.dynamic = dynamic;
+		this.userAgent = new BatchUserAgent(dynamic, false);
+		this.documentLoader = new LimitingDocumentLoader(this.userAgent, ResourceLimits.NONE, null);
+		this.bridgeContext = new SharedFontsBridgeContext(this.userAgent, this.documentLoader, FontCache.getInstance());
+		this.bridgeContext.setDynamicState((dynamic)?BridgeContext.DYNAMIC:BridgeContext.STATIC);
+		this.builder = new FilterCachingGVTBuilder(null, null, null, null);
+	}
+
+	/**
+	 * Returns objects for loading a document, idle objects of the calling thread for a static bridge context, new objects otherwise.
+	 * @param dynamic true for a dynamic bridge context and a user agent loading scripts, false for a static bridge context and a user agent that does not load scripts
+	 * @param offline true to load only file and data URLs, false to load any resource
+	 * @param limits the limits for element count and nesting depth while parsing
+	 * @param deadline the deadline tested while parsing, null if none
+	 * @return objects for loading a document
+	 */
+	public static BatikObjects acquire(boolean dynamic, boolean offline, ResourceLimits limits, Deadline deadline){
+		BatikObjects ret = (dynamic)?null:IDLE.get().pollFirst();
+		if(ret==null){
+			ret = new BatikObjects(dynamic);
+			if(!dynamic){
+				CREATED.increment();
+			}
+		}
+		else{
+			ret.disposed = false;
+			REUSED.increment();
+		}
+		ret.userAgent.setOffline(offline);
+		ret.documentLoader.setLimits(limits, deadline);
+		return ret;
+	}
+
+	/**
+	 * Returns the number of objects created for static bridge contexts, in all threads.
+	 * @return number of created objects
+	 */
+	public static long getCreated(){
+		return CREATED.sum();
+	}
+
+	/**
+	 * Returns the number of objects taken from a pool, in all threads.
+	 * @return number of reused objects
+	 */
+	public static long getReused(){
+		return REUSED.sum();
+	}
+
+	/**
+	 * Returns the number of idle objects of the calling thread.
+	 * @return number of idle objects
+	 */
+	public static int getIdle(){
+		return IDLE.get().size();
+	}
+
+	/**
+	 * Returns the document loader.
+	 * @return document loader
+	 */
+	public DocumentLoader getDocumentLoader(){
+		return this.documentLoader;
+	}
+
+	/**
+	 * Returns the bridge context.
+	 * @return bridge context
+	 */
+	public BridgeContext getBridgeContext(){
+		return this.bridgeContext;
+	}
+
+	/**
+	 * Returns the graphics tree builder, set up for a build.
+	 * @param cache the cache for rendered filter outputs
+	 * @param layered test for elements depending on the layer settings, null if none does
+	 * @param deadline the deadline tested for every element, null if none
+	 * @param profiler the profiler instrumenting nodes, null if none
+	 * @return graphics tree builder
+	 */
+	public FilterCachingGVTBuilder getBuilder(FilterCache cache, Predicate<Element> layered, Deadline deadline, RenderProfiler profiler){
+		this.builder.set(cache, layered, deadline, profiler);
+		return this.builder;
+	}
+
+	/**
+	 * Tests if the objects use a dynamic bridge context.
+	 * @return true if dynamic, false if static
+	 */
+	public boolean isDynamic(){
+		return this.dynamic;
+	}
+
+	/**
+	 * Releases the document and graphics trees bound to the objects and returns objects for a static bridge context to the pool of the calling thread.
+	 * Nothing happens if the objects are already disposed.
+	 */
+	public void dispose(){
+		if(this.disposed){
+			return;
+		}
+		this.disposed = true;
+		this.documentLoader.dispose();
+		this.documentLoader.setLimits(ResourceLimits.NONE, null);
+		this.builder.set(null, null, null, null);
+		if(this.dynamic){
+			if(this.bridgeContext.getDocument()!=null){
+				this.bridgeContext.dispose();
+			}
+			return;
+		}
+		this.bridgeContext.release();
+		Deque<BatikObjects> idle = IDLE.get();
+		if(idle.size()<MAX_IDLE){
+			idle.addFirst(this);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderContext;
+import java.awt.image.renderable.RenderableImage;
+import java.util.Vector;
+
+import org.apache.batik.ext.awt.image.GraphicsUtil;
+import org.apache.batik.ext.awt.image.renderable.AbstractRable;
+import org.apache.batik.ext.awt.image.renderable.Filter;
+import org.apache.batik.ext.awt.image.renderable.PaintRable;
+import org.apache.commons.lang3.Validate;
+import org.w3c.dom.Element;
+
+/**
+ * A filter painting the output of another filter as an image, rendered once per device transform and kept in a filter cache.
+ * The output is rendered in device space of the target graphics and drawn without the device transform.
+ * Outputs too large for the cache are rendered for the clip of the target graphics only, every time they are painted.
+ * This also paints filters on graphics without a device configuration, for instance the vector graphics of the FreeHep converters.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class CachingFilter extends AbstractRable implements PaintRable {
+
+	/** The filtered element. */
+	protected final Element element;
+
+	/** The cache for rendered outputs. */
+	protected final FilterCache cache;
+
+	/** Flag for an element whose content depends on the layer settings, cached per generation of the cache. */
+	protected final boolean layered;
+
+	/** Profiler for painting the filter, null if not profiled. */
+	protected RenderProfiler profiler;
+
+	/**
+	 * Creates a new caching filter for an element not depending on the layer settings.
+	 * @param filter the filter to render
+	 * @param element the filtered element, used as key in the cache
+	 * @param cache the cache for rendered outputs
+	 * @throws NullPointerException if any argument was null
+	 */
+	public CachingFilter(Filter filter, Element element, FilterCache cache){
+		this(filter, element, cache, false);
+	}
+
+	/**
+	 * Creates a new caching filter.
+	 * @param filter the filter to render
+	 * @param element the filtered element, used as key in the cache
+	 * @param cache the cache for rendered outputs
+	 * @param layered true if the content of the element depends on the layer settings, for instance if it contains layers, false otherwise
+	 * @throws NullPointerException if any object argument was null
+	 */
+	public CachingFilter(Filter filter, Element element, FilterCache cache, boolean layered){
+		super(Validate.notNull(filter));
+		this.element = Validate.notNull(element);
+		this.cache = Validate.notNull(cache);
+		this.layered = layered;
+	}
+
+	/**
+	 * Returns the filter rendered by this filter.
+	 * @return source filter
+	 */
+	public Filter getSource(){
+		return (Filter)this.getSources().get(0);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Vector<RenderableImage> getSources(){
+		//Batik declares a raw vector of its sources, which are renderable images
+		return super.getSources();
+	}
+
+	@Override
+	public RenderedImage createRendering(RenderContext rc){
+		return this.getSource().createRendering(rc);
+	}
+
+	/**
+	 * Sets a profiler for painting the filter.
+	 * @param profiler the profiler, null to paint without profiling
+	 */
+	public void setProfiler(RenderProfiler profiler){
+		this.profiler = profiler;
+	}
+
+	@Override
+	public boolean paintRable(Graphics2D g2d){
+		boolean profiled = this.profiler!=null && this.profiler.enter();
+		try{
+			return this.paintCached(g2d);
+		}
+		finally{
+			if(profiled){
+				this.profiler.exit(RenderProfiler.TYPE_FILTER, this.element);
+			}
+		}
+	}
+
+	/**
+	 * Paints the output of the source filter, rendering it only if it is not in the cache.
+	 * @param g2d the graphics to paint on
+	 * @return true, the output is always painted
+	 */
+	protected boolean paintCached(Graphics2D g2d){
+		AffineTransform at = g2d.getTransform();
+		Rectangle2D region = this.getBounds2D();
+		if(region==null || region.isEmpty()){
+			return true;
+		}
+		Rectangle bounds = at.createTransformedShape(region).getBounds();
+		if(bounds.isEmpty()){
+			return true;
+		}
+
+		FilterCache.Output output;
+		if(this.cache.accepts(4L * bounds.width * bounds.height)){
+			FilterCache.Key key = new FilterCache.Key(this.element, at, bounds, (this.layered)?this.cache.getGeneration():0);
+			output = this.cache.get(key);
+			if(output==null){
+				output = this.render(at, bounds, g2d.getRenderingHints());
+				this.cache.put(key, output);
+			}
+		}
+		else{
+			Shape clip = g2d.getClip();
+			if(clip!=null){
+				bounds = bounds.intersection(at.createTransformedShape(clip).getBounds());
+				if(bounds.isEmpty()){
+					return true;
+				}
+			}
+			output = this.render(at, bounds, g2d.getRenderingHints());
+		}
+
+		g2d.setTransform(new AffineTransform());
+		g2d.drawImage(output.getImage(), output.getX(), output.getY(), null);
+		g2d.setTransform(at);
+		return true;
+	}
+
+	/**
+	 * Renders the source filter in device space, using Batik's own painting into an image.
+	 * @param at the device transform
+	 * @param bounds the device bounds of the filter region
+	 * @param hints rendering hints
+	 * @return rendered output
+	 */
+	protected FilterCache.Output render(AffineTransform at, Rectangle bounds, RenderingHints hints){
+		BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g = GraphicsUtil.createGraphics(image, hints);
+		g.translate(-bounds.x, -bounds.y);
+		g.transform(at);
+		GraphicsUtil.drawImage(g, this.getSource());
+		g.dispose();
+		return new FilterCache.Output(image, bounds.x, bounds.y);
+	}
+}
@@ -0,0 +1,124 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Shape;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+
+/**
+ * A graphics object testing a deadline before every painting call for shapes, text, and images.
+ * When the deadline is exceeded or the conversion was cancelled, painting stops with a {@link DeadlineExceededException}.
+ * This bounds the time of painting large or malformed documents, the test costs a time lookup per call.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class CancellableGraphics2D extends DelegatingGraphics2D {
+
+	/** The deadline. */
+	protected final Deadline deadline;
+
+	/**
+	 * Creates a new cancellable graphics object.
+	 * @param g the graphics object to forward calls to, must not be null
+	 * @param deadline the deadline, must not be null
+	 * @throws NullPointerException if any argument was null
+	 */
+	public CancellableGraphics2D(Graphics2D g, Deadline deadline){
+		super(g);
+		Validate.notNull(deadline);
+		this.deadline = deadline;
+	}
+
+	@Override
+	protected Graphics2D wrap(Graphics2D created){
+		return new CancellableGraphics2D(created, this.deadline);
+	}
+
+	@Override
+	public Graphics create() {
+		this.deadline.check();
+		return super.create();
+	}
+
+	@Override
+	public void draw(Shape s) {
+		this.deadline.check();
+		this.g.draw(s);
+	}
+
+	@Override
+	public void fill(Shape s) {
+		this.deadline.check();
+		this.g.fill(s);
+	}
+
+	@Override
+	public void drawGlyphVector(GlyphVector gv, float x, float y) {
+		this.deadline.check();
+		this.g.drawGlyphVector(gv, x, y);
+	}
+
+	@Override
+	public void drawString(String str, float x, float y) {
+		this.deadline.check();
+		this.g.drawString(str, x, y);
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+		this.deadline.check();
+		this.g.drawString(iterator, x, y);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+		this.deadline.check();
+		return this.g.drawImage(img, x, y, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+		this.deadline.check();
+		return this.g.drawImage(img, xform, obs);
+	}
+
+	@Override
+	public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+		this.deadline.check();
+		this.g.drawRenderedImage(img, xform);
+	}
+
+	@Override
+	public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+		this.deadline.check();
+		this.g.drawRenderableImage(img, xform);
+	}
+}
@@ -0,0 +1,434 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A graphics object forwarding all calls to another graphics object.
+ * Subclasses override the calls they want to intercept while painting a document, the actual output is still created by the wrapped (FreeHep) graphics.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class DelegatingGraphics2D extends Graphics2D {
+
+	/** The wrapped graphics object. */
+	protected final Graphics2D g;
+
+	/**
+	 * Creates a new delegating graphics object.
+	 * @param g the graphics object to forward calls to, must not be null
+	 * @throws NullPointerException if argument was null
+	 */
+	public DelegatingGraphics2D(Graphics2D g){
+		Validate.notNull(g);
+		this.g = g;
+	}
+
+	/**
+	 * Returns the wrapped graphics object.
+	 * @return wrapped graphics
+	 */
+	public Graphics2D getDelegate(){
+		return this.g;
+	}
+
+	/**
+	 * Wraps a graphics object created from the delegate, called by {@link #create()}.
+	 * Subclasses must override this to make sure that derived graphics objects intercept the same calls.
+	 * @param created the graphics object created by the delegate
+	 * @return new wrapper for the created graphics object
+	 */
+	protected Graphics2D wrap(Graphics2D created){
+		return new DelegatingGraphics2D(created);
+	}
+
+	@Override
+	public Graphics create() {
+		return this.wrap((Graphics2D)this.g.create());
+	}
+
+	@Override
+	public void dispose() {
+		this.g.dispose();
+	}
+
+	@Override
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+		return this.g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+		return this.g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+		return this.g.drawImage(img, x, y, width, height, bgcolor, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+		return this.g.drawImage(img, x, y, width, height, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+		return this.g.drawImage(img, x, y, bgcolor, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+		return this.g.drawImage(img, x, y, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+		return this.g.drawImage(img, xform, obs);
+	}
+
+	@Override
+	public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+		this.g.drawImage(img, op, x, y);
+	}
+
+	@Override
+	public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+		this.g.drawRenderableImage(img, xform);
+	}
+
+	@Override
+	public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+		this.g.drawRenderedImage(img, xform);
+	}
+
+	@Override
+	public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+		return this.g.hit(rect, s, onStroke);
+	}
+
+	@Override
+	public Color getBackground() {
+		return this.g.getBackground();
+	}
+
+	@Override
+	public void setBackground(Color color) {
+		this.g.setBackground(color);
+	}
+
+	@Override
+	public Color getColor() {
+		return this.g.getColor();
+	}
+
+	@Override
+	public void setColor(Color c) {
+		this.g.setColor(c);
+	}
+
+	@Override
+	public Composite getComposite() {
+		return this.g.getComposite();
+	}
+
+	@Override
+	public void setComposite(Composite comp) {
+		this.g.setComposite(comp);
+	}
+
+	@Override
+	public Font getFont() {
+		return this.g.getFont();
+	}
+
+	@Override
+	public void setFont(Font font) {
+		this.g.setFont(font);
+	}
+
+	@Override
+	public FontMetrics getFontMetrics(Font f) {
+		return this.g.getFontMetrics(f);
+	}
+
+	@Override
+	public FontRenderContext getFontRenderContext() {
+		return this.g.getFontRenderContext();
+	}
+
+	@Override
+	public GraphicsConfiguration getDeviceConfiguration() {
+		return this.g.getDeviceConfiguration();
+	}
+
+	@Override
+	public Paint getPaint() {
+		return this.g.getPaint();
+	}
+
+	@Override
+	public void setPaint(Paint paint) {
+		this.g.setPaint(paint);
+	}
+
+	@Override
+	public void setPaintMode() {
+		this.g.setPaintMode();
+	}
+
+	@Override
+	public void setXORMode(Color c1) {
+		this.g.setXORMode(c1);
+	}
+
+	@Override
+	public Stroke getStroke() {
+		return this.g.getStroke();
+	}
+
+	@Override
+	public void setStroke(Stroke s) {
+		this.g.setStroke(s);
+	}
+
+	@Override
+	public RenderingHints getRenderingHints() {
+		return this.g.getRenderingHints();
+	}
+
+	@Override
+	public Object getRenderingHint(RenderingHints.Key hintKey) {
+		return this.g.getRenderingHint(hintKey);
+	}
+
+	@Override
+	public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+		this.g.setRenderingHint(hintKey, hintValue);
+	}
+
+	@Override
+	public void setRenderingHints(Map<?, ?> hints) {
+		this.g.setRenderingHints(hints);
+	}
+
+	@Override
+	public void addRenderingHints(Map<?, ?> hints) {
+		this.g.addRenderingHints(hints);
+	}
+
+	@Override
+	public Rectangle getClipBounds() {
+		return this.g.getClipBounds();
+	}
+
+	@Override
+	public Shape getClip() {
+		return this.g.getClip();
+	}
+
+	@Override
+	public void setClip(int x, int y, int width, int height) {
+		this.g.setClip(x, y, width, height);
+	}
+
+	@Override
+	public void setClip(Shape clip) {
+		this.g.setClip(clip);
+	}
+
+	@Override
+	public void clip(Shape s) {
+		this.g.clip(s);
+	}
+
+	@Override
+	public void clipRect(int x, int y, int width, int height) {
+		this.g.clipRect(x, y, width, height);
+	}
+
+	@Override
+	public AffineTransform getTransform() {
+		return this.g.getTransform();
+	}
+
+	@Override
+	public void setTransform(AffineTransform tx) {
+		this.g.setTransform(tx);
+	}
+
+	@Override
+	public void transform(AffineTransform tx) {
+		this.g.transform(tx);
+	}
+
+	@Override
+	public void rotate(double theta) {
+		this.g.rotate(theta);
+	}
+
+	@Override
+	public void rotate(double theta, double x, double y) {
+		this.g.rotate(theta, x, y);
+	}
+
+	@Override
+	public void scale(double sx, double sy) {
+		this.g.scale(sx, sy);
+	}
+
+	@Override
+	public void shear(double shx, double shy) {
+		this.g.shear(shx, shy);
+	}
+
+	@Override
+	public void translate(double tx, double ty) {
+		this.g.translate(tx, ty);
+	}
+
+	@Override
+	public void translate(int x, int y) {
+		this.g.translate(x, y);
+	}
+
+	@Override
+	public void clearRect(int x, int y, int width, int height) {
+		this.g.clearRect(x, y, width, height);
+	}
+
+	@Override
+	public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+		this.g.copyArea(x, y, width, height, dx, dy);
+	}
+
+	@Override
+	public void draw(Shape s) {
+		this.g.draw(s);
+	}
+
+	@Override
+	public void fill(Shape s) {
+		this.g.fill(s);
+	}
+
+	@Override
+	public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		this.g.drawArc(x, y, width, height, startAngle, arcAngle);
+	}
+
+	@Override
+	public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+		this.g.fillArc(x, y, width, height, startAngle, arcAngle);
+	}
+
+	@Override
+	public void drawLine(int x1, int y1, int x2, int y2) {
+		this.g.drawLine(x1, y1, x2, y2);
+	}
+
+	@Override
+	public void drawOval(int x, int y, int width, int height) {
+		this.g.drawOval(x, y, width, height);
+	}
+
+	@Override
+	public void fillOval(int x, int y, int width, int height) {
+		this.g.fillOval(x, y, width, height);
+	}
+
+	@Override
+	public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+		this.g.drawPolygon(xPoints, yPoints, nPoints);
+	}
+
+	@Override
+	public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+		this.g.fillPolygon(xPoints, yPoints, nPoints);
+	}
+
+	@Override
+	public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+		this.g.drawPolyline(xPoints, yPoints, nPoints);
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height) {
+		this.g.fillRect(x, y, width, height);
+	}
+
+	@Override
+	public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		this.g.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+	}
+
+	@Override
+	public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+		this.g.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+	}
+
+	@Override
+	public void drawGlyphVector(GlyphVector g, float x, float y) {
+		this.g.drawGlyphVector(g, x, y);
+	}
+
+	@Override
+	public void drawString(String str, float x, float y) {
+		this.g.drawString(str, x, y);
+	}
+
+	@Override
+	public void drawString(String str, int x, int y) {
+		this.g.drawString(str, x, y);
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+		this.g.drawString(iterator, x, y);
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+		this.g.drawString(iterator, x, y);
+	}
+}
@@ -16,11 +16,23 @@
 package de.vandermeer.svg2vector.applications.fh.converters;
 
 import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
+import org.apache.batik.gvt.GraphicsNode;
 import org.freehep.graphicsbase.util.UserProperties;
 import org.freehep.graphicsio.AbstractVectorGraphicsIO;
 
+import de.vandermeer.svg2vector.applications.base.ConversionPhase;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
 /**
  * A converter for SVG documents using the FreeHep library.
  *
@@ -33,6 +45,12 @@ public abstract class FhConverter {
 	/** Properties that can be set for conversion. */
 	protected UserProperties properties;
 
+	/** Deadline for painting, null if painting is not limited. */
+	protected Deadline deadline;
+
+	/** Profiler for painting, null if painting is not profiled. */
+	protected RenderProfiler profiler;
+
 	/**
 	 * Creates a new converter with default configuration.
 	 * Sets transparency to true, background to false, background color to white, clipping to false, text as shapes to false.
@@ -47,6 +65,47 @@ public abstract class FhConverter {
 		this.setPropertyTextAsShapes(false);
 	}
 
+	/**
+	 * Returns the target the converter writes.
+	 * @return target, null if the converter does not write a standard target
+	 */
+	public SvgTargets getTarget(){
+		return null;
+	}
+
+	/**
+	 * Sets a deadline for painting, tested for every painted shape, text, and image.
+	 * @param deadline the deadline, null to paint without limit
+	 */
+	public void setDeadline(Deadline deadline){
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Returns the deadline for painting.
+	 * @return deadline, null if not set
+	 */
+	public Deadline getDeadline(){
+		return this.deadline;
+	}
+
+	/**
+	 * Sets a profiler for painting, each painting adds a profile named after the target.
+	 * The graphics trees must be built by a loader with the same profiler.
+	 * @param profiler the profiler, null to paint without profiling
+	 */
+	public void setProfiler(RenderProfiler profiler){
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Returns the profiler for painting.
+	 * @return profiler, null if not set
+	 */
+	public RenderProfiler getProfiler(){
+		return this.profiler;
+	}
+
 	/**
 	 * Sets background property on or off.
 	 * @param on new setting
@@ -87,7 +146,164 @@ public abstract class FhConverter {
 	 * @param fout the file for the output
 	 * @return null on success, error message otherwise
 	 */
-	public abstract String convertDocument(BatikLoader loader, File fout);
+	public String convertDocument(BatikLoader loader, File fout){
+		GraphicsNode rootNode;
+		try{
+			rootNode = loader.buildGraphicsNode();
+		}
+		catch(DeadlineExceededException ex){
+			return ex.getMessage();
+		}
+		return this.convertGraphicsNode(rootNode, loader.getSize(), fout);
+	}
+
+	/**
+	 * Converts the document maintained by the loader to a target format, writing to a stream.
+	 * The stream will be closed when the conversion is finished.
+	 * @param loader the document loader, must have a document successfully loaded
+	 * @param out the stream for the output
+	 * @return null on success, error message otherwise
+	 */
+	public String convertDocument(BatikLoader loader, OutputStream out){
+		GraphicsNode rootNode;
+		try{
+			rootNode = loader.buildGraphicsNode();
+		}
+		catch(DeadlineExceededException ex){
+			return ex.getMessage();
+		}
+		return this.convertGraphicsNode(rootNode, loader.getSize(), out);
+	}
+
+	/**
+	 * Converts a graphics node tree built from a document to a target format.
+	 * The same tree can be converted to several targets, one after another.
+	 * If the conversion does not complete, for instance on an error or when the deadline is exceeded, the output file is deleted.
+	 * @param rootNode the root node of the tree
+	 * @param size the size of the document
+	 * @param fout the file for the output
+	 * @return null on success, error message otherwise
+	 */
+	public String convertGraphicsNode(GraphicsNode rootNode, Dimension size, File fout){
+		OutputStream out;
+		try{
+			out = new BufferedOutputStream(new FileOutputStream(fout), 64*1024);
+		}
+		catch(IOException ex){
+			return "cannot open output file <" + fout + "> - " + ex.getMessage();
+		}
+
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.OUTPUT_WRITE).file(fout.toString()).target(this.getTarget());
+		String ret = null;
+		boolean complete = false;
+		try{
+			try{
+				ret = this.convertGraphicsNode(rootNode, size, out);
+			}
+			finally{
+				try{
+					out.close();
+				}
+				catch(IOException ex){
+					if(ret==null){
+						ret = "error closing output file <" + fout + "> - " + ex.getMessage();
+					}
+				}
+			}
+			complete = (ret==null);
+			if(phase.isRecorded()){
+				phase.bytes(fout.length());
+			}
+		}
+		finally{
+			phase.end();
+			if(!complete){
+				fout.delete();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts a graphics node tree built from a document to a target format, writing to a stream.
+	 * The stream will be closed when the conversion is finished.
+	 * @param rootNode the root node of the tree
+	 * @param size the size of the document
+	 * @param out the stream for the output
+	 * @return null on success, error message otherwise
+	 */
+	public abstract String convertGraphicsNode(GraphicsNode rootNode, Dimension size, OutputStream out);
+
+	/**
+	 * Returns the graphics object a document is painted on for a given FreeHep graphics.
+	 * FreeHep fills the outline of every glyph vector, so the returned graphics takes glyph outlines from the process-wide glyph outline cache.
+	 * @param g the FreeHep graphics creating the output
+	 * @return graphics object to paint on
+	 */
+	protected Graphics2D getPaintGraphics(Graphics2D g){
+		Graphics2D ret = new GlyphCachingGraphics2D(g, GlyphOutlineCache.getInstance());
+		if(this.deadline!=null){
+			ret = new CancellableGraphics2D(ret, this.deadline);
+		}
+		if(this.profiler!=null){
+			ret = this.profiler.wrap(ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the stream a FreeHep graphics writes to for a given output stream.
+	 * @param out the output stream
+	 * @return stream for the FreeHep graphics, counting written bytes when painting is profiled
+	 */
+	protected OutputStream getPaintOutput(OutputStream out){
+		return (this.profiler==null)?out:this.profiler.count(out);
+	}
+
+	/**
+	 * Paints a graphics node tree on a configured FreeHep graphics, from start to end of the export.
+	 * @param rootNode the root node of the tree
+	 * @param g the FreeHep graphics creating the output
+	 * @return null on success, error message if the deadline was exceeded or the conversion was cancelled
+	 */
+	protected String paint(GraphicsNode rootNode, AbstractVectorGraphicsIO g){
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.PAINT).target(this.getTarget());
+		if(this.profiler!=null){
+			this.profiler.begin((this.getTarget()==null)?this.getClass().getSimpleName():this.getTarget().name());
+		}
+		try{
+			if(this.deadline!=null){
+				this.deadline.check();
+			}
+			this.export(g::startExport);
+			rootNode.paint(this.getPaintGraphics(g));
+			this.export(g::endExport);
+			return null;
+		}
+		catch(DeadlineExceededException ex){
+			return ex.getMessage();
+		}
+		finally{
+			g.dispose();
+			if(this.profiler!=null){
+				this.profiler.end();
+			}
+			phase.end();
+		}
+	}
+
+	/**
+	 * Runs a step of the export, profiled if painting is profiled.
+	 * @param step the step
+	 */
+	private void export(Runnable step){
+		if(this.profiler==null){
+			step.run();
+		}
+		else{
+			this.profiler.export(step);
+		}
+	}
 
 	/**
 	 * Returns the user properties of the converter.
@@ -0,0 +1,424 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Dimension;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.batik.bridge.BridgeException;
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.CompositeShapePainter;
+import org.apache.batik.gvt.FillShapePainter;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.ImageNode;
+import org.apache.batik.gvt.MarkerShapePainter;
+import org.apache.batik.gvt.PatternPaint;
+import org.apache.batik.gvt.ShapeNode;
+import org.apache.batik.gvt.ShapePainter;
+import org.apache.batik.gvt.StrokeShapePainter;
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.ArchiveOutput;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+import de.vandermeer.svg2vector.applications.base.ParallelGzipOutputStream;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
+/**
+ * Converts a document to several targets, building the graphics node tree only once.
+ * 
+ * The first target is painted on the calling thread.
+ * Painting a tree initializes lazily computed state of its nodes, for instance shapes and bounds.
+ * Afterwards, trees with only shapes and groups without filters, masks, markers, or pattern paints are painted to all other targets in parallel.
+ * Text, images, filters, masks, markers, and patterns share mutable state (such as character iterators) while painting, so trees with them are painted to one target after another.
+ * 
+ * Targets svg and svgz can also be written by serializing the document instead of painting it.
+ * Serialized targets are written first, the graphics node tree is only built if any other target is converted.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class FhMultiConverter {
+
+	/** Number of threads used for painting. */
+	public static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+	/** The converters, in target order. */
+	protected final Map<SvgTargets, FhConverter> converters = new LinkedHashMap<>();
+
+	/** Targets written by serializing the document, in target order. */
+	protected final Set<SvgTargets> serialized = new LinkedHashSet<>();
+
+	/** Profiler for painting, null if painting is not profiled. */
+	protected RenderProfiler profiler;
+
+	/**
+	 * Adds a converter for a target, replacing any converter added before for the same target.
+	 * @param target the target, must not be null
+	 * @param converter the converter, must not be null
+	 * @return self to allow chaining
+	 * @throws NullPointerException if any argument was null
+	 */
+	public FhMultiConverter addConverter(SvgTargets target, FhConverter converter){
+		Validate.notNull(target);
+		Validate.notNull(converter);
+		this.converters.put(target, converter);
+		return this;
+	}
+
+	/**
+	 * Adds a target written by serializing the document instead of painting it.
+	 * @param target the target, must be svg or svgz
+	 * @return self to allow chaining
+	 * @throws NullPointerException if target was null
+	 * @throws IllegalArgumentException if target was not svg or svgz
+	 */
+	public FhMultiConverter addSerializedTarget(SvgTargets target){
+		Validate.notNull(target);
+		Validate.isTrue(target==SvgTargets.svg || target==SvgTargets.svgz, "only svg and svgz can be serialized, not <" + target.name() + ">");
+		this.serialized.add(target);
+		return this;
+	}
+
+	/**
+	 * Returns the converters.
+	 * @return converters in target order, empty if none added
+	 */
+	public Map<SvgTargets, FhConverter> getConverters(){
+		return this.converters;
+	}
+
+	/**
+	 * Sets a deadline for painting on all converters added so far.
+	 * @param deadline the deadline, null to paint without limit
+	 * @return self to allow chaining
+	 */
+	public FhMultiConverter setDeadline(Deadline deadline){
+		for(FhConverter converter : this.converters.values()){
+			converter.setDeadline(deadline);
+		}
+		return this;
+	}
+
+	/**
+	 * Sets a profiler for painting on all converters added so far.
+	 * Targets are painted one after another while profiling.
+	 * @param profiler the profiler, null to paint without profiling
+	 * @return self to allow chaining
+	 */
+	public FhMultiConverter setProfiler(RenderProfiler profiler){
+		this.profiler = profiler;
+		for(FhConverter converter : this.converters.values()){
+			converter.setProfiler(profiler);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the targets written by serializing the document.
+	 * @return serialized targets in target order, empty if none added
+	 */
+	public Set<SvgTargets> getSerializedTargets(){
+		return this.serialized;
+	}
+
+	/**
+	 * Converts the document maintained by the loader to all targets, writing to files.
+	 * @param loader the document loader, must have a document successfully loaded
+	 * @param files the output file for each target, targets without a file are not converted
+	 * @return null on success, error message of the first failed target otherwise
+	 */
+	public String convertDocument(BatikLoader loader, Map<SvgTargets, File> files){
+		for(SvgTargets target : this.serialized){
+			File fout = files.get(target);
+			if(fout==null){
+				continue;
+			}
+			String err;
+			try(OutputStream out = new BufferedOutputStream(new FileOutputStream(fout), 64*1024)){
+				err = serialize(loader, target, out);
+			}
+			catch(IOException ex){
+				err = "cannot write file <" + fout + "> - " + ex.getMessage();
+			}
+			if(err!=null){
+				return err;
+			}
+		}
+
+		List<Entry<SvgTargets, FhConverter>> todo = new ArrayList<>();
+		for(Entry<SvgTargets, FhConverter> entry : this.converters.entrySet()){
+			if(files.get(entry.getKey())!=null){
+				todo.add(entry);
+			}
+		}
+		if(todo.size()==0){
+			return null;
+		}
+
+		GraphicsNode rootNode;
+		try{
+			rootNode = loader.buildGraphicsNode();
+		}
+		catch(BridgeException ex){
+			return this.getClass().getSimpleName() + ": exception building graphics tree - " + ex.getMessage();
+		}
+		catch(DeadlineExceededException ex){
+			return ex.getMessage();
+		}
+		Dimension size = loader.getSize();
+
+		String err = todo.get(0).getValue().convertGraphicsNode(rootNode, size, files.get(todo.get(0).getKey()));
+		if(err!=null || todo.size()==1){
+			return err;
+		}
+
+		if(this.profiler!=null || !isConcurrentSafe(rootNode)){
+			for(Entry<SvgTargets, FhConverter> entry : todo.subList(1, todo.size())){
+				err = entry.getValue().convertGraphicsNode(rootNode, size, files.get(entry.getKey()));
+				if(err!=null){
+					return err;
+				}
+			}
+			return null;
+		}
+
+		List<Future<String>> results = new ArrayList<>();
+		for(Entry<SvgTargets, FhConverter> entry : todo.subList(1, todo.size())){
+			final FhConverter converter = entry.getValue();
+			final File fout = files.get(entry.getKey());
+			results.add(Painter.EXECUTOR.submit(() -> converter.convertGraphicsNode(rootNode, size, fout)));
+		}
+		for(Future<String> result : results){
+			String ret;
+			try{
+				ret = result.get();
+			}
+			catch(InterruptedException ex){
+				Thread.currentThread().interrupt();
+				ret = "interrupted while waiting for conversion";
+			}
+			catch(ExecutionException ex){
+				ret = "error converting document - " + ex.getCause().getMessage();
+			}
+			if(err==null){
+				err = ret;
+			}
+		}
+		return err;
+	}
+
+	/**
+	 * Converts the document maintained by the loader to all targets, writing one archive entry per target.
+	 * Archive entries are written one after another, so all targets are painted on the calling thread.
+	 * Entries of archives requiring the entry size are rendered twice, once to count the bytes and once into the archive, so that no entry is buffered.
+	 * @param loader the document loader, must have a document successfully loaded
+	 * @param archive the archive to write to
+	 * @param entryName the entry name without target extension, the extension of each target is added
+	 * @return null on success, error message of the first failed target otherwise
+	 */
+	public String convertDocument(BatikLoader loader, ArchiveOutput archive, String entryName){
+		for(SvgTargets target : this.serialized){
+			String err = writeEntry(archive, entryName + "." + target.name(), out -> serialize(loader, target, out));
+			if(err!=null){
+				return err;
+			}
+		}
+		if(this.converters.size()==0){
+			return null;
+		}
+
+		GraphicsNode rootNode;
+		try{
+			rootNode = loader.buildGraphicsNode();
+		}
+		catch(BridgeException ex){
+			return this.getClass().getSimpleName() + ": exception building graphics tree - " + ex.getMessage();
+		}
+		catch(DeadlineExceededException ex){
+			return ex.getMessage();
+		}
+		Dimension size = loader.getSize();
+
+		for(Entry<SvgTargets, FhConverter> entry : this.converters.entrySet()){
+			String err = writeEntry(archive, entryName + "." + entry.getKey().name(), out -> entry.getValue().convertGraphicsNode(rootNode, size, out));
+			if(err!=null){
+				return err;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes an archive entry, counting its size first if the archive requires it.
+	 * @param archive the archive to write to
+	 * @param name the entry name
+	 * @param writer writer for the entry content, called twice if the archive requires the entry size
+	 * @return null on success, error message otherwise
+	 */
+	protected static String writeEntry(ArchiveOutput archive, String name, EntryWriter writer){
+		try{
+			OutputStream out;
+			if(archive.requiresSize()){
+				ArchiveOutput.CountingOutputStream counter = new ArchiveOutput.CountingOutputStream();
+				String err = writer.write(counter);
+				if(err!=null){
+					return err;
+				}
+				out = archive.nextEntry(name, counter.getCount());
+			}
+			else{
+				out = archive.nextEntry(name);
+			}
+			try{
+				return writer.write(out);
+			}
+			finally{
+				out.close();
+			}
+		}
+		catch(IOException ex){
+			return "cannot write archive entry <" + name + "> - " + ex.getMessage();
+		}
+	}
+
+	/**
+	 * Serializes the document maintained by the loader for a target.
+	 * @param loader the document loader, must have a document successfully loaded
+	 * @param target the target, svgz output is compressed
+	 * @param out the stream to write to, closed when writing svgz to finish the compressed output
+	 * @return null on success, error message on error
+	 * @throws IOException if compressed output could not be finished
+	 */
+	protected static String serialize(BatikLoader loader, SvgTargets target, OutputStream out) throws IOException {
+		if(target!=SvgTargets.svgz){
+			return loader.writeDocument(out);
+		}
+
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out);
+		String err = loader.writeDocument(gzip);
+		gzip.close();
+		return err;
+	}
+
+	/**
+	 * Tests if a graphics node tree can be painted to several targets at the same time, after it was painted once.
+	 * @param node the root node of the tree
+	 * @return true if the tree only has shape and group nodes without filter, mask, marker, or pattern paint, false otherwise
+	 */
+	public static boolean isConcurrentSafe(GraphicsNode node){
+		if(node==null){
+			return true;
+		}
+		if(node.getFilter()!=null || node.getMask()!=null){
+			return false;
+		}
+		if(node instanceof ShapeNode){
+			return isConcurrentSafe(((ShapeNode)node).getShapePainter());
+		}
+		if(node instanceof CompositeGraphicsNode && !(node instanceof ImageNode)){
+			for(Object child : ((CompositeGraphicsNode)node).getChildren()){
+				if(!isConcurrentSafe((GraphicsNode)child)){
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Tests if a shape painter can paint its shape to several targets at the same time.
+	 * Markers can hold any content (text, images, filtered nodes) and a pattern paint renders a whole tree for every fill, so both are not safe.
+	 * @param painter the painter to test
+	 * @return true if the painter only fills or strokes with paints other than patterns, false otherwise
+	 */
+	public static boolean isConcurrentSafe(ShapePainter painter){
+		if(painter==null){
+			return true;
+		}
+		if(painter instanceof CompositeShapePainter){
+			CompositeShapePainter composite = (CompositeShapePainter)painter;
+			for(int i=0; i<composite.getShapePainterCount(); i++){
+				if(!isConcurrentSafe(composite.getShapePainter(i))){
+					return false;
+				}
+			}
+			return true;
+		}
+		if(painter instanceof MarkerShapePainter){
+			return false;
+		}
+		if(painter instanceof FillShapePainter || painter instanceof StrokeShapePainter){
+			//Batik does not expose the paint of fill and stroke painters, so read their protected field
+			try{
+				Field field = painter.getClass().getDeclaredField("paint");
+				field.setAccessible(true);
+				return !(field.get(painter) instanceof PatternPaint);
+			}
+			catch(ReflectiveOperationException | RuntimeException ex){
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writer for the content of an archive entry.
+	 */
+	@FunctionalInterface
+	protected interface EntryWriter {
+
+		/**
+		 * Writes the entry content.
+		 * @param out the stream to write to
+		 * @return null on success, error message otherwise
+		 * @throws IOException on write errors
+		 */
+		String write(OutputStream out) throws IOException;
+	}
+
+	/**
+	 * Holder for the painting executor, created on first use.
+	 * Threads are daemon threads, so an application can terminate without shutting the executor down.
+	 */
+	private static final class Painter {
+
+		/** The executor for painting tasks. */
+		static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+			Thread t = new Thread(r, "s2v-paint");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+}
@@ -16,14 +16,14 @@
 package de.vandermeer.svg2vector.applications.fh.converters;
 
 import java.awt.Color;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.awt.Dimension;
+import java.io.OutputStream;
 
-import org.apache.batik.bridge.GVTBuilder;
 import org.apache.batik.gvt.GraphicsNode;
 import org.freehep.graphicsio.emf.EMFGraphics2D;
 
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
 /**
  * A converter for SVG documents to EMF using the FreeHep library.
  *
@@ -49,38 +49,19 @@ public class Fh_Svg2Emf extends FhConverter {
 	}
 
 	@Override
-	public String convertDocument(BatikLoader loader, File fout) {
-		//TODO error messages and parameter checks
-
-		GVTBuilder gvtBuilder = new GVTBuilder();
-		GraphicsNode rootNode = gvtBuilder.build(loader.getBridgeContext(), loader.getDocument());
+	public SvgTargets getTarget() {
+		return SvgTargets.emf;
+	}
 
-		FileOutputStream emfStream;
-		EMFGraphics2D emfGraphics2D;
+	@Override
+	public String convertGraphicsNode(GraphicsNode rootNode, Dimension size, OutputStream out) {
+		//TODO error messages and parameter checks
 
-		try {
-			emfStream = new FileOutputStream(fout);
-			emfGraphics2D = new EMFGraphics2D(fout, loader.getSize());
-		}
-		catch (FileNotFoundException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			return "##";
-		}
+		EMFGraphics2D emfGraphics2D = new EMFGraphics2D(this.getPaintOutput(out), size);
 
 		emfGraphics2D.setProperties(this.properties);
 		emfGraphics2D.setDeviceIndependent(true);
-		emfGraphics2D.startExport();
-		rootNode.paint(emfGraphics2D);
-		emfGraphics2D.endExport();
-		emfGraphics2D.dispose();
-
-		try{
-			emfStream.close();
-		}
-		catch(Exception ignore){}
-
-		return null;
+		return this.paint(rootNode, emfGraphics2D);
 	}
 
 }
@@ -16,14 +16,14 @@
 package de.vandermeer.svg2vector.applications.fh.converters;
 
 import java.awt.Color;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.awt.Dimension;
+import java.io.OutputStream;
 
-import org.apache.batik.bridge.GVTBuilder;
 import org.apache.batik.gvt.GraphicsNode;
 import org.freehep.graphicsio.pdf.PDFGraphics2D;
 
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
 /**
  * A converter for SVG documents to PDF using the FreeHep library.
  *
@@ -56,39 +56,22 @@ public class Fh_Svg2Pdf extends FhConverter {
 	}
 
 	@Override
-	public String convertDocument(BatikLoader loader, File fout) {
-		//TODO error messages and parameter checks
+	public SvgTargets getTarget() {
+		return SvgTargets.pdf;
+	}
 
-		GVTBuilder gvtBuilder=new GVTBuilder();
-		GraphicsNode rootNode = gvtBuilder.build(loader.getBridgeContext(), loader.getDocument());
+	@Override
+	public String convertGraphicsNode(GraphicsNode rootNode, Dimension size, OutputStream out) {
+		//TODO error messages and parameter checks
 
-		FileOutputStream pdfStream;
-		PDFGraphics2D pdfGraphics2D;
-		try{
-			pdfStream = new FileOutputStream(fout);
-			pdfGraphics2D = new PDFGraphics2D(pdfStream, loader.getSize());
-		}
-		catch(IOException fnfe){
-			//TODO
-			return "###";
-		}
+		PDFGraphics2D pdfGraphics2D = new PDFGraphics2D(this.getPaintOutput(out), size);
 
 		this.properties.setProperty(PDFGraphics2D.PAGE_SIZE, PDFGraphics2D.CUSTOM_PAGE_SIZE);
-		this.properties.setProperty(PDFGraphics2D.CUSTOM_PAGE_SIZE, loader.getSize());//TODO change if other page size required
+		this.properties.setProperty(PDFGraphics2D.CUSTOM_PAGE_SIZE, size);//TODO change if other page size required
 
 		pdfGraphics2D.setProperties(this.properties);
 		pdfGraphics2D.setDeviceIndependent(true);
-		pdfGraphics2D.startExport();
-		rootNode.paint(pdfGraphics2D);
-		pdfGraphics2D.endExport();
-		pdfGraphics2D.dispose();
-
-		try{
-			pdfStream.close();
-		}
-		catch(Exception ignore){}
-
-		return null;
+		return this.paint(rootNode, pdfGraphics2D);
 	}
 
 }
@@ -16,14 +16,14 @@
 package de.vandermeer.svg2vector.applications.fh.converters;
 
 import java.awt.Color;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.awt.Dimension;
+import java.io.OutputStream;
 
-import org.apache.batik.bridge.GVTBuilder;
 import org.apache.batik.gvt.GraphicsNode;
 import org.freehep.graphicsio.svg.SVGGraphics2D;
 
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
 /**
  * A converter for SVG documents to SVG using the FreeHep library.
  *
@@ -49,36 +49,19 @@ public class Fh_Svg2Svg extends FhConverter {
 	}
 
 	@Override
-	public String convertDocument(BatikLoader loader, File fout) {
-		//TODO error messages and parameter checks
+	public SvgTargets getTarget() {
+		return SvgTargets.svg;
+	}
 
-		GVTBuilder gvtBuilder = new GVTBuilder();
-		GraphicsNode rootNode = gvtBuilder.build(loader.getBridgeContext(), loader.getDocument());
+	@Override
+	public String convertGraphicsNode(GraphicsNode rootNode, Dimension size, OutputStream out) {
+		//TODO error messages and parameter checks
 
-		FileOutputStream svgStream;
-		SVGGraphics2D svgGraphics2D;
-		try{
-			svgStream = new FileOutputStream(fout);
-			svgGraphics2D = new SVGGraphics2D(fout, loader.getSize());
-		}
-		catch(IOException fnfe){
-			//TODO
-			return "###";
-		}
+		SVGGraphics2D svgGraphics2D = new SVGGraphics2D(this.getPaintOutput(out), size);
 
 		svgGraphics2D.setProperties(this.properties);
 		svgGraphics2D.setDeviceIndependent(true);
-		svgGraphics2D.startExport();
-		rootNode.paint(svgGraphics2D);
-		svgGraphics2D.endExport();
-		svgGraphics2D.dispose();
-
-		try{
-			svgStream.close();
-		}
-		catch(Exception ignore){}
-
-		return null;
+		return this.paint(rootNode, svgGraphics2D);
 	}
 
 }
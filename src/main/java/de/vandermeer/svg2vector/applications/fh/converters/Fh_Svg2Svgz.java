@@ -0,0 +1,58 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.batik.gvt.GraphicsNode;
+
+import de.vandermeer.svg2vector.applications.base.ParallelGzipOutputStream;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
+/**
+ * A converter for SVG documents to compressed SVG (SVGZ) using the FreeHep library.
+ * The SVG output is compressed in blocks in parallel while the document is painted.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Fh_Svg2Svgz extends Fh_Svg2Svg {
+
+	@Override
+	public SvgTargets getTarget() {
+		return SvgTargets.svgz;
+	}
+
+	@Override
+	public String convertGraphicsNode(GraphicsNode rootNode, Dimension size, OutputStream out) {
+		ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out);
+		String err = super.convertGraphicsNode(rootNode, size, gzip);
+		try{
+			//FreeHep closes the stream at end of export, closing is idempotent and makes sure all blocks are written
+			gzip.close();
+		}
+		catch(IOException ex){
+			if(err==null){
+				err = "error compressing SVG output - " + ex.getMessage();
+			}
+		}
+		return err;
+	}
+
+}
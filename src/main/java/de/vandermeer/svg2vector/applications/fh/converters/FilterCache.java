@@ -0,0 +1,318 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.Validate;
+import org.w3c.dom.Element;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+
+/**
+ * A bounded, thread-safe cache of rendered filter outputs for the graphics trees of one document.
+ * Outputs are keyed by the filtered element, the device transform, and the device bounds of the filter region.
+ * Outputs of elements whose content depends on the layer settings are also keyed by a generation, which starts anew whenever layers are switched.
+ * Graphics trees built for different layers of the same document share the cache, so a filtered element outside the layers is rendered once for all layers.
+ * When the cache is full, the least recently used output is removed, outputs larger than the cache are never cached.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class FilterCache {
+
+	/** Default maximum number of cached bytes. */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	/** Number of cache hits of all caches. */
+	private static final LongAdder TOTAL_HITS = new LongAdder();
+
+	/** Number of cache misses of all caches. */
+	private static final LongAdder TOTAL_MISSES = new LongAdder();
+
+	static{
+		ConversionStats.getInstance().addCache("filter", TOTAL_HITS::sum, TOTAL_MISSES::sum);
+	}
+
+	/** Maximum number of cached bytes. */
+	protected final long maxBytes;
+
+	/** The cached outputs, in access order. */
+	protected final Map<Key, Output> outputs = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** Number of cached bytes. */
+	protected long bytes;
+
+	/** The current generation of outputs depending on the layer settings, starting with 1. */
+	protected long generation = 1;
+
+	/** Number of cache hits. */
+	protected final AtomicLong hits = new AtomicLong();
+
+	/** Number of cache misses. */
+	protected final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new cache with the default maximum number of bytes.
+	 */
+	public FilterCache(){
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param maxBytes maximum number of bytes to keep, must be positive
+	 * @throws IllegalArgumentException if maxBytes was not positive
+	 */
+	public FilterCache(final long maxBytes){
+		Validate.isTrue(maxBytes>0, "maximum number of bytes must be positive, was %d", maxBytes);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns a cached output.
+	 * @param key the key of the output
+	 * @return the output, null if not cached
+	 */
+	public synchronized Output get(Key key){
+		Output ret = this.outputs.get(key);
+		if(ret==null){
+			this.misses.incrementAndGet();
+			TOTAL_MISSES.increment();
+		}
+		else{
+			this.hits.incrementAndGet();
+			TOTAL_HITS.increment();
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds an output to the cache, removing least recently used outputs if required.
+	 * @param key the key of the output
+	 * @param output the output
+	 */
+	public synchronized void put(Key key, Output output){
+		long size = output.getBytes();
+		if(!this.accepts(size)){
+			return;
+		}
+		Output old = this.outputs.put(key, output);
+		this.bytes += size - ((old==null)?0:old.getBytes());
+		Iterator<Output> it = this.outputs.values().iterator();
+		while(this.bytes > this.maxBytes && it.hasNext()){
+			this.bytes -= it.next().getBytes();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Tests if an output of a given size can be cached, so outputs too large are not rendered for the cache.
+	 * @param bytes number of bytes of the output
+	 * @return true if the output fits into the cache, false otherwise
+	 */
+	public boolean accepts(long bytes){
+		return bytes <= this.maxBytes;
+	}
+
+	/**
+	 * Returns the current generation of outputs depending on the layer settings.
+	 * @return current generation
+	 */
+	public synchronized long getGeneration(){
+		return this.generation;
+	}
+
+	/**
+	 * Starts a new generation of outputs depending on the layer settings, called whenever layers are switched.
+	 * Outputs of older generations are removed, outputs not depending on the layer settings are kept.
+	 */
+	public synchronized void nextGeneration(){
+		this.generation++;
+		Iterator<Entry<Key, Output>> it = this.outputs.entrySet().iterator();
+		while(it.hasNext()){
+			Entry<Key, Output> entry = it.next();
+			if(entry.getKey().generation!=0){
+				this.bytes -= entry.getValue().getBytes();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * @return number of hits
+	 */
+	public long getHits(){
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of cache misses.
+	 * @return number of misses
+	 */
+	public long getMisses(){
+		return this.misses.get();
+	}
+
+	/**
+	 * Returns the number of cached outputs.
+	 * @return number of cached outputs
+	 */
+	public synchronized int size(){
+		return this.outputs.size();
+	}
+
+	/**
+	 * Returns the number of cached bytes.
+	 * @return number of cached bytes
+	 */
+	public synchronized long getBytes(){
+		return this.bytes;
+	}
+
+	/**
+	 * Removes all cached outputs, for instance when a new document is loaded.
+	 */
+	public synchronized void clear(){
+		this.outputs.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * Key of a rendered filter output.
+	 */
+	public static final class Key {
+
+		/** The filtered element, compared by identity. */
+		final Element element;
+
+		/** The device transform. */
+		final AffineTransform transform;
+
+		/** The device bounds of the filter region. */
+		final Rectangle bounds;
+
+		/** The generation of the output, 0 if the element does not depend on the layer settings. */
+		final long generation;
+
+		/**
+		 * Creates a new key for an element not depending on the layer settings.
+		 * @param element the filtered element
+		 * @param transform the device transform
+		 * @param bounds the device bounds of the filter region
+		 */
+		public Key(Element element, AffineTransform transform, Rectangle bounds){
+			this(element, transform, bounds, 0);
+		}
+
+		/**
+		 * Creates a new key.
+		 * @param element the filtered element
+		 * @param transform the device transform
+		 * @param bounds the device bounds of the filter region
+		 * @param generation the generation of the output (see {@link FilterCache#getGeneration()}), 0 if the element does not depend on the layer settings
+		 */
+		public Key(Element element, AffineTransform transform, Rectangle bounds, long generation){
+			this.element = element;
+			this.transform = new AffineTransform(transform);
+			this.bounds = new Rectangle(bounds);
+			this.generation = generation;
+		}
+
+		@Override
+		public boolean equals(Object obj){
+			if(!(obj instanceof Key)){
+				return false;
+			}
+			Key other = (Key)obj;
+			return this.element==other.element && this.transform.equals(other.transform) && this.bounds.equals(other.bounds) && this.generation==other.generation;
+		}
+
+		@Override
+		public int hashCode(){
+			return 31 * (31 * (31 * System.identityHashCode(this.element) + this.transform.hashCode()) + this.bounds.hashCode()) + Long.hashCode(this.generation);
+		}
+	}
+
+	/**
+	 * A rendered filter output, an image with its location in device space.
+	 */
+	public static final class Output {
+
+		/** The rendered image. */
+		final BufferedImage image;
+
+		/** Device x coordinate of the image. */
+		final int x;
+
+		/** Device y coordinate of the image. */
+		final int y;
+
+		/**
+		 * Creates a new output.
+		 * @param image the rendered image
+		 * @param x device x coordinate of the image
+		 * @param y device y coordinate of the image
+		 */
+		public Output(BufferedImage image, int x, int y){
+			this.image = image;
+			this.x = x;
+			this.y = y;
+		}
+
+		/**
+		 * Returns the rendered image.
+		 * @return image
+		 */
+		public BufferedImage getImage(){
+			return this.image;
+		}
+
+		/**
+		 * Returns the device x coordinate of the image.
+		 * @return x coordinate
+		 */
+		public int getX(){
+			return this.x;
+		}
+
+		/**
+		 * Returns the device y coordinate of the image.
+		 * @return y coordinate
+		 */
+		public int getY(){
+			return this.y;
+		}
+
+		/**
+		 * Returns the approximate number of bytes used by the image.
+		 * @return number of bytes
+		 */
+		public long getBytes(){
+			return 4L * this.image.getWidth() * this.image.getHeight();
+		}
+	}
+}
@@ -0,0 +1,404 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.batik.gvt.font.AWTFontFamily;
+import org.apache.batik.gvt.font.FontFamilyResolver;
+import org.apache.batik.gvt.font.GVTFont;
+import org.apache.batik.gvt.font.GVTFontFace;
+import org.apache.batik.gvt.font.GVTFontFamily;
+import org.apache.batik.gvt.font.UnresolvedFontFamily;
+import org.apache.batik.util.SVGConstants;
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+
+/**
+ * A process-wide, thread-safe cache for font resolution used by the Batik bridge across document loads.
+ * 
+ * The cache has three parts:
+ * 
+ * . font families resolved by the bridge for a family name, weight, and style, shared between all bridge contexts of documents without their own font definitions,
+ * . Batik's static resolver map for system font families, replaced by a thread-safe map,
+ * . AWT fonts derived from system font families for a size and text attributes, so an AWT font is created once and not for every text run.
+ * 
+ * Documents with SVG font definitions (`font` or `font-face` elements) resolve font families per document as before, they still benefit from the shared system font families and derived fonts.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class FontCache {
+
+	/** Maximum number of derived fonts kept, the least recently used fonts are dropped when exceeded. */
+	public static final int MAX_DERIVED_FONTS = 4096;
+
+	/** The process-wide cache. */
+	private static final FontCache INSTANCE = new FontCache();
+
+	static{
+		ConversionStats.getInstance().addCache("font-family", INSTANCE::getFamilyHits, INSTANCE::getFamilyMisses);
+		ConversionStats.getInstance().addCache("font", INSTANCE::getFontHits, INSTANCE::getFontMisses);
+	}
+
+	/** Font families resolved by the bridge, keyed by the bridge key (family name, weight, style). */
+	protected final Map<String, GVTFontFamily> families = new ConcurrentHashMap<>();
+
+	/** Derived fonts, keyed by font attributes including family name and size, in access order. */
+	protected final Map<Map<TextAttribute, Object>, GVTFont> fonts = new LinkedHashMap<Map<TextAttribute, Object>, GVTFont>(1024, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Map<TextAttribute, Object>, GVTFont> eldest) {
+			return this.size() > MAX_DERIVED_FONTS;
+		}
+	};
+
+	/** Number of family cache hits. */
+	protected final AtomicLong familyHits = new AtomicLong();
+
+	/** Number of family cache misses. */
+	protected final AtomicLong familyMisses = new AtomicLong();
+
+	/** Number of derived font cache hits. */
+	protected final AtomicLong fontHits = new AtomicLong();
+
+	/** Number of derived font cache misses. */
+	protected final AtomicLong fontMisses = new AtomicLong();
+
+	/** Batik's resolved font family map, replaced by this cache, null if not installed. */
+	private Map<Object, Object> resolved;
+
+	/**
+	 * Returns the process-wide cache, installing it into Batik's font family resolver on first call.
+	 * @return font cache
+	 */
+	public static FontCache getInstance(){
+		INSTANCE.install();
+		return INSTANCE;
+	}
+
+	/**
+	 * Tests if a document defines its own fonts.
+	 * @param doc the document
+	 * @return true if the document has SVG `font` or `font-face` elements, false otherwise
+	 */
+	public static boolean hasFontDefinitions(Document doc){
+		return doc.getElementsByTagNameNS(SVGConstants.SVG_NAMESPACE_URI, SVGConstants.SVG_FONT_FACE_TAG).getLength()>0
+				|| doc.getElementsByTagNameNS(SVGConstants.SVG_NAMESPACE_URI, SVGConstants.SVG_FONT_TAG).getLength()>0;
+	}
+
+	/**
+	 * Replaces Batik's static map of resolved font families with a thread-safe map that creates caching font families.
+	 */
+	protected synchronized void install(){
+		if(this.resolved==null){
+			this.resolved = ResolverAccess.install(this);
+		}
+	}
+
+	/**
+	 * Returns a new font family map for a bridge context, sharing resolved font families with all other maps created by this cache.
+	 * Only use this map for documents without own font definitions.
+	 * @return new font family map
+	 */
+	public Map<Object, Object> newFontFamilyMap(){
+		return new SharedFontFamilyMap(this);
+	}
+
+	/**
+	 * Resolves the given font families and derives a font for each of them, loading the font into the cache before any document uses it.
+	 * @param names font family names, blank names are ignored
+	 * @return list of names that could not be resolved to a system font, empty if all were resolved
+	 */
+	public List<String> warmUp(String ... names){
+		List<String> ret = new ArrayList<>();
+		if(names==null){
+			return ret;
+		}
+		for(String name : names){
+			if(StringUtils.isBlank(name)){
+				continue;
+			}
+			GVTFontFamily family = this.resolveFamily(name.trim());
+			if(family==null){
+				ret.add(name.trim());
+				continue;
+			}
+			Map<AttributedCharacterIterator.Attribute, Object> attributes = new HashMap<>();
+			attributes.put(TextAttribute.FAMILY, family.getFamilyName());
+			family.deriveFont(12, attributes);
+		}
+		return ret;
+	}
+
+	/**
+	 * Resolves a system font family, taking it from the resolved family map of the cache.
+	 * Batik returns the plain family on the first resolve of a name, the map holds the caching family that replaced it.
+	 * @param name the family name
+	 * @return the resolved family, null if it could not be resolved
+	 */
+	protected GVTFontFamily resolveFamily(String name){
+		this.install();
+		String key = name.toLowerCase();
+		if(!this.resolved.containsKey(key)){
+			FontFamilyResolver.resolve(name);
+		}
+		return (GVTFontFamily)this.resolved.get(key);
+	}
+
+	/**
+	 * Returns a derived font from the cache or creates and caches it.
+	 * @param family the system font family
+	 * @param size the font size
+	 * @param attributes the text attributes
+	 * @return derived font
+	 */
+	protected GVTFont deriveFont(CachingAWTFontFamily family, float size, Map<?, ?> attributes){
+		Map<TextAttribute, Object> key = new HashMap<>();
+		for(Map.Entry<?, ?> entry : attributes.entrySet()){
+			//only TextAttribute keys are used to create an AWT font
+			if(entry.getKey() instanceof TextAttribute && entry.getValue()!=null){
+				key.put((TextAttribute)entry.getKey(), entry.getValue());
+			}
+		}
+		key.put(TextAttribute.SIZE, size);
+		key.put(TextAttribute.FAMILY, family.getFamilyName());
+
+		GVTFont ret;
+		synchronized(this.fonts){
+			ret = this.fonts.get(key);
+		}
+		if(ret!=null){
+			this.fontHits.incrementAndGet();
+			return ret;
+		}
+
+		//create outside the lock, concurrent misses for the same font create equal fonts
+		this.fontMisses.incrementAndGet();
+		ret = family.deriveUncached(size, attributes);
+		synchronized(this.fonts){
+			this.fonts.put(key, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of family cache hits.
+	 * @return hits
+	 */
+	public long getFamilyHits(){
+		return this.familyHits.get();
+	}
+
+	/**
+	 * Returns the number of family cache misses.
+	 * @return misses
+	 */
+	public long getFamilyMisses(){
+		return this.familyMisses.get();
+	}
+
+	/**
+	 * Returns the number of derived font cache hits.
+	 * @return hits
+	 */
+	public long getFontHits(){
+		return this.fontHits.get();
+	}
+
+	/**
+	 * Returns the number of derived font cache misses.
+	 * @return misses
+	 */
+	public long getFontMisses(){
+		return this.fontMisses.get();
+	}
+
+	/**
+	 * Removes all shared families and derived fonts and resets statistics.
+	 * System font families stay resolved.
+	 */
+	public void clear(){
+		this.families.clear();
+		synchronized(this.fonts){
+			this.fonts.clear();
+		}
+		this.familyHits.set(0);
+		this.familyMisses.set(0);
+		this.fontHits.set(0);
+		this.fontMisses.set(0);
+	}
+
+	/**
+	 * Access to the static map of Batik's font family resolver.
+	 */
+	private static final class ResolverAccess extends FontFamilyResolver {
+
+		/**
+		 * Replaces the resolved font family map with a thread-safe map wrapping new families, keeping already resolved families.
+		 * @param cache the font cache for derived fonts
+		 * @return the new map
+		 */
+		@SuppressWarnings("unchecked")
+		static Map<Object, Object> install(FontCache cache){
+			synchronized(FontFamilyResolver.class){
+				Map<Object, Object> map = new ResolvedFamilies(cache);
+				if(resolvedFontFamilies!=null){
+					map.putAll(resolvedFontFamilies);
+				}
+				resolvedFontFamilies = map;
+				return map;
+			}
+		}
+	}
+
+	/**
+	 * Thread-safe map of resolved font families, replacing plain AWT font families with caching ones.
+	 * Batik stores null for families it cannot resolve, these are kept as a marker value.
+	 */
+	private static final class ResolvedFamilies extends ConcurrentHashMap<Object, Object> {
+
+		/** Serial version. */
+		private static final long serialVersionUID = 1L;
+
+		/** Marker for families that could not be resolved. */
+		private static final Object UNRESOLVED = new Object();
+
+		/** The font cache for derived fonts. */
+		private final transient FontCache cache;
+
+		/**
+		 * Creates a new map.
+		 * @param cache the font cache for derived fonts
+		 */
+		ResolvedFamilies(FontCache cache){
+			this.cache = cache;
+		}
+
+		@Override
+		public Object get(Object key) {
+			Object ret = super.get(key);
+			return (ret==UNRESOLVED)?null:ret;
+		}
+
+		@Override
+		public Object put(Object key, Object value) {
+			if(value==null){
+				value = UNRESOLVED;
+			}
+			else if(value.getClass()==AWTFontFamily.class){
+				value = new CachingAWTFontFamily(((AWTFontFamily)value).getFontFace(), this.cache);
+			}
+			Object ret = super.put(key, value);
+			return (ret==UNRESOLVED)?null:ret;
+		}
+
+		@Override
+		public void putAll(Map<? extends Object, ? extends Object> m) {
+			for(Map.Entry<? extends Object, ? extends Object> entry : m.entrySet()){
+				this.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * An AWT font family for system fonts taking derived fonts from the font cache.
+	 */
+	protected static class CachingAWTFontFamily extends AWTFontFamily {
+
+		/** The font cache for derived fonts. */
+		protected final FontCache cache;
+
+		/**
+		 * Creates a new font family.
+		 * @param fontFace the font face of the family
+		 * @param cache the font cache for derived fonts
+		 */
+		public CachingAWTFontFamily(GVTFontFace fontFace, FontCache cache){
+			super(fontFace);
+			this.cache = cache;
+		}
+
+		@Override
+		public GVTFont deriveFont(float size, @SuppressWarnings("rawtypes") Map attrs) {
+			return this.cache.deriveFont(this, size, attrs);
+		}
+
+		/**
+		 * Derives a font without using the cache.
+		 * @param size font size
+		 * @param attrs text attributes
+		 * @return new font
+		 */
+		protected GVTFont deriveUncached(float size, Map<?, ?> attrs){
+			return super.deriveFont(size, attrs);
+		}
+	}
+
+	/**
+	 * A font family map for a bridge context.
+	 * Font families (string keys) are taken from and added to the shared families of the cache, all other entries (e.g. per-document font faces) are local.
+	 */
+	private static final class SharedFontFamilyMap extends HashMap<Object, Object> {
+
+		/** Serial version. */
+		private static final long serialVersionUID = 1L;
+
+		/** The font cache. */
+		private final transient FontCache cache;
+
+		/**
+		 * Creates a new map.
+		 * @param cache the font cache
+		 */
+		SharedFontFamilyMap(FontCache cache){
+			this.cache = cache;
+		}
+
+		@Override
+		public Object get(Object key) {
+			if(key instanceof String){
+				Object ret = this.cache.families.get(key);
+				if(ret!=null){
+					this.cache.familyHits.incrementAndGet();
+					return ret;
+				}
+				this.cache.familyMisses.incrementAndGet();
+			}
+			return super.get(key);
+		}
+
+		@Override
+		public Object put(Object key, Object value) {
+			if(key instanceof String && (value instanceof UnresolvedFontFamily || value instanceof AWTFontFamily)){
+				this.cache.families.put((String)key, (GVTFontFamily)value);
+			}
+			return super.put(key, value);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Point2D;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A graphics object painting glyph vectors as filled outlines taken from a {@link GlyphOutlineCache}.
+ * FreeHep paints every glyph vector as filled outline, this graphics creates the same outline from cached glyph shapes instead of converting each glyph again.
+ * Glyph vectors with per-glyph transforms and fonts that cannot be cached are forwarded unchanged.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class GlyphCachingGraphics2D extends DelegatingGraphics2D {
+
+	/** The glyph outline cache. */
+	protected final GlyphOutlineCache cache;
+
+	/**
+	 * Creates a new glyph caching graphics object.
+	 * @param g the graphics object to forward calls to, must not be null
+	 * @param cache the glyph outline cache, must not be null
+	 * @throws NullPointerException if any argument was null
+	 */
+	public GlyphCachingGraphics2D(Graphics2D g, GlyphOutlineCache cache){
+		super(g);
+		Validate.notNull(cache);
+		this.cache = cache;
+	}
+
+	@Override
+	protected Graphics2D wrap(Graphics2D created){
+		return new GlyphCachingGraphics2D(created, this.cache);
+	}
+
+	@Override
+	public void drawGlyphVector(GlyphVector gv, float x, float y) {
+		Font font = gv.getFont();
+		if((gv.getLayoutFlags() & GlyphVector.FLAG_HAS_TRANSFORMS)!=0 || !GlyphOutlineCache.isCacheable(font)){
+			this.g.drawGlyphVector(gv, x, y);
+			return;
+		}
+
+		FontRenderContext frc = gv.getFontRenderContext();
+		GeneralPath outline = new GeneralPath(GeneralPath.WIND_NON_ZERO);
+		for(int i=0; i<gv.getNumGlyphs(); i++){
+			Point2D pos = gv.getGlyphPosition(i);
+			AffineTransform at = AffineTransform.getTranslateInstance(x + pos.getX(), y + pos.getY());
+			outline.append(this.cache.getOutline(font, frc, gv.getGlyphCode(i)).getPathIterator(at), false);
+		}
+		this.g.fill(outline);
+	}
+}
@@ -0,0 +1,222 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+
+/**
+ * A bounded, thread-safe cache of glyph outlines.
+ * Outlines are keyed by font (name, style, size, and transform), the relevant font render context settings, and the glyph code.
+ * Cached outlines are located at the origin and must not be modified by users, they are only read (e.g. via a path iterator).
+ * When the cache is full, the least recently used outline is removed.
+ * 
+ * The cache is shared process-wide, so a glyph is converted to a shape once and not once per occurrence, layer, or file.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class GlyphOutlineCache {
+
+	/** Default maximum number of cached outlines. */
+	public static final int DEFAULT_MAX_ENTRIES = 20000;
+
+	/** The process-wide cache. */
+	private static final GlyphOutlineCache INSTANCE = new GlyphOutlineCache(DEFAULT_MAX_ENTRIES);
+
+	static{
+		ConversionStats.getInstance().addCache("glyph-outline", INSTANCE::getHits, INSTANCE::getMisses);
+	}
+
+	/** The cached outlines, in access order. */
+	protected final Map<Key, Shape> outlines;
+
+	/** Number of cache hits. */
+	protected final AtomicLong hits = new AtomicLong();
+
+	/** Number of cache misses. */
+	protected final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the process-wide cache.
+	 * @return glyph outline cache
+	 */
+	public static GlyphOutlineCache getInstance(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param maxEntries maximum number of outlines to keep, must be positive
+	 * @throws IllegalArgumentException if maxEntries was not positive
+	 */
+	public GlyphOutlineCache(final int maxEntries){
+		Validate.isTrue(maxEntries>0, "maximum number of entries must be positive, was %d", maxEntries);
+		this.outlines = new LinkedHashMap<Key, Shape>(1024, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Shape> eldest) {
+				return this.size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Tests if a font can use cached outlines.
+	 * Fonts with a translation in their transform are not supported, since the translation is applied to glyph positions as well as to outlines.
+	 * @param font the font to test
+	 * @return true if outlines of the font can be cached, false otherwise
+	 */
+	public static boolean isCacheable(Font font){
+		if(font==null){
+			return false;
+		}
+		if(!font.isTransformed()){
+			return true;
+		}
+		return font.getTransform().getTranslateX()==0 && font.getTransform().getTranslateY()==0;
+	}
+
+	/**
+	 * Returns the outline of a glyph at the origin, creating and caching it if not cached yet.
+	 * @param font the font, must be cacheable
+	 * @param frc the font render context
+	 * @param glyphCode the glyph code
+	 * @return glyph outline, must not be modified
+	 */
+	public Shape getOutline(Font font, FontRenderContext frc, int glyphCode){
+		Key key = new Key(font, frc, glyphCode);
+		Shape ret;
+		synchronized(this.outlines){
+			ret = this.outlines.get(key);
+		}
+		if(ret!=null){
+			this.hits.incrementAndGet();
+			return ret;
+		}
+
+		//create outside the lock, concurrent misses for the same glyph create equal outlines
+		this.misses.incrementAndGet();
+		ret = font.createGlyphVector(frc, new int[]{glyphCode}).getGlyphOutline(0);
+		synchronized(this.outlines){
+			this.outlines.put(key, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * @return hits
+	 */
+	public long getHits(){
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of cache misses, i.e. the number of glyphs converted to shapes.
+	 * @return misses
+	 */
+	public long getMisses(){
+		return this.misses.get();
+	}
+
+	/**
+	 * Returns the number of cached outlines.
+	 * @return size of the cache
+	 */
+	public int size(){
+		synchronized(this.outlines){
+			return this.outlines.size();
+		}
+	}
+
+	/**
+	 * Removes all cached outlines and resets statistics.
+	 */
+	public void clear(){
+		synchronized(this.outlines){
+			this.outlines.clear();
+		}
+		this.hits.set(0);
+		this.misses.set(0);
+	}
+
+	/**
+	 * Cache key for a glyph.
+	 * Font equality covers name, style, size, transform and other font attributes.
+	 */
+	protected static final class Key {
+
+		/** The font. */
+		private final Font font;
+
+		/** Anti-aliasing setting of the render context. */
+		private final boolean antiAliased;
+
+		/** Fractional metrics setting of the render context. */
+		private final boolean fractionalMetrics;
+
+		/** The glyph code. */
+		private final int glyphCode;
+
+		/** Pre-calculated hash code. */
+		private final int hash;
+
+		/**
+		 * Creates a new key.
+		 * @param font the font
+		 * @param frc the font render context
+		 * @param glyphCode the glyph code
+		 */
+		Key(Font font, FontRenderContext frc, int glyphCode){
+			this.font = font;
+			this.antiAliased = frc.isAntiAliased();
+			this.fractionalMetrics = frc.usesFractionalMetrics();
+			this.glyphCode = glyphCode;
+			this.hash = 31 * (31 * (31 * font.hashCode() + glyphCode) + (this.antiAliased?1:0)) + (this.fractionalMetrics?1:0);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(this==obj){
+				return true;
+			}
+			if(!(obj instanceof Key)){
+				return false;
+			}
+			Key other = (Key)obj;
+			return this.glyphCode==other.glyphCode
+					&& this.antiAliased==other.antiAliased
+					&& this.fractionalMetrics==other.fractionalMetrics
+					&& this.font.equals(other.font);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A culler removing nodes from a graphics node tree that would paint nothing on the page.
+ * Batik paints every node of a tree and only skips nodes outside the clip of the graphics object, the FreeHep graphics have no clip unless clipping is switched on.
+ * The culler removes, before painting,
+ * 
+ * - nodes whose painted bounds (including stroke, markers, filter region, and clip) in page coordinates do not touch the page area,
+ * - nodes with an opacity Batik does not paint, and leaf nodes that are not visible.
+ * 
+ * Children of filtered nodes are never removed, they are painted into the filter source and a filter can move them onto the page.
+ * 
+ * Nodes are removed from the tree, so a tree should be culled once after it was built.
+ * Counters accumulate over all culled trees until they are reset.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class GraphicsNodeCuller {
+
+	/** Minimum opacity Batik paints a node with. */
+	public static final double MIN_ALPHA = 0.001;
+
+	/** The page area in the coordinates of the root node. */
+	protected final Rectangle2D area;
+
+	/** Number of nodes removed for being outside the page area. */
+	protected int offPage;
+
+	/** Number of nodes removed for being invisible. */
+	protected int hidden;
+
+	/**
+	 * Creates a new culler.
+	 * @param area the page area in the coordinates of the root node, must not be null
+	 * @throws NullPointerException if area was null
+	 */
+	public GraphicsNodeCuller(Rectangle2D area){
+		Validate.notNull(area);
+		this.area = area;
+	}
+
+	/**
+	 * Removes all nodes from a tree that would paint nothing on the page, the root node itself is never removed.
+	 * @param root the root node of the tree, can be null
+	 * @return number of nodes removed from the tree, removed descendants of removed nodes are not counted
+	 */
+	public int cull(GraphicsNode root){
+		if(!(root instanceof CompositeGraphicsNode)){
+			return 0;
+		}
+		int before = this.offPage + this.hidden;
+		this.cullChildren((CompositeGraphicsNode)root, this.getChildTransform(root, new AffineTransform()));
+		return this.offPage + this.hidden - before;
+	}
+
+	/**
+	 * Removes all children of a composite node that would paint nothing on the page.
+	 * @param composite the composite node
+	 * @param at the transform from the coordinates of the children's parent to page coordinates
+	 */
+	protected void cullChildren(CompositeGraphicsNode composite, AffineTransform at){
+		for(int i=composite.size()-1; i>=0; i--){
+			GraphicsNode child = (GraphicsNode)composite.get(i);
+			if(this.isCulled(child, at)){
+				composite.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Tests if a node paints nothing on the page, culling the children of composite nodes that paint something and have no filter.
+	 * @param node the node
+	 * @param at the transform from the coordinates of the node's parent to page coordinates
+	 * @return true if the node should be removed, false otherwise
+	 */
+	protected boolean isCulled(GraphicsNode node, AffineTransform at){
+		if(node==null){
+			return false;
+		}
+		if(GraphicsNodeCuller.isTransparent(node.getComposite()) || (!(node instanceof CompositeGraphicsNode) && !node.isVisible())){
+			this.hidden++;
+			return true;
+		}
+
+		Rectangle2D bounds = node.getTransformedBounds(at);
+		if(bounds==null){
+			this.hidden++;
+			return true;
+		}
+		if(!GraphicsNodeCuller.touches(bounds, this.area)){
+			this.offPage++;
+			return true;
+		}
+
+		//children of a filtered node are the filter source, offset, tile, or displacement filters can move them onto the page
+		if(node instanceof CompositeGraphicsNode && node.getFilter()==null){
+			this.cullChildren((CompositeGraphicsNode)node, this.getChildTransform(node, at));
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the transform from the coordinates of a node's children to page coordinates.
+	 * @param node the node
+	 * @param at the transform from the coordinates of the node's parent to page coordinates
+	 * @return new transform for the children
+	 */
+	protected AffineTransform getChildTransform(GraphicsNode node, AffineTransform at){
+		AffineTransform ret = new AffineTransform(at);
+		if(node.getTransform()!=null){
+			ret.concatenate(node.getTransform());
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the number of nodes removed for being outside the page area.
+	 * @return number of removed nodes
+	 */
+	public int getOffPage(){
+		return this.offPage;
+	}
+
+	/**
+	 * Returns the number of nodes removed for being invisible.
+	 * @return number of removed nodes
+	 */
+	public int getHidden(){
+		return this.hidden;
+	}
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset(){
+		this.offPage = 0;
+		this.hidden = 0;
+	}
+
+	/**
+	 * Tests if a composite makes a node fully transparent.
+	 * @param composite the composite of the node, can be null
+	 * @return true if the composite is an alpha composite Batik does not paint, false otherwise
+	 */
+	protected static boolean isTransparent(Composite composite){
+		return (composite instanceof AlphaComposite) && ((AlphaComposite)composite).getAlpha()<MIN_ALPHA;
+	}
+
+	/**
+	 * Tests if bounds touch an area, other than {@link Rectangle2D#intersects(Rectangle2D)} bounds without width or height can touch the area.
+	 * @param bounds the bounds
+	 * @param area the area
+	 * @return true if bounds and area share at least one point, false otherwise
+	 */
+	protected static boolean touches(Rectangle2D bounds, Rectangle2D area){
+		return bounds.getMaxX()>=area.getMinX() && bounds.getMinX()<=area.getMaxX()
+				&& bounds.getMaxY()>=area.getMinY() && bounds.getMinY()<=area.getMaxY();
+	}
+}
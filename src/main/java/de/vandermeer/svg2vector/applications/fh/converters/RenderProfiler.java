@@ -0,0 +1,879 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.AttributedCharacterIterator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.PatternPaint;
+import org.apache.batik.gvt.ShapeNode;
+import org.apache.batik.gvt.ShapePainter;
+import org.apache.batik.gvt.TextNode;
+import org.apache.batik.gvt.TextPainter;
+import org.apache.batik.gvt.text.Mark;
+import org.apache.commons.lang3.Validate;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Attributes the time and output bytes of painting graphics node trees to element types and to single elements.
+ * A loader with the profiler instruments the painters of shape and text nodes and the filters of the trees it builds.
+ * Converters with the profiler count the bytes written by their FreeHep graphics and profile every painting from start to end of the export.
+ * 
+ * Time and bytes are attributed to the outermost painted element: a shape, a text, or a filtered element including everything painted into its filter.
+ * Shapes filled with a pattern get the type of the element with the suffix "+pattern".
+ * Clips and images painted outside of an element (for instance raster images and masked content) are attributed to the types clip and image,
+ * start and end of the export (for instance embedded fonts) to the type export.
+ * Everything else (traversing the tree, transforms, state changes of the target) stays unattributed.
+ * Bytes are attributed to the element painted when the target writes them: PDF writes in blocks of its buffer, so bytes of small elements often go to a following element,
+ * EMF writes all bytes at the end of the export.
+ * 
+ * A profiler profiles one painting at a time and is not thread-safe, trees must be painted one target after another while profiling.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class RenderProfiler {
+
+	/** Type for filtered elements. */
+	public static final String TYPE_FILTER = "filter";
+
+	/** Type for clips set outside of an element. */
+	public static final String TYPE_CLIP = "clip";
+
+	/** Type for images painted outside of an element. */
+	public static final String TYPE_IMAGE = "image";
+
+	/** Type for start and end of the export of a target. */
+	public static final String TYPE_EXPORT = "export";
+
+	/** Type for shapes and text painted outside of an element. */
+	public static final String TYPE_OTHER = "other";
+
+	/** Number of elements with the highest painting time listed in reports. */
+	protected final int top;
+
+	/** The profile of the running painting, null if none running. */
+	protected Profile profile;
+
+	/** Finished profiles not yet taken. */
+	protected final List<Profile> finished = new ArrayList<>();
+
+	/** Bytes written to all counted streams. */
+	protected long bytes;
+
+	/** Nesting depth of profiled painting. */
+	protected int depth;
+
+	/** Start time of the outermost profiled painting. */
+	protected long start;
+
+	/** Bytes written when the outermost profiled painting started. */
+	protected long startBytes;
+
+	/** Flag for a pattern used by the outermost profiled painting. */
+	protected boolean pattern;
+
+	/**
+	 * Creates a new profiler.
+	 * @param top number of elements with the highest painting time listed in reports, must be positive
+	 * @throws IllegalArgumentException if top was not positive
+	 */
+	public RenderProfiler(int top){
+		Validate.isTrue(top>0, "number of elements must be positive, was %d", top);
+		this.top = top;
+	}
+
+	/**
+	 * Returns the number of elements listed in reports.
+	 * @return number of elements
+	 */
+	public int getTop(){
+		return this.top;
+	}
+
+	/**
+	 * Instruments a node built for an element.
+	 * Shape and text nodes get profiling painters, filters of the document's filter cache are profiled.
+	 * Nodes in a group not yet instrumented (for instance the content of a used element) are attributed to the element of the group.
+	 * @param node the node
+	 * @param element the element the node was built for
+	 */
+	public void instrument(GraphicsNode node, Element element){
+		if(node instanceof ShapeNode){
+			ShapeNode shape = (ShapeNode)node;
+			if(shape.getShapePainter()!=null && !(shape.getShapePainter() instanceof ShapeProbe)){
+				shape.setShapePainter(new ShapeProbe(shape.getShapePainter(), element));
+			}
+		}
+		else if(node instanceof TextNode){
+			TextNode text = (TextNode)node;
+			if(text.getTextPainter()!=null && !(text.getTextPainter() instanceof TextProbe)){
+				text.setTextPainter(new TextProbe(text.getTextPainter(), element));
+			}
+		}
+		else if(node instanceof CompositeGraphicsNode){
+			for(Object child : (CompositeGraphicsNode)node){
+				this.instrument((GraphicsNode)child, element);
+			}
+		}
+		if(node.getFilter() instanceof CachingFilter){
+			((CachingFilter)node.getFilter()).setProfiler(this);
+		}
+	}
+
+	/**
+	 * Returns a stream counting the bytes written by a target graphics.
+	 * @param out the stream to count
+	 * @return counting stream
+	 */
+	public OutputStream count(OutputStream out){
+		return new FilterOutputStream(out){
+			@Override
+			public void write(int b) throws IOException {
+				this.out.write(b);
+				RenderProfiler.this.bytes++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				this.out.write(b, off, len);
+				RenderProfiler.this.bytes += len;
+			}
+		};
+	}
+
+	/**
+	 * Returns a graphics object attributing painting outside of elements to clip, image, and other operations.
+	 * @param g the graphics to profile
+	 * @return profiling graphics
+	 */
+	public Graphics2D wrap(Graphics2D g){
+		return new ProfilingGraphics2D(g);
+	}
+
+	/**
+	 * Runs a step of the export of a target, for instance its start or end.
+	 * @param step the step
+	 */
+	public void export(Runnable step){
+		boolean profiled = this.enter();
+		try{
+			step.run();
+		}
+		finally{
+			if(profiled){
+				this.exit(TYPE_EXPORT, null);
+			}
+		}
+	}
+
+	/**
+	 * Starts profiling a painting.
+	 * @param name the name of the painting, for instance its target
+	 * @throws IllegalStateException if a painting is already profiled
+	 */
+	public void begin(String name){
+		Validate.validState(this.profile==null, "profiler is already profiling <%s>", (this.profile==null)?null:this.profile.getName());
+		this.depth = 0;
+		this.profile = new Profile(name, System.nanoTime(), this.bytes);
+	}
+
+	/**
+	 * Finishes profiling a painting, adding its profile to the finished profiles.
+	 * @return profile of the painting, null if no painting was profiled
+	 */
+	public Profile end(){
+		Profile ret = this.profile;
+		if(ret!=null){
+			ret.finish(System.nanoTime(), this.bytes);
+			this.finished.add(ret);
+			this.profile = null;
+		}
+		return ret;
+	}
+
+	/**
+	 * Tests if a painting is profiled.
+	 * @return true if profiling, false otherwise
+	 */
+	public boolean isProfiling(){
+		return this.profile!=null;
+	}
+
+	/**
+	 * Returns the finished profiles and removes them from the profiler.
+	 * @return profiles in order of painting, empty if none finished since the last call
+	 */
+	public List<Profile> takeProfiles(){
+		List<Profile> ret = new ArrayList<>(this.finished);
+		this.finished.clear();
+		return ret;
+	}
+
+	/**
+	 * Enters profiled painting, only the outermost painting is measured.
+	 * @return true if painting is profiled and {@link #exit(String, Element)} must be called, false otherwise
+	 */
+	protected boolean enter(){
+		if(this.profile==null){
+			return false;
+		}
+		if(this.depth++==0){
+			this.pattern = false;
+			this.startBytes = this.bytes;
+			this.start = System.nanoTime();
+		}
+		return true;
+	}
+
+	/**
+	 * Exits profiled painting, attributing it to a type and element if it was the outermost painting.
+	 * @param type the type of the painting
+	 * @param element the painted element, null if painted outside of an element
+	 */
+	protected void exit(String type, Element element){
+		if(--this.depth==0 && this.profile!=null){
+			long nanos = System.nanoTime() - this.start;
+			this.profile.add((this.pattern)?type + "+pattern":type, element, nanos, this.bytes - this.startBytes);
+		}
+	}
+
+	/**
+	 * Returns a label for an element: its id, otherwise its path from the next ancestor with an id or from the document element.
+	 * @param element the element
+	 * @return label, for instance "#rect12" or "#layer1/g[2]/path[5]"
+	 */
+	public static String getLabel(Element element){
+		StringBuilder ret = new StringBuilder();
+		Node node = element;
+		while(node instanceof Element){
+			Element e = (Element)node;
+			if(e.getAttribute("id").length()>0){
+				return ret.insert(0, "#" + e.getAttribute("id")).toString();
+			}
+			int index = 1;
+			for(Node sibling = e.getPreviousSibling(); sibling!=null; sibling = sibling.getPreviousSibling()){
+				if(sibling instanceof Element && sibling.getNodeName().equals(e.getNodeName())){
+					index++;
+				}
+			}
+			ret.insert(0, "/" + e.getNodeName() + "[" + index + "]");
+			node = e.getParentNode();
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Returns the type of an element.
+	 * @param element the element
+	 * @return local name of the element
+	 */
+	protected static String getType(Element element){
+		return (element.getLocalName()==null)?element.getNodeName():element.getLocalName();
+	}
+
+	/**
+	 * The profile of one painting.
+	 */
+	public static class Profile {
+
+		/** Name of the painting. */
+		protected final String name;
+
+		/** Start time. */
+		protected final long start;
+
+		/** Bytes written before the painting. */
+		protected final long startBytes;
+
+		/** Time of the painting in nanoseconds. */
+		protected long nanos;
+
+		/** Bytes written by the painting. */
+		protected long bytes;
+
+		/** Cost per type. */
+		protected final Map<String, Cost> types = new HashMap<>();
+
+		/** Cost per element. */
+		protected final Map<Element, Cost> elements = new IdentityHashMap<>();
+
+		/**
+		 * Creates a new profile.
+		 * @param name name of the painting
+		 * @param start start time
+		 * @param startBytes bytes written before the painting
+		 */
+		protected Profile(String name, long start, long startBytes){
+			this.name = name;
+			this.start = start;
+			this.startBytes = startBytes;
+		}
+
+		/**
+		 * Adds cost of painting.
+		 * @param type the type
+		 * @param element the element, null if painted outside of an element
+		 * @param nanos time in nanoseconds
+		 * @param bytes bytes written
+		 */
+		protected void add(String type, Element element, long nanos, long bytes){
+			this.types.computeIfAbsent(type, k -> new Cost(k, k)).add(nanos, bytes);
+			if(element!=null){
+				this.elements.computeIfAbsent(element, k -> new Cost(null, type)).add(nanos, bytes);
+			}
+		}
+
+		/**
+		 * Finishes the profile.
+		 * @param end end time
+		 * @param endBytes bytes written after the painting
+		 */
+		protected void finish(long end, long endBytes){
+			this.nanos = end - this.start;
+			this.bytes = endBytes - this.startBytes;
+		}
+
+		/**
+		 * Returns the name of the painting.
+		 * @return name
+		 */
+		public String getName(){
+			return this.name;
+		}
+
+		/**
+		 * Returns the time of the painting, from start to end of the export.
+		 * @return time in nanoseconds
+		 */
+		public long getNanos(){
+			return this.nanos;
+		}
+
+		/**
+		 * Returns the bytes written by the painting.
+		 * @return bytes
+		 */
+		public long getBytes(){
+			return this.bytes;
+		}
+
+		/**
+		 * Returns the cost per type.
+		 * @return cost per type, highest time first
+		 */
+		public List<Cost> getTypes(){
+			List<Cost> ret = new ArrayList<>(this.types.values());
+			ret.sort(Cost.BY_TIME);
+			return ret;
+		}
+
+		/**
+		 * Returns the elements with the highest painting time.
+		 * @param top maximum number of elements
+		 * @return cost of the elements with labels as names, highest time first
+		 */
+		public List<Cost> getElements(int top){
+			List<Entry<Element, Cost>> entries = new ArrayList<>(this.elements.entrySet());
+			entries.sort((a, b) -> Cost.BY_TIME.compare(a.getValue(), b.getValue()));
+			List<Cost> ret = new ArrayList<>();
+			for(Entry<Element, Cost> entry : entries.subList(0, Math.min(top, entries.size()))){
+				Cost cost = new Cost(getLabel(entry.getKey()), entry.getValue().getType());
+				cost.count = entry.getValue().count;
+				cost.nanos = entry.getValue().nanos;
+				cost.bytes = entry.getValue().bytes;
+				ret.add(cost);
+			}
+			return ret;
+		}
+
+		/**
+		 * Returns a report of the profile with the cost per type and the elements with the highest painting time.
+		 * @param top maximum number of elements
+		 * @return report as text
+		 */
+		public String getReport(int top){
+			StringBuilder ret = new StringBuilder();
+			ret.append(String.format("render profile %s: %.2f ms, %d bytes, %d elements%n", this.name, this.nanos/1e6, this.bytes, this.elements.size()));
+			ret.append(String.format("%n%-24s %8s %10s %6s %12s %6s%n", "type", "count", "ms", "%", "bytes", "%"));
+			long nanos = 0;
+			long bytes = 0;
+			for(Cost cost : this.getTypes()){
+				ret.append(this.format(cost.getName(), cost.getCount(), cost.getNanos(), cost.getBytes()));
+				nanos += cost.getNanos();
+				bytes += cost.getBytes();
+			}
+			ret.append(this.format("(unattributed)", 0, this.nanos - nanos, this.bytes - bytes));
+
+			ret.append(String.format("%n%-48s %-16s %10s %12s%n", "top " + top + " elements", "type", "ms", "bytes"));
+			for(Cost cost : this.getElements(top)){
+				ret.append(String.format("%-48s %-16s %10.3f %12d%n", cost.getName(), cost.getType(), cost.getNanos()/1e6, cost.getBytes()));
+			}
+			return ret.toString();
+		}
+
+		/**
+		 * Formats a line of the cost per type.
+		 * @param name the type
+		 * @param count number of paintings, 0 to leave empty
+		 * @param nanos time in nanoseconds
+		 * @param bytes bytes written
+		 * @return formatted line
+		 */
+		private String format(String name, long count, long nanos, long bytes){
+			return String.format("%-24s %8s %10.3f %6.1f %12d %6.1f%n", name, (count==0)?"":Long.toString(count), nanos/1e6, (this.nanos==0)?0.0:100.0*nanos/this.nanos, bytes, (this.bytes==0)?0.0:100.0*bytes/this.bytes);
+		}
+	}
+
+	/**
+	 * The cost of painting a type or an element.
+	 */
+	public static class Cost {
+
+		/** Order by time, highest first. */
+		static final Comparator<Cost> BY_TIME = (a, b) -> Long.compare(b.nanos, a.nanos);
+
+		/** Name, the type or the label of an element. */
+		protected final String name;
+
+		/** The type. */
+		protected final String type;
+
+		/** Number of paintings. */
+		protected long count;
+
+		/** Time in nanoseconds. */
+		protected long nanos;
+
+		/** Bytes written. */
+		protected long bytes;
+
+		/**
+		 * Creates a new cost.
+		 * @param name the name
+		 * @param type the type
+		 */
+		protected Cost(String name, String type){
+			this.name = name;
+			this.type = type;
+		}
+
+		/**
+		 * Adds a painting.
+		 * @param nanos time in nanoseconds
+		 * @param bytes bytes written
+		 */
+		protected void add(long nanos, long bytes){
+			this.count++;
+			this.nanos += nanos;
+			this.bytes += bytes;
+		}
+
+		/**
+		 * Returns the name.
+		 * @return type for cost per type, label for cost per element
+		 */
+		public String getName(){
+			return this.name;
+		}
+
+		/**
+		 * Returns the type.
+		 * @return type
+		 */
+		public String getType(){
+			return this.type;
+		}
+
+		/**
+		 * Returns the number of paintings.
+		 * @return count
+		 */
+		public long getCount(){
+			return this.count;
+		}
+
+		/**
+		 * Returns the time.
+		 * @return time in nanoseconds
+		 */
+		public long getNanos(){
+			return this.nanos;
+		}
+
+		/**
+		 * Returns the bytes written.
+		 * @return bytes
+		 */
+		public long getBytes(){
+			return this.bytes;
+		}
+	}
+
+	/**
+	 * A shape painter profiling the painter of a shape node.
+	 */
+	protected class ShapeProbe implements ShapePainter {
+
+		/** The profiled painter. */
+		protected final ShapePainter painter;
+
+		/** The element of the shape. */
+		protected final Element element;
+
+		/**
+		 * Creates a new probe.
+		 * @param painter the profiled painter
+		 * @param element the element of the shape
+		 */
+		protected ShapeProbe(ShapePainter painter, Element element){
+			this.painter = painter;
+			this.element = element;
+		}
+
+		@Override
+		public void paint(Graphics2D g2d){
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.painter.paint(g2d);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(getType(this.element), this.element);
+				}
+			}
+		}
+
+		@Override
+		public Shape getPaintedArea(){
+			return this.painter.getPaintedArea();
+		}
+
+		@Override
+		public Rectangle2D getPaintedBounds2D(){
+			return this.painter.getPaintedBounds2D();
+		}
+
+		@Override
+		public boolean inPaintedArea(Point2D pt){
+			return this.painter.inPaintedArea(pt);
+		}
+
+		@Override
+		public Shape getSensitiveArea(){
+			return this.painter.getSensitiveArea();
+		}
+
+		@Override
+		public Rectangle2D getSensitiveBounds2D(){
+			return this.painter.getSensitiveBounds2D();
+		}
+
+		@Override
+		public boolean inSensitiveArea(Point2D pt){
+			return this.painter.inSensitiveArea(pt);
+		}
+
+		@Override
+		public void setShape(Shape shape){
+			this.painter.setShape(shape);
+		}
+
+		@Override
+		public Shape getShape(){
+			return this.painter.getShape();
+		}
+	}
+
+	/**
+	 * A text painter profiling the painter of a text node.
+	 */
+	protected class TextProbe implements TextPainter {
+
+		/** The profiled painter. */
+		protected final TextPainter painter;
+
+		/** The element of the text. */
+		protected final Element element;
+
+		/**
+		 * Creates a new probe.
+		 * @param painter the profiled painter
+		 * @param element the element of the text
+		 */
+		protected TextProbe(TextPainter painter, Element element){
+			this.painter = painter;
+			this.element = element;
+		}
+
+		@Override
+		public void paint(TextNode node, Graphics2D g2d){
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.painter.paint(node, g2d);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(getType(this.element), this.element);
+				}
+			}
+		}
+
+		@Override
+		public Mark selectAt(double x, double y, TextNode node){
+			return this.painter.selectAt(x, y, node);
+		}
+
+		@Override
+		public Mark selectTo(double x, double y, Mark beginMark){
+			return this.painter.selectTo(x, y, beginMark);
+		}
+
+		@Override
+		public Mark selectFirst(TextNode node){
+			return this.painter.selectFirst(node);
+		}
+
+		@Override
+		public Mark selectLast(TextNode node){
+			return this.painter.selectLast(node);
+		}
+
+		@Override
+		public Mark getMark(TextNode node, int index, boolean beforeGlyph){
+			return this.painter.getMark(node, index, beforeGlyph);
+		}
+
+		@Override
+		public int[] getSelected(Mark start, Mark finish){
+			return this.painter.getSelected(start, finish);
+		}
+
+		@Override
+		public Shape getHighlightShape(Mark beginMark, Mark endMark){
+			return this.painter.getHighlightShape(beginMark, endMark);
+		}
+
+		@Override
+		public Shape getOutline(TextNode node){
+			return this.painter.getOutline(node);
+		}
+
+		@Override
+		public Rectangle2D getBounds2D(TextNode node){
+			return this.painter.getBounds2D(node);
+		}
+
+		@Override
+		public Rectangle2D getGeometryBounds(TextNode node){
+			return this.painter.getGeometryBounds(node);
+		}
+	}
+
+	/**
+	 * A graphics object attributing painting outside of elements to clip, image, and other operations, and marking patterns used by elements.
+	 */
+	protected class ProfilingGraphics2D extends DelegatingGraphics2D {
+
+		/**
+		 * Creates a new profiling graphics object.
+		 * @param g the graphics object to forward calls to
+		 */
+		protected ProfilingGraphics2D(Graphics2D g){
+			super(g);
+		}
+
+		@Override
+		protected Graphics2D wrap(Graphics2D created){
+			return new ProfilingGraphics2D(created);
+		}
+
+		@Override
+		public void setPaint(Paint paint) {
+			if(paint instanceof PatternPaint && RenderProfiler.this.depth>0){
+				RenderProfiler.this.pattern = true;
+			}
+			this.g.setPaint(paint);
+		}
+
+		@Override
+		public void clip(Shape s) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.clip(s);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_CLIP, null);
+				}
+			}
+		}
+
+		@Override
+		public void setClip(Shape clip) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.setClip(clip);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_CLIP, null);
+				}
+			}
+		}
+
+		@Override
+		public void draw(Shape s) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.draw(s);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_OTHER, null);
+				}
+			}
+		}
+
+		@Override
+		public void fill(Shape s) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.fill(s);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_OTHER, null);
+				}
+			}
+		}
+
+		@Override
+		public void drawGlyphVector(GlyphVector gv, float x, float y) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.drawGlyphVector(gv, x, y);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_OTHER, null);
+				}
+			}
+		}
+
+		@Override
+		public void drawString(String str, float x, float y) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.drawString(str, x, y);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_OTHER, null);
+				}
+			}
+		}
+
+		@Override
+		public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.drawString(iterator, x, y);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_OTHER, null);
+				}
+			}
+		}
+
+		@Override
+		public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				return this.g.drawImage(img, x, y, observer);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_IMAGE, null);
+				}
+			}
+		}
+
+		@Override
+		public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				return this.g.drawImage(img, xform, obs);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_IMAGE, null);
+				}
+			}
+		}
+
+		@Override
+		public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.drawRenderedImage(img, xform);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_IMAGE, null);
+				}
+			}
+		}
+
+		@Override
+		public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+			boolean profiled = RenderProfiler.this.enter();
+			try{
+				this.g.drawRenderableImage(img, xform);
+			}
+			finally{
+				if(profiled){
+					RenderProfiler.this.exit(TYPE_IMAGE, null);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.batik.ext.awt.image.spi.ImageTagRegistry;
+import org.apache.batik.util.ParsedURL;
+import org.apache.batik.util.ParsedURLData;
+import org.apache.batik.util.ParsedURLDefaultProtocolHandler;
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+
+/**
+ * A bounded, thread-safe cache of the content of local files read by Batik, for instance linked images, style sheets, and referenced SVG documents.
+ * Content is keyed by canonical path and validated by modification time and length, a changed file is read again.
+ * When the cache is full, the least recently used content is removed, files larger than a quarter of the cache are never cached.
+ * 
+ * The cache is shared process-wide and used once installed as the handler for file URLs, so a resource is read once and not once per document or layer.
+ * Decoded images are cached by Batik's image registry, which is flushed when a cached file has changed.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ResourceCache {
+
+	/** Default maximum number of cached bytes. */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	/** The process-wide cache. */
+	private static final ResourceCache INSTANCE = new ResourceCache(DEFAULT_MAX_BYTES);
+
+	static{
+		ConversionStats.getInstance().addCache("resource", INSTANCE::getHits, INSTANCE::getMisses);
+	}
+
+	/** Flag for the file URL handler being installed. */
+	private static boolean installed;
+
+	/** Maximum number of cached bytes. */
+	protected final long maxBytes;
+
+	/** The cached content, in access order. */
+	protected final Map<String, Content> contents = new LinkedHashMap<>(64, 0.75f, true);
+
+	/** Number of cached bytes. */
+	protected long bytes;
+
+	/** Number of cache hits. */
+	protected final AtomicLong hits = new AtomicLong();
+
+	/** Number of cache misses. */
+	protected final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the process-wide cache.
+	 * @return resource cache
+	 */
+	public static ResourceCache getInstance(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Installs the process-wide cache as the handler for file URLs in Batik, nothing happens if already installed.
+	 */
+	public static synchronized void install(){
+		if(!installed){
+			ParsedURL.registerHandler(new CachingFileHandler());
+			installed = true;
+		}
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param maxBytes maximum number of bytes to keep, must be positive
+	 * @throws IllegalArgumentException if maxBytes was not positive
+	 */
+	public ResourceCache(final long maxBytes){
+		Validate.isTrue(maxBytes>0, "maximum number of bytes must be positive, was %d", maxBytes);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Opens a local file, using cached content if the file has not changed since it was cached.
+	 * @param file the file
+	 * @return stream with the file content
+	 * @throws IOException if the file could not be read
+	 */
+	public InputStream open(File file) throws IOException {
+		String path = file.getCanonicalPath();
+		long modified = file.lastModified();
+		long length = file.length();
+
+		synchronized(this){
+			Content content = this.contents.get(path);
+			if(content!=null){
+				if(content.modified==modified && content.data.length==length){
+					this.hits.incrementAndGet();
+					return new ByteArrayInputStream(content.data);
+				}
+				//changed file, decoded images of the old content must not be used again
+				this.contents.remove(path);
+				this.bytes -= content.data.length;
+				ImageTagRegistry.getRegistry().flushCache();
+			}
+		}
+
+		this.misses.incrementAndGet();
+		if(length > this.maxBytes/4){
+			return new FileInputStream(file);
+		}
+		byte[] data = Files.readAllBytes(file.toPath());
+		synchronized(this){
+			Content old = this.contents.put(path, new Content(modified, data));
+			this.bytes += data.length - ((old==null)?0:old.data.length);
+			Iterator<Content> it = this.contents.values().iterator();
+			while(this.bytes > this.maxBytes && it.hasNext()){
+				this.bytes -= it.next().data.length;
+				it.remove();
+			}
+		}
+		return new ByteArrayInputStream(data);
+	}
+
+	/**
+	 * Returns the number of cache hits.
+	 * @return number of hits
+	 */
+	public long getHits(){
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of cache misses.
+	 * @return number of misses
+	 */
+	public long getMisses(){
+		return this.misses.get();
+	}
+
+	/**
+	 * Returns the number of cached files.
+	 * @return number of cached files
+	 */
+	public synchronized int size(){
+		return this.contents.size();
+	}
+
+	/**
+	 * Returns the number of cached bytes.
+	 * @return number of cached bytes
+	 */
+	public synchronized long getBytes(){
+		return this.bytes;
+	}
+
+	/**
+	 * Removes all cached content.
+	 */
+	public synchronized void clear(){
+		this.contents.clear();
+		this.bytes = 0;
+	}
+
+	/**
+	 * Cached content of a file.
+	 */
+	protected static final class Content {
+
+		/** Modification time of the file when read. */
+		final long modified;
+
+		/** Content of the file. */
+		final byte[] data;
+
+		/**
+		 * Creates new content.
+		 * @param modified modification time of the file when read
+		 * @param data content of the file
+		 */
+		Content(long modified, byte[] data){
+			this.modified = modified;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Batik handler for file URLs, reading files through the process-wide cache.
+	 */
+	protected static class CachingFileHandler extends ParsedURLDefaultProtocolHandler {
+
+		/**
+		 * Creates a new handler.
+		 */
+		public CachingFileHandler(){
+			super("file");
+		}
+
+		@Override
+		protected ParsedURLData constructParsedURLData(){
+			return new CachingFileData();
+		}
+
+		@Override
+		protected ParsedURLData constructParsedURLData(URL url){
+			return new CachingFileData(url);
+		}
+	}
+
+	/**
+	 * Batik URL data for file URLs, reading files through the process-wide cache.
+	 */
+	protected static class CachingFileData extends ParsedURLData {
+
+		/**
+		 * Creates new URL data.
+		 */
+		public CachingFileData(){
+			super();
+		}
+
+		/**
+		 * Creates new URL data.
+		 * @param url the URL
+		 */
+		public CachingFileData(URL url){
+			super(url);
+		}
+
+		@Override
+		@SuppressWarnings("rawtypes")
+		protected InputStream openStreamInternal(String userAgent, Iterator mimeTypes, Iterator encodingTypes) throws IOException {
+			File file = null;
+			try{
+				file = new File(this.buildURL().toURI());
+			}
+			catch(URISyntaxException | IllegalArgumentException ex){
+				//not a plain local file, for instance with a query or authority
+			}
+			if(file==null || !file.isFile()){
+				return super.openStreamInternal(userAgent, mimeTypes, encodingTypes);
+			}
+			this.hasBeenOpened = true;
+			return ResourceCache.getInstance().open(file);
+		}
+	}
+}
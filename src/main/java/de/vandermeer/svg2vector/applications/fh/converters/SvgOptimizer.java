@@ -0,0 +1,679 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.batik.parser.AWTPathProducer;
+import org.apache.batik.parser.AWTTransformProducer;
+import org.apache.batik.parser.ParseException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import de.vandermeer.svg2vector.applications.base.SvgCleaner;
+import de.vandermeer.svg2vector.applications.base.SvgPrescan;
+
+/**
+ * An optimizer simplifying the geometry of an SVG document before the graphics tree is built.
+ * The optimizer works on the rendered content only (the root element, groups, and links), definitions, clip paths, masks, patterns, markers, and text are not changed.
+ * It
+ * 
+ * - removes invisible elements: elements with display `none` or opacity `0`, and shapes that have neither a visible fill nor a visible stroke,
+ *   a fill is not visible if its area is not larger than the tolerance in both dimensions, a stroke is not visible if its extent is not larger than the tolerance in any dimension,
+ * - removes identity transforms and groups without attributes, moving their children to the parent,
+ * - merges consecutive sibling paths with the same attributes into one path, if painting them as one path does not change the result.
+ * 
+ * Layers and elements with referenced identifiers are never removed or merged into other elements.
+ * If the document has style sheets, only transforms, groups, and paths with non-overlapping bounds are changed, since styles from the style sheet are not known.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class SvgOptimizer {
+
+	/** Maximum number of paths merged into one path. */
+	public static final int MAX_MERGE = 256;
+
+	/** Elements painting a shape. */
+	private static final Set<String> SHAPES = new HashSet<>();
+	static {
+		for(String shape : new String[]{"path", "rect", "circle", "ellipse", "line", "polyline", "polygon"}){
+			SHAPES.add(shape);
+		}
+	}
+
+	/** Pattern for identifiers in style sheets. */
+	private static final Pattern CSS_ID = Pattern.compile("#([A-Za-z_][-\\w.:]*)");
+
+	/** Pattern for a relative move at the start of path data. */
+	private static final Pattern RELATIVE_MOVE = Pattern.compile("^m\\s*([-+]?(?:\\d*\\.\\d+|\\d+\\.?)(?:[eE][-+]?\\d+)?)[\\s,]*([-+]?(?:\\d*\\.\\d+|\\d+\\.?)(?:[eE][-+]?\\d+)?)");
+
+	/** Tolerance for invisible shapes, in user units. */
+	protected final double tolerance;
+
+	/** Referenced identifiers of the document. */
+	protected Set<String> refs;
+
+	/** Flag for the document using style sheets. */
+	protected boolean styleSheets;
+
+	/** Number of elements before the last optimization. */
+	protected int before;
+
+	/** Number of elements after the last optimization. */
+	protected int after;
+
+	/** Number of invisible elements removed in the last optimization. */
+	protected int dropped;
+
+	/** Number of paths merged into other paths in the last optimization. */
+	protected int merged;
+
+	/** Number of identity transforms and groups removed in the last optimization. */
+	protected int flattened;
+
+	/**
+	 * Creates a new optimizer.
+	 * @param tolerance size in user units up to which the fill or stroke of a shape is considered invisible, 0 for only empty shapes
+	 * @throws IllegalArgumentException if tolerance was negative or not a number
+	 */
+	public SvgOptimizer(double tolerance){
+		Validate.isTrue(tolerance>=0, "tolerance must be a non-negative number, was %f", tolerance);
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Optimizes a document.
+	 * @param doc the document
+	 * @throws NullPointerException if doc was null
+	 */
+	public void optimize(Document doc){
+		Validate.notNull(doc);
+		Element root = doc.getDocumentElement();
+
+		this.dropped = 0;
+		this.merged = 0;
+		this.flattened = 0;
+		this.before = SvgOptimizer.countElements(root);
+
+		this.refs = new HashSet<>();
+		BatikLoader.collectReferences(root, this.refs);
+		this.styleSheets = this.collectStyleSheetIds(root);
+
+		this.optimizeChildren(root);
+		this.after = SvgOptimizer.countElements(root);
+	}
+
+	/**
+	 * Returns the number of elements before the last optimization.
+	 * @return number of elements
+	 */
+	public int getElementsBefore(){
+		return this.before;
+	}
+
+	/**
+	 * Returns the number of elements after the last optimization.
+	 * @return number of elements
+	 */
+	public int getElementsAfter(){
+		return this.after;
+	}
+
+	/**
+	 * Returns the number of invisible elements removed in the last optimization, removed descendants are not counted.
+	 * @return number of removed elements
+	 */
+	public int getDropped(){
+		return this.dropped;
+	}
+
+	/**
+	 * Returns the number of paths merged into other paths in the last optimization.
+	 * @return number of merged paths
+	 */
+	public int getMerged(){
+		return this.merged;
+	}
+
+	/**
+	 * Returns the number of identity transforms and groups removed in the last optimization.
+	 * @return number of removed transforms and groups
+	 */
+	public int getFlattened(){
+		return this.flattened;
+	}
+
+	/**
+	 * Optimizes the children of a container element.
+	 * @param parent the container element
+	 */
+	protected void optimizeChildren(Element parent){
+		Node child = parent.getFirstChild();
+		while(child!=null){
+			Node next = child.getNextSibling();
+			if(child.getNodeType()==Node.ELEMENT_NODE){
+				Element element = (Element)child;
+				if("g".equals(element.getLocalName()) || "a".equals(element.getLocalName())){
+					this.optimizeChildren(element);
+				}
+
+				if(this.isInvisible(element)){
+					parent.removeChild(element);
+					this.dropped++;
+				}
+				else{
+					this.removeIdentityTransform(element);
+					if(this.isRedundantGroup(element)){
+						while(element.getFirstChild()!=null){
+							parent.insertBefore(element.getFirstChild(), element);
+						}
+						parent.removeChild(element);
+						this.flattened++;
+					}
+				}
+			}
+			child = next;
+		}
+		this.mergePaths(parent);
+	}
+
+	/**
+	 * Tests if an element can be removed because it paints nothing.
+	 * @param element the element
+	 * @return true if the element is invisible, false otherwise
+	 */
+	protected boolean isInvisible(Element element){
+		if(this.styleSheets || SvgOptimizer.isLayer(element) || this.isPinned(element)){
+			return false;
+		}
+		if("none".equals(SvgOptimizer.getProperty(element, "display"))){
+			return true;
+		}
+		if(SvgOptimizer.toNumber(SvgOptimizer.getProperty(element, "opacity"), 1)<=0){
+			return true;
+		}
+		if(!SHAPES.contains(element.getLocalName()) || SvgOptimizer.hasMarkers(element)){
+			return false;
+		}
+
+		Rectangle2D bounds = SvgOptimizer.getBounds(element);
+		if(bounds==null){
+			return false;
+		}
+		boolean fill = !"none".equals(SvgOptimizer.getInheritedProperty(element, "fill", "black"))
+				&& SvgOptimizer.toNumber(SvgOptimizer.getInheritedProperty(element, "fill-opacity", "1"), 1)>0
+				&& bounds.getWidth()>this.tolerance && bounds.getHeight()>this.tolerance;
+		boolean stroke = !"none".equals(SvgOptimizer.getInheritedProperty(element, "stroke", "none"))
+				&& SvgOptimizer.toNumber(SvgOptimizer.getInheritedProperty(element, "stroke-opacity", "1"), 1)>0
+				&& SvgOptimizer.toNumber(SvgOptimizer.getInheritedProperty(element, "stroke-width", "1"), 1)>0
+				&& (bounds.getWidth()>this.tolerance || bounds.getHeight()>this.tolerance || (this.tolerance==0 && !"butt".equals(SvgOptimizer.getInheritedProperty(element, "stroke-linecap", "butt"))));
+		return !fill && !stroke;
+	}
+
+	/**
+	 * Removes the transform of an element if it is an identity transform.
+	 * @param element the element
+	 */
+	protected void removeIdentityTransform(Element element){
+		String transform = element.getAttribute("transform");
+		if(StringUtils.isBlank(transform)){
+			return;
+		}
+		try{
+			if(AWTTransformProducer.createAffineTransform(transform).isIdentity()){
+				element.removeAttribute("transform");
+				this.flattened++;
+			}
+		}
+		catch(ParseException ignore){}
+	}
+
+	/**
+	 * Tests if an element is a group without any effect on its children.
+	 * @param element the element
+	 * @return true if the element is a group that is not a layer, not referenced, and has no attributes other than editor attributes and an identifier, false otherwise
+	 */
+	protected boolean isRedundantGroup(Element element){
+		if(this.styleSheets || !"g".equals(element.getLocalName()) || SvgOptimizer.isLayer(element)){
+			return false;
+		}
+		if(element.hasAttribute("id") && this.refs.contains(element.getAttribute("id"))){
+			return false;
+		}
+		NamedNodeMap nnm = element.getAttributes();
+		for(int i=0; i<nnm.getLength(); i++){
+			Node attr = nnm.item(i);
+			if(!"id".equals(attr.getNodeName()) && !SvgOptimizer.isEditorAttribute(attr)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Merges consecutive paths of a container element.
+	 * @param parent the container element
+	 */
+	protected void mergePaths(Element parent){
+		Element head = null;
+		StringBuilder data = null;
+		List<Rectangle2D> bounds = new ArrayList<>();
+		int count = 0;
+
+		Node child = parent.getFirstChild();
+		while(child!=null){
+			Node next = child.getNextSibling();
+			if(child.getNodeType()==Node.COMMENT_NODE || (child.getNodeType()==Node.TEXT_NODE && StringUtils.isBlank(child.getNodeValue()))){
+				child = next;
+				continue;
+			}
+
+			Element element = (child.getNodeType()==Node.ELEMENT_NODE)?(Element)child:null;
+			if(head!=null && element!=null && count<MAX_MERGE && this.canMerge(head, element, bounds)){
+				data.append(' ').append(SvgOptimizer.toAbsoluteStart(element.getAttribute("d")));
+				parent.removeChild(element);
+				this.merged++;
+				count++;
+			}
+			else{
+				if(head!=null && count>1){
+					head.setAttribute("d", data.toString());
+				}
+				head = null;
+				bounds.clear();
+				if(element!=null && this.isMergeHead(element)){
+					head = element;
+					data = new StringBuilder(element.getAttribute("d").trim());
+					count = 1;
+					if(this.needsDisjointBounds(element)){
+						Rectangle2D rect = this.getPaintBounds(element);
+						if(rect==null){
+							head = null;
+						}
+						else{
+							bounds.add(rect);
+						}
+					}
+				}
+			}
+			child = next;
+		}
+		if(head!=null && count>1){
+			head.setAttribute("d", data.toString());
+		}
+	}
+
+	/**
+	 * Tests if an element can start a sequence of merged paths.
+	 * @param element the element
+	 * @return true if the element is a path without children, markers, filters, and masks and it is not referenced, false otherwise
+	 */
+	protected boolean isMergeHead(Element element){
+		if(!"path".equals(element.getLocalName()) || this.isPinned(element) || SvgOptimizer.hasMarkers(element)){
+			return false;
+		}
+		if(SvgOptimizer.getProperty(element, "filter")!=null || SvgOptimizer.getProperty(element, "mask")!=null){
+			return false;
+		}
+		for(Node child=element.getFirstChild(); child!=null; child=child.getNextSibling()){
+			if(child.getNodeType()==Node.ELEMENT_NODE){
+				return false;
+			}
+		}
+		return StringUtils.isNotBlank(element.getAttribute("d"));
+	}
+
+	/**
+	 * Tests if a path can be merged into a sequence of paths.
+	 * @param head the first path of the sequence
+	 * @param element the path to merge
+	 * @param bounds paint bounds of all paths of the sequence, empty if bounds are not required, the bounds of the element are added if it can be merged
+	 * @return true if the path can be merged, false otherwise
+	 */
+	protected boolean canMerge(Element head, Element element, List<Rectangle2D> bounds){
+		if(!this.isMergeHead(element) || !SvgOptimizer.getAttributes(head).equals(SvgOptimizer.getAttributes(element))){
+			return false;
+		}
+		if(bounds.isEmpty()){
+			return true;
+		}
+
+		Rectangle2D rect = this.getPaintBounds(element);
+		if(rect==null){
+			return false;
+		}
+		for(Rectangle2D other : bounds){
+			if(other.intersects(rect)){
+				return false;
+			}
+		}
+		bounds.add(rect);
+		return true;
+	}
+
+	/**
+	 * Tests if merged paths must not overlap to be painted as before, which is the case for filled paths and for transparency.
+	 * @param element the path
+	 * @return true if paths must not overlap, false if overlapping paths can be merged
+	 */
+	protected boolean needsDisjointBounds(Element element){
+		return this.styleSheets
+				|| !"none".equals(SvgOptimizer.getInheritedProperty(element, "fill", "black"))
+				|| SvgOptimizer.toNumber(SvgOptimizer.getProperty(element, "opacity"), 1)<1
+				|| SvgOptimizer.toNumber(SvgOptimizer.getInheritedProperty(element, "stroke-opacity", "1"), 1)<1;
+	}
+
+	/**
+	 * Returns the bounds of a path including its stroke, with a margin for miter joins.
+	 * @param element the path
+	 * @return paint bounds, null if the path could not be parsed
+	 */
+	protected Rectangle2D getPaintBounds(Element element){
+		Rectangle2D rect = SvgOptimizer.getBounds(element);
+		if(rect==null || "none".equals(SvgOptimizer.getInheritedProperty(element, "stroke", "none"))){
+			return rect;
+		}
+		double margin = 2 * SvgOptimizer.toNumber(SvgOptimizer.getInheritedProperty(element, "stroke-width", "1"), 1);
+		return new Rectangle2D.Double(rect.getX() - margin, rect.getY() - margin, rect.getWidth() + 2*margin, rect.getHeight() + 2*margin);
+	}
+
+	/**
+	 * Tests if an element or one of its descendants has a referenced identifier.
+	 * @param element the element
+	 * @return true if referenced, false otherwise
+	 */
+	protected boolean isPinned(Element element){
+		Set<String> ids = new HashSet<>();
+		BatikLoader.collectIds(element, ids);
+		ids.retainAll(this.refs);
+		return ids.size()>0;
+	}
+
+	/**
+	 * Collects identifiers used in style sheets as referenced identifiers.
+	 * @param node the node to start with
+	 * @return true if a style sheet was found, false otherwise
+	 */
+	protected boolean collectStyleSheetIds(Node node){
+		boolean ret = false;
+		if("style".equals(node.getLocalName())){
+			for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+				String text = child.getNodeValue();
+				if(StringUtils.isNotBlank(text)){
+					ret = true;
+					Matcher matcher = CSS_ID.matcher(text);
+					while(matcher.find()){
+						this.refs.add(matcher.group(1));
+					}
+				}
+			}
+		}
+		for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+			ret = this.collectStyleSheetIds(child) || ret;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the attributes of an element that are relevant for painting, without path data, identifier, and editor attributes.
+	 * @param element the element
+	 * @return map of attribute name to value
+	 */
+	protected static Map<String, String> getAttributes(Element element){
+		Map<String, String> ret = new HashMap<>();
+		NamedNodeMap nnm = element.getAttributes();
+		for(int i=0; i<nnm.getLength(); i++){
+			Node attr = nnm.item(i);
+			String name = attr.getNodeName();
+			if(!"d".equals(name) && !"id".equals(name) && !SvgOptimizer.isEditorAttribute(attr)){
+				ret.put(name, attr.getNodeValue());
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns a property of an element, from its style attribute or its presentation attribute, without inheritance.
+	 * @param element the element
+	 * @param name the property name
+	 * @return property value, null if not set or set to inherit
+	 */
+	protected static String getProperty(Element element, String name){
+		String style = element.getAttribute("style");
+		if(style.indexOf(name)>=0){
+			for(String declaration : StringUtils.split(style, ';')){
+				int colon = declaration.indexOf(':');
+				if(colon>0 && name.equals(declaration.substring(0, colon).trim())){
+					String value = declaration.substring(colon + 1).trim();
+					return ("inherit".equals(value))?null:value;
+				}
+			}
+		}
+		String value = element.getAttribute(name).trim();
+		return (value.length()==0 || "inherit".equals(value))?null:value;
+	}
+
+	/**
+	 * Returns an inherited property of an element, from the element or the closest ancestor setting it.
+	 * @param element the element
+	 * @param name the property name
+	 * @param defaultValue the initial value of the property
+	 * @return property value
+	 */
+	protected static String getInheritedProperty(Element element, String name, String defaultValue){
+		for(Node node=element; node!=null && node.getNodeType()==Node.ELEMENT_NODE; node=node.getParentNode()){
+			String value = SvgOptimizer.getProperty((Element)node, name);
+			if(value!=null){
+				return value;
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Tests if markers are painted for an element.
+	 * @param element the element
+	 * @return true if any marker property is set to a value other than none, false otherwise
+	 */
+	protected static boolean hasMarkers(Element element){
+		for(String marker : new String[]{"marker", "marker-start", "marker-mid", "marker-end"}){
+			String value = SvgOptimizer.getInheritedProperty(element, marker, "none");
+			if(!"none".equals(value)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the geometric bounds of a shape in its user space.
+	 * @param element the shape element
+	 * @return bounds, null if the element is not a shape or its geometry could not be parsed
+	 */
+	protected static Rectangle2D getBounds(Element element){
+		String name = element.getLocalName();
+		if("path".equals(name)){
+			String data = element.getAttribute("d");
+			if(StringUtils.isBlank(data)){
+				return new Rectangle2D.Double();
+			}
+			try{
+				return AWTPathProducer.createShape(new StringReader(data), PathIterator.WIND_NON_ZERO).getBounds2D();
+			}
+			catch(IOException | ParseException ex){
+				return null;
+			}
+		}
+
+		double[] coords;
+		if("rect".equals(name)){
+			coords = SvgOptimizer.toNumbers(element, "x", "y", "width", "height");
+			return (coords==null)?null:new Rectangle2D.Double(coords[0], coords[1], coords[2], coords[3]);
+		}
+		if("circle".equals(name)){
+			coords = SvgOptimizer.toNumbers(element, "cx", "cy", "r");
+			return (coords==null)?null:new Rectangle2D.Double(coords[0] - coords[2], coords[1] - coords[2], 2*coords[2], 2*coords[2]);
+		}
+		if("ellipse".equals(name)){
+			coords = SvgOptimizer.toNumbers(element, "cx", "cy", "rx", "ry");
+			return (coords==null)?null:new Rectangle2D.Double(coords[0] - coords[2], coords[1] - coords[3], 2*coords[2], 2*coords[3]);
+		}
+		if("line".equals(name)){
+			coords = SvgOptimizer.toNumbers(element, "x1", "y1", "x2", "y2");
+		}
+		else if("polyline".equals(name) || "polygon".equals(name)){
+			String[] points = StringUtils.split(element.getAttribute("points"), " ,\t\r\n");
+			coords = new double[points.length - points.length%2];
+			for(int i=0; i<coords.length; i++){
+				coords[i] = SvgOptimizer.toNumber(points[i], Double.NaN);
+				if(Double.isNaN(coords[i])){
+					return null;
+				}
+			}
+		}
+		else{
+			return null;
+		}
+		if(coords==null){
+			return null;
+		}
+
+		Rectangle2D ret = null;
+		for(int i=0; i<coords.length; i+=2){
+			if(ret==null){
+				ret = new Rectangle2D.Double(coords[i], coords[i+1], 0, 0);
+			}
+			else{
+				ret.add(coords[i], coords[i+1]);
+			}
+		}
+		return (ret==null)?new Rectangle2D.Double():ret;
+	}
+
+	/**
+	 * Returns path data starting with an absolute move, so that it can be appended to other path data.
+	 * A relative move at the start of path data is absolute, following coordinate pairs are relative lines.
+	 * @param data the path data
+	 * @return path data starting with an absolute move
+	 */
+	protected static String toAbsoluteStart(String data){
+		String ret = data.trim();
+		Matcher matcher = RELATIVE_MOVE.matcher(ret);
+		if(!matcher.find()){
+			return ret;
+		}
+		String rest = ret.substring(matcher.end()).replaceFirst("^[\\s,]+", "");
+		boolean implicit = rest.length()>0 && "+-.0123456789".indexOf(rest.charAt(0))>=0;
+		return "M " + matcher.group(1) + "," + matcher.group(2) + ((implicit)?" l ":" ") + rest;
+	}
+
+	/**
+	 * Returns numeric attributes of an element, missing attributes are 0.
+	 * @param element the element
+	 * @param names the attribute names
+	 * @return attribute values, null if any value was not a plain number
+	 */
+	private static double[] toNumbers(Element element, String ... names){
+		double[] ret = new double[names.length];
+		for(int i=0; i<names.length; i++){
+			ret[i] = SvgOptimizer.toNumber(StringUtils.defaultIfBlank(element.getAttribute(names[i]), "0"), Double.NaN);
+			if(Double.isNaN(ret[i])){
+				return null;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns a number of a value, a unit `px` is ignored.
+	 * @param value the value, can be null
+	 * @param defaultValue value returned if value was null or not a number
+	 * @return number
+	 */
+	private static double toNumber(String value, double defaultValue){
+		if(value==null){
+			return defaultValue;
+		}
+		try{
+			return Double.parseDouble(StringUtils.removeEnd(value.trim(), "px"));
+		}
+		catch(NumberFormatException ex){
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Tests if an element is an Inkscape layer.
+	 * @param element the element
+	 * @return true if the element is a group with an Inkscape group mode, false otherwise
+	 */
+	private static boolean isLayer(Element element){
+		if(!"g".equals(element.getLocalName())){
+			return false;
+		}
+		NamedNodeMap nnm = element.getAttributes();
+		for(int i=0; i<nnm.getLength(); i++){
+			if("groupmode".equals(nnm.item(i).getLocalName()) && SvgPrescan.INKSCAPE_NS.equals(nnm.item(i).getNamespaceURI())){
+				return true;
+			}
+			if("inkscape:groupmode".equals(nnm.item(i).getNodeName())){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests if an attribute is a sodipodi or Inkscape attribute, which do not change painting.
+	 * @param attr the attribute
+	 * @return true if an editor attribute, false otherwise
+	 */
+	private static boolean isEditorAttribute(Node attr){
+		String ns = attr.getNamespaceURI();
+		return SvgCleaner.SODIPODI_NS.equals(ns) || SvgPrescan.INKSCAPE_NS.equals(ns)
+				|| attr.getNodeName().startsWith("sodipodi:") || attr.getNodeName().startsWith("inkscape:");
+	}
+
+	/**
+	 * Counts an element and all its descendant elements.
+	 * @param node the node to start with
+	 * @return number of elements
+	 */
+	private static int countElements(Node node){
+		int ret = (node.getNodeType()==Node.ELEMENT_NODE)?1:0;
+		for(Node child=node.getFirstChild(); child!=null; child=child.getNextSibling()){
+			ret += SvgOptimizer.countElements(child);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,170 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.info;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.vandermeer.execs.ExecS_Application;
+import de.vandermeer.execs.options.AO_FileIn;
+import de.vandermeer.execs.options.AO_FileOut;
+import de.vandermeer.execs.options.ApplicationOption;
+import de.vandermeer.execs.options.ExecS_CliParser;
+import de.vandermeer.svg2vector.applications.base.SvgPrescan;
+
+/**
+ * The Svg2Vector information application.
+ * It prints size, layers, and element counts of an SVG file as JSON, using a streaming pre-scan instead of loading a document.
+ * The tool does support SVG and SVGZ input formats.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Svg2Vector_Info implements ExecS_Application {
+
+	/** Application name. */
+	public final static String APP_NAME = "s2v-info";
+
+	/** Application display name. */
+	public final static String APP_DISPLAY_NAME = "Svg2Vector Info";
+
+	/** Application version, should be same as the version in the class JavaDoc. */
+	public final static String APP_VERSION = "v2.0.0 build 170413 (13-Apr-17) for Java 1.8";
+
+	/** CLI parser. */
+	final private ExecS_CliParser cli;
+
+	/** Application option for input file. */
+	final private AO_FileIn optionFileIn = new AO_FileIn(true, 'f', "input file <file>, must be a valid SVG file, can be compressed SVG (svgz)");
+
+	/** Application option for output file. */
+	final private AO_FileOut optionFileOut = new AO_FileOut(false, 'o', "output file for the JSON result, default is standard output");
+
+	/** The pre-scan of the input file. */
+	final private SvgPrescan prescan = new SvgPrescan();
+
+	/**
+	 * Returns a new application.
+	 */
+	public Svg2Vector_Info(){
+		this.cli = new ExecS_CliParser();
+		this.cli.addAllOptions(this.getAppOptions());
+	}
+
+	@Override
+	public int executeApplication(String[] args) {
+		// parse command line, exit with help screen if error
+		int ret = ExecS_Application.super.executeApplication(args);
+		if(ret!=0){
+			return ret;
+		}
+
+		String fn = this.optionFileIn.getValue();
+		if(StringUtils.isBlank(fn)){
+			this.printErrorMessage("no input file given");
+			return -10;
+		}
+		File testFD = new File(fn);
+		if(!testFD.exists()){
+			this.printErrorMessage("input file <" + fn + "> does not exist, please check path and filename");
+			return -11;
+		}
+		if(!testFD.isFile()){
+			this.printErrorMessage("input file <" + fn + "> is not a file, please check path and filename");
+			return -12;
+		}
+		if(!testFD.canRead()){
+			this.printErrorMessage("cannot read input file <" + fn + ">, please file permissions");
+			return -13;
+		}
+
+		String err = this.prescan.scan(fn);
+		if(err!=null){
+			this.printErrorMessage(err);
+			return -20;
+		}
+
+		String json = this.prescan.toJson();
+		if(this.optionFileOut.inCli()){
+			File fout = new File(this.optionFileOut.getValue());
+			try(Writer writer = new OutputStreamWriter(Files.newOutputStream(fout.toPath()), StandardCharsets.UTF_8)){
+				writer.write(json);
+				writer.write(System.lineSeparator());
+			}
+			catch(IOException ex){
+				this.printErrorMessage("cannot write output file <" + fout + "> - " + ex.getMessage());
+				return -21;
+			}
+		}
+		else{
+			System.out.println(json);
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the pre-scan of the input file.
+	 * @return pre-scan, empty if application was not executed
+	 */
+	public SvgPrescan getPrescan(){
+		return this.prescan;
+	}
+
+	/**
+	 * Prints an error message.
+	 * @param err the error message
+	 */
+	private void printErrorMessage(String err){
+		System.err.println(this.getAppName() + " error: " + err);
+	}
+
+	@Override
+	public ApplicationOption<?>[] getAppOptions() {
+		return new ApplicationOption<?>[]{this.optionFileIn, this.optionFileOut};
+	}
+
+	@Override
+	public ExecS_CliParser getCli() {
+		return this.cli;
+	}
+
+	@Override
+	public String getAppDescription() {
+		return "Prints size, layers, and element counts of an SVG file as JSON, without loading the SVG document";
+	}
+
+	@Override
+	public String getAppDisplayName(){
+		return APP_DISPLAY_NAME;
+	}
+
+	@Override
+	public String getAppName() {
+		return APP_NAME;
+	}
+
+	@Override
+	public String getAppVersion() {
+		return APP_VERSION;
+	}
+}
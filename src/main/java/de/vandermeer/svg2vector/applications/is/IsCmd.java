@@ -15,9 +15,12 @@
 
 package de.vandermeer.svg2vector.applications.is;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.text.StrBuilder;
 import org.apache.commons.lang3.text.StrSubstitutor;
@@ -27,6 +30,7 @@ import de.vandermeer.svg2vector.applications.base.SvgTargets;
 
 /**
  * An Inkscape command object creating a command line with entries for string substitution.
+ * A command can export to several targets in a single Inkscape invocation, the first target is the primary target.
  *
  * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
  * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
@@ -43,6 +47,9 @@ public class IsCmd {
 	/** The command as string builder. */
 	protected final StrBuilder cmd = new StrBuilder();
 
+	/** The targets of the command, the first one is the primary target. */
+	protected final SvgTargets[] targets;
+
 	/**
 	 * Creates a new command copying the given command.
 	 * @param command command to copy values from, must not be null
@@ -51,6 +58,7 @@ public class IsCmd {
 	public IsCmd(IsCmd command){
 		Validate.notNull(command);
 		this.cmd.append(command.cmd.toCharArray());
+		this.targets = command.targets;
 	}
 
 	/**
@@ -62,10 +70,26 @@ public class IsCmd {
 	 * @throws NullPointerException if any argument was null
 	 */
 	public IsCmd(String isExec, SvgTargets target, AppProperties<?> properties){
+		this(isExec, new SvgTargets[]{target}, properties);
+	}
+
+	/**
+	 * Creates a new command with default entries exporting to several targets.
+	 * This will add the executable, no GUI, export area as page, text to path if set in properties, substituter for input file, and all targets.
+	 * All targets must use a different Inkscape export option, see {@link #groupTargets(SvgTargets[])}.
+	 * @param isExec Inkscape executable file name, must not be blank
+	 * @param targets the targets, must not be null or empty and have no null elements
+	 * @param properties application properties, must not be null
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if targets was empty, had null elements, or had targets with the same export option
+	 */
+	public IsCmd(String isExec, SvgTargets[] targets, AppProperties<?> properties){
 		Validate.notNull(isExec);
-		Validate.notNull(target);
+		Validate.notEmpty(targets);
+		Validate.noNullElements(targets);
 		Validate.notNull(properties);
 
+		this.targets = targets.clone();
 		if(isExec.contains("\"")){
 			this.cmd.clear().append('"');
 		}
@@ -79,7 +103,13 @@ public class IsCmd {
 		}
 		this.cmd.append(" --file=").append(SUBS_FIN);
 
-		this.cmd.append(' ').append(target2CLI(target, true)).append('=').append(SUBS_FOUT);
+		this.cmd.append(' ').append(target2CLI(this.targets[0], true)).append('=').append(SUBS_FOUT);
+		for(int i=1; i<this.targets.length; i++){
+			for(int k=0; k<i; k++){
+				Validate.isTrue(!target2CLI(this.targets[i], true).equals(target2CLI(this.targets[k], true)), "targets <%s> and <%s> use the same export option", this.targets[k], this.targets[i]);
+			}
+			this.cmd.append(' ').append(target2CLI(this.targets[i], true)).append('=').append("${fout-").append(this.targets[i].name()).append('}');
+		}
 	}
 
 	/**
@@ -103,10 +133,87 @@ public class IsCmd {
 		return this;
 	}
 
+	/**
+	 * Returns the target of the command.
+	 * @return the target, the primary target if the command has several targets
+	 */
+	public SvgTargets getTarget(){
+		return this.targets[0];
+	}
+
+	/**
+	 * Returns all targets of the command.
+	 * @return the targets, the first one is the primary target
+	 */
+	public SvgTargets[] getTargets(){
+		return this.targets.clone();
+	}
+
+	/**
+	 * Returns the output file name for a target of the command.
+	 * The output file name for the command is given for the primary target, all other targets write to the same name with their own extension.
+	 * @param fout output file name, with or without target extension
+	 * @param target the target
+	 * @return output file name with target extension
+	 * @throws NullPointerException if any argument was null
+	 */
+	public static String getFout(String fout, SvgTargets target){
+		Validate.notNull(fout);
+		Validate.notNull(target);
+
+		for(SvgTargets t : SvgTargets.values()){
+			if(fout.endsWith("." + t.name())){
+				return StringUtils.substringBeforeLast(fout, ".") + "." + target.name();
+			}
+		}
+		return fout + "." + target.name();
+	}
+
+	/**
+	 * Groups targets so that all targets of a group can be exported by a single Inkscape invocation.
+	 * Targets sharing an export option (e.g. svg and svgz) are put into different groups.
+	 * @param targets the targets, must not be null and have no null elements
+	 * @return groups of targets, in order of the first target of each group
+	 * @throws NullPointerException if targets was null
+	 * @throws IllegalArgumentException if targets had null elements
+	 */
+	public static List<SvgTargets[]> groupTargets(SvgTargets[] targets){
+		Validate.notNull(targets);
+		Validate.noNullElements(targets);
+
+		List<List<SvgTargets>> groups = new ArrayList<>();
+		for(SvgTargets target : targets){
+			List<SvgTargets> group = null;
+			for(List<SvgTargets> g : groups){
+				boolean clash = false;
+				for(SvgTargets t : g){
+					clash = clash || target2CLI(t, true).equals(target2CLI(target, true));
+				}
+				if(!clash){
+					group = g;
+					break;
+				}
+			}
+			if(group==null){
+				group = new ArrayList<>();
+				groups.add(group);
+			}
+			if(!group.contains(target)){
+				group.add(target);
+			}
+		}
+
+		List<SvgTargets[]> ret = new ArrayList<>();
+		for(List<SvgTargets> g : groups){
+			ret.add(g.toArray(new SvgTargets[g.size()]));
+		}
+		return ret;
+	}
+
 	/**
 	 * Substitutes input and output file name in the command with given values
 	 * @param fin input file, must not be blank
-	 * @param fout output file, must not be blank
+	 * @param fout output file for the primary target, must not be blank, output files for other targets are derived using {@link #getFout(String, SvgTargets)}
 	 * @return a string with the substitutions
 	 * @throws NullPointerException if any argument was null
 	 * @throws IllegalArgumentException if any argument was blank
@@ -118,6 +225,9 @@ public class IsCmd {
 		Map<String, String> valuesMap = new HashMap<>();
 		valuesMap.put("fin", fin);
 		valuesMap.put("fout", fout);
+		for(int i=1; i<this.targets.length; i++){
+			valuesMap.put("fout-" + this.targets[i].name(), getFout(fout, this.targets[i]));
+		}
 		StrSubstitutor sub = new StrSubstitutor(valuesMap);
 		return sub.replace(this.cmd.toString());
 	}
@@ -142,7 +252,7 @@ public class IsCmd {
 	 * @param assumeLong true to get a long option, false to get the short option
 	 * @return the requested option, including leading dashes, null if no option found
 	 */
-	private String target2CLI(SvgTargets target, boolean assumeLong){
+	private static String target2CLI(SvgTargets target, boolean assumeLong){
 		if(target==null){
 			return null;
 		}
@@ -158,6 +268,8 @@ public class IsCmd {
 			case ps:
 				return (assumeLong)?"--export-ps":"-P";
 			case svg:
+			case svgz:
+				//Inkscape has no compressed plain SVG export, the application compresses the output
 				return (assumeLong)?"--export-plain-svg":"-l";
 			case wmf:
 				return (assumeLong)?"--export-wmf":"-m";
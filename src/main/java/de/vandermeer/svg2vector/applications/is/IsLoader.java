@@ -16,6 +16,7 @@
 package de.vandermeer.svg2vector.applications.is;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -29,6 +30,7 @@ import java.util.zip.ZipException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
+import de.vandermeer.svg2vector.applications.base.ConversionPhase;
 import de.vandermeer.svg2vector.applications.base.SV_DocumentLoader;
 
 /**
@@ -48,68 +50,109 @@ public class IsLoader extends SV_DocumentLoader {
 		Validate.notBlank(fn);
 
 		if(!this.isLoaded){
-			try{
-				InputStream decompressed = new GZIPInputStream(new FileInputStream(fn));
-				BufferedReader in = new BufferedReader(new InputStreamReader(decompressed));
-				this.lines = new ArrayList<>();
-				String str;
-				while((str=in.readLine()) != null){
-					this.lines.add(str);
-				}
-				in.close();
-				decompressed.close();
-				this.isLoaded = true;
-			}
-			catch(ZipException ignore){}
-			catch(IOException e){
-				this.lines = null;
-				return this.getClass().getSimpleName() + ": IO error reading GZIP file <" + fn + ">: " + e.getMessage();
+			String err = this.limits.checkBytes(new File(fn).length());
+			if(err!=null){
+				return this.getClass().getSimpleName() + ": " + err;
 			}
 		}
+		ConversionPhase load = (this.isLoaded)?null:ConversionPhase.begin(ConversionPhase.Kind.DOCUMENT_LOAD).file(fn);
+		try{
+			if(!this.isLoaded){
+				try{
+					InputStream decompressed = new GZIPInputStream(new FileInputStream(fn));
+					BufferedReader in = new BufferedReader(new InputStreamReader(decompressed));
+					this.lines = new ArrayList<>();
+					String str;
+					while((str=in.readLine()) != null){
+						this.lines.add(str);
+					}
+					in.close();
+					decompressed.close();
+					this.isLoaded = true;
+				}
+				catch(ZipException ignore){}
+				catch(IOException e){
+					this.lines = null;
+					return this.getClass().getSimpleName() + ": IO error reading GZIP file <" + fn + ">: " + e.getMessage();
+				}
+			}
 
-		if(!this.isLoaded){
-			try {
-				BufferedReader in = new BufferedReader(new FileReader(fn));
-				this.lines = new ArrayList<>();
-				String str;
-				while((str=in.readLine()) != null){
-					this.lines.add(str);
+			if(!this.isLoaded){
+				try {
+					BufferedReader in = new BufferedReader(new FileReader(fn));
+					this.lines = new ArrayList<>();
+					String str;
+					while((str=in.readLine()) != null){
+						this.lines.add(str);
+					}
+					in.close();
+					this.isLoaded = true;
+				}
+				catch(FileNotFoundException e){
+					this.lines = null;
+					return this.getClass().getSimpleName() + ": FileNotFoundException error reading plain file <" + fn + ">: " + e.getMessage();
+				}
+				catch(IOException e){
+					this.lines = null;
+					return this.getClass().getSimpleName() + ": IO error reading plain file <" + fn + ">: " + e.getMessage();
 				}
-				in.close();
-				this.isLoaded = true;
 			}
-			catch(FileNotFoundException e){
-				this.lines = null;
-				return this.getClass().getSimpleName() + ": FileNotFoundException error reading plain file <" + fn + ">: " + e.getMessage();
+			if(load!=null && load.isRecorded()){
+				load.bytes(new File(fn).length());
 			}
-			catch(IOException e){
-				this.lines = null;
-				return this.getClass().getSimpleName() + ": IO error reading plain file <" + fn + ">: " + e.getMessage();
+		}
+		finally{
+			if(load!=null){
+				load.end();
 			}
 		}
 
-		boolean inLayer = false;
-		String id = null;
-		String index = null;
-		for(int i=0; i<this.lines.size(); i++){
-			if(this.lines.get(i).contains("inkscape:groupmode=\"layer\"")){
-				inLayer = true;
-			}
-			if(inLayer==true && this.lines.get(i).contains("id=\"layer")){
-				index = StringUtils.substringBetween(this.lines.get(i), "\"");
-				index = StringUtils.substringAfter(index, "layer");
-			}
-			if(inLayer==true && this.lines.get(i).contains("inkscape:label=\"")){
-				id = StringUtils.substringBetween(this.lines.get(i), "\"");
-			}
-			if(id!=null && index!=null){
-				this.layers.put(id, new Integer(index));
-				inLayer = false;
-				id = null;
-				index = null;
+		ConversionPhase scan = ConversionPhase.begin(ConversionPhase.Kind.LAYER_SCAN).file(fn);
+		try{
+			boolean inLayer = false;
+			String id = null;
+			String index = null;
+			for(int i=0; i<this.lines.size(); i++){
+				if(this.lines.get(i).contains("inkscape:groupmode=\"layer\"")){
+					inLayer = true;
+				}
+				if(inLayer==true && this.lines.get(i).contains("id=\"layer")){
+					index = StringUtils.substringBetween(this.lines.get(i), "\"");
+					index = StringUtils.substringAfter(index, "layer");
+				}
+				if(inLayer==true && this.lines.get(i).contains("inkscape:label=\"")){
+					id = StringUtils.substringBetween(this.lines.get(i), "\"");
+				}
+				if(id!=null && index!=null){
+					this.layers.put(id, new Integer(index));
+					inLayer = false;
+					id = null;
+					index = null;
+				}
 			}
 		}
-		return null;
+		finally{
+			scan.end();
+		}
+		String err = this.limits.checkLayers(this.layers.size());
+		return (err==null)?null:this.getClass().getSimpleName() + ": " + err;
+	}
+
+	@Override
+	public void reset(){
+		this.lines = null;
+		super.reset();
+	}
+
+	/**
+	 * Loads the SVG file, since layers are switched on the lines of the file.
+	 * Loading only reads the lines of the file and does not build a document.
+	 * @param fn the file name for the SVG document
+	 * @return null on success, error message on error
+	 */
+	@Override
+	public String scan(String fn) {
+		return this.load(fn);
 	}
 
 	@Override
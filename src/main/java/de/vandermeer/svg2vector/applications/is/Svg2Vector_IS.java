@@ -15,19 +15,38 @@
 
 package de.vandermeer.svg2vector.applications.is;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import de.vandermeer.svg2vector.applications.base.AppBase;
 import de.vandermeer.svg2vector.applications.base.AppProperties;
+import de.vandermeer.svg2vector.applications.base.ArchiveOutput;
+import de.vandermeer.svg2vector.applications.base.ConversionPhase;
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.ParallelGzipOutputStream;
+import de.vandermeer.svg2vector.applications.base.SvgCleaner;
+import de.vandermeer.svg2vector.applications.base.SvgLayerSplitter;
 import de.vandermeer.svg2vector.applications.base.SvgTargets;
 
 /**
@@ -77,6 +96,12 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 	/** File for a temporary created SVG file. */
 	Path tmpFile;
 
+	/** Archive for all layer outputs, null if not archiving. */
+	ArchiveOutput archive;
+
+	/** Transient file name Inkscape writes archive entries to, with the target extension added, null if not archiving. */
+	Path archiveTmpFile;
+
 	/**
 	 * Returns a new application.
 	 */
@@ -119,13 +144,29 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 	}
 
 	/**
-	 * Converts the input (or temporary artifact) into the target format.
+	 * Converts the input (or temporary artifacts) into all target formats, one Inkscape invocation per command.
+	 * @param isCmds the commands for the targets
+	 * @return 0 on success, negative integer on error with error messages printed
+	 */
+	private int convertInput(List<IsCmd> isCmds){
+		int ret = 0;
+		for(IsCmd isCmd : isCmds){
+			ret = this.convertInput(isCmd);
+			if(ret<0){
+				return ret;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts the input (or temporary artifact) into the target formats of a command.
 	 * @param isCmd the command for creating them
-	 * @parameter target the target, must not be null
 	 * @return 0 on success, negative integer on error with error messages printed
 	 */
-	private int convertInput(IsCmd isCmd, SvgTargets target){
+	private int convertInput(IsCmd isCmd){
 		int ret = 0;
+		SvgTargets target = isCmd.getTarget();
 
 		if(this.optionSvgFirst.inCli() && this.getProps().doesLayers()){
 			this.printProgressMessage("converting multiple temporary SVG files");
@@ -140,8 +181,11 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 				for (final File fileEntry : this.tmpDir.toFile().listFiles()) {
 					if(fileEntry.isFile()){
 						String finTmp = this.tmpDir + "/" + fileEntry.getName();
-						String fout = this.getProps().getDout() + "/" + StringUtils.substringBefore(fileEntry.getName(), ".svg") + "." + target.name();
-						this.ExecInkscape(isCmd, finTmp, fout);
+						String entryName = StringUtils.substringBefore(fileEntry.getName(), ".svg") + "." + target.name();
+						ret = this.ExecInkscapeLayer(isCmd, finTmp, this.getProps().getDout() + "/" + entryName, entryName);
+						if(ret<0){
+							return ret;
+						}
 					}
 				}
 			}
@@ -158,18 +202,19 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 				this.printErrorMessage("implementation error: expected tmp file to exist, but was null");
 				return -93;
 			}
-			this.ExecInkscape(isCmd, (this.getProps().canWriteFiles())?this.tmpFile.toString():TMP_FN_PREFIX, this.getProps().getFoutFn());
+			ret = this.ExecInkscape(isCmd, (this.getProps().canWriteFiles())?this.tmpFile.toString():TMP_FN_PREFIX, IsCmd.getFout(this.getProps().getFoutFn(), target));
 		}
 		else{
 			//no tmp dir/file created, to a conversion from source to target
 			if(this.getProps().doesLayers()){
 				//for multi layers
-				for(Entry<String, Integer> entry : this.getProps().getLoader().getLayers().entrySet()){
+				for(Entry<String, Integer> entry : this.getProps().getSelectedLayers().entrySet()){
+					this.fireLayerStarted(entry.getKey());
 					String fout = this.getProps().getFnOut(entry) + "." + target.name();
 					String nodeId = "layer" + entry.getValue().toString();
 					IsCmd nodeCmd = new IsCmd(isCmd);//TODO was isTmpCmd
 					nodeCmd.appendSelectedNode(nodeId);
-					this.ExecInkscape(nodeCmd, this.getProps().getFinFn(), fout);
+					ret = this.ExecInkscapeLayer(nodeCmd, this.getProps().getFinFn(), fout, this.getProps().getFnOutNoDir(entry) + "." + target.name());
 					if(ret<0){
 						return ret;
 					}
@@ -177,13 +222,68 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 			}
 			else{
 				//for single file, no layer processing
-				this.ExecInkscape(isCmd, this.getProps().getFinFn(), this.getProps().getFoutFn());
+				ret = this.ExecInkscape(isCmd, this.getProps().getFinFn(), IsCmd.getFout(this.getProps().getFoutFn(), target));
 			}
 		}
 
 		return ret;
 	}
 
+	/**
+	 * Creates the archive for layer outputs and the transient file for archive entries, if requested.
+	 * @return 0 on success, negative integer on error with error messages printed
+	 */
+	private int createArchive(){
+		if(!this.getProps().doesArchive()){
+			return 0;
+		}
+
+		this.printProgressMessage("creating archive " + this.getProps().getArchiveFile());
+		if(this.getProps().canWriteFiles()){
+			try{
+				this.archive = new ArchiveOutput(this.getProps().getArchiveFile(), this.getProps().getArchiveFormat());
+				this.archiveTmpFile = Files.createTempFile(TMP_FN_PREFIX, null);
+			}
+			catch (IOException e) {
+				this.printErrorMessage("problem creating archive <" + this.getProps().getArchiveFile() + "> with error: " + e.getMessage());
+				return -94;
+			}
+			this.printDetailMessage("archive tmp file: " + this.archiveTmpFile);
+		}
+		return 0;
+	}
+
+	/**
+	 * Closes the archive for layer outputs, if one was created.
+	 * @return 0 on success, negative integer on error with error messages printed
+	 */
+	private int closeArchive(){
+		if(this.archive!=null){
+			try{
+				this.archive.close();
+			}
+			catch (IOException e) {
+				this.printErrorMessage("problem closing archive <" + this.getProps().getArchiveFile() + "> with error: " + e.getMessage());
+				this.archive.abort();
+				return -95;
+			}
+			finally{
+				this.archive = null;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Aborts the archive for layer outputs after an error, if one was created, removing the partial archive file.
+	 */
+	private void abortArchive(){
+		if(this.archive!=null){
+			this.archive.abort();
+			this.archive = null;
+		}
+	}
+
 	/**
 	 * Creates temporary artifacts, if requested.
 	 * @param isTmpCmd the command for creating them
@@ -211,11 +311,18 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 				}
 
 				this.printProgressMessage("creating temporary SVG files");
-				if(this.optionManualLayers.inCli()){
+				if(this.getProps().doesStreamSplit()){
+					this.printDetailMessage("using streaming layer split");
+					String err = this.splitLayers();
+					if(err!=null){
+						this.printErrorMessage(err);
+						return -92;
+					}
+				}
+				else if(this.optionManualLayers.inCli()){
 					this.printDetailMessage("using manual layer handling");
-					for(Entry<String, Integer> entry : loader.getLayers().entrySet()){
-						loader.switchOffAllLayers();
-						loader.switchOnLayer(entry.getKey());
+					for(Entry<String, Integer> entry : this.getProps().getSelectedLayers().entrySet()){
+						loader.selectLayer(entry.getKey());
 						String err = this.write(((this.getProps().canWriteFiles())?this.tmpDir.toString():TMP_FN_PREFIX) + "/" + this.getProps().getFnOutNoDir(entry) + ".svg", loader.getLines());
 						if(err!=null){
 							this.printErrorMessage(err);
@@ -225,7 +332,7 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 				}
 				else{
 					this.printDetailMessage("using Inkscape for layer handling");
-					for(Entry<String, Integer> entry : loader.getLayers().entrySet()){
+					for(Entry<String, Integer> entry : this.getProps().getSelectedLayers().entrySet()){
 						String fout = this.tmpDir.toString() + "/" + this.getProps().getFnOutNoDir(entry) + ".svg";
 						String nodeId = "layer" + entry.getValue().toString();
 						IsCmd nodeCmd = new IsCmd(isTmpCmd);
@@ -258,20 +365,114 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 					return ret;
 				}
 			}
+
+			if(this.getProps().doesCleanSvg()){
+				this.printProgressMessage("cleaning temporary SVG files");
+				String err = this.cleanTempFiles();
+				if(err!=null){
+					this.printErrorMessage(err);
+					return -93;
+				}
+			}
 		}
 		return ret;
 	}
 
+	/**
+	 * Removes editor content and unreferenced definitions from all temporary SVG files.
+	 * @return null on success, error message on error
+	 */
+	private String cleanTempFiles(){
+		if(!this.getProps().canWriteFiles()){
+			return null;
+		}
+
+		List<File> files = new ArrayList<>();
+		if(this.tmpFile!=null){
+			files.add(this.tmpFile.toFile());
+		}
+		if(this.tmpDir!=null){
+			File[] svgs = this.tmpDir.toFile().listFiles((dir, name) -> name.endsWith(".svg"));
+			if(svgs!=null){
+				files.addAll(Arrays.asList(svgs));
+			}
+		}
+
+		SvgCleaner cleaner = new SvgCleaner();
+		int elements = 0;
+		int attributes = 0;
+		for(File file : files){
+			String err = cleaner.clean(file);
+			if(err!=null){
+				return err;
+			}
+			elements += cleaner.getElements();
+			attributes += cleaner.getAttributes();
+		}
+		this.printDetailMessage("cleaned files:    " + elements + " elements, " + attributes + " attributes removed");
+		return null;
+	}
+
 	public int ExecInkscape(IsCmd cmd, String fin, String fout){
 		String cli = cmd.substitute(fin, fout);
 
 		if(this.getProps().canWriteFiles()){
 			try {
-				Process p = Runtime.getRuntime().exec(cli);
-				p.waitFor();
+				ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.INKSCAPE_EXEC).file(fin).target(cmd.getTarget());
+				try{
+					Deadline deadline = this.getDeadline();
+					if(deadline!=null && deadline.isExceeded()){
+						this.printErrorMessage("Inkscape not started for input <" + fin + ">: " + deadline.getError());
+						return -112;
+					}
+					ConversionStats.getInstance().inkscapeStarted();
+					int exit;
+					try{
+						Process p = Runtime.getRuntime().exec(cli);
+						if(deadline==null){
+							exit = p.waitFor();
+						}
+						else{
+							//wait in slices so that a cancelled conversion is noticed while Inkscape is running
+							while(!p.waitFor(Math.max(1, Math.min(deadline.getRemainingMillis(), 100)), TimeUnit.MILLISECONDS)){
+								if(deadline.isExceeded()){
+									//wait for the killed process so that it does not write to its output after the partial output is removed
+									p.destroyForcibly().waitFor();
+									for(SvgTargets target : cmd.getTargets()){
+										new File(IsCmd.getFout(fout, target)).delete();
+									}
+									this.printErrorMessage("Inkscape process for input <" + fin + "> killed: " + deadline.getError());
+									return -112;
+								}
+							}
+							exit = p.exitValue();
+						}
+					}
+					finally{
+						ConversionStats.getInstance().inkscapeFinished();
+					}
+					if(exit!=0){
+						this.printErrorMessage("Inkscape process for input <" + fin + "> failed with exit status " + exit);
+						return -113;
+					}
+					if(phase.isRecorded()){
+						phase.bytes(new File(IsCmd.getFout(fout, cmd.getTarget())).length());
+					}
+				}
+				finally{
+					phase.end();
+				}
+				if(ArrayUtils.contains(cmd.getTargets(), SvgTargets.svgz)){
+					String svgz = IsCmd.getFout(fout, SvgTargets.svgz);
+					if(!new File(svgz).isFile()){
+						this.printErrorMessage("Inkscape did not create output <" + svgz + "> for input <" + fin + ">, nothing to compress");
+						return -114;
+					}
+					this.compressOutput(svgz);
+				}
 			}
 			catch (IOException e) {
-				this.printErrorMessage("IO exception while executing Inkscape with error: " + e.getMessage());
+				this.printErrorMessage("IO exception while executing Inkscape or compressing its output with error: " + e.getMessage());
 				return -110;
 			}
 			catch (InterruptedException e) {
@@ -281,20 +482,102 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 		}
 
 		this.printDetailMessage("");
-		this.printDetailMessage("running IS for input <" + fin + "> creating output <" + fout + ">");
-		this.printDetailMessage("running IS with cli <" + cli + ">");
+		this.printDetailMessage(() -> "running IS for input <" + fin + "> creating output <" + fout + ">");
+		for(SvgTargets target : cmd.getTargets()){
+			if(target!=cmd.getTarget()){
+				this.printDetailMessage(() -> "running IS for input <" + fin + "> creating output <" + IsCmd.getFout(fout, target) + ">");
+			}
+		}
+		this.printDetailMessage(() -> "running IS with cli <" + cli + ">");
+		if(ArrayUtils.contains(cmd.getTargets(), SvgTargets.svgz)){
+			this.printDetailMessage(() -> "compressing IS output <" + IsCmd.getFout(fout, SvgTargets.svgz) + ">");
+		}
 		this.printDetailMessage("");
 		return 0;
 	}
 
+	/**
+	 * Runs Inkscape for a single layer, writing the output either to files or into the archive.
+	 * Inkscape can only write to files, so archive entries are written to transient files first, which are then added to the archive and removed.
+	 * @param cmd the Inkscape command
+	 * @param fin input file name
+	 * @param fout output file name of the primary target, used if not archiving
+	 * @param entryName archive entry name of the primary target, used when archiving
+	 * @return 0 on success, negative integer on error with error messages printed
+	 */
+	private int ExecInkscapeLayer(IsCmd cmd, String fin, String fout, String entryName){
+		if(this.archive==null){
+			return this.ExecInkscape(cmd, fin, fout);
+		}
+
+		String tmpFn = IsCmd.getFout(this.archiveTmpFile.toString(), cmd.getTarget());
+		for(SvgTargets target : cmd.getTargets()){
+			new File(IsCmd.getFout(tmpFn, target)).delete();
+		}
+		int ret = this.ExecInkscape(cmd, fin, tmpFn);
+		if(ret<0){
+			return ret;
+		}
+		for(SvgTargets target : cmd.getTargets()){
+			File tmp = new File(IsCmd.getFout(tmpFn, target));
+			String name = IsCmd.getFout(entryName, target);
+			if(!tmp.exists()){
+				this.printErrorMessage("Inkscape did not create output for archive entry <" + name + ">");
+				return -96;
+			}
+			try{
+				this.archive.addFile(name, tmp);
+			}
+			catch (IOException e) {
+				this.printErrorMessage("problem adding entry <" + name + "> to archive with error: " + e.getMessage());
+				return -97;
+			}
+			finally{
+				tmp.delete();
+			}
+			this.printDetailMessage(() -> "archive entry:    " + name);
+		}
+		return 0;
+	}
+
+	/**
+	 * Compresses a plain SVG file written by Inkscape in place, using parallel block compression.
+	 * @param fout the file to compress
+	 * @throws IOException if reading, compressing, or replacing the file failed
+	 */
+	private void compressOutput(String fout) throws IOException {
+		Path plain = Paths.get(fout);
+		Path compressed = Paths.get(fout + ".gz-part");
+		try(InputStream in = Files.newInputStream(plain); OutputStream out = new ParallelGzipOutputStream(Files.newOutputStream(compressed))){
+			byte[] buffer = new byte[64*1024];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+		}
+		Files.move(compressed, plain, StandardCopyOption.REPLACE_EXISTING);
+	}
+
 	@Override
 	public int executeApplication(String[] args) {
+		int ret = this.executeConversion(args);
+		int sampled = this.finishSampling();
+		this.finishMessages();
+		return (ret!=0)?ret:sampled;
+	}
+
+	/**
+	 * Parses the command line and converts the input.
+	 * @param args command line arguments
+	 * @return 0 on success, negative on error
+	 */
+	protected int executeConversion(String[] args) {
 		int ret = super.executeApplication(args);
 		if(ret!=0){
 			return ret;
 		}
 
-		SvgTargets target = this.getProps().getTarget();
+		SvgTargets[] targets = this.getProps().getTargets();
 
 		String fn = this.optionInkscapeExec.getValue();
 		if((ret = this.checkIsExecutable(fn))<0){
@@ -302,12 +585,19 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 		}
 		this.printDetailMessage("Inkscape exec:    " + fn);
 
-		this.setWarnings(target);
+		this.setWarnings(targets);
 
-		IsCmd isCmd = new IsCmd(fn, target, this.getProps());
-		isCmd.appendTargetSettings(target,
-				this.optionExpDpi, this.optionExpPdfver, this.optionExpPslevel
-		);
+		//one command per group of targets Inkscape can export in a single invocation
+		List<IsCmd> isCmds = new ArrayList<>();
+		for(SvgTargets[] group : IsCmd.groupTargets(targets)){
+			IsCmd isCmd = new IsCmd(fn, group, this.getProps());
+			for(SvgTargets target : group){
+				isCmd.appendTargetSettings(target,
+						this.optionExpDpi, this.optionExpPdfver, this.optionExpPslevel
+				);
+			}
+			isCmds.add(isCmd);
+		}
 		IsCmd isTmpCmd = new IsCmd(fn, SvgTargets.svg, this.getProps());
 
 		if(this.optionSvgFirst.inCli()){
@@ -316,7 +606,9 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 		}
 		else{
 			this.printProgressMessage("converting directly to target");
-			this.printDetailMessage("Inkscape cmd:     " + isCmd);
+			for(IsCmd isCmd : isCmds){
+				this.printDetailMessage("Inkscape cmd:     " + isCmd);
+			}
 		}
 
 		ret = this.createTempArtifacts(isTmpCmd);
@@ -324,7 +616,18 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 			return ret;
 		}
 
-		ret = this.convertInput(isCmd, target);
+		ret = this.createArchive();
+		if(ret<0){
+			return ret;
+		}
+
+		ret = this.convertInput(isCmds);
+		if(ret<0){
+			this.abortArchive();
+			return ret;
+		}
+
+		ret = this.closeArchive();
 		if(ret<0){
 			return ret;
 		}
@@ -370,28 +673,73 @@ public class Svg2Vector_IS extends AppBase<IsLoader, AppProperties<IsLoader>> {
 				this.tmpFile.toFile().delete();
 			}
 		}
+		if(this.archiveTmpFile!=null){
+			this.archiveTmpFile.toFile().delete();
+		}
 	}
 
 	/**
-	 * Checks for all CLI options and target and creates warnings if necessary.
-	 * @param target the target, should not be null
-	 * @throws NullPointerException if target was null
+	 * Writes temporary SVG files for all selected layers in a single streaming pass over the input.
+	 * @return null on success, error message on error
 	 */
-	private void setWarnings(SvgTargets target){
-		Validate.notNull(target);
+	private String splitLayers(){
+		if(!this.getProps().canWriteFiles()){
+			return null;
+		}
 
-		if(target!=SvgTargets.pdf && this.optionExpPdfver.inCli()){
+		Map<String, OutputStream> outputs = new LinkedHashMap<>();
+		try{
+			for(Entry<String, Integer> entry : this.getProps().getSelectedLayers().entrySet()){
+				outputs.put(entry.getKey(), new BufferedOutputStream(new FileOutputStream(this.tmpDir.toString() + "/" + this.getProps().getFnOutNoDir(entry) + ".svg"), 64*1024));
+			}
+			String err = new SvgLayerSplitter().split(this.getProps().getFinFn(), outputs);
+			if(err!=null){
+				return err;
+			}
+			for(OutputStream out : outputs.values()){
+				out.close();
+			}
+		}
+		catch(IOException ex){
+			return "problem creating temporary SVG files with error: " + ex.getMessage();
+		}
+		finally{
+			for(OutputStream out : outputs.values()){
+				try{
+					out.close();
+				}
+				catch(IOException ignore){}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks for all CLI options and targets and creates warnings if necessary.
+	 * @param targets the targets, should not be null
+	 * @throws NullPointerException if targets was null
+	 */
+	private void setWarnings(SvgTargets[] targets){
+		Validate.notNull(targets);
+
+		if(!ArrayUtils.contains(targets, SvgTargets.pdf) && this.optionExpPdfver.inCli()){
 			this.getProps().getWarnings().add("target is not <pdf> but CLI option <" + this.optionExpPdfver.getCliOption().getLongOpt() + "> used, will be ignored");
 		}
-		if(target!=SvgTargets.png && this.optionExpDpi.inCli()){
+		if(!ArrayUtils.contains(targets, SvgTargets.png) && this.optionExpDpi.inCli()){
 			this.getProps().getWarnings().add("target is not <png> but CLI option <" + this.optionExpDpi.getCliOption().getLongOpt() + "> used, will be ignored");
 		}
-		if(target!=SvgTargets.ps && this.optionExpPslevel.inCli()){
+		if(!ArrayUtils.contains(targets, SvgTargets.ps) && this.optionExpPslevel.inCli()){
 			this.getProps().getWarnings().add("target is not <ps> but CLI option <" + this.optionExpPslevel.getCliOption().getLongOpt() + "> used, will be ignored");
 		}
 		if(!this.optionSvgFirst.inCli() && this.optionManualLayers.inCli()){
 			this.getProps().getWarnings().add("found CLI option <" + this.optionManualLayers.getCliOption().getLongOpt() + "> but not <" + this.optionSvgFirst.getCliOption().getLongOpt() + ">, option will be ignored");
 		}
+		if(!this.optionSvgFirst.inCli() && this.getProps().doesStreamSplit()){
+			this.getProps().getWarnings().add("found CLI option <stream-split> but not <" + this.optionSvgFirst.getCliOption().getLongOpt() + ">, option will be ignored");
+		}
+		if(!this.optionSvgFirst.inCli() && this.getProps().doesCleanSvg()){
+			this.getProps().getWarnings().add("found CLI option <clean-svg> but not <" + this.optionSvgFirst.getCliOption().getLongOpt() + ">, option will be ignored");
+		}
 		if(this.getProps().doesLayers()){
 			
 		}
@@ -0,0 +1,236 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Converts a set of SVG files incrementally, for instance all assets of a build.
+ * A request is converted only if its input, its options, or its outputs changed since its last successful conversion.
+ * Inputs are compared by a SHA-256 hash of their content, options by {@link ConversionRequest#getOptionsKey()}.
+ * Hashes and outputs of successful conversions are kept in a state file, which is read and written by the converter.
+ * Resources linked from an input, e.g. images, are not part of the hash.
+ * Conversions run in parallel on the executor of the service, the converter itself is not thread-safe.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class AssetConverter {
+
+	/** Separator of hash and outputs in the state file. */
+	protected static final String SEPARATOR = "|";
+
+	/** The service for conversions. */
+	protected final Svg2VectorService service;
+
+	/** The state file. */
+	protected final Path stateFile;
+
+	/** State of successful conversions, input path to hash and outputs. */
+	protected final Properties state = new Properties();
+
+	/** Requests skipped in the last run. */
+	protected final List<ConversionRequest> skipped = new ArrayList<>();
+
+	/**
+	 * Creates a new converter.
+	 * @param service the service for conversions, must not be null
+	 * @param stateFile the state file, must not be null, does not need to exist
+	 * @throws NullPointerException if any argument was null
+	 */
+	public AssetConverter(Svg2VectorService service, Path stateFile){
+		Validate.notNull(service);
+		Validate.notNull(stateFile);
+		this.service = service;
+		this.stateFile = stateFile;
+	}
+
+	/**
+	 * Converts all requests that are not up to date and writes the state file.
+	 * A state file that cannot be read is ignored, all requests are then converted.
+	 * @param requests the requests, must not be null, each with an input file and an output directory
+	 * @return results of converted requests, in request order
+	 * @throws NullPointerException if requests or any request was null
+	 * @throws IllegalArgumentException if a request has no input file or no output directory
+	 * @throws IOException if the state file cannot be written
+	 */
+	public List<ConversionResult> convert(List<ConversionRequest> requests) throws IOException {
+		Validate.noNullElements(requests);
+		for(ConversionRequest request : requests){
+			Validate.isTrue(request.getInput()!=null, "request <%s> has no input file", request.getName());
+			Validate.isTrue(request.getOutputDirectory()!=null, "request <%s> has no output directory", request.getName());
+		}
+		this.skipped.clear();
+		this.readState();
+
+		List<String> hashes = new ArrayList<>();
+		List<CompletableFuture<ConversionResult>> futures = new ArrayList<>();
+		for(ConversionRequest request : requests){
+			String hash = this.hash(request);
+			if(hash!=null && this.isUpToDate(request, hash)){
+				this.skipped.add(request);
+				continue;
+			}
+			hashes.add(hash);
+			futures.add(this.service.submit(request));
+		}
+
+		List<ConversionResult> ret = new ArrayList<>();
+		for(int i=0; i<futures.size(); i++){
+			ConversionResult result;
+			try{
+				result = futures.get(i).join();
+			}
+			catch(CompletionException ex){
+				this.writeState();
+				throw ex;
+			}
+			String key = this.getKey(result.getRequest());
+			if(result.isSuccess() && hashes.get(i)!=null){
+				List<String> outputs = new ArrayList<>();
+				for(Path path : result.getPaths().values()){
+					outputs.add(path.toString());
+				}
+				this.state.setProperty(key, hashes.get(i) + SEPARATOR + StringUtils.join(outputs, SEPARATOR));
+			}
+			else{
+				this.state.remove(key);
+			}
+			ret.add(result);
+		}
+		this.writeState();
+		return ret;
+	}
+
+	/**
+	 * Returns the requests skipped in the last run because they were up to date.
+	 * @return skipped requests, in request order
+	 */
+	public List<ConversionRequest> getSkipped(){
+		return Collections.unmodifiableList(this.skipped);
+	}
+
+	/**
+	 * Tests if a request is up to date.
+	 * @param request the request
+	 * @param hash the hash of the request
+	 * @return true if the last conversion of the input had the same hash and all of its outputs exist, false otherwise
+	 */
+	protected boolean isUpToDate(ConversionRequest request, String hash){
+		String value = this.state.getProperty(this.getKey(request));
+		if(value==null){
+			return false;
+		}
+		String[] split = StringUtils.splitPreserveAllTokens(value, SEPARATOR);
+		if(!hash.equals(split[0])){
+			return false;
+		}
+		for(int i=1; i<split.length; i++){
+			if(split[i].length()>0 && !Files.isRegularFile(Paths.get(split[i]))){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the key of a request in the state file.
+	 * @param request the request
+	 * @return key, the absolute path of the input
+	 */
+	protected String getKey(ConversionRequest request){
+		return request.getInput().getAbsolutePath();
+	}
+
+	/**
+	 * Returns the hash of a request, calculated over the content of the input and the options of the request.
+	 * @param request the request
+	 * @return hash as hex string, null if the input cannot be read
+	 */
+	protected String hash(ConversionRequest request){
+		MessageDigest digest;
+		try{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException ex){
+			return null;
+		}
+		byte[] buffer = new byte[8192];
+		try(InputStream in = Files.newInputStream(request.getInput().toPath())){
+			for(int n=in.read(buffer); n!=-1; n=in.read(buffer)){
+				digest.update(buffer, 0, n);
+			}
+		}
+		catch(IOException ex){
+			return null;
+		}
+		digest.update((byte)0);
+		digest.update(request.getOptionsKey().getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder ret = new StringBuilder();
+		for(byte b : digest.digest()){
+			ret.append(String.format("%02x", b));
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Reads the state file, clearing the state if it does not exist or cannot be read.
+	 */
+	protected void readState(){
+		this.state.clear();
+		if(!Files.isRegularFile(this.stateFile)){
+			return;
+		}
+		try(InputStream in = Files.newInputStream(this.stateFile)){
+			this.state.load(in);
+		}
+		catch(IOException | IllegalArgumentException ex){
+			this.state.clear();
+		}
+	}
+
+	/**
+	 * Writes the state file, creating its directory if required.
+	 * @throws IOException if the file cannot be written
+	 */
+	protected void writeState() throws IOException {
+		if(this.stateFile.toAbsolutePath().getParent()!=null){
+			Files.createDirectories(this.stateFile.toAbsolutePath().getParent());
+		}
+		try(OutputStream out = Files.newOutputStream(this.stateFile)){
+			this.state.store(out, "svg2vector conversion state");
+		}
+	}
+}
@@ -0,0 +1,565 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import java.awt.Color;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.LayerFilter;
+import de.vandermeer.svg2vector.applications.base.ResourceLimits;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+import de.vandermeer.svg2vector.applications.fh.Svg2Vector_FH;
+
+/**
+ * An immutable request for converting an SVG document with a {@link Svg2VectorService}.
+ * Requests are created with a {@link Builder}, the defaults are the defaults of the s2v-fh application.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class ConversionRequest {
+
+	/** Input file, null if the input is given as bytes. */
+	private final File input;
+
+	/** Input document, null if the input is given as file. */
+	private final byte[] content;
+
+	/** Base name for outputs, also used to resolve relative links of input given as bytes. */
+	private final String name;
+
+	/** The conversion target. */
+	private final SvgTargets target;
+
+	/** Flag for one output per layer. */
+	private final boolean layers;
+
+	/** Filter for layers, null for all layers. */
+	private final LayerFilter layerFilter;
+
+	/** Flag for switching on all layers for a single output. */
+	private final boolean switchOnAllLayers;
+
+	/** Flag for transparency. */
+	private final boolean transparent;
+
+	/** Flag for a background. */
+	private final boolean background;
+
+	/** Background color, null for the converter default. */
+	private final Color backgroundColor;
+
+	/** Flag for clipping. */
+	private final boolean clip;
+
+	/** Flag for converting text to shapes. */
+	private final boolean textAsShapes;
+
+	/** Flag for loading only local resources. */
+	private final boolean offline;
+
+	/** Flag for removing editor content and unreferenced definitions. */
+	private final boolean clean;
+
+	/** Tolerance for optimizing the geometry, null for no optimization. */
+	private final Double optimize;
+
+	/** Flag for culling nodes that paint nothing. */
+	private final boolean cull;
+
+	/** Directory to write outputs to, null to return outputs as bytes. */
+	private final Path outputDirectory;
+
+	/** Limits for input size, structure, and time of the conversion. */
+	private final ResourceLimits limits;
+
+	/**
+	 * Creates a new request from a builder.
+	 * @param builder the builder
+	 */
+	private ConversionRequest(Builder builder){
+		this.input = builder.input;
+		this.content = builder.content;
+		this.name = builder.name;
+		this.target = builder.target;
+		this.layers = builder.layers;
+		this.layerFilter = builder.layerFilter;
+		this.switchOnAllLayers = builder.switchOnAllLayers;
+		this.transparent = builder.transparent;
+		this.background = builder.background;
+		this.backgroundColor = builder.backgroundColor;
+		this.clip = builder.clip;
+		this.textAsShapes = builder.textAsShapes;
+		this.offline = builder.offline;
+		this.clean = builder.clean;
+		this.optimize = builder.optimize;
+		this.cull = builder.cull;
+		this.outputDirectory = builder.outputDirectory;
+		this.limits = builder.limits;
+	}
+
+	/**
+	 * Returns a builder for a request converting a file.
+	 * @param input the input file, must not be null
+	 * @param target the target, must be supported by s2v-fh
+	 * @return new builder
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if the target is not supported
+	 */
+	public static Builder forFile(File input, SvgTargets target){
+		Validate.notNull(input);
+		String name = StringUtils.substringBeforeLast(input.getName(), ".");
+		return new Builder(input, null, (name.length()==0)?input.getName():name, target);
+	}
+
+	/**
+	 * Returns a builder for a request converting a document given as bytes.
+	 * @param content the document, must not be null, copied
+	 * @param name base name for outputs, relative links in the document are resolved against the current directory
+	 * @param target the target, must be supported by s2v-fh
+	 * @return new builder
+	 * @throws NullPointerException if any argument was null
+	 * @throws IllegalArgumentException if name was blank or the target is not supported
+	 */
+	public static Builder forBytes(byte[] content, String name, SvgTargets target){
+		Validate.notNull(content);
+		Validate.notBlank(name);
+		return new Builder(null, Arrays.copyOf(content, content.length), name, target);
+	}
+
+	/**
+	 * Returns the input file.
+	 * @return input file, null if the input is given as bytes
+	 */
+	public File getInput(){
+		return this.input;
+	}
+
+	/**
+	 * Returns the input document.
+	 * @return copy of the input document, null if the input is given as file
+	 */
+	public byte[] getContent(){
+		return (this.content==null)?null:Arrays.copyOf(this.content, this.content.length);
+	}
+
+	/**
+	 * Returns the input document without copying it.
+	 * @return input document, null if the input is given as file
+	 */
+	byte[] content(){
+		return this.content;
+	}
+
+	/**
+	 * Returns the base name for outputs.
+	 * @return base name
+	 */
+	public String getName(){
+		return this.name;
+	}
+
+	/**
+	 * Returns the target.
+	 * @return target
+	 */
+	public SvgTargets getTarget(){
+		return this.target;
+	}
+
+	/**
+	 * Returns the flag for one output per layer.
+	 * @return true if each layer is converted to its own output, false for a single output
+	 */
+	public boolean doesLayers(){
+		return this.layers;
+	}
+
+	/**
+	 * Returns the layer filter.
+	 * @return layer filter, null for all layers
+	 */
+	public LayerFilter getLayerFilter(){
+		return this.layerFilter;
+	}
+
+	/**
+	 * Returns the flag for switching on all layers for a single output.
+	 * @return true if all layers are switched on, false otherwise
+	 */
+	public boolean doesSwitchOnAllLayers(){
+		return this.switchOnAllLayers;
+	}
+
+	/**
+	 * Returns the transparency flag.
+	 * @return true for transparency, false otherwise
+	 */
+	public boolean isTransparent(){
+		return this.transparent;
+	}
+
+	/**
+	 * Returns the background flag.
+	 * @return true for a background, false otherwise
+	 */
+	public boolean hasBackground(){
+		return this.background;
+	}
+
+	/**
+	 * Returns the background color.
+	 * @return background color, null for the converter default
+	 */
+	public Color getBackgroundColor(){
+		return this.backgroundColor;
+	}
+
+	/**
+	 * Returns the clip flag.
+	 * @return true for clipping, false otherwise
+	 */
+	public boolean doesClip(){
+		return this.clip;
+	}
+
+	/**
+	 * Returns the text-as-shapes flag.
+	 * @return true if text is converted to shapes, false otherwise
+	 */
+	public boolean doesTextAsShapes(){
+		return this.textAsShapes;
+	}
+
+	/**
+	 * Returns the offline flag.
+	 * @return true if only local resources are loaded, false otherwise
+	 */
+	public boolean isOffline(){
+		return this.offline;
+	}
+
+	/**
+	 * Returns the clean flag.
+	 * @return true if editor content and unreferenced definitions are removed, false otherwise
+	 */
+	public boolean doesClean(){
+		return this.clean;
+	}
+
+	/**
+	 * Returns the tolerance for optimizing the geometry.
+	 * @return tolerance in user units, null for no optimization
+	 */
+	public Double getOptimize(){
+		return this.optimize;
+	}
+
+	/**
+	 * Returns the cull flag.
+	 * @return true if nodes outside the page and invisible nodes are not painted, false otherwise
+	 */
+	public boolean doesCull(){
+		return this.cull;
+	}
+
+	/**
+	 * Returns the output directory.
+	 * @return directory outputs are written to, null if outputs are returned as bytes
+	 */
+	public Path getOutputDirectory(){
+		return this.outputDirectory;
+	}
+
+	/**
+	 * Returns the resource limits.
+	 * @return limits for input size, structure, and time of the conversion, {@link ResourceLimits#NONE} if not limited
+	 */
+	public ResourceLimits getLimits(){
+		return this.limits;
+	}
+
+	/**
+	 * Returns all settings of the request that change the outputs, except the input.
+	 * Resource limits are not part of the key, they decide only if a conversion succeeds.
+	 * Two requests with the same input and the same key create the same outputs.
+	 * @return settings as string
+	 */
+	public String getOptionsKey(){
+		return "target=" + this.target.name()
+				+ ", name=" + this.name
+				+ ", layers=" + this.layers
+				+ ", layer-filter=" + ((this.layerFilter==null)?"null":"{" + this.layerFilter + "}")
+				+ ", switch-on-all-layers=" + this.switchOnAllLayers
+				+ ", transparent=" + this.transparent
+				+ ", background=" + this.background
+				+ ", background-color=" + ((this.backgroundColor==null)?"null":Integer.toHexString(this.backgroundColor.getRGB()))
+				+ ", clip=" + this.clip
+				+ ", text-as-shapes=" + this.textAsShapes
+				+ ", offline=" + this.offline
+				+ ", clean=" + this.clean
+				+ ", optimize=" + this.optimize
+				+ ", cull=" + this.cull
+				+ ", output-directory=" + this.outputDirectory
+		;
+	}
+
+	/**
+	 * A builder for conversion requests, not thread-safe.
+	 */
+	public static final class Builder {
+
+		/** Input file. */
+		private final File input;
+
+		/** Input document. */
+		private final byte[] content;
+
+		/** Base name for outputs. */
+		private String name;
+
+		/** The conversion target. */
+		private final SvgTargets target;
+
+		/** Flag for one output per layer. */
+		private boolean layers = false;
+
+		/** Filter for layers. */
+		private LayerFilter layerFilter;
+
+		/** Flag for switching on all layers for a single output. */
+		private boolean switchOnAllLayers = false;
+
+		/** Flag for transparency. */
+		private boolean transparent = true;
+
+		/** Flag for a background. */
+		private boolean background = true;
+
+		/** Background color. */
+		private Color backgroundColor;
+
+		/** Flag for clipping. */
+		private boolean clip = false;
+
+		/** Flag for converting text to shapes. */
+		private boolean textAsShapes = false;
+
+		/** Flag for loading only local resources. */
+		private boolean offline = false;
+
+		/** Flag for removing editor content and unreferenced definitions. */
+		private boolean clean = false;
+
+		/** Tolerance for optimizing the geometry. */
+		private Double optimize;
+
+		/** Flag for culling nodes that paint nothing. */
+		private boolean cull = true;
+
+		/** Directory to write outputs to. */
+		private Path outputDirectory;
+
+		/** Limits for input size, structure, and time of the conversion. */
+		private ResourceLimits limits = ResourceLimits.NONE;
+
+		/**
+		 * Creates a new builder.
+		 * @param input input file
+		 * @param content input document
+		 * @param name base name for outputs
+		 * @param target the target
+		 */
+		private Builder(File input, byte[] content, String name, SvgTargets target){
+			Validate.notNull(target);
+			Validate.isTrue(Svg2Vector_FH.TARGET_2_CONVERTER(target)!=null, "target <" + target.name() + "> not supported");
+			this.input = input;
+			this.content = content;
+			this.name = name;
+			this.target = target;
+		}
+
+		/**
+		 * Sets the base name for outputs.
+		 * @param name the base name, must not be blank
+		 * @return self to allow chaining
+		 * @throws IllegalArgumentException if name was blank
+		 */
+		public Builder name(String name){
+			Validate.notBlank(name);
+			this.name = name;
+			return this;
+		}
+
+		/**
+		 * Converts each layer to its own output, named with the base name and the layer label.
+		 * Path separators and other characters not allowed in file names are replaced by '_' in the label.
+		 * @param layers true for one output per layer, false for a single output (default)
+		 * @return self to allow chaining
+		 */
+		public Builder layers(boolean layers){
+			this.layers = layers;
+			return this;
+		}
+
+		/**
+		 * Sets a filter for the layers converted to their own output.
+		 * @param layerFilter the filter, null for all layers (default)
+		 * @return self to allow chaining
+		 */
+		public Builder layerFilter(LayerFilter layerFilter){
+			this.layerFilter = layerFilter;
+			return this;
+		}
+
+		/**
+		 * Switches on all layers for a single output.
+		 * @param switchOnAllLayers true to switch on all layers, false to keep the layer settings of the document (default)
+		 * @return self to allow chaining
+		 */
+		public Builder switchOnAllLayers(boolean switchOnAllLayers){
+			this.switchOnAllLayers = switchOnAllLayers;
+			return this;
+		}
+
+		/**
+		 * Sets transparency.
+		 * @param transparent true for transparency (default), false otherwise
+		 * @return self to allow chaining
+		 */
+		public Builder transparent(boolean transparent){
+			this.transparent = transparent;
+			return this;
+		}
+
+		/**
+		 * Sets the background.
+		 * @param background true for a background (default), false otherwise
+		 * @return self to allow chaining
+		 */
+		public Builder background(boolean background){
+			this.background = background;
+			return this;
+		}
+
+		/**
+		 * Sets the background color.
+		 * @param backgroundColor the color, null for the converter default (default)
+		 * @return self to allow chaining
+		 */
+		public Builder backgroundColor(Color backgroundColor){
+			this.backgroundColor = backgroundColor;
+			return this;
+		}
+
+		/**
+		 * Sets clipping.
+		 * @param clip true for clipping, false otherwise (default)
+		 * @return self to allow chaining
+		 */
+		public Builder clip(boolean clip){
+			this.clip = clip;
+			return this;
+		}
+
+		/**
+		 * Sets converting text to shapes.
+		 * @param textAsShapes true to convert text to shapes, false otherwise (default)
+		 * @return self to allow chaining
+		 */
+		public Builder textAsShapes(boolean textAsShapes){
+			this.textAsShapes = textAsShapes;
+			return this;
+		}
+
+		/**
+		 * Sets loading only local resources.
+		 * @param offline true to refuse resources other than file and data URLs, false otherwise (default)
+		 * @return self to allow chaining
+		 */
+		public Builder offline(boolean offline){
+			this.offline = offline;
+			return this;
+		}
+
+		/**
+		 * Sets removing editor content and unreferenced definitions.
+		 * @param clean true to clean the document, false otherwise (default)
+		 * @return self to allow chaining
+		 */
+		public Builder clean(boolean clean){
+			this.clean = clean;
+			return this;
+		}
+
+		/**
+		 * Sets optimizing the geometry.
+		 * @param tolerance the tolerance in user units, must not be negative, null for no optimization (default)
+		 * @return self to allow chaining
+		 * @throws IllegalArgumentException if tolerance was negative or not a number
+		 */
+		public Builder optimize(Double tolerance){
+			Validate.isTrue(tolerance==null || tolerance>=0, "tolerance must be a non-negative number, was %s", (Object)tolerance);
+			this.optimize = tolerance;
+			return this;
+		}
+
+		/**
+		 * Sets culling nodes that paint nothing.
+		 * @param cull true to skip nodes outside the page and invisible nodes (default), false to paint all nodes
+		 * @return self to allow chaining
+		 */
+		public Builder cull(boolean cull){
+			this.cull = cull;
+			return this;
+		}
+
+		/**
+		 * Sets the directory outputs are written to.
+		 * @param outputDirectory the directory, created if it does not exist, null to return outputs as bytes (default)
+		 * @return self to allow chaining
+		 */
+		public Builder outputDirectory(Path outputDirectory){
+			this.outputDirectory = outputDirectory;
+			return this;
+		}
+
+		/**
+		 * Sets limits for input size, structure, and time of the conversion.
+		 * The time limit of a submitted request includes the time it waits for the executor.
+		 * @param limits the limits, null for no limits (default)
+		 * @return self to allow chaining
+		 */
+		public Builder limits(ResourceLimits limits){
+			this.limits = (limits==null)?ResourceLimits.NONE:limits;
+			return this;
+		}
+
+		/**
+		 * Returns a new request with the current settings.
+		 * @return new request
+		 */
+		public ConversionRequest build(){
+			return new ConversionRequest(this);
+		}
+	}
+}
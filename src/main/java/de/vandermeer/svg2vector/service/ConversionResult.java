@@ -0,0 +1,127 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable result of a conversion by a {@link Svg2VectorService}.
+ * A result has either outputs as bytes or output paths, depending on the request, and diagnostic messages.
+ * A failed conversion has an error message and the outputs created before the error.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public final class ConversionResult {
+
+	/** The request. */
+	private final ConversionRequest request;
+
+	/** Error message, null on success. */
+	private final String error;
+
+	/** Outputs as bytes, output name to bytes. */
+	private final Map<String, byte[]> outputs;
+
+	/** Outputs as files, output name to path. */
+	private final Map<String, Path> paths;
+
+	/** Warnings and details of the conversion. */
+	private final List<String> diagnostics;
+
+	/** Conversion time in milliseconds. */
+	private final long time;
+
+	/**
+	 * Creates a new result.
+	 * @param request the request
+	 * @param error error message, null on success
+	 * @param outputs outputs as bytes, in output order
+	 * @param paths outputs as files, in output order
+	 * @param diagnostics warnings and details
+	 * @param time conversion time in milliseconds
+	 */
+	ConversionResult(ConversionRequest request, String error, Map<String, byte[]> outputs, Map<String, Path> paths, List<String> diagnostics, long time){
+		this.request = request;
+		this.error = error;
+		this.outputs = Collections.unmodifiableMap(new LinkedHashMap<>(outputs));
+		this.paths = Collections.unmodifiableMap(new LinkedHashMap<>(paths));
+		this.diagnostics = Collections.unmodifiableList(diagnostics);
+		this.time = time;
+	}
+
+	/**
+	 * Returns the request.
+	 * @return request
+	 */
+	public ConversionRequest getRequest(){
+		return this.request;
+	}
+
+	/**
+	 * Returns the error message.
+	 * @return error message, null if the conversion was successful
+	 */
+	public String getError(){
+		return this.error;
+	}
+
+	/**
+	 * Tests if the conversion was successful.
+	 * @return true on success, false otherwise
+	 */
+	public boolean isSuccess(){
+		return this.error==null;
+	}
+
+	/**
+	 * Returns the outputs as bytes, if the request has no output directory.
+	 * The byte arrays are not copied and must not be changed.
+	 * @return map of output name (base name, optional layer label, and target extension) to bytes, in output order
+	 */
+	public Map<String, byte[]> getOutputs(){
+		return this.outputs;
+	}
+
+	/**
+	 * Returns the output files, if the request has an output directory.
+	 * @return map of output name (base name, optional layer label, and target extension) to path, in output order
+	 */
+	public Map<String, Path> getPaths(){
+		return this.paths;
+	}
+
+	/**
+	 * Returns warnings and details of the conversion.
+	 * @return list of messages, empty if none
+	 */
+	public List<String> getDiagnostics(){
+		return this.diagnostics;
+	}
+
+	/**
+	 * Returns the conversion time.
+	 * @return time in milliseconds, from loading the input to writing the last output
+	 */
+	public long getTime(){
+		return this.time;
+	}
+}
@@ -0,0 +1,360 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.batik.bridge.BridgeException;
+import org.apache.commons.lang3.Validate;
+
+import de.vandermeer.svg2vector.applications.base.ConversionPhase;
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+import de.vandermeer.svg2vector.applications.fh.Svg2Vector_FH;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+import de.vandermeer.svg2vector.applications.fh.converters.FhConverter;
+import de.vandermeer.svg2vector.applications.fh.converters.SvgOptimizer;
+
+/**
+ * A service converting SVG documents in-process with the Batik and FreeHep converters of s2v-fh.
+ * The service has no shared mutable state: every conversion uses the loader of its thread and its own converter, and all messages go to the result instead of standard out.
+ * The loader is reset right after each conversion, which releases the document and graphics trees and keeps the Batik objects for the next conversion on the thread.
+ * Conversions share the process-wide font, glyph outline, and resource caches, which are thread-safe.
+ * So the service can be called from many threads at the same time, conversions run on the executor given to the service.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Svg2VectorService {
+
+	/** The executor for conversions. */
+	protected final Executor executor;
+
+	/** The loader per thread, reused for all conversions on the thread. */
+	protected final ThreadLocal<BatikLoader> loaders = ThreadLocal.withInitial(BatikLoader::new);
+
+	/**
+	 * Creates a new service running conversions on a shared pool with one daemon thread per processor.
+	 */
+	public Svg2VectorService(){
+		this(Converters.EXECUTOR);
+	}
+
+	/**
+	 * Creates a new service.
+	 * @param executor the executor for conversions, must not be null, not shut down by the service
+	 * @throws NullPointerException if executor was null
+	 */
+	public Svg2VectorService(Executor executor){
+		Validate.notNull(executor);
+		this.executor = executor;
+	}
+
+	/**
+	 * Submits a conversion to the executor of the service.
+	 * The future completes with a result, also if the conversion failed with an error message.
+	 * It completes exceptionally only for unexpected exceptions of the conversion.
+	 * Cancelling the future also cancels a running conversion, which then stops at its next test of the deadline.
+	 * @param request the request, must not be null
+	 * @return future for the result
+	 * @throws NullPointerException if request was null
+	 */
+	public CompletableFuture<ConversionResult> submit(ConversionRequest request){
+		Validate.notNull(request);
+		ConversionStats.getInstance().conversionQueued();
+		Deadline deadline = request.getLimits().newDeadline();
+		//set by the task or by a cancellation, whichever comes first removes the conversion from the queue
+		AtomicBoolean dequeued = new AtomicBoolean();
+		CompletableFuture<ConversionResult> ret = CompletableFuture.supplyAsync(() -> this.convert(request, deadline, dequeued.compareAndSet(false, true)), this.executor);
+		ret.whenComplete((result, ex) -> {
+			if(ex instanceof CancellationException){
+				deadline.cancel();
+				if(dequeued.compareAndSet(false, true)){
+					ConversionStats.getInstance().conversionDequeued();
+				}
+			}
+		});
+		return ret;
+	}
+
+	/**
+	 * Submits several conversions to the executor of the service.
+	 * @param requests the requests, must not be null
+	 * @return futures for the results, in request order
+	 * @throws NullPointerException if requests or any request was null
+	 */
+	public List<CompletableFuture<ConversionResult>> submitAll(List<ConversionRequest> requests){
+		Validate.noNullElements(requests);
+		List<CompletableFuture<ConversionResult>> ret = new ArrayList<>();
+		for(ConversionRequest request : requests){
+			ret.add(this.submit(request));
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts a document on the calling thread.
+	 * @param request the request, must not be null
+	 * @return result of the conversion
+	 * @throws NullPointerException if request was null
+	 */
+	public ConversionResult convert(ConversionRequest request){
+		Validate.notNull(request);
+		return this.convert(request, request.getLimits().newDeadline(), false);
+	}
+
+	/**
+	 * Converts a document on the calling thread, recording it in the conversion statistics.
+	 * @param request the request
+	 * @param deadline the deadline of the conversion
+	 * @param queued true if the request was submitted to the executor, false otherwise
+	 * @return result of the conversion
+	 */
+	protected ConversionResult convert(ConversionRequest request, Deadline deadline, boolean queued){
+		ConversionStats stats = ConversionStats.getInstance();
+		stats.conversionStarted(queued);
+		long start = System.currentTimeMillis();
+		List<String> diagnostics = new ArrayList<>();
+		Map<String, byte[]> outputs = new LinkedHashMap<>();
+		Map<String, Path> paths = new LinkedHashMap<>();
+
+		String err;
+		try{
+			err = this.convert(request, deadline, diagnostics, outputs, paths);
+		}
+		catch(RuntimeException | Error ex){
+			stats.conversionFinished(false);
+			throw ex;
+		}
+		stats.conversionFinished(err==null);
+		return new ConversionResult(request, err, outputs, paths, diagnostics, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Converts a document, collecting outputs and messages.
+	 * @param request the request
+	 * @param deadline the deadline of the conversion
+	 * @param diagnostics list to add warnings and details to
+	 * @param outputs map to add outputs as bytes to
+	 * @param paths map to add output files to
+	 * @return null on success, error message otherwise
+	 */
+	protected String convert(ConversionRequest request, Deadline deadline, List<String> diagnostics, Map<String, byte[]> outputs, Map<String, Path> paths){
+		if(request.getOutputDirectory()!=null){
+			try{
+				Files.createDirectories(request.getOutputDirectory());
+			}
+			catch(IOException ex){
+				return "cannot create output directory <" + request.getOutputDirectory() + "> - " + ex.getMessage();
+			}
+		}
+
+		BatikLoader loader = this.loaders.get();
+		loader.reset();
+		loader.setOffline(request.isOffline());
+		loader.setClean(request.doesClean());
+		loader.setOptimize(request.getOptimize());
+		loader.setCull(request.doesCull());
+		loader.setLimits(request.getLimits());
+		loader.setDeadline(deadline);
+		try{
+			return this.convert(loader, request, deadline, diagnostics, outputs, paths);
+		}
+		finally{
+			loader.reset();
+		}
+	}
+
+	/**
+	 * Loads and converts a document with a configured loader, collecting outputs and messages.
+	 * @param loader the loader, configured for the request
+	 * @param request the request
+	 * @param deadline the deadline of the conversion
+	 * @param diagnostics list to add warnings and details to
+	 * @param outputs map to add outputs as bytes to
+	 * @param paths map to add output files to
+	 * @return null on success, error message otherwise
+	 */
+	protected String convert(BatikLoader loader, ConversionRequest request, Deadline deadline, List<String> diagnostics, Map<String, byte[]> outputs, Map<String, Path> paths){
+		String err = this.load(loader, request);
+		if(err!=null){
+			return err;
+		}
+		if(loader.getCleaner()!=null){
+			diagnostics.add("cleaned document: " + loader.getCleaner().getElements() + " elements, " + loader.getCleaner().getAttributes() + " attributes removed");
+		}
+		if(loader.getOptimizer()!=null){
+			SvgOptimizer optimizer = loader.getOptimizer();
+			diagnostics.add("optimized document: " + optimizer.getElementsBefore() + " -> " + optimizer.getElementsAfter() + " elements, " + optimizer.getDropped() + " dropped, " + optimizer.getMerged() + " merged, " + optimizer.getFlattened() + " flattened");
+		}
+
+		FhConverter converter = Svg2Vector_FH.TARGET_2_CONVERTER(request.getTarget());
+		converter.setPropertyTransparent(request.isTransparent());
+		converter.setPropertyClip(request.doesClip());
+		converter.setPropertyBackground(request.hasBackground());
+		converter.setPropertyTextAsShapes(request.doesTextAsShapes());
+		converter.setDeadline(deadline);
+		if(request.getBackgroundColor()!=null){
+			converter.setPropertyBackgroundColor(request.getBackgroundColor());
+		}
+
+		String ext = "." + request.getTarget().name();
+		if(request.doesLayers() && loader.getLayers().size()==0){
+			diagnostics.add("layers activated but input has no layers, continue for single output");
+		}
+		if(!request.doesLayers() || loader.getLayers().size()==0){
+			if(request.doesSwitchOnAllLayers()){
+				loader.switchOnAllLayers();
+			}
+			err = this.write(loader, converter, request, request.getName() + ext, diagnostics, outputs, paths);
+		}
+		else{
+			Map<String, Integer> layers = (request.getLayerFilter()==null)?loader.getLayers():request.getLayerFilter().select(loader.getLayers());
+			if(layers.size()==0){
+				diagnostics.add("layer filter used but no layer selected, nothing converted");
+			}
+			for(Entry<String, Integer> layer : layers.entrySet()){
+				loader.selectLayer(layer.getKey());
+				err = this.write(loader, converter, request, request.getName() + "-" + Svg2VectorService.toFileName(layer.getKey()) + ext, diagnostics, outputs, paths);
+				if(err!=null){
+					break;
+				}
+			}
+			loader.restoreLayers();
+		}
+
+		if(loader.getCuller()!=null){
+			diagnostics.add("culled nodes: " + loader.getCuller().getOffPage() + " off page, " + loader.getCuller().getHidden() + " invisible");
+		}
+		return err;
+	}
+
+	/**
+	 * Loads the input of a request.
+	 * @param loader the loader
+	 * @param request the request
+	 * @return null on success, error message otherwise
+	 */
+	protected String load(BatikLoader loader, ConversionRequest request){
+		if(request.getInput()!=null){
+			if(!request.getInput().canRead()){
+				return "cannot read input file <" + request.getInput() + ">";
+			}
+			return loader.load(request.getInput().getPath());
+		}
+
+		String uri = new File(request.getName() + ".svg").toURI().toString();
+		try(InputStream in = new ByteArrayInputStream(request.content())){
+			return loader.load(uri, in);
+		}
+		catch(IOException ex){
+			return "cannot read input <" + request.getName() + "> - " + ex.getMessage();
+		}
+	}
+
+	/**
+	 * Returns a layer label as part of a file name, with path separators, characters not allowed in file names on common file systems, and control characters replaced by '_'.
+	 * @param label the layer label
+	 * @return label usable in a file name
+	 */
+	protected static String toFileName(String label){
+		return label.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+	}
+
+	/**
+	 * Converts the document with the current layer settings to one output.
+	 * @param loader the loader with the document
+	 * @param converter the converter
+	 * @param request the request
+	 * @param name the output name
+	 * @param diagnostics list to add details to
+	 * @param outputs map to add output bytes to
+	 * @param paths map to add output files to
+	 * @return null on success, error message otherwise
+	 */
+	protected String write(BatikLoader loader, FhConverter converter, ConversionRequest request, String name, List<String> diagnostics, Map<String, byte[]> outputs, Map<String, Path> paths){
+		String err;
+		try{
+			if(request.getOutputDirectory()!=null){
+				Path path = request.getOutputDirectory().resolve(name);
+				Path dir = request.getOutputDirectory().toAbsolutePath().normalize();
+				Path resolved = path.toAbsolutePath().normalize();
+				if(!resolved.startsWith(dir) || resolved.equals(dir)){
+					return "output <" + name + "> is not in output directory <" + request.getOutputDirectory() + ">";
+				}
+				err = converter.convertDocument(loader, path.toFile());
+				if(err==null){
+					paths.put(name, path);
+					diagnostics.add("wrote file " + path);
+				}
+			}
+			else{
+				ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.OUTPUT_WRITE).file(name).target(converter.getTarget());
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				try{
+					err = converter.convertDocument(loader, out);
+					if(err==null){
+						outputs.put(name, out.toByteArray());
+						diagnostics.add("wrote output " + name + ", " + out.size() + " bytes");
+					}
+				}
+				finally{
+					phase.bytes(out.size()).end();
+				}
+			}
+		}
+		catch(BridgeException ex){
+			err = this.getClass().getSimpleName() + ": exception building graphics tree - " + ex.getMessage();
+		}
+		catch(DeadlineExceededException ex){
+			err = ex.getMessage();
+		}
+		return err;
+	}
+
+	/**
+	 * Holder for the default conversion executor, created on first use.
+	 * Threads are daemon threads, so an application can terminate without shutting the executor down.
+	 */
+	private static final class Converters {
+
+		/** The executor for conversions. */
+		static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread t = new Thread(r, "s2v-service");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+}
@@ -0,0 +1,101 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Pdf;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link JfrConversionPhase}, built with profile {@code env-jfr}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_JfrConversionPhase {
+
+	@Test
+	public void test_Recorded() throws IOException{
+		String fn = "src/test/resources/svg-files/time-interval-based.svgz";
+		File fout = new File("target/output-tests/conversion-phase/time-interval-based.pdf");
+		fout.getParentFile().mkdirs();
+		Path dump = Files.createTempFile("s2v-phases", ".jfr");
+
+		String layer;
+		try(Recording recording = new Recording()){
+			for(String name : new String[]{"DocumentLoad", "LayerScan", "LayerSwitch", "GvtBuild", "Paint", "OutputWrite"}){
+				recording.enable("de.vandermeer.svg2vector." + name).withoutThreshold();
+			}
+			recording.start();
+
+			assertTrue(ConversionPhase.begin(ConversionPhase.Kind.PAINT).isRecorded());
+			BatikLoader loader = new BatikLoader();
+			assertNull(loader.load(fn));
+			layer = loader.getLayers().keySet().iterator().next();
+			loader.selectLayer(layer);
+			assertNull(new Fh_Svg2Pdf().convertDocument(loader, fout));
+
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+		Files.delete(dump);
+		List<String> names = events.stream().map(e -> e.getEventType().getName().substring("de.vandermeer.svg2vector.".length())).collect(Collectors.toList());
+		for(String name : new String[]{"DocumentLoad", "LayerScan", "LayerSwitch", "GvtBuild", "Paint", "OutputWrite"}){
+			assertTrue(name, names.contains(name));
+		}
+
+		RecordedEvent load = this.get(events, "DocumentLoad");
+		assertTrue(load.getString("file").endsWith("time-interval-based.svgz"));
+		assertEquals(new File(fn).length(), load.getLong("bytes"));
+
+		RecordedEvent build = this.get(events, "GvtBuild");
+		assertEquals(layer, build.getString("layer"));
+
+		assertEquals("pdf", this.get(events, "Paint").getString("target"));
+
+		RecordedEvent write = this.get(events, "OutputWrite");
+		assertEquals(fout.toString(), write.getString("file"));
+		assertEquals(fout.length(), write.getLong("bytes"));
+	}
+
+	/**
+	 * Returns the first event with a given name.
+	 * @param events recorded events
+	 * @param name event name without prefix
+	 * @return first event with the name
+	 */
+	private RecordedEvent get(List<RecordedEvent> events, String name){
+		return events.stream().filter(e -> e.getEventType().getName().equals("de.vandermeer.svg2vector." + name)).findFirst().get();
+	}
+}
@@ -37,7 +37,7 @@ public class Test_AppBase {
 			@Override public String getAppDescription() {return "app for testing";}
 			@Override public String getAppVersion() {return "0.0.0";}
 		};
-		assertEquals(22, testApp.getAppOptions().length);
+		assertEquals(33, testApp.getAppOptions().length);
 	}
 
 	@Test
@@ -0,0 +1,178 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.is.IsLoader;
+
+/**
+ * Tests for {@link AppListener}, {@link ConsoleListener}, and {@link NdjsonListener}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_AppListener {
+
+	@Test
+	public void test_Events(){
+		AppBase<IsLoader, AppProperties<IsLoader>> testApp = this.getApp();
+		List<AppEvent> events = new CopyOnWriteArrayList<>();
+		testApp.removeListener(testApp.getListeners().get(0));
+		testApp.addListener(events::add);
+
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", "target/output-tests/app-listener/file",
+				"--create-directories",
+				"--simulate",
+				"--verbose"
+		};
+		assertEquals(0, testApp.executeApplication(args));
+		assertEquals(AppEvent.Type.FILE_STARTED, events.get(0).getType());
+		assertEquals("src/test/resources/svg-files/chomsky-hierarchy.svgz", events.get(0).getSubject());
+		assertEquals("test-app", events.get(0).getApp());
+		assertTrue(events.stream().anyMatch(e -> e.getType()==AppEvent.Type.PHASE_FINISHED && "load input".equals(e.getSubject()) && e.getDuration()>=0));
+		assertTrue(events.stream().anyMatch(e -> e.getType()==AppEvent.Type.DETAIL && e.getMessage().startsWith("input fn:")));
+
+		testApp.fireLayerStarted("layer 1");
+		assertEquals(AppEvent.Type.LAYER_STARTED, events.get(events.size()-1).getType());
+		assertEquals("processing layer layer 1", events.get(events.size()-1).getMessage());
+	}
+
+	@Test
+	public void test_Lazy(){
+		AppBase<IsLoader, AppProperties<IsLoader>> testApp = this.getApp();
+		AtomicInteger events = new AtomicInteger();
+		testApp.removeListener(testApp.getListeners().get(0));
+		testApp.addListener(e -> events.incrementAndGet());
+
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", "target/output-tests/app-listener/file",
+				"--create-directories",
+				"--simulate"
+		};
+		assertEquals(0, testApp.executeApplication(args));
+		assertEquals(0, events.get());
+
+		AtomicInteger calls = new AtomicInteger();
+		testApp.printDetailMessage(() -> "detail " + calls.incrementAndGet());
+		testApp.printProgressMessage(() -> "progress " + calls.incrementAndGet());
+		assertEquals(0, calls.get());
+		assertEquals(0, events.get());
+
+		testApp.printErrorMessage("error");
+		assertEquals(1, events.get());
+	}
+
+	@Test
+	public void test_Format(){
+		assertEquals("test-app error: failed", ConsoleListener.format(new AppEvent("test-app", AppEvent.Type.ERROR, null, -1, "failed")));
+		assertEquals("test-app warning: check", ConsoleListener.format(new AppEvent("test-app", AppEvent.Type.WARNING, null, -1, "check")));
+		assertEquals("test-app: --- processing layer a", ConsoleListener.format(new AppEvent("test-app", AppEvent.Type.LAYER_STARTED, "a", -1, "processing layer a")));
+		assertEquals("test-app: === convert finished in 5 ms", ConsoleListener.format(new AppEvent("test-app", AppEvent.Type.PHASE_FINISHED, "convert", 5, "convert finished in 5 ms")));
+
+		AppEvent event = new AppEvent("test-app", AppEvent.Type.PHASE_FINISHED, "convert", 5, "say \"done\"");
+		assertEquals("{\"time\": " + event.getTime() + ", \"app\": \"test-app\", \"type\": \"phase-finished\", \"subject\": \"convert\", \"duration\": 5, \"message\": \"say \\\"done\\\"\"}", NdjsonListener.toJson(event));
+	}
+
+	@Test
+	public void test_ConsoleOrder() throws InterruptedException{
+		ConsoleListener listener = new ConsoleListener();
+		listener.flush();
+		PrintStream out = System.out;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(bytes, true));
+		try{
+			Thread flusher = new Thread(() -> {
+				for(int i=0; i<2000; i++){
+					listener.flush();
+				}
+			});
+			flusher.start();
+			for(int i=0; i<20000; i++){
+				listener.onEvent(new AppEvent("test-app", AppEvent.Type.PROGRESS, null, -1, Integer.toString(i)));
+			}
+			flusher.join();
+			listener.flush();
+		}
+		finally{
+			System.setOut(out);
+		}
+
+		String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split(System.lineSeparator());
+		assertEquals(20000, lines.length);
+		for(int i=0; i<lines.length; i++){
+			assertEquals("test-app: --- " + i, lines[i]);
+		}
+	}
+
+	@Test
+	public void test_Ndjson() throws IOException {
+		Path fn = Paths.get("target/output-tests/app-listener/events.ndjson");
+		Files.createDirectories(fn.getParent());
+		Files.deleteIfExists(fn);
+		AppBase<IsLoader, AppProperties<IsLoader>> testApp = this.getApp();
+		testApp.removeListener(testApp.getListeners().get(0));
+
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", "target/output-tests/app-listener/file",
+				"--create-directories",
+				"--simulate",
+				"--print-progress",
+				"--events", fn.toString()
+		};
+		assertEquals(0, testApp.executeApplication(args));
+		testApp.finishMessages();
+
+		List<String> lines = Files.readAllLines(fn, StandardCharsets.UTF_8);
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0).contains("\"type\": \"file-started\""));
+		assertTrue(lines.get(1).contains("\"type\": \"progress\""));
+	}
+
+	/**
+	 * Returns a new application for testing.
+	 * @return new application
+	 */
+	private AppBase<IsLoader, AppProperties<IsLoader>> getApp(){
+		return new AppBase<IsLoader, AppProperties<IsLoader>>(new AppProperties<IsLoader>(SvgTargets.values(), new IsLoader())) {
+			@Override public String getAppName() {return "test-app";}
+			@Override public String getAppDescription() {return "app for testing";}
+			@Override public String getAppVersion() {return "0.0.0";}
+		};
+	}
+}
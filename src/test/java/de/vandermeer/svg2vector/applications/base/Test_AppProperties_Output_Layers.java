@@ -23,6 +23,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -115,6 +119,82 @@ public class Test_AppProperties_Output_Layers {
 		f.delete();
 	}
 
+	@Test
+	public void test_LayerFilter(){
+		ExecS_CliParser cli = new ExecS_CliParser();
+		AppProperties<IsLoader> props = new AppProperties<IsLoader>(new SvgTargets[]{SvgTargets.pdf}, new IsLoader());
+		cli.addAllOptions(props.getAppOptions());
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/rina-ipc.svgz",
+				"-d", "target",
+				"-l",
+				"--fout-layer-index",
+				"--include-layers", "^dt",
+				"--exclude-index", "5"
+		};
+
+		assertEquals(null, cli.parse(args));
+		assertEquals(0, Test_AppProperties.setCli4Options(cli.getCommandLine(), props.getAppOptions()));
+
+		assertNull(props.setInput());
+		assertNull(props.setOutput());
+		assertEquals(0, props.getWarnings().size());
+		assertEquals(1, props.getSelectedLayers().size());
+		assertTrue(props.getSelectedLayers().containsKey("dtp"));
+	}
+
+	@Test
+	public void test_SelectedLayersOrder() throws IOException{
+		File fn = new File("target/output-tests/app-props-layers/renumbered.svg");
+		fn.getParentFile().mkdirs();
+		StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:inkscape=\"http://www.inkscape.org/namespaces/inkscape\" width=\"10\" height=\"10\">\n");
+		for(String[] layer : new String[][]{{"3", "c"}, {"1", "a"}, {"4", "dtp"}, {"2", "b"}}){
+			svg.append("<g\n inkscape:groupmode=\"layer\"\n id=\"layer").append(layer[0]).append("\"\n inkscape:label=\"").append(layer[1]).append("\">\n<rect width=\"1\" height=\"1\"/>\n</g>\n");
+		}
+		Files.write(fn.toPath(), svg.append("</svg>\n").toString().getBytes(StandardCharsets.UTF_8));
+
+		ExecS_CliParser cli = new ExecS_CliParser();
+		AppProperties<IsLoader> props = new AppProperties<IsLoader>(new SvgTargets[]{SvgTargets.pdf}, new IsLoader());
+		cli.addAllOptions(props.getAppOptions());
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", fn.toString(),
+				"-d", "target",
+				"-l",
+				"--fout-layer-index",
+				"--exclude-layers", "^dt"
+		};
+
+		assertEquals(null, cli.parse(args));
+		assertEquals(0, Test_AppProperties.setCli4Options(cli.getCommandLine(), props.getAppOptions()));
+
+		assertNull(props.setInput());
+		assertNull(props.setOutput());
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<>(props.getSelectedLayers().keySet()));
+	}
+
+	@Test
+	public void test_Error_LayerIndexRanges(){
+		ExecS_CliParser cli = new ExecS_CliParser();
+		AppProperties<IsLoader> props = new AppProperties<IsLoader>(new SvgTargets[]{SvgTargets.pdf}, new IsLoader());
+		cli.addAllOptions(props.getAppOptions());
+		String[] args = new String[]{
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/rina-ipc.svgz",
+				"-d", "target",
+				"-l",
+				"--fout-layer-index",
+				"--include-index", "1-x"
+		};
+
+		assertEquals(null, cli.parse(args));
+		assertEquals(0, Test_AppProperties.setCli4Options(cli.getCommandLine(), props.getAppOptions()));
+
+		assertNull(props.setInput());
+		assertEquals("layer index ranges <1-x> for option <include-index> not valid, use ranges like \"1-3,7\"", props.setOutput());
+	}
+
 	// cannot test dir exists and cannot write...
 
 	@Test
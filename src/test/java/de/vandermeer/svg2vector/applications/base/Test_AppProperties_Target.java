@@ -15,6 +15,7 @@
 
 package de.vandermeer.svg2vector.applications.base;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -94,4 +95,21 @@ public class Test_AppProperties_Target {
 		props.setMessageMode();
 		assertEquals(AppProperties.P_OPTION_ERROR, props.getMsgMode());
 	}
+
+	@Test
+	public void test_TargetList(){
+		ExecS_CliParser cli = new ExecS_CliParser();
+		AppProperties<IsLoader> props = new AppProperties<IsLoader>(new SvgTargets[]{SvgTargets.pdf, SvgTargets.emf, SvgTargets.svg}, new IsLoader());
+		cli.addAllOptions(props.getAppOptions());
+		String[] args = new String[]{
+				"-t", "svg, pdf,svg",
+				"-f", "foo"
+		};
+
+		assertEquals(null, cli.parse(args));
+		assertEquals(0, Test_AppProperties.setCli4Options(cli.getCommandLine(), props.getAppOptions()));
+
+		assertEquals(SvgTargets.svg, props.getTarget());
+		assertArrayEquals(new SvgTargets[]{SvgTargets.svg, SvgTargets.pdf}, props.getTargets());
+	}
 }
@@ -0,0 +1,190 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ArchiveOutput}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ArchiveOutput {
+
+	@Test
+	public void test_Tar() throws IOException {
+		this.testTar(ArchiveFormat.tar);
+	}
+
+	@Test
+	public void test_Tgz() throws IOException {
+		this.testTar(ArchiveFormat.tgz);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_TgzRequiresSize() throws IOException {
+		new File("target/output-tests/archive").mkdirs();
+		try(ArchiveOutput archive = new ArchiveOutput(new File("target/output-tests/archive/unsized.tgz"), ArchiveFormat.tgz)){
+			archive.nextEntry("a.svg");
+		}
+	}
+
+	@Test
+	public void test_WrongSize() throws IOException {
+		new File("target/output-tests/archive").mkdirs();
+		try(ArchiveOutput archive = new ArchiveOutput(new File("target/output-tests/archive/wrong.tgz"), ArchiveFormat.tgz)){
+			OutputStream os = archive.nextEntry("a.svg", 10);
+			try{
+				os.write(new byte[11]);
+				fail("entry larger than its size");
+			}
+			catch(IOException expectedError){}
+			os.write(new byte[10]);
+			os.close();
+			assertEquals(1, archive.getEntries());
+		}
+	}
+
+	@Test
+	public void test_Abort() throws IOException {
+		new File("target/output-tests/archive").mkdirs();
+		File file = new File("target/output-tests/archive/abort.tgz");
+		ArchiveOutput archive = new ArchiveOutput(file, ArchiveFormat.tgz);
+		OutputStream os = archive.nextEntry("a.svg", 10);
+		os.write(new byte[9]);
+		try{
+			os.close();
+			fail("entry smaller than its size");
+		}
+		catch(IOException expectedError){}
+		assertTrue(file.exists());
+		archive.abort();
+		assertFalse(file.exists());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_OctalOverflow() throws IOException {
+		new File("target/output-tests/archive").mkdirs();
+		try(ArchiveOutput archive = new ArchiveOutput(new File("target/output-tests/archive/octal.tar"), ArchiveFormat.tar)){
+			archive.tarOctal(new byte[ArchiveOutput.TAR_RECORD], 124, 12, ArchiveOutput.TAR_MAX_SIZE + 1);
+		}
+	}
+
+	/**
+	 * Writes a small entry, an entry with a long name, and a large entry, and reads them back.
+	 * Entries are started with their size if the archive requires it, otherwise only the first one.
+	 * @param format the archive format
+	 * @throws IOException on read or write errors
+	 */
+	private void testTar(ArchiveFormat format) throws IOException {
+		Map<String, byte[]> expected = new LinkedHashMap<>();
+		expected.put("small.svg", "<svg/>".getBytes(StandardCharsets.UTF_8));
+		StringBuilder longName = new StringBuilder();
+		for(int i=0; i<30; i++){
+			longName.append("layer");
+		}
+		expected.put(longName + ".svg", new byte[ArchiveOutput.TAR_RECORD]);
+		byte[] large = new byte[3*1024*1024 + 1000];
+		for(int i=0; i<large.length; i++){
+			large[i] = (byte)i;
+		}
+		expected.put("large.pdf", large);
+
+		new File("target/output-tests/archive").mkdirs();
+		File file = new File("target/output-tests/archive/test." + format.name());
+		try(ArchiveOutput archive = new ArchiveOutput(file, format)){
+			for(Map.Entry<String, byte[]> entry : expected.entrySet()){
+				boolean sized = archive.requiresSize() || archive.getEntries()==0;
+				try(OutputStream os = (sized)?archive.nextEntry(entry.getKey(), entry.getValue().length):archive.nextEntry(entry.getKey())){
+					//write in slices, as converters do
+					for(int off=0; off<entry.getValue().length; off+=4096){
+						os.write(entry.getValue(), off, Math.min(4096, entry.getValue().length - off));
+					}
+				}
+			}
+			assertEquals(3, archive.getEntries());
+		}
+
+		Map<String, byte[]> actual = new LinkedHashMap<>();
+		try(InputStream is = (format==ArchiveFormat.tgz)?new GZIPInputStream(new FileInputStream(file)):new FileInputStream(file)){
+			DataInputStream in = new DataInputStream(is);
+			String pendingName = null;
+			byte[] header = new byte[ArchiveOutput.TAR_RECORD];
+			while(true){
+				in.readFully(header);
+				if(header[0]==0){
+					break;
+				}
+				assertEquals(checksum(header), Long.parseLong(new String(header, 148, 6, StandardCharsets.US_ASCII), 8));
+				int size = Integer.parseInt(new String(header, 124, 11, StandardCharsets.US_ASCII), 8);
+				byte[] content = new byte[size];
+				in.readFully(content);
+				in.readFully(new byte[(ArchiveOutput.TAR_RECORD - size % ArchiveOutput.TAR_RECORD) % ArchiveOutput.TAR_RECORD]);
+				if(header[156]=='L'){
+					pendingName = new String(content, 0, size - 1, StandardCharsets.UTF_8);
+					continue;
+				}
+				String name = (pendingName!=null)?pendingName:new String(header, 0, 100, StandardCharsets.UTF_8).trim();
+				pendingName = null;
+				actual.put(name, content);
+			}
+			in.readFully(header);
+			try{
+				in.readFully(new byte[1]);
+				throw new AssertionError("data after end of archive");
+			}
+			catch(EOFException expectedEnd){}
+		}
+
+		assertEquals(expected.keySet(), actual.keySet());
+		for(String name : expected.keySet()){
+			assertArrayEquals(expected.get(name), actual.get(name));
+		}
+	}
+
+	/**
+	 * Calculates the checksum of a TAR header, with the checksum field counted as spaces.
+	 * @param header the header
+	 * @return the checksum
+	 */
+	private static long checksum(byte[] header){
+		long ret = 0;
+		for(int i=0; i<header.length; i++){
+			ret += (i>=148 && i<156)?' ':(header[i] & 0xff);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,117 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.service.ConversionRequest;
+import de.vandermeer.svg2vector.service.ConversionResult;
+import de.vandermeer.svg2vector.service.Svg2VectorService;
+
+/**
+ * Tests for {@link ConversionStats} and {@link LatencyHistogram}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ConversionStats {
+
+	@Test
+	public void test_Histogram(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(50));
+
+		for(int i=1; i<=1000; i++){
+			histogram.record(i);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500, histogram.getTotal());
+		assertEquals(1000, histogram.getMax());
+		assertTrue(histogram.getPercentile(50)>=500 && histogram.getPercentile(50)<=625);
+		assertTrue(histogram.getPercentile(99)>=990 && histogram.getPercentile(99)<=1000);
+		assertEquals(1000, histogram.getPercentile(100));
+		assertEquals(1, histogram.getPercentile(0));
+
+		for(long value : new long[]{0, 3, 4, 7, 8, 1023, 1024, Long.MAX_VALUE}){
+			int bucket = LatencyHistogram.bucket(value);
+			assertTrue(value<=LatencyHistogram.upperBound(bucket));
+			assertTrue(bucket==0 || value>LatencyHistogram.upperBound(bucket - 1));
+		}
+		assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99));
+	}
+
+	@Test
+	public void test_MBean() throws IOException, JMException {
+		ConversionStats stats = ConversionStats.getInstance();
+		assertFalse(stats.isCollecting());
+		assertNull(ConversionStats.register());
+		try{
+			assertTrue(stats.isCollecting());
+			assertTrue(ConversionPhase.begin(ConversionPhase.Kind.PAINT).isRecorded());
+			stats.reset();
+
+			byte[] svg = Files.readAllBytes(Paths.get("src/test/resources/svg-files/simple.svg"));
+			ConversionResult result = new Svg2VectorService().convert(ConversionRequest.forBytes(svg, "simple", SvgTargets.pdf).build());
+			assertNull(result.getError());
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(ConversionStats.OBJECT_NAME);
+			assertEquals(1L, server.getAttribute(name, "Conversions"));
+			assertEquals(0L, server.getAttribute(name, "FailedConversions"));
+			assertEquals(0, server.getAttribute(name, "ActiveConversions"));
+			assertEquals((long)svg.length, server.getAttribute(name, "BytesIn"));
+			assertEquals((long)result.getOutputs().get("simple.pdf").length, server.getAttribute(name, "BytesOut"));
+
+			TabularData targets = (TabularData)server.getAttribute(name, "ConversionsByTarget");
+			assertEquals(1L, targets.get(new Object[]{"pdf"}).get("value"));
+			assertEquals(0L, targets.get(new Object[]{"emf"}).get("value"));
+
+			TabularData phases = (TabularData)server.getAttribute(name, "PhaseLatencies");
+			CompositeData paint = (CompositeData)phases.get(new Object[]{"PAINT"}).get("value");
+			assertEquals(1L, paint.get("count"));
+			assertTrue((Double)paint.get("maxMillis")>=(Double)paint.get("p50Millis"));
+
+			TabularData caches = (TabularData)server.getAttribute(name, "CacheHitRates");
+			assertTrue(caches.containsKey(new Object[]{"filter"}));
+		}
+		finally{
+			assertNull(ConversionStats.unregister());
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(ConversionStats.OBJECT_NAME)));
+		assertFalse(ConversionPhase.begin(ConversionPhase.Kind.PAINT).isRecorded());
+	}
+}
@@ -0,0 +1,98 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.base.InputWatcher.Change;
+
+/**
+ * Tests for {@link InputWatcher}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_InputWatcher {
+
+	@Test
+	public void test_Accepts() throws IOException {
+		File dir = new File("target/output-tests/watcher/accepts");
+		dir.mkdirs();
+		Path file = new File("target/output-tests/watcher/watched.svg").toPath().toAbsolutePath().normalize();
+		Files.write(file, "<svg/>".getBytes(StandardCharsets.UTF_8));
+
+		try(InputWatcher watcher = new InputWatcher(Arrays.asList(file, dir.toPath()), 0)){
+			assertTrue(watcher.accepts(file));
+			assertFalse(watcher.accepts(file.resolveSibling("other.svg")));
+			Path inDir = dir.toPath().toAbsolutePath().normalize();
+			assertTrue(watcher.accepts(inDir.resolve("a.svg")));
+			assertTrue(watcher.accepts(inDir.resolve("b.svgz")));
+			assertFalse(watcher.accepts(inDir.resolve("c.pdf")));
+		}
+	}
+
+	@Test
+	public void test_Debounce() throws IOException, InterruptedException {
+		new File("target/output-tests/watcher").mkdirs();
+		Path file = new File("target/output-tests/watcher/debounce.svg").toPath().toAbsolutePath().normalize();
+		Files.write(file, "<svg/>".getBytes(StandardCharsets.UTF_8));
+
+		BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+		InputWatcher watcher = new InputWatcher(Collections.singletonList(file), 500);
+		Thread thread = new Thread(() -> {
+			try{
+				watcher.run(changes::add);
+			}
+			catch(InterruptedException ignore){}
+		});
+		thread.start();
+		try{
+			//a burst of writes is reported once
+			for(int i=0; i<3; i++){
+				Files.write(file, ("<svg id='s" + i + "'/>").getBytes(StandardCharsets.UTF_8));
+				Thread.sleep(50);
+			}
+			Change change = changes.poll(10, TimeUnit.SECONDS);
+			assertNotNull(change);
+			assertEquals(Collections.singleton(file), change.getPaths());
+			assertTrue(change.getLast()>=change.getFirst());
+			Thread.sleep(700);
+			assertTrue(changes.isEmpty());
+		}
+		finally{
+			watcher.close();
+			thread.join(5000);
+		}
+		assertFalse(thread.isAlive());
+	}
+}
@@ -0,0 +1,83 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LayerFilter}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_LayerFilter {
+
+	@Test
+	public void test_ParseRanges(){
+		List<int[]> ranges = LayerFilter.parseRanges("1-3, 7");
+		assertEquals(2, ranges.size());
+		assertEquals(1, ranges.get(0)[0]);
+		assertEquals(3, ranges.get(0)[1]);
+		assertEquals(7, ranges.get(1)[0]);
+		assertEquals(7, ranges.get(1)[1]);
+
+		assertNull(LayerFilter.parseRanges(" "));
+		assertNull(LayerFilter.parseRanges("1-x"));
+		assertNull(LayerFilter.parseRanges("3-1"));
+	}
+
+	@Test
+	public void test_ParsePattern(){
+		assertNull(LayerFilter.parsePattern(""));
+		assertNull(LayerFilter.parsePattern("[a-"));
+		assertTrue(LayerFilter.parsePattern("^a").matcher("abc").find());
+	}
+
+	@Test
+	public void test_Select(){
+		Map<String, Integer> layers = new LinkedHashMap<>();
+		layers.put("frame", 1);
+		layers.put("api", 2);
+		layers.put("dtp", 3);
+		layers.put("dtcp", 4);
+
+		LayerFilter all = new LayerFilter(null, null, null, null);
+		assertTrue(all.selectsAll());
+		assertEquals(4, all.select(layers).size());
+
+		LayerFilter filter = new LayerFilter(LayerFilter.parsePattern("^d|api"), null, null, LayerFilter.parseRanges("4"));
+		assertFalse(filter.selectsAll());
+		Map<String, Integer> selected = filter.select(layers);
+		assertEquals(2, selected.size());
+		assertTrue(selected.containsKey("api"));
+		assertTrue(selected.containsKey("dtp"));
+
+		filter = new LayerFilter(null, LayerFilter.parsePattern("p$"), LayerFilter.parseRanges("2-4"), null);
+		selected = filter.select(layers);
+		assertEquals(1, selected.size());
+		assertTrue(selected.containsKey("api"));
+	}
+}
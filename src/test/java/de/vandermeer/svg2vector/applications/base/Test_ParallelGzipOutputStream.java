@@ -0,0 +1,79 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ParallelGzipOutputStream}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ParallelGzipOutputStream {
+
+	@Test
+	public void test_MultiBlock() throws IOException {
+		byte[] data = new byte[100*1000 + 17];
+		new Random(42).nextBytes(data);
+		for(int i=0; i<data.length; i+=3){
+			data[i] = 'a';
+		}
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try(ParallelGzipOutputStream out = new ParallelGzipOutputStream(bos, 4096)){
+			out.write(data, 0, 10);
+			out.write(data[10]);
+			out.write(data, 11, data.length - 11);
+		}
+		assertArrayEquals(data, this.gunzip(bos.toByteArray()));
+	}
+
+	@Test
+	public void test_Empty() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new ParallelGzipOutputStream(bos).close();
+		assertArrayEquals(new byte[0], this.gunzip(bos.toByteArray()));
+	}
+
+	/**
+	 * Decompresses (multi-member) GZIP data.
+	 * @param gz the compressed data
+	 * @return the uncompressed data
+	 * @throws IOException on errors
+	 */
+	private byte[] gunzip(byte[] gz) throws IOException {
+		ByteArrayOutputStream ret = new ByteArrayOutputStream();
+		try(InputStream in = new GZIPInputStream(new ByteArrayInputStream(gz))){
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				ret.write(buffer, 0, read);
+			}
+		}
+		return ret.toByteArray();
+	}
+}
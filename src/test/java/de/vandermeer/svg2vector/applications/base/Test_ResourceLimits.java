@@ -0,0 +1,132 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+import de.vandermeer.svg2vector.applications.fh.converters.Fh_Svg2Pdf;
+import de.vandermeer.svg2vector.service.ConversionRequest;
+import de.vandermeer.svg2vector.service.ConversionResult;
+import de.vandermeer.svg2vector.service.Svg2VectorService;
+
+/**
+ * Tests for {@link ResourceLimits} and {@link Deadline}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ResourceLimits {
+
+	@Test
+	public void test_Parse(){
+		ResourceLimits limits = ResourceLimits.parse("bytes=10m, elements=100000,depth=64,layers=50,time=2s");
+		assertEquals(10*1024*1024, limits.getMaxBytes());
+		assertEquals(100000, limits.getMaxElements());
+		assertEquals(64, limits.getMaxDepth());
+		assertEquals(50, limits.getMaxLayers());
+		assertEquals(2000, limits.getMaxMillis());
+
+		limits = ResourceLimits.parse("time=250");
+		assertEquals(250, limits.getMaxMillis());
+		assertEquals(0, limits.getMaxBytes());
+		assertNull(limits.checkBytes(Long.MAX_VALUE));
+
+		assertNull(ResourceLimits.parse(""));
+		assertNull(ResourceLimits.parse("size=10"));
+		assertNull(ResourceLimits.parse("bytes=10x"));
+		assertNull(ResourceLimits.parse("depth=-1"));
+		assertNull(ResourceLimits.parse("bytes=" + Long.MAX_VALUE + "k"));
+	}
+
+	@Test
+	public void test_Load() throws IOException {
+		String fn = "src/test/resources/svg-files/simple.svg";
+		BatikLoader loader = new BatikLoader();
+		loader.setLimits(ResourceLimits.parse("bytes=1k"));
+		assertTrue(loader.load(fn).contains("document exceeds limit of 1024 bytes"));
+
+		loader = new BatikLoader();
+		loader.setLimits(ResourceLimits.parse("elements=5"));
+		assertTrue(loader.load(fn).contains("document exceeds limit of 5 elements"));
+
+		loader = new BatikLoader();
+		loader.setLimits(ResourceLimits.parse("depth=3"));
+		assertTrue(loader.load(fn).contains("document exceeds limit of 3 for element nesting depth"));
+
+		loader = new BatikLoader();
+		loader.setLimits(new ResourceLimits(4096, 1000, 32, 0, 0));
+		assertNull(loader.load(fn));
+
+		String fnLayers = "src/test/resources/svg-files/time-interval-based.svgz";
+		loader = new BatikLoader();
+		assertNull(loader.load(fnLayers));
+		int layers = loader.getLayers().size();
+		assertTrue(layers>1);
+
+		loader = new BatikLoader();
+		loader.setLimits(new ResourceLimits(0, 0, 0, layers - 1, 0));
+		assertTrue(loader.load(fnLayers).contains("document exceeds limit of " + (layers - 1) + " layers"));
+		assertFalse(loader.isLoaded());
+
+		loader = new BatikLoader();
+		loader.setLimits(new ResourceLimits(0, 0, 0, layers, 0));
+		assertNull(loader.load(fnLayers));
+
+		byte[] svg = Files.readAllBytes(Paths.get(fn));
+		ConversionResult result = new Svg2VectorService().convert(ConversionRequest.forBytes(svg, "simple", SvgTargets.pdf).limits(ResourceLimits.parse("bytes=1k")).build());
+		assertTrue(result.getError().contains("document exceeds limit of 1024 bytes"));
+	}
+
+	@Test
+	public void test_Deadline() throws InterruptedException {
+		Deadline deadline = new Deadline(0);
+		assertFalse(deadline.isExceeded());
+		assertEquals(Long.MAX_VALUE, deadline.getRemainingMillis());
+		assertNull(deadline.getError());
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load("src/test/resources/svg-files/simple.svg"));
+		Fh_Svg2Pdf converter = new Fh_Svg2Pdf();
+		converter.setDeadline(deadline);
+		deadline.cancel();
+		assertEquals("conversion cancelled", converter.convertDocument(loader, new ByteArrayOutputStream()));
+
+		//no partial output file is left
+		File fout = new File("target/output-tests/limits/cancelled.pdf");
+		fout.getParentFile().mkdirs();
+		assertEquals("conversion cancelled", converter.convertGraphicsNode(loader.buildGraphicsNode(), loader.getSize(), fout));
+		assertFalse(fout.exists());
+
+		deadline = new Deadline(1);
+		Thread.sleep(5);
+		assertTrue(deadline.isExceeded());
+		assertEquals(0, deadline.getRemainingMillis());
+		assertEquals("conversion exceeded time limit of 1 ms", deadline.getError());
+	}
+}
@@ -0,0 +1,122 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.fh.Svg2Vector_FH;
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+
+/**
+ * Tests for {@link SamplingProfiler}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_SamplingProfiler {
+
+	@Test
+	public void test_Phase() throws IOException {
+		SamplingProfiler profiler = new SamplingProfiler(60000);
+		assertFalse(SamplingProfiler.isSampling());
+		profiler.start();
+		assertTrue(SamplingProfiler.isSampling());
+
+		ConversionPhase phase = ConversionPhase.begin(ConversionPhase.Kind.PAINT);
+		profiler.sample();
+		phase.end();
+		profiler.sample();
+		profiler.stop();
+		assertFalse(SamplingProfiler.isSampling());
+
+		assertEquals(2, profiler.getSamples());
+		Map<String, Long> stacks = profiler.getStacks();
+		String frame = Test_SamplingProfiler.class.getName() + ".test_Phase";
+		assertTrue(stacks.keySet().stream().anyMatch(stack -> stack.startsWith("[paint];") && stack.contains(frame)));
+		assertTrue(stacks.keySet().stream().anyMatch(stack -> !stack.startsWith("[") && stack.contains(frame)));
+
+		StringWriter writer = new StringWriter();
+		profiler.write(writer);
+		String[] lines = writer.toString().split("\n");
+		assertEquals(stacks.size(), lines.length);
+		for(String line : lines){
+			assertTrue(line, line.matches("[^ ]+ [0-9]+"));
+		}
+	}
+
+	@Test
+	public void test_PhaseEndedOnError(){
+		SamplingProfiler profiler = new SamplingProfiler(60000);
+		profiler.start();
+		try{
+			assertNotNull(new BatikLoader().load("src/test/resources/svg-files/no-such-file.svg"));
+			assertNotNull(new BatikLoader().scan("src/test/resources/svg-files/no-such-file.svg"));
+
+			//no phase of the failed load is left open on this thread
+			assertNull(SamplingProfiler.enter(ConversionPhase.Kind.PAINT));
+			SamplingProfiler.exit(null);
+		}
+		finally{
+			profiler.stop();
+		}
+	}
+
+	@Test
+	public void test_Collapse(){
+		StackTraceElement[] trace = new StackTraceElement[]{
+				new StackTraceElement("a.B", "top", null, 1),
+				new StackTraceElement("a.C", "root", null, 1)
+		};
+		assertEquals("a.C.root;a.B.top", SamplingProfiler.collapse(null, trace));
+		assertEquals("[gvt_build];a.C.root;a.B.top", SamplingProfiler.collapse(ConversionPhase.Kind.GVT_BUILD, trace));
+	}
+
+	@Test
+	public void test_Application() throws IOException {
+		String fn = "target/output-tests/s2v-fh/sample/chomsky.collapsed";
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = new String[]{
+				"--create-directories", "--overwrite-existing", "-q",
+				"-t", "pdf",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", "target/output-tests/s2v-fh/sample/chomsky",
+				"--sample-profile", fn
+		};
+		assertEquals(0, app.executeApplication(args));
+		assertFalse(SamplingProfiler.isSampling());
+
+		List<String> lines = Files.readAllLines(Paths.get(fn), StandardCharsets.UTF_8);
+		for(String line : lines){
+			assertTrue(line, line.matches("[^ ]+ [0-9]+"));
+		}
+	}
+
+}
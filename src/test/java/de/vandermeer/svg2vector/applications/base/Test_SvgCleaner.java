@@ -0,0 +1,151 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SvgCleaner}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_SvgCleaner {
+
+	/** Directory for test output. */
+	static String OUT_DIR = "target/output-tests/cleaner/";
+
+	/** Test document with editor content, used and unused definitions. */
+	public static String SVG = "<?xml version='1.0' encoding='UTF-8'?>"
+			+ "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink'"
+			+ " xmlns:sodipodi='http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd' xmlns:inkscape='http://www.inkscape.org/namespaces/inkscape'"
+			+ " xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#' width='100' height='100' sodipodi:docname='test.svg' inkscape:version='0.91'>"
+			+ "<sodipodi:namedview id='base' pagecolor='#ffffff'><inkscape:grid id='grid'/></sodipodi:namedview>"
+			+ "<metadata id='meta'><rdf:RDF/></metadata>"
+			+ "<defs id='defs'>"
+			+ "<linearGradient id='stops'><stop offset='0' style='stop-color:#000'/></linearGradient>"
+			+ "<linearGradient id='used' xlink:href='#stops' inkscape:collect='always'/>"
+			+ "<linearGradient id='unused' xlink:href='#stops'/>"
+			+ "<marker id='arrow'><path id='arrow-path' d='M 0,0 L 1,1'/></marker>"
+			+ "<pattern id='styled'><rect width='1' height='1'/></pattern>"
+			+ "<style>.p { fill: url(#styled); }</style>"
+			+ "</defs>"
+			+ "<g inkscape:groupmode='layer' id='layer1' inkscape:label='one' style='display:inline'>"
+			+ "<rect width='10' height='10' style='fill:url(#used)' sodipodi:nodetypes='cccc' inkscape:connector-curvature='0'/>"
+			+ "</g>"
+			+ "<g inkscape:groupmode='layer' id='layer2' inkscape:label='two' style='display:none'>"
+			+ "<use xlink:href='#arrow-path' class='p'/>"
+			+ "</g>"
+			+ "</svg>";
+
+	@Test
+	public void test_Stream() throws IOException {
+		new File(OUT_DIR).mkdirs();
+		String fn = OUT_DIR + "test.svg";
+		Files.write(new File(fn).toPath(), SVG.getBytes(StandardCharsets.UTF_8));
+
+		SvgCleaner cleaner = new SvgCleaner();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertNull(cleaner.clean(fn, out));
+		String svg = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertCleaned(svg);
+		assertEquals(3, cleaner.getElements());
+		assertTrue(cleaner.getAttributes() >= 5);
+
+		//layers, their labels, and the document size must be kept
+		String cleaned = OUT_DIR + "test-cleaned.svg";
+		Files.write(new File(cleaned).toPath(), out.toByteArray());
+		SvgPrescan scan = new SvgPrescan();
+		assertNull(scan.scan(cleaned));
+		assertEquals(2, scan.getLayerList().size());
+		assertEquals("one", scan.getLayerList().get(0).getLabel());
+	}
+
+	@Test
+	public void test_File() throws IOException {
+		String fn = "src/test/resources/svg-files/rina-ipc.svgz";
+		SvgPrescan input = new SvgPrescan();
+		assertNull(input.scan(fn));
+
+		new File(OUT_DIR).mkdirs();
+		File file = new File(OUT_DIR + "rina-ipc.svg");
+		try(OutputStream out = new FileOutputStream(file)){
+			assertNull(new SvgLayerSplitter().split(fn, Collections.<String, OutputStream>singletonMap("dtp", out)));
+		}
+		long length = file.length();
+
+		SvgCleaner cleaner = new SvgCleaner();
+		assertNull(cleaner.clean(file));
+		assertTrue(file.length() < length);
+		assertTrue(cleaner.getElements() > 0);
+
+		SvgPrescan scan = new SvgPrescan();
+		assertNull(scan.scan(file.getPath()));
+		assertEquals(input.getSize(), scan.getSize());
+		assertEquals(1, scan.getLayerList().size());
+		assertEquals("dtp", scan.getLayerList().get(0).getLabel());
+	}
+
+	@Test
+	public void test_References(){
+		Set<String> refs = new HashSet<>();
+		SvgCleaner.addReferences("#link", refs);
+		SvgCleaner.addReferences("url(#plain);stroke:url(\"#double\")", refs);
+		SvgCleaner.addReferences("fill: url( '#single' ) ; marker-end:url( # )", refs);
+		SvgCleaner.addReferences("url(other.svg#external)", refs);
+		SvgCleaner.addReferences(null, refs);
+		assertEquals(new HashSet<>(Arrays.asList("link", "plain", "double", "single")), refs);
+	}
+
+	/**
+	 * Asserts that the test document was cleaned.
+	 * @param svg the cleaned test document
+	 */
+	public static void assertCleaned(String svg){
+		assertFalse(svg.contains("sodipodi"));
+		assertFalse(svg.contains("namedview"));
+		assertFalse(svg.contains("metadata"));
+		assertFalse(svg.contains("rdf"));
+		assertFalse(svg.contains("inkscape:version"));
+		assertFalse(svg.contains("inkscape:collect"));
+		assertFalse(svg.contains("connector-curvature"));
+		assertFalse(svg.contains("id=\"unused\""));
+		assertTrue(svg.contains("id=\"used\""));
+		assertTrue(svg.contains("id=\"stops\""));
+		assertTrue(svg.contains("id=\"arrow\""));
+		assertTrue(svg.contains("id=\"styled\""));
+		assertTrue(svg.contains("inkscape:label=\"one\""));
+		assertTrue(svg.contains("inkscape:groupmode=\"layer\""));
+	}
+}
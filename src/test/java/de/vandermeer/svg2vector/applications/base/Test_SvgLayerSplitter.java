@@ -0,0 +1,121 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SvgLayerSplitter}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_SvgLayerSplitter {
+
+	/** Directory for test output. */
+	static String OUT_DIR = "target/output-tests/splitter/";
+
+	@Test
+	public void test_Split() throws IOException {
+		String fn = "src/test/resources/svg-files/rina-ipc.svgz";
+		SvgPrescan input = new SvgPrescan();
+		assertNull(input.scan(fn));
+
+		new File(OUT_DIR).mkdirs();
+		Map<String, OutputStream> outputs = new LinkedHashMap<>();
+		outputs.put("dtp", new FileOutputStream(OUT_DIR + "dtp.svg"));
+		outputs.put("api", new FileOutputStream(OUT_DIR + "api.svg"));
+
+		SvgLayerSplitter splitter = new SvgLayerSplitter();
+		try{
+			assertNull(splitter.split(fn, outputs));
+		}
+		finally{
+			for(OutputStream out : outputs.values()){
+				out.close();
+			}
+		}
+		assertEquals(2, splitter.getLayers());
+		assertTrue(splitter.getEvents()>input.getElements());
+
+		for(String layer : outputs.keySet()){
+			SvgPrescan output = new SvgPrescan();
+			assertNull(output.scan(OUT_DIR + layer + ".svg"));
+			assertEquals(input.getSize(), output.getSize());
+			assertEquals(1, output.getLayerList().size());
+			assertEquals(layer, output.getLayerList().get(0).getLabel());
+			assertEquals(input.getLayers().get(layer), output.getLayers().get(layer));
+			assertTrue(output.getLayerList().get(0).isVisible());
+			assertEquals(input.getElementCounts().get("defs"), output.getElementCounts().get("defs"));
+		}
+	}
+
+	@Test
+	public void test_SwitchOnSpaced() throws IOException {
+		new File(OUT_DIR).mkdirs();
+		String fn = OUT_DIR + "spaced.svg";
+		String svg =
+				"<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:inkscape=\"http://www.inkscape.org/namespaces/inkscape\" width=\"100\" height=\"100\">\n" +
+				" <g inkscape:groupmode=\"layer\" inkscape:label=\"hidden\" id=\"layer1\" style=\"opacity:1; display : none\">\n" +
+				"  <rect width=\"10\" height=\"10\"/>\n" +
+				" </g>\n" +
+				"</svg>\n"
+		;
+		Files.write(Paths.get(fn), svg.getBytes(StandardCharsets.UTF_8));
+
+		SvgPrescan input = new SvgPrescan();
+		assertNull(input.scan(fn));
+		assertEquals(1, input.getLayerList().size());
+		assertFalse(input.getLayerList().get(0).isVisible());
+
+		Map<String, OutputStream> outputs = new LinkedHashMap<>();
+		outputs.put("hidden", new FileOutputStream(OUT_DIR + "hidden.svg"));
+		try{
+			assertNull(new SvgLayerSplitter().split(fn, outputs));
+		}
+		finally{
+			outputs.get("hidden").close();
+		}
+
+		SvgPrescan output = new SvgPrescan();
+		assertNull(output.scan(OUT_DIR + "hidden.svg"));
+		assertEquals(1, output.getLayerList().size());
+		assertTrue(output.getLayerList().get(0).isVisible());
+	}
+
+	@Test
+	public void test_Error(){
+		Map<String, OutputStream> outputs = new LinkedHashMap<>();
+		assertNotNull(new SvgLayerSplitter().split("src/test/resources/svg-files/no-such-file.svg", outputs));
+	}
+}
@@ -0,0 +1,76 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.fh.converters.BatikLoader;
+
+/**
+ * Tests for {@link SvgPrescan}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_SvgPrescan {
+
+	@Test
+	public void test_SameAsLoader(){
+		for(String fn : new String[]{"rina-ipc.svgz", "time-interval-based.svgz", "chomsky-hierarchy.svgz"}){
+			fn = "src/test/resources/svg-files/" + fn;
+			SvgPrescan scan = new SvgPrescan();
+			assertNull(scan.scan(fn));
+
+			BatikLoader loader = new BatikLoader();
+			assertNull(loader.load(fn));
+			assertEquals(loader.getLayers(), scan.getLayers());
+			assertEquals(loader.getSize(), scan.getSize());
+			assertTrue(scan.getElements()>0);
+		}
+	}
+
+	@Test
+	public void test_LoaderScan(){
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.scan("src/test/resources/svg-files/rina-ipc.svgz"));
+		assertFalse(loader.isLoaded());
+		assertNotNull(loader.getPrescan());
+		assertTrue(loader.hasInkscapeLayers());
+	}
+
+	@Test
+	public void test_Json(){
+		SvgPrescan scan = new SvgPrescan();
+		assertNull(scan.scan("src/test/resources/svg-files/simple.svg"));
+		String json = scan.toJson();
+		assertTrue(json.startsWith("{"));
+		assertTrue(json.contains("\"layers\": ["));
+		assertTrue(json.contains("\"elements\": " + scan.getElements()));
+	}
+
+	@Test
+	public void test_Error(){
+		SvgPrescan scan = new SvgPrescan();
+		assertNotNull(scan.scan("src/test/resources/svg-files/does-not-exist.svg"));
+	}
+}
@@ -41,7 +41,7 @@ public class Test_Svg2Vector_FH {
 	@Test
 	public void test_AddedOptions(){
 		Svg2Vector_FH app = new Svg2Vector_FH();
-		assertEquals(26, app.getAppOptions().length);
+		assertEquals(45, app.getAppOptions().length);
 	}
 
 	@Test
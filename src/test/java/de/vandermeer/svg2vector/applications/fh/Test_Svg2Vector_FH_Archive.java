@@ -0,0 +1,125 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.Test;
+
+/**
+ * Tests for Svg2Vector_FH writing layers into an archive.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_Svg2Vector_FH_Archive {
+
+	/** Prefix for tests that create output. */
+	static String OUT_DIR_PREFIX = Test_Svg2Vector_FH.OUT_DIR_PREFIX + "archive/";
+
+	/** Standard CLI options for tests. */
+	static String[] STD_OPTIONS = ArrayUtils.addAll(Test_Svg2Vector_FH.STD_OPTIONS,
+			"-t", "pdf", "-q", "-l", "-i"
+	);
+
+	@Test
+	public void test_Zip() throws IOException {
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "zip",
+				"--archive", "zip"
+		);
+		assertEquals(0, app.executeApplication(args));
+
+		int entries = 0;
+		try(ZipInputStream zip = new ZipInputStream(new FileInputStream(app.getProps().getArchiveFile()))){
+			while(zip.getNextEntry()!=null){
+				entries++;
+			}
+		}
+		assertEquals(app.getProps().getLoader().getLayers().size(), entries);
+	}
+
+	@Test
+	public void test_Tgz() throws IOException {
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "tgz",
+				"--archive", "tgz"
+		);
+		assertEquals(0, app.executeApplication(args));
+		assertTrue(app.getProps().getArchiveFile().getName().endsWith(".tar.gz"));
+
+		byte[] header = new byte[512];
+		try(GZIPInputStream in = new GZIPInputStream(new FileInputStream(app.getProps().getArchiveFile()))){
+			int read = 0;
+			while(read<header.length){
+				read += in.read(header, read, header.length - read);
+			}
+		}
+		assertEquals("ustar", new String(header, 257, 5, "US-ASCII"));
+	}
+
+	@Test
+	public void test_Tgz_Targets() throws IOException {
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(Test_Svg2Vector_FH.STD_OPTIONS,
+				"-t", "pdf,emf,svg,svgz", "-q", "-l", "-i",
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "tgz-targets",
+				"--archive", "tgz"
+		);
+		//entries of a tgz archive are rendered twice, to count their size first
+		assertEquals(0, app.executeApplication(args));
+
+		int entries = 0;
+		byte[] header = new byte[512];
+		try(DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(app.getProps().getArchiveFile())))){
+			while(true){
+				in.readFully(header);
+				if(header[0]==0){
+					break;
+				}
+				long size = Long.parseLong(new String(header, 124, 11, "US-ASCII"), 8);
+				in.readFully(new byte[(int)((size + 511) / 512 * 512)]);
+				entries++;
+			}
+		}
+		assertEquals(4 * app.getProps().getLoader().getLayers().size(), entries);
+	}
+
+	@Test
+	public void test_Error_Format(){
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "error",
+				"--archive", "rar"
+		);
+		assertTrue(app.executeApplication(args)<0);
+	}
+}
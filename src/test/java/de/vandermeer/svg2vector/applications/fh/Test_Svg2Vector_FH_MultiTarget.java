@@ -0,0 +1,99 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
+/**
+ * Tests for Svg2Vector_FH converting to several targets from a single load.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_Svg2Vector_FH_MultiTarget {
+
+	/** Prefix for tests that create output. */
+	static String OUT_DIR_PREFIX = Test_Svg2Vector_FH.OUT_DIR_PREFIX + "multi/";
+
+	/** Standard CLI options for tests. */
+	static String[] STD_OPTIONS = ArrayUtils.addAll(Test_Svg2Vector_FH.STD_OPTIONS,
+			"-q"
+	);
+
+	@Test
+	public void test_SingleFile(){
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-t", "pdf,emf,svg",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", OUT_DIR_PREFIX + "chomsky"
+		);
+		assertEquals(0, app.executeApplication(args));
+		assertEquals(3, app.getProps().getTargets().length);
+		for(SvgTargets target : app.getProps().getTargets()){
+			assertTrue(app.getProps().getFoutFile(target).getName().endsWith("." + target.name()));
+			assertTrue(app.getProps().getFoutFile(target).length()>0);
+		}
+	}
+
+	@Test
+	public void test_LayersArchive() throws IOException {
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-t", "pdf, svgz",
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "archive",
+				"-l", "-i",
+				"--archive", "zip"
+		);
+		assertEquals(0, app.executeApplication(args));
+
+		int pdf = 0;
+		int svgz = 0;
+		try(ZipInputStream zip = new ZipInputStream(new FileInputStream(app.getProps().getArchiveFile()))){
+			ZipEntry entry;
+			while((entry = zip.getNextEntry())!=null){
+				pdf += (entry.getName().endsWith(".pdf"))?1:0;
+				svgz += (entry.getName().endsWith(".svgz"))?1:0;
+			}
+		}
+		assertEquals(app.getProps().getLoader().getLayers().size(), pdf);
+		assertEquals(app.getProps().getLoader().getLayers().size(), svgz);
+	}
+
+	@Test
+	public void test_Error_NotSupported(){
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-t", "pdf,eps",
+				"-f", "src/test/resources/svg-files/chomsky-hierarchy.svgz",
+				"-o", OUT_DIR_PREFIX + "error"
+		);
+		assertEquals(-10, app.executeApplication(args));
+	}
+}
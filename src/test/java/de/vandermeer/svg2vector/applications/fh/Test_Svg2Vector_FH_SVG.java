@@ -16,6 +16,11 @@
 package de.vandermeer.svg2vector.applications.fh;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Test;
@@ -100,4 +105,35 @@ public class Test_Svg2Vector_FH_SVG {
 		);
 		assertEquals(0, app.executeApplication(args));
 	}
+
+	@Test
+	public void testMultiLayerStreamSplit(){
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "layers-split",
+				"-l", "-i",
+				"--stream-split"
+		);
+		assertEquals(0, app.executeApplication(args));
+		assertFalse(app.getProps().getLoader().isLoaded());
+		for(Entry<String, Integer> entry : app.getProps().getSelectedLayers().entrySet()){
+			assertTrue(new File(app.getProps().getFnOut(entry) + ".svg").length()>0);
+		}
+	}
+
+	@Test
+	public void testMultiLayerSerialize(){
+		Svg2Vector_FH app = new Svg2Vector_FH();
+		String[] args = ArrayUtils.addAll(STD_OPTIONS,
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-d", OUT_DIR_PREFIX + "layers-serialize",
+				"-l", "-i",
+				"--svg-serialize"
+		);
+		assertEquals(0, app.executeApplication(args));
+		for(Entry<String, Integer> entry : app.getProps().getSelectedLayers().entrySet()){
+			assertTrue(new File(app.getProps().getFnOut(entry) + ".svg").length()>0);
+		}
+	}
 }
@@ -0,0 +1,292 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.apache.batik.bridge.BridgeException;
+import org.apache.batik.gvt.GraphicsNode;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import de.vandermeer.svg2vector.applications.base.SvgPrescan;
+import de.vandermeer.svg2vector.applications.base.Test_SvgCleaner;
+
+/**
+ * Tests for {@link BatikLoader}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_BatikLoader {
+
+	/** Directory for test output. */
+	static String OUT_DIR = "target/output-tests/loader/";
+
+	/** The cleaner test document with content added to its hidden layer. */
+	static String CHANGED_SVG = Test_SvgCleaner.SVG.replace("inkscape:label='two' style='display:none'>", "inkscape:label='two' style='display:none'><rect width='1' height='1'/>");
+
+	@Test
+	public void test_SelectRestoreLayers(){
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load("src/test/resources/svg-files/time-interval-based.svgz"));
+		int layers = countLayers(loader);
+		assertEquals(loader.getLayers().size(), layers);
+		assertTrue(layers>1);
+
+		String layer = loader.getLayers().keySet().iterator().next();
+		loader.selectLayer(layer);
+		assertTrue(countLayers(loader) < layers);
+		assertTrue(loader.buildGraphicsNode()!=null);
+
+		loader.restoreLayers();
+		assertEquals(layers, countLayers(loader));
+	}
+
+	@Test
+	public void test_StaticProfile(){
+		BatikLoader loader = new BatikLoader();
+		assertFalse(loader.isDynamic());
+		assertNull(loader.load("src/test/resources/svg-files/time-interval-based.svgz"));
+		assertFalse(loader.getBridgeContext().isDynamic());
+
+		//layer changes after a build must show in the next build without DOM listeners
+		loader.switchOnAllLayers();
+		Rectangle2D all = loader.buildGraphicsNode().getPrimitiveBounds();
+		loader.switchOffAllLayers();
+		GraphicsNode none = loader.buildGraphicsNode();
+		assertTrue(none.getPrimitiveBounds()==null || none.getPrimitiveBounds().getWidth() * none.getPrimitiveBounds().getHeight() < all.getWidth() * all.getHeight());
+		loader.switchOnAllLayers();
+		assertEquals(all, loader.buildGraphicsNode().getPrimitiveBounds());
+	}
+
+	@Test
+	public void test_DynamicProfile(){
+		BatikLoader loader = new BatikLoader();
+		loader.setDynamic(true);
+		assertNull(loader.load("src/test/resources/svg-files/time-interval-based.svgz"));
+		assertTrue(loader.getBridgeContext().isDynamic());
+	}
+
+	@Test
+	public void test_WriteDocument() throws IOException {
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load("src/test/resources/svg-files/rina-ipc.svgz"));
+		loader.selectLayer("dtp");
+
+		new File(OUT_DIR).mkdirs();
+		String fn = OUT_DIR + "dtp.svg";
+		try(OutputStream out = new FileOutputStream(fn)){
+			assertNull(loader.writeDocument(out));
+		}
+		loader.restoreLayers();
+
+		SvgPrescan scan = new SvgPrescan();
+		assertNull(scan.scan(fn));
+		assertEquals(loader.getSize(), scan.getSize());
+		assertEquals(1, scan.getLayerList().size());
+		assertEquals("dtp", scan.getLayerList().get(0).getLabel());
+		assertTrue(scan.getLayerList().get(0).isVisible());
+	}
+
+	@Test(expected=BridgeException.class)
+	public void test_Offline() throws IOException {
+		String fn = writeFixture("remote-image.svg", "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' width='20' height='20'><image xlink:href='http://localhost/image.png' width='20' height='20'/></svg>");
+
+		BatikLoader loader = new BatikLoader();
+		loader.setOffline(true);
+		assertNull(loader.load(fn));
+		loader.buildGraphicsNode();
+	}
+
+	@Test
+	public void test_FilterCache() throws IOException {
+		String fn = writeFixture("filter.svg", "<svg xmlns='http://www.w3.org/2000/svg' xmlns:inkscape='http://www.inkscape.org/namespaces/inkscape' width='100' height='100'>"
+				+ "<defs><filter id='blur'><feGaussianBlur stdDeviation='4'/></filter></defs>"
+				+ "<rect x='10' y='10' width='80' height='80' fill='blue' filter='url(#blur)'/>"
+				+ "<g inkscape:groupmode='layer' id='layer1' inkscape:label='one'><rect width='10' height='10'/></g>"
+				+ "<g inkscape:groupmode='layer' id='layer2' inkscape:label='two'><rect width='20' height='20'/></g>"
+				+ "</svg>");
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		for(String layer : loader.getLayers().keySet()){
+			loader.selectLayer(layer);
+			BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			loader.buildGraphicsNode().paint(g);
+			g.dispose();
+			loader.restoreLayers();
+
+			//blurred blue in the middle of the image
+			assertTrue((image.getRGB(50, 50) & 0xff) > 0);
+		}
+		assertEquals(1, loader.getFilterCache().getMisses());
+		assertEquals(1, loader.getFilterCache().getHits());
+		assertEquals(1, loader.getFilterCache().size());
+	}
+
+	@Test
+	public void test_FilterCacheLayered() throws IOException {
+		String fn = writeFixture("filter-layered.svg", "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' xmlns:inkscape='http://www.inkscape.org/namespaces/inkscape' width='100' height='100'>"
+				+ "<defs><filter id='blur'><feGaussianBlur stdDeviation='2'/></filter></defs>"
+				+ "<g filter='url(#blur)'><use xlink:href='#content'/></g>"
+				+ "<g inkscape:groupmode='layer' id='layer1' inkscape:label='one' style='display:inline'><rect width='10' height='10'/></g>"
+				+ "<g inkscape:groupmode='layer' id='layer2' inkscape:label='two' style='display:inline'><g id='content'><rect x='50' y='50' width='40' height='40' fill='blue'/></g></g>"
+				+ "</svg>");
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		for(String layer : new String[]{"one", "two"}){
+			loader.selectLayer(layer);
+			BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			loader.buildGraphicsNode().paint(g);
+			g.dispose();
+			loader.restoreLayers();
+
+			//blurred blue of the used layer content
+			assertTrue(layer, (image.getRGB(70, 70) & 0xff) > 0);
+		}
+
+		//the filtered element references layer content, so its output is rendered again after layers were switched
+		assertEquals(2, loader.getFilterCache().getMisses());
+		assertEquals(0, loader.getFilterCache().getHits());
+		assertEquals(1, loader.getFilterCache().size());
+	}
+
+	@Test
+	public void test_Clean() throws IOException {
+		String fn = writeFixture("clean.svg", Test_SvgCleaner.SVG);
+
+		BatikLoader loader = new BatikLoader();
+		loader.setClean(true);
+		assertNull(loader.load(fn));
+		assertEquals(3, loader.getCleaner().getElements());
+		assertEquals(2, loader.getLayers().size());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertNull(loader.writeDocument(out));
+		Test_SvgCleaner.assertCleaned(new String(out.toByteArray(), StandardCharsets.UTF_8));
+		assertTrue(loader.buildGraphicsNode()!=null);
+	}
+
+	@Test
+	public void test_Digests() throws IOException {
+		String fn = writeFixture("digests.svg", Test_SvgCleaner.SVG);
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		Map<String, Long> digests = loader.getDigests();
+		assertEquals(3, digests.size());
+		assertTrue(digests.containsKey(""));
+
+		assertFalse(CHANGED_SVG.equals(Test_SvgCleaner.SVG));
+		writeFixture("digests.svg", CHANGED_SVG);
+		loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		Map<String, Long> after = loader.getDigests();
+		assertEquals(digests.get(""), after.get(""));
+		assertEquals(digests.get("one"), after.get("one"));
+		assertFalse(digests.get("two").equals(after.get("two")));
+	}
+
+	@Test
+	public void test_Reset() throws IOException {
+		BatikLoader fresh = new BatikLoader();
+		assertNull(fresh.load("src/test/resources/svg-files/time-interval-based.svgz"));
+		fresh.switchOnAllLayers();
+		Rectangle2D bounds = fresh.buildGraphicsNode().getPrimitiveBounds();
+		Map<String, Long> digests = fresh.getDigests();
+		fresh.reset();
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load("src/test/resources/svg-files/rina-ipc.svgz"));
+		assertTrue(loader.getLayers().containsKey("dtp"));
+		loader.selectLayer("dtp");
+		assertTrue(loader.buildGraphicsNode()!=null);
+		loader.reset();
+		assertFalse(loader.isLoaded());
+		assertEquals(0, loader.getLayers().size());
+		assertNull(loader.getDocument());
+		assertNull(loader.getBridgeContext());
+		assertTrue(BatikObjects.getIdle()>0);
+
+		//a reset loader with pooled objects loads and builds like a new loader
+		long reused = BatikObjects.getReused();
+		assertNull(loader.load("src/test/resources/svg-files/time-interval-based.svgz"));
+		assertEquals(reused + 1, BatikObjects.getReused());
+		assertFalse(loader.getLayers().containsKey("dtp"));
+		assertEquals(digests, loader.getDigests());
+		loader.switchOnAllLayers();
+		assertEquals(bounds, loader.buildGraphicsNode().getPrimitiveBounds());
+		loader.reset();
+
+		//reloading a changed file must not return a cached document
+		String fn = writeFixture("reset.svg", Test_SvgCleaner.SVG);
+		assertNull(loader.load(fn));
+		Map<String, Long> before = loader.getDigests();
+		loader.reset();
+		writeFixture("reset.svg", CHANGED_SVG);
+		assertNull(loader.load(fn));
+		assertFalse(before.get("two").equals(loader.getDigests().get("two")));
+		loader.reset();
+	}
+
+	/**
+	 * Writes an inline test document to the loader output directory.
+	 * @param name file name of the document
+	 * @param svg the document
+	 * @return the path of the written file
+	 * @throws IOException if the file could not be written
+	 */
+	static String writeFixture(String name, String svg) throws IOException {
+		File file = new File(OUT_DIR, name);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), svg.getBytes(StandardCharsets.UTF_8));
+		return file.getPath();
+	}
+
+	/**
+	 * Counts the layer nodes currently in the document of a loader.
+	 * @param loader the loader
+	 * @return number of layer nodes in the document
+	 */
+	static int countLayers(BatikLoader loader){
+		int ret = 0;
+		for(Node node=loader.getDocument().getDocumentElement().getFirstChild(); node!=null; node=node.getNextSibling()){
+			if("g".equals(node.getNodeName()) && BatikLoader.getLabel(node)!=null){
+				ret++;
+			}
+		}
+		return ret;
+	}
+}
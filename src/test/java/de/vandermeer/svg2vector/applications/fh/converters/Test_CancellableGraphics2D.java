@@ -0,0 +1,71 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.base.Deadline;
+import de.vandermeer.svg2vector.applications.base.DeadlineExceededException;
+
+/**
+ * Tests for {@link CancellableGraphics2D}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_CancellableGraphics2D {
+
+	@Test
+	public void test_Cancel(){
+		int[] filled = new int[1];
+		Graphics2D target = new DelegatingGraphics2D(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics()){
+			@Override
+			public void fill(java.awt.Shape s) {
+				filled[0]++;
+			}
+		};
+		Deadline deadline = new Deadline(0);
+		Graphics2D g = new CancellableGraphics2D(target, deadline);
+		g.fill(new Rectangle(1, 1));
+		Graphics2D created = (Graphics2D)g.create();
+		assertEquals(1, filled[0]);
+
+		deadline.cancel();
+		try{
+			g.fill(new Rectangle(1, 1));
+			fail("expected exception for cancelled deadline");
+		}
+		catch(DeadlineExceededException ex){
+			assertEquals("conversion cancelled", ex.getMessage());
+		}
+		try{
+			created.draw(new Rectangle(1, 1));
+			fail("expected exception for cancelled deadline");
+		}
+		catch(DeadlineExceededException ex){
+			assertEquals("conversion cancelled", ex.getMessage());
+		}
+		assertEquals(1, filled[0]);
+	}
+}
@@ -0,0 +1,75 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.batik.gvt.GraphicsNode;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FhMultiConverter}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_FhMultiConverter {
+
+	@Test
+	public void test_ConcurrentSafe() throws IOException {
+		assertTrue(isConcurrentSafe("plain",
+				" <rect x=\"10\" y=\"10\" width=\"20\" height=\"20\" fill=\"red\" stroke=\"blue\"/>\n"
+		));
+		assertFalse(isConcurrentSafe("marker",
+				" <defs><marker id=\"m\" markerWidth=\"10\" markerHeight=\"10\"><text x=\"0\" y=\"5\">x</text></marker></defs>\n" +
+				" <line x1=\"10\" y1=\"10\" x2=\"90\" y2=\"90\" stroke=\"black\" marker-end=\"url(#m)\"/>\n"
+		));
+		assertFalse(isConcurrentSafe("pattern",
+				" <defs><pattern id=\"p\" width=\"10\" height=\"10\" patternUnits=\"userSpaceOnUse\"><rect width=\"5\" height=\"5\"/></pattern></defs>\n" +
+				" <rect x=\"10\" y=\"10\" width=\"50\" height=\"50\" fill=\"url(#p)\"/>\n"
+		));
+		assertFalse(isConcurrentSafe("stroke-pattern",
+				" <defs><pattern id=\"p\" width=\"10\" height=\"10\" patternUnits=\"userSpaceOnUse\"><rect width=\"5\" height=\"5\"/></pattern></defs>\n" +
+				" <rect x=\"10\" y=\"10\" width=\"50\" height=\"50\" fill=\"none\" stroke=\"url(#p)\" stroke-width=\"4\"/>\n"
+		));
+	}
+
+	/**
+	 * Loads a document and tests its graphics node tree.
+	 * @param name the file name
+	 * @param content the content of the document
+	 * @return result of {@link FhMultiConverter#isConcurrentSafe(GraphicsNode)}
+	 * @throws IOException if the document could not be written
+	 */
+	private static boolean isConcurrentSafe(String name, String content) throws IOException {
+		new File("target/output-tests/multi").mkdirs();
+		String fn = "target/output-tests/multi/" + name + ".svg";
+		String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"100\">\n" + content + "</svg>\n";
+		Files.write(new File(fn).toPath(), svg.getBytes(StandardCharsets.UTF_8));
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		return FhMultiConverter.isConcurrentSafe(loader.buildGraphicsNode());
+	}
+}
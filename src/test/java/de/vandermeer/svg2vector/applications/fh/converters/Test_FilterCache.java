@@ -0,0 +1,100 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import org.apache.batik.dom.svg.SVGDOMImplementation;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests for {@link FilterCache}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_FilterCache {
+
+	@Test
+	public void test_Keys(){
+		Document doc = SVGDOMImplementation.getDOMImplementation().createDocument(SVGDOMImplementation.SVG_NAMESPACE_URI, "svg", null);
+		Element e1 = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "rect");
+		Element e2 = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "rect");
+		Rectangle bounds = new Rectangle(0, 0, 10, 10);
+
+		FilterCache cache = new FilterCache(1024);
+		cache.put(new FilterCache.Key(e1, new AffineTransform(), bounds), new FilterCache.Output(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB), 0, 0));
+		assertNotNull(cache.get(new FilterCache.Key(e1, new AffineTransform(), bounds)));
+		assertNull(cache.get(new FilterCache.Key(e2, new AffineTransform(), bounds)));
+		assertNull(cache.get(new FilterCache.Key(e1, AffineTransform.getScaleInstance(2, 2), bounds)));
+		assertNull(cache.get(new FilterCache.Key(e1, new AffineTransform(), new Rectangle(1, 0, 10, 10))));
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	@Test
+	public void test_Bounds(){
+		Document doc = SVGDOMImplementation.getDOMImplementation().createDocument(SVGDOMImplementation.SVG_NAMESPACE_URI, "svg", null);
+		FilterCache cache = new FilterCache(1024);
+		for(int i=0; i<10; i++){
+			Element e = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "rect");
+			cache.put(new FilterCache.Key(e, new AffineTransform(), new Rectangle(0, 0, 8, 8)), new FilterCache.Output(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB), 0, 0));
+		}
+		assertTrue(cache.getBytes() <= 1024);
+		assertEquals(4, cache.size());
+
+		//larger than the cache, never cached
+		Element e = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "rect");
+		cache.put(new FilterCache.Key(e, new AffineTransform(), new Rectangle(0, 0, 20, 20)), new FilterCache.Output(new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB), 0, 0));
+		assertEquals(4, cache.size());
+		assertTrue(cache.accepts(1024));
+		assertFalse(cache.accepts(1025));
+	}
+
+	@Test
+	public void test_Generations(){
+		Document doc = SVGDOMImplementation.getDOMImplementation().createDocument(SVGDOMImplementation.SVG_NAMESPACE_URI, "svg", null);
+		Element e1 = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "rect");
+		Element e2 = doc.createElementNS(SVGDOMImplementation.SVG_NAMESPACE_URI, "g");
+		Rectangle bounds = new Rectangle(0, 0, 4, 4);
+
+		FilterCache cache = new FilterCache(1024);
+		long generation = cache.getGeneration();
+		cache.put(new FilterCache.Key(e1, new AffineTransform(), bounds), new FilterCache.Output(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), 0, 0));
+		cache.put(new FilterCache.Key(e2, new AffineTransform(), bounds, generation), new FilterCache.Output(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), 0, 0));
+		assertEquals(2, cache.size());
+
+		//outputs depending on the layer settings are removed with a new generation, others are kept
+		cache.nextGeneration();
+		assertEquals(generation + 1, cache.getGeneration());
+		assertEquals(1, cache.size());
+		assertEquals(64, cache.getBytes());
+		assertNotNull(cache.get(new FilterCache.Key(e1, new AffineTransform(), bounds)));
+		assertNull(cache.get(new FilterCache.Key(e2, new AffineTransform(), bounds, generation)));
+		assertNull(cache.get(new FilterCache.Key(e2, new AffineTransform(), bounds, cache.getGeneration())));
+	}
+}
@@ -0,0 +1,84 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.font.TextAttribute;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.batik.gvt.font.AWTFontFamily;
+import org.apache.batik.gvt.font.GVTFontFamily;
+import org.apache.batik.gvt.font.UnresolvedFontFamily;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FontCache}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_FontCache {
+
+	@Test
+	public void test_WarmUp(){
+		List<String> missing = FontCache.getInstance().warmUp("Serif", " ", "No Such Font Family For Testing");
+		assertEquals(1, missing.size());
+		assertEquals("No Such Font Family For Testing", missing.get(0));
+	}
+
+	@Test
+	public void test_DerivedFontEviction(){
+		FontCache cache = new FontCache();
+		FontCache.CachingAWTFontFamily family = new FontCache.CachingAWTFontFamily(new AWTFontFamily("Serif").getFontFace(), cache);
+		Map<TextAttribute, Object> attributes = new HashMap<>();
+		attributes.put(TextAttribute.FAMILY, "Serif");
+
+		family.deriveFont(1, attributes);
+		for(int i=1; i<FontCache.MAX_DERIVED_FONTS; i++){
+			family.deriveFont(1 + i, attributes);
+		}
+		assertEquals(0, cache.getFontHits());
+		assertEquals(FontCache.MAX_DERIVED_FONTS, cache.getFontMisses());
+
+		//the first font was used last, so exceeding the maximum drops the second one
+		family.deriveFont(1, attributes);
+		family.deriveFont(FontCache.MAX_DERIVED_FONTS + 1, attributes);
+		family.deriveFont(1, attributes);
+		assertEquals(2, cache.getFontHits());
+		family.deriveFont(2, attributes);
+		assertEquals(2, cache.getFontHits());
+		assertEquals(FontCache.MAX_DERIVED_FONTS + 2, cache.getFontMisses());
+	}
+
+	@Test
+	public void test_SharedFamilyMap(){
+		FontCache cache = FontCache.getInstance();
+		Map<Object, Object> first = cache.newFontFamilyMap();
+		Map<Object, Object> second = cache.newFontFamilyMap();
+
+		GVTFontFamily family = new UnresolvedFontFamily("Serif");
+		first.put("serif 400 normal", family);
+		long hits = cache.getFamilyHits();
+		assertSame(family, second.get("serif 400 normal"));
+		assertTrue(cache.getFamilyHits() > hits);
+	}
+}
@@ -0,0 +1,86 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link GlyphCachingGraphics2D} and {@link GlyphOutlineCache}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_GlyphCachingGraphics2D {
+
+	@Test
+	public void test_SameOutline(){
+		Font font = new Font("Serif", Font.PLAIN, 12);
+		FontRenderContext frc = new FontRenderContext(null, true, true);
+		GlyphVector gv = font.createGlyphVector(frc, "a label, another label");
+
+		GlyphOutlineCache cache = new GlyphOutlineCache(100);
+		Shape[] filled = new Shape[1];
+		Graphics2D target = new DelegatingGraphics2D(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics()){
+			@Override
+			public void fill(Shape s) {
+				filled[0] = s;
+			}
+		};
+		new GlyphCachingGraphics2D(target, cache).drawGlyphVector(gv, 10, 20);
+
+		PathIterator expected = gv.getOutline(10, 20).getPathIterator(null);
+		PathIterator actual = filled[0].getPathIterator(null);
+		double[] ce = new double[6];
+		double[] ca = new double[6];
+		while(!expected.isDone()){
+			assertTrue(!actual.isDone());
+			assertEquals(expected.currentSegment(ce), actual.currentSegment(ca));
+			for(int i=0; i<6; i++){
+				assertEquals(ce[i], ca[i], 0.0001);
+			}
+			expected.next();
+			actual.next();
+		}
+		assertTrue(actual.isDone());
+
+		//"a label, another label" has 11 distinct glyphs in 22 characters
+		assertEquals(11, cache.getMisses());
+		assertEquals(11, cache.getHits());
+	}
+
+	@Test
+	public void test_Bounded(){
+		Font font = new Font("Serif", Font.PLAIN, 12);
+		FontRenderContext frc = new FontRenderContext(null, true, true);
+		GlyphOutlineCache cache = new GlyphOutlineCache(5);
+		for(int i=0; i<20; i++){
+			cache.getOutline(font, frc, i);
+		}
+		assertEquals(5, cache.size());
+	}
+}
@@ -0,0 +1,138 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GraphicsNodeCuller}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_GraphicsNodeCuller {
+
+	/** Document with shapes on the page, off the page, and invisible. */
+	public static final String SVG =
+			"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"100\">\n" +
+			" <rect x=\"10\" y=\"10\" width=\"20\" height=\"20\"/>\n" +
+			" <rect x=\"200\" y=\"10\" width=\"20\" height=\"20\"/>\n" +
+			" <rect x=\"90\" y=\"90\" width=\"20\" height=\"20\"/>\n" +
+			" <g transform=\"translate(-500,0)\">\n" +
+			"  <rect x=\"10\" y=\"10\" width=\"20\" height=\"20\"/>\n" +
+			"  <rect x=\"520\" y=\"50\" width=\"20\" height=\"20\"/>\n" +
+			" </g>\n" +
+			" <rect x=\"50\" y=\"50\" width=\"20\" height=\"20\" opacity=\"0\"/>\n" +
+			" <rect x=\"50\" y=\"10\" width=\"20\" height=\"20\" visibility=\"hidden\"/>\n" +
+			" <line x1=\"-10\" y1=\"100\" x2=\"-1\" y2=\"100\" stroke=\"black\" stroke-width=\"2\"/>\n" +
+			"</svg>\n"
+	;
+
+	@Test
+	public void test_Cull() throws IOException {
+		new File("target/output-tests/culler").mkdirs();
+		String fn = "target/output-tests/culler/cull.svg";
+		Files.write(new File(fn).toPath(), SVG.getBytes(StandardCharsets.UTF_8));
+
+		BatikLoader loader = new BatikLoader();
+		loader.setCull(false);
+		assertNull(loader.load(fn));
+		assertNull(loader.getCuller());
+		GraphicsNode all = loader.buildGraphicsNode();
+		assertEquals(8, countLeaves(all));
+
+		loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		GraphicsNodeCuller culler = loader.getCuller();
+		assertNotNull(culler);
+		GraphicsNode root = loader.buildGraphicsNode();
+		assertEquals(3, countLeaves(root));
+		assertEquals(3, culler.getOffPage());
+		assertEquals(2, culler.getHidden());
+
+		loader.buildGraphicsNode();
+		assertEquals(6, culler.getOffPage());
+		assertEquals(4, culler.getHidden());
+		culler.reset();
+		assertEquals(0, culler.getOffPage());
+		assertEquals(0, culler.getHidden());
+	}
+
+	@Test
+	public void test_Filter() throws IOException {
+		new File("target/output-tests/culler").mkdirs();
+		String fn = "target/output-tests/culler/filter.svg";
+		String svg =
+				"<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"100\">\n" +
+				" <filter id=\"move\" filterUnits=\"userSpaceOnUse\" x=\"-200\" y=\"-200\" width=\"400\" height=\"400\">\n" +
+				"  <feOffset dx=\"150\" dy=\"0\"/>\n" +
+				" </filter>\n" +
+				" <g filter=\"url(#move)\">\n" +
+				"  <rect x=\"-140\" y=\"10\" width=\"20\" height=\"20\"/>\n" +
+				" </g>\n" +
+				"</svg>\n"
+		;
+		Files.write(new File(fn).toPath(), svg.getBytes(StandardCharsets.UTF_8));
+
+		//the rectangle is off the page but moved onto it by the filter of its group
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		GraphicsNode root = loader.buildGraphicsNode();
+		assertEquals(1, countLeaves(root));
+		assertEquals(0, loader.getCuller().getOffPage());
+	}
+
+	@Test
+	public void test_Touches(){
+		Rectangle2D area = new Rectangle2D.Double(0, 0, 100, 100);
+		assertTrue(GraphicsNodeCuller.touches(new Rectangle2D.Double(10, 10, 10, 10), area));
+		assertTrue(GraphicsNodeCuller.touches(new Rectangle2D.Double(-10, 50, 20, 0), area));
+		assertTrue(GraphicsNodeCuller.touches(new Rectangle2D.Double(100, 100, 10, 10), area));
+		assertFalse(GraphicsNodeCuller.touches(new Rectangle2D.Double(-20, 10, 10, 10), area));
+		assertFalse(GraphicsNodeCuller.touches(new Rectangle2D.Double(10, 101, 10, 10), area));
+	}
+
+	/**
+	 * Counts the leaf nodes of a graphics node tree.
+	 * @param node the root node of the tree
+	 * @return number of nodes that are not composite nodes
+	 */
+	static int countLeaves(GraphicsNode node){
+		if(!(node instanceof CompositeGraphicsNode)){
+			return 1;
+		}
+		int ret = 0;
+		for(Object child : (CompositeGraphicsNode)node){
+			ret += countLeaves((GraphicsNode)child);
+		}
+		return ret;
+	}
+}
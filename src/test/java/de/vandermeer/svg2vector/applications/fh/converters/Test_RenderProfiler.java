@@ -0,0 +1,108 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests for {@link RenderProfiler}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_RenderProfiler {
+
+	/** A document with a pattern fill, a filter, and a clip path. */
+	static final String SVG = "<svg xmlns='http://www.w3.org/2000/svg' width='200' height='100'>"
+			+ "<defs>"
+			+ "<pattern id='dots' width='10' height='10' patternUnits='userSpaceOnUse'><circle cx='5' cy='5' r='2' fill='red'/></pattern>"
+			+ "<filter id='blur'><feGaussianBlur stdDeviation='2'/></filter>"
+			+ "<clipPath id='half'><rect width='100' height='100'/></clipPath>"
+			+ "</defs>"
+			+ "<rect id='patterned' width='50' height='50' fill='url(#dots)'/>"
+			+ "<circle id='blurred' cx='100' cy='50' r='20' fill='blue' filter='url(#blur)'/>"
+			+ "<g clip-path='url(#half)'><path d='M0,0 L200,100 L0,100 Z' fill='green'/><text x='10' y='90'>label</text></g>"
+			+ "</svg>";
+
+	@Test
+	public void test_Profile(){
+		RenderProfiler profiler = new RenderProfiler(3);
+		BatikLoader loader = new BatikLoader();
+		loader.setProfiler(profiler);
+		assertNull(loader.load(new File("profile.svg").toURI().toString(), new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8))));
+
+		Fh_Svg2Pdf converter = new Fh_Svg2Pdf();
+		converter.setProfiler(profiler);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertNull(converter.convertDocument(loader, out));
+
+		List<RenderProfiler.Profile> profiles = profiler.takeProfiles();
+		assertEquals(1, profiles.size());
+		assertTrue(profiler.takeProfiles().isEmpty());
+		RenderProfiler.Profile profile = profiles.get(0);
+		assertEquals("pdf", profile.getName());
+		assertEquals(out.size(), profile.getBytes());
+
+		Set<String> types = new HashSet<>();
+		long nanos = 0;
+		for(RenderProfiler.Cost cost : profile.getTypes()){
+			types.add(cost.getName());
+			nanos += cost.getNanos();
+		}
+		assertTrue(types.toString(), types.contains("rect+pattern"));
+		assertTrue(types.toString(), types.contains(RenderProfiler.TYPE_FILTER));
+		assertTrue(types.toString(), types.contains(RenderProfiler.TYPE_CLIP));
+		assertTrue(types.toString(), types.contains("path"));
+		assertTrue(types.toString(), types.contains("text"));
+		assertTrue(types.toString(), types.contains(RenderProfiler.TYPE_EXPORT));
+		assertTrue(nanos<=profile.getNanos());
+
+		List<RenderProfiler.Cost> elements = profile.getElements(3);
+		assertEquals(3, elements.size());
+		assertTrue(elements.get(0).getNanos()>=elements.get(2).getNanos());
+		assertTrue(profile.getReport(3).contains("(unattributed)"));
+
+		//without a running profile, instrumented trees paint as before
+		assertNull(new Fh_Svg2Pdf().convertDocument(loader, new ByteArrayOutputStream()));
+		assertTrue(profiler.takeProfiles().isEmpty());
+	}
+
+	@Test
+	public void test_Label(){
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(new File("profile.svg").toURI().toString(), new ByteArrayInputStream(SVG.getBytes(StandardCharsets.UTF_8))));
+		Document doc = loader.getDocument();
+		assertEquals("#patterned", RenderProfiler.getLabel(doc.getElementById("patterned")));
+		Element g = (Element)doc.getDocumentElement().getLastChild();
+		assertEquals("/svg[1]/g[1]/path[1]", RenderProfiler.getLabel((Element)g.getFirstChild()));
+		assertEquals("#dots/circle[1]", RenderProfiler.getLabel((Element)doc.getElementById("dots").getFirstChild()));
+	}
+}
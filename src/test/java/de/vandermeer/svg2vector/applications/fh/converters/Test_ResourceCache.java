@@ -0,0 +1,111 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ResourceCache}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ResourceCache {
+
+	@Test
+	public void test_HitsAndChanges() throws IOException {
+		File file = write("target/output-tests/resources/style.css", "rect { fill: red; }");
+		ResourceCache cache = new ResourceCache(1024);
+
+		assertEquals("rect { fill: red; }", read(cache, file));
+		assertEquals("rect { fill: red; }", read(cache, file));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.size());
+
+		//a changed file must be read again
+		write(file.getPath(), "rect { fill: blue; stroke: none; }");
+		file.setLastModified(file.lastModified() + 2000);
+		assertEquals("rect { fill: blue; stroke: none; }", read(cache, file));
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void test_Bounds() throws IOException {
+		ResourceCache cache = new ResourceCache(1024);
+		for(int i=0; i<10; i++){
+			read(cache, write("target/output-tests/resources/r" + i + ".txt", new String(new char[200]).replace('\0', 'x')));
+		}
+		assertTrue(cache.getBytes() <= 1024);
+		assertEquals(5, cache.size());
+
+		//larger than a quarter of the cache, never cached
+		read(cache, write("target/output-tests/resources/large.txt", new String(new char[300]).replace('\0', 'x')));
+		assertEquals(5, cache.size());
+	}
+
+	@Test
+	public void test_LinkedImage() throws IOException {
+		new File("target/output-tests/resources").mkdirs();
+		ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), "png", new File("target/output-tests/resources/linked.png"));
+		write("target/output-tests/resources/linked.svg", "<svg xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink' width='20' height='20'><image xlink:href='linked.png' width='20' height='20'/></svg>");
+
+		ResourceCache.getInstance().clear();
+		long misses = ResourceCache.getInstance().getMisses();
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load("target/output-tests/resources/linked.svg"));
+		loader.buildGraphicsNode();
+		assertTrue(ResourceCache.getInstance().getMisses() > misses);
+		assertTrue(ResourceCache.getInstance().size() > 0);
+	}
+
+	static File write(String fn, String content) throws IOException {
+		File file = new File(fn);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	static String read(ResourceCache cache, File file) throws IOException {
+		try(InputStream in = cache.open(file)){
+			byte[] buf = new byte[(int)file.length()];
+			int n = 0;
+			while(n<buf.length){
+				int r = in.read(buf, n, buf.length - n);
+				if(r<0){
+					break;
+				}
+				n += r;
+			}
+			return new String(buf, 0, n, StandardCharsets.UTF_8);
+		}
+	}
+}
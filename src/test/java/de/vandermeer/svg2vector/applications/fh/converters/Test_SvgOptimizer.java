@@ -0,0 +1,109 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.fh.converters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SvgOptimizer}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_SvgOptimizer {
+
+	/** Document with invisible shapes, an identity transform, and paths to merge. */
+	public static final String SVG =
+			"<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:inkscape=\"http://www.inkscape.org/namespaces/inkscape\" width=\"100\" height=\"100\">\n" +
+			" <g inkscape:groupmode=\"layer\" id=\"layer1\" inkscape:label=\"one\">\n" +
+			"  <rect x=\"0\" y=\"0\" width=\"10\" height=\"10\" style=\"display:none\"/>\n" +
+			"  <path d=\"M 5,5 L 5.01,5.01\" style=\"fill:#000000\"/>\n" +
+			"  <g transform=\"translate(0,0)\">\n" +
+			"   <path d=\"M 10,10 L 50,50\" style=\"fill:none;stroke:#000000\"/>\n" +
+			"   <path d=\"m 10,50 40,-40\" style=\"fill:none;stroke:#000000\"/>\n" +
+			"  </g>\n" +
+			"  <path id=\"pinned\" d=\"M 60,60 L 70,70\" style=\"fill:none;stroke:#000000\"/>\n" +
+			"  <path d=\"M 0,80 h 20 v 20 h -20 z\" fill=\"red\"/>\n" +
+			"  <path d=\"M 10,80 h 20 v 20 h -20 z\" fill=\"red\"/>\n" +
+			"  <path d=\"M 50,80 h 10 v 10 h -10 z\" fill=\"red\"/>\n" +
+			" </g>\n" +
+			" <g inkscape:groupmode=\"layer\" id=\"layer2\" inkscape:label=\"two\" style=\"display:none\">\n" +
+			"  <use xlink:href=\"#pinned\"/>\n" +
+			" </g>\n" +
+			"</svg>\n"
+	;
+
+	@Test
+	public void test_Optimize() throws IOException {
+		new File("target/output-tests/optimizer").mkdirs();
+		String fn = "target/output-tests/optimizer/optimize.svg";
+		Files.write(new File(fn).toPath(), SVG.getBytes(StandardCharsets.UTF_8));
+
+		BatikLoader loader = new BatikLoader();
+		assertNull(loader.load(fn));
+		assertNull(loader.getOptimizer());
+
+		loader = new BatikLoader();
+		loader.setOptimize(0.1);
+		assertNull(loader.load(fn));
+		SvgOptimizer optimizer = loader.getOptimizer();
+		assertNotNull(optimizer);
+		assertEquals(13, optimizer.getElementsBefore());
+		assertEquals(8, optimizer.getElementsAfter());
+		assertEquals(2, optimizer.getDropped());
+		assertEquals(2, optimizer.getMerged());
+		assertEquals(2, optimizer.getFlattened());
+		assertEquals(2, loader.getLayers().size());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertNull(loader.writeDocument(out));
+		String svg = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertFalse(svg.contains("display:none\"/>"));
+		assertFalse(svg.contains("5.01"));
+		assertFalse(svg.contains("translate"));
+		assertTrue(svg.contains("M 10,10 L 50,50 M 10,50 l 40,-40"));
+		assertTrue(svg.contains("id=\"pinned\""));
+		assertTrue(svg.contains("M 0,80 h 20 v 20 h -20 z\""));
+		assertTrue(svg.contains("M 10,80 h 20 v 20 h -20 z M 50,80 h 10 v 10 h -10 z"));
+		assertTrue(svg.contains("id=\"layer2\""));
+		assertTrue(loader.buildGraphicsNode()!=null);
+
+		loader = new BatikLoader();
+		loader.setOptimize(-1.0);
+		assertNotNull(loader.load(fn));
+	}
+
+	@Test
+	public void test_AbsoluteStart(){
+		assertEquals("M 1,2 l 3 4", SvgOptimizer.toAbsoluteStart("m 1 2 3 4"));
+		assertEquals("M 1,-2 z", SvgOptimizer.toAbsoluteStart("m1-2z"));
+		assertEquals("M 1.5,2 L 3,4", SvgOptimizer.toAbsoluteStart(" m 1.5,2 L 3,4"));
+		assertEquals("M 1 2 l 3 4", SvgOptimizer.toAbsoluteStart("M 1 2 l 3 4"));
+	}
+}
@@ -0,0 +1,80 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.applications.info;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * Simple tests for Svg2Vector_Info.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_Svg2Vector_Info {
+
+	/** Prefix for tests that create output. */
+	static String OUT_DIR_PREFIX = "target/output-tests/s2v-info/";
+
+	@Test
+	public void test_AddedOptions(){
+		Svg2Vector_Info app = new Svg2Vector_Info();
+		assertEquals(2, app.getAppOptions().length);
+	}
+
+	@Test
+	public void test_Error_AllMissingOptions(){
+		Svg2Vector_Info app = new Svg2Vector_Info();
+		String[] args = new String[]{
+				""
+		};
+		assertEquals(-1, app.executeApplication(args));
+	}
+
+	@Test
+	public void test_Error_NoFile(){
+		Svg2Vector_Info app = new Svg2Vector_Info();
+		String[] args = new String[]{
+				"-f", "src/test/resources/svg-files/does-not-exist.svgz"
+		};
+		assertEquals(-11, app.executeApplication(args));
+	}
+
+	@Test
+	public void test_Layers() throws IOException {
+		new File(OUT_DIR_PREFIX).mkdirs();
+		Svg2Vector_Info app = new Svg2Vector_Info();
+		String[] args = new String[]{
+				"-f", "src/test/resources/svg-files/time-interval-based.svgz",
+				"-o", OUT_DIR_PREFIX + "time-interval-based.json"
+		};
+		assertEquals(0, app.executeApplication(args));
+		assertTrue(app.getPrescan().getLayerList().size()>1);
+
+		String json = new String(Files.readAllBytes(new File(OUT_DIR_PREFIX + "time-interval-based.json").toPath()), StandardCharsets.UTF_8);
+		for(String label : app.getPrescan().getLayers().keySet()){
+			assertTrue(json.contains("\"label\": \"" + label + "\""));
+		}
+	}
+}
@@ -60,7 +60,7 @@ public class Test_Svg2Vector_IS {
 	@Test
 	public void test_AddedOptions(){
 		Svg2Vector_IS app = new Svg2Vector_IS();
-		assertEquals(28, app.getAppOptions().length);
+		assertEquals(39, app.getAppOptions().length);
 	}
 
 	@Test
@@ -0,0 +1,116 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
+/**
+ * Tests for {@link AssetConverter}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_AssetConverter {
+
+	@Test
+	public void test_Incremental() throws IOException {
+		Path dir = Paths.get("target/output-tests/service/assets");
+		Path in = dir.resolve("in");
+		Path out = dir.resolve("out");
+		Path state = dir.resolve("state.properties");
+		Files.createDirectories(in);
+		Files.deleteIfExists(state);
+		Files.copy(Paths.get("src/test/resources/svg-files/simple.svg"), in.resolve("a.svg"), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(Paths.get("src/test/resources/svg-files/simple.svg"), in.resolve("b.svg"), StandardCopyOption.REPLACE_EXISTING);
+
+		AssetConverter converter = new AssetConverter(new Svg2VectorService(), state);
+		List<ConversionResult> results = converter.convert(this.requests(in, out, false));
+		assertEquals(2, results.size());
+		assertNull(results.get(0).getError());
+		assertNull(results.get(1).getError());
+		assertEquals(0, converter.getSkipped().size());
+		assertTrue(Files.isRegularFile(state));
+
+		// nothing changed
+		results = new AssetConverter(new Svg2VectorService(), state).convert(this.requests(in, out, false));
+		assertEquals(0, results.size());
+
+		// changed input, removed output, changed options
+		Files.write(in.resolve("a.svg"), new String(Files.readAllBytes(in.resolve("a.svg")), "UTF-8").replace("</svg>", "<!-- changed --></svg>").getBytes("UTF-8"));
+		results = converter.convert(this.requests(in, out, false));
+		assertEquals(1, results.size());
+		assertEquals("a", results.get(0).getRequest().getName());
+		assertEquals("b", converter.getSkipped().get(0).getName());
+
+		Files.delete(out.resolve("b.pdf"));
+		results = converter.convert(this.requests(in, out, false));
+		assertEquals(1, results.size());
+		assertEquals("b", results.get(0).getRequest().getName());
+
+		results = converter.convert(this.requests(in, out, true));
+		assertEquals(2, results.size());
+		assertEquals(0, converter.getSkipped().size());
+	}
+
+	@Test
+	public void test_Failed() throws IOException {
+		Path dir = Paths.get("target/output-tests/service/assets-failed");
+		Path state = dir.resolve("state.properties");
+		Files.createDirectories(dir);
+		Files.deleteIfExists(state);
+		Files.write(dir.resolve("broken.svg"), "<svg".getBytes("UTF-8"));
+
+		List<ConversionRequest> requests = new ArrayList<>();
+		requests.add(ConversionRequest.forFile(dir.resolve("broken.svg").toFile(), SvgTargets.pdf).outputDirectory(dir).build());
+		AssetConverter converter = new AssetConverter(new Svg2VectorService(), state);
+		assertFalse(converter.convert(requests).get(0).isSuccess());
+
+		// failed conversions are tried again
+		assertEquals(1, converter.convert(requests).size());
+	}
+
+	/**
+	 * Returns requests for all files of a directory.
+	 * @param in input directory
+	 * @param out output directory
+	 * @param clean clean flag
+	 * @return requests
+	 */
+	private List<ConversionRequest> requests(Path in, Path out, boolean clean){
+		List<ConversionRequest> ret = new ArrayList<>();
+		for(String name : new String[]{"a.svg", "b.svg"}){
+			ret.add(ConversionRequest.forFile(new File(in.toFile(), name), SvgTargets.pdf).clean(clean).outputDirectory(out).build());
+		}
+		return ret;
+	}
+}
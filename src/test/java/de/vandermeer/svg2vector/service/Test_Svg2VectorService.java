@@ -0,0 +1,164 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.vandermeer.svg2vector.applications.base.ConversionStats;
+import de.vandermeer.svg2vector.applications.base.LayerFilter;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+
+/**
+ * Tests for {@link Svg2VectorService}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_Svg2VectorService {
+
+	@Test
+	public void test_Bytes() throws IOException {
+		byte[] svg = Files.readAllBytes(Paths.get("src/test/resources/svg-files/simple.svg"));
+		ConversionResult result = new Svg2VectorService().convert(ConversionRequest.forBytes(svg, "simple", SvgTargets.pdf).build());
+		assertNull(result.getError());
+		assertTrue(result.isSuccess());
+		assertEquals(1, result.getOutputs().size());
+		assertEquals(0, result.getPaths().size());
+		assertTrue(new String(result.getOutputs().get("simple.pdf"), 0, 4, StandardCharsets.US_ASCII).equals("%PDF"));
+		assertTrue(result.getDiagnostics().contains("wrote output simple.pdf, " + result.getOutputs().get("simple.pdf").length + " bytes"));
+	}
+
+	@Test
+	public void test_Layers(){
+		Path dir = Paths.get("target/output-tests/service/layers");
+		ConversionRequest request = ConversionRequest.forFile(new File("src/test/resources/svg-files/rina-ipc.svgz"), SvgTargets.svg)
+				.layers(true)
+				.layerFilter(new LayerFilter(LayerFilter.parsePattern("^d"), null, null, null))
+				.outputDirectory(dir)
+				.build();
+		ConversionResult result = new Svg2VectorService().convert(request);
+		assertNull(result.getError());
+		assertEquals(0, result.getOutputs().size());
+		assertEquals(2, result.getPaths().size());
+		assertTrue(result.getPaths().containsKey("rina-ipc-dtp.svg"));
+		assertTrue(result.getPaths().containsKey("rina-ipc-dtcp.svg"));
+		assertTrue(new File(dir.toFile(), "rina-ipc-dtp.svg").length()>0);
+	}
+
+	@Test
+	public void test_LayerNames(){
+		byte[] svg = ("<svg xmlns='http://www.w3.org/2000/svg' xmlns:inkscape='http://www.inkscape.org/namespaces/inkscape' width='100' height='100'>"
+				+ "<g inkscape:groupmode='layer' id='layer1' inkscape:label='../up' style='display:inline'><rect width='10' height='10'/></g>"
+				+ "<g inkscape:groupmode='layer' id='layer2' inkscape:label='a/b' style='display:inline'><rect width='20' height='20'/></g>"
+				+ "</svg>").getBytes(StandardCharsets.UTF_8);
+		Path dir = Paths.get("target/output-tests/service/layer-names");
+		ConversionResult result = new Svg2VectorService().convert(ConversionRequest.forBytes(svg, "doc", SvgTargets.pdf).layers(true).outputDirectory(dir).build());
+		assertNull(result.getError());
+		assertEquals(2, result.getPaths().size());
+		assertEquals(dir.resolve("doc-.._up.pdf"), result.getPaths().get("doc-.._up.pdf"));
+		assertEquals(dir.resolve("doc-a_b.pdf"), result.getPaths().get("doc-a_b.pdf"));
+		assertTrue(new File(dir.toFile(), "doc-.._up.pdf").length()>0);
+
+		//names resolving outside the output directory are rejected
+		result = new Svg2VectorService().convert(ConversionRequest.forBytes(svg, "../escaped", SvgTargets.pdf).outputDirectory(dir).build());
+		assertTrue(result.getError(), result.getError().startsWith("output <../escaped.pdf> is not in output directory"));
+		assertFalse(new File(dir.toFile().getParentFile(), "escaped.pdf").exists());
+	}
+
+	@Test
+	public void test_Concurrent() throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			Svg2VectorService service = new Svg2VectorService(executor);
+			List<ConversionRequest> requests = new ArrayList<>();
+			for(int i=0; i<8; i++){
+				String fn = (i%2==0)?"time-interval-based.svgz":"chomsky-hierarchy.svgz";
+				requests.add(ConversionRequest.forFile(new File("src/test/resources/svg-files/" + fn), (i%4<2)?SvgTargets.pdf:SvgTargets.emf).name("out" + i).build());
+			}
+
+			List<CompletableFuture<ConversionResult>> futures = service.submitAll(requests);
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+			for(int i=0; i<futures.size(); i++){
+				ConversionResult result = futures.get(i).get();
+				assertNull(result.getError());
+				assertEquals(requests.get(i), result.getRequest());
+				byte[] out = result.getOutputs().get("out" + i + "." + requests.get(i).getTarget().name());
+				assertNotNull(out);
+				assertEquals(futures.get(i % 4).get().getOutputs().values().iterator().next().length, out.length);
+			}
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void test_CancelQueued() throws InterruptedException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch latch = new CountDownLatch(1);
+		try{
+			executor.execute(() -> {
+				try{
+					latch.await();
+				}
+				catch(InterruptedException ignore){}
+			});
+			int queued = ConversionStats.getInstance().getQueuedConversions();
+			CompletableFuture<ConversionResult> future = new Svg2VectorService(executor).submit(ConversionRequest.forFile(new File("target/output-tests/service/missing.svg"), SvgTargets.pdf).build());
+			assertEquals(queued + 1, ConversionStats.getInstance().getQueuedConversions());
+			assertTrue(future.cancel(true));
+			assertEquals(queued, ConversionStats.getInstance().getQueuedConversions());
+			latch.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(queued, ConversionStats.getInstance().getQueuedConversions());
+		}
+		finally{
+			latch.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void test_Error() throws InterruptedException, ExecutionException {
+		ConversionResult result = new Svg2VectorService().submit(ConversionRequest.forFile(new File("target/output-tests/service/missing.svg"), SvgTargets.pdf).build()).get();
+		assertFalse(result.isSuccess());
+		assertNotNull(result.getError());
+		assertEquals(0, result.getOutputs().size());
+	}
+}
@@ -0,0 +1,339 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.maven;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import de.vandermeer.svg2vector.applications.base.LayerFilter;
+import de.vandermeer.svg2vector.applications.base.SvgTargets;
+import de.vandermeer.svg2vector.applications.fh.Svg2Vector_FH;
+import de.vandermeer.svg2vector.service.AssetConverter;
+import de.vandermeer.svg2vector.service.ConversionRequest;
+import de.vandermeer.svg2vector.service.ConversionResult;
+import de.vandermeer.svg2vector.service.Svg2VectorService;
+
+/**
+ * Converts SVG files of a project in-process, in parallel, and incrementally.
+ * The goal scans the source directories, converts all files in parallel with a given number of threads,
+ * and skips files whose content, options, and outputs did not change since the last build.
+ * In an IDE with incremental build support, source directories without changes are not scanned at all,
+ * outputs are refreshed in the workspace, and failed conversions are shown as errors on the input file.
+ *
+ * @goal convert
+ * @phase generate-resources
+ * @threadSafe
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class ConvertMojo extends AbstractMojo {
+
+	/**
+	 * Directories with SVG files, default is src/main/svg.
+	 * @parameter
+	 */
+	protected File[] sourceDirectories;
+
+	/**
+	 * The project base directory.
+	 * @parameter default-value="${basedir}"
+	 * @readonly
+	 */
+	protected File basedir;
+
+	/**
+	 * Patterns of files to convert, relative to a source directory, default is all SVG and SVGZ files.
+	 * @parameter
+	 */
+	protected String[] includes;
+
+	/**
+	 * Patterns of files not to convert, relative to a source directory.
+	 * @parameter
+	 */
+	protected String[] excludes;
+
+	/**
+	 * Directory to write outputs to, the directory structure of the source directories is kept.
+	 * @parameter property="svg2vector.outputDirectory" default-value="${project.build.directory}/generated-resources/svg2vector"
+	 */
+	protected File outputDirectory;
+
+	/**
+	 * The conversion target, one of the targets of s2v-fh.
+	 * @parameter property="svg2vector.target" default-value="pdf"
+	 */
+	protected String target;
+
+	/**
+	 * Number of parallel conversions, 0 for one per processor.
+	 * @parameter property="svg2vector.threads" default-value="0"
+	 */
+	protected int threads;
+
+	/**
+	 * State file of the last conversions, used to skip files that are up to date.
+	 * @parameter default-value="${project.build.directory}/svg2vector-maven-plugin/state.properties"
+	 */
+	protected File stateFile;
+
+	/**
+	 * Convert each layer to its own output.
+	 * @parameter default-value="false"
+	 */
+	protected boolean layers;
+
+	/**
+	 * Pattern of layer labels to convert, for one output per layer.
+	 * @parameter
+	 */
+	protected String layersInclude;
+
+	/**
+	 * Pattern of layer labels not to convert, for one output per layer.
+	 * @parameter
+	 */
+	protected String layersExclude;
+
+	/**
+	 * Switch on all layers for a single output.
+	 * @parameter default-value="false"
+	 */
+	protected boolean switchOnAllLayers;
+
+	/**
+	 * Use transparency.
+	 * @parameter default-value="true"
+	 */
+	protected boolean transparent;
+
+	/**
+	 * Use a background.
+	 * @parameter default-value="true"
+	 */
+	protected boolean background;
+
+	/**
+	 * Background color as hex RGB value, e.g. #ffffff, empty for the converter default.
+	 * @parameter
+	 */
+	protected String backgroundColor;
+
+	/**
+	 * Use clipping.
+	 * @parameter default-value="false"
+	 */
+	protected boolean clip;
+
+	/**
+	 * Convert text to shapes.
+	 * @parameter default-value="false"
+	 */
+	protected boolean textAsShapes;
+
+	/**
+	 * Load only local resources.
+	 * @parameter default-value="false"
+	 */
+	protected boolean offline;
+
+	/**
+	 * Remove editor content and unreferenced definitions.
+	 * @parameter default-value="false"
+	 */
+	protected boolean clean;
+
+	/**
+	 * Tolerance in user units for optimizing the geometry, empty for no optimization.
+	 * @parameter
+	 */
+	protected Double optimize;
+
+	/**
+	 * Do not paint nodes outside the page and invisible nodes.
+	 * @parameter default-value="true"
+	 */
+	protected boolean cull;
+
+	/**
+	 * Fail the build if a conversion failed.
+	 * @parameter property="svg2vector.failOnError" default-value="true"
+	 */
+	protected boolean failOnError;
+
+	/**
+	 * Skip the conversion.
+	 * @parameter property="svg2vector.skip" default-value="false"
+	 */
+	protected boolean skip;
+
+	/**
+	 * Build context for incremental builds.
+	 * @component
+	 */
+	protected BuildContext buildContext;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		if(this.skip){
+			this.getLog().info("skipping SVG conversion");
+			return;
+		}
+		SvgTargets svgTarget = this.getTarget();
+
+		List<ConversionRequest> requests = new ArrayList<>();
+		for(File dir : this.getSourceDirectories()){
+			if(!dir.isDirectory()){
+				this.getLog().debug("source directory <" + dir + "> does not exist");
+				continue;
+			}
+			if(this.buildContext.isIncremental() && !this.buildContext.hasDelta(dir)){
+				this.getLog().debug("no changes in source directory <" + dir + ">");
+				continue;
+			}
+			Scanner scanner = this.buildContext.newScanner(dir, true);
+			scanner.setIncludes((this.includes==null || this.includes.length==0)?new String[]{"**/*.svg", "**/*.svgz"}:this.includes);
+			scanner.setExcludes(this.excludes);
+			scanner.scan();
+			for(String fn : scanner.getIncludedFiles()){
+				requests.add(this.getRequest(new File(dir, fn), svgTarget, new File(this.outputDirectory, fn).getParentFile().toPath()));
+			}
+		}
+		if(requests.size()==0){
+			this.getLog().info("no SVG files to convert");
+			return;
+		}
+
+		int nThreads = (this.threads>0)?this.threads:Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		List<ConversionResult> results;
+		AssetConverter converter = new AssetConverter(new Svg2VectorService(executor), this.stateFile.toPath());
+		try{
+			results = converter.convert(requests);
+		}
+		catch(IOException ex){
+			throw new MojoExecutionException("cannot write state file <" + this.stateFile + ">", ex);
+		}
+		finally{
+			executor.shutdown();
+		}
+
+		int failed = 0;
+		for(ConversionResult result : results){
+			File input = result.getRequest().getInput();
+			this.buildContext.removeMessages(input);
+			for(String msg : result.getDiagnostics()){
+				this.getLog().debug(input.getName() + ": " + msg);
+			}
+			if(result.isSuccess()){
+				for(Path path : result.getPaths().values()){
+					this.buildContext.refresh(path.toFile());
+				}
+			}
+			else{
+				failed++;
+				this.getLog().error(input + ": " + result.getError());
+				this.buildContext.addMessage(input, 0, 0, result.getError(), BuildContext.SEVERITY_ERROR, null);
+			}
+		}
+		this.getLog().info("converted " + (results.size() - failed) + " SVG file(s) to " + svgTarget.name() + " with " + nThreads + " thread(s), " + converter.getSkipped().size() + " up to date, " + failed + " failed");
+		if(failed>0 && this.failOnError){
+			throw new MojoFailureException("conversion failed for " + failed + " SVG file(s)");
+		}
+	}
+
+	/**
+	 * Returns the source directories.
+	 * @return configured directories, src/main/svg if none configured
+	 */
+	protected File[] getSourceDirectories(){
+		if(this.sourceDirectories==null || this.sourceDirectories.length==0){
+			return new File[]{new File(this.basedir, "src/main/svg")};
+		}
+		return this.sourceDirectories;
+	}
+
+	/**
+	 * Returns the target.
+	 * @return target
+	 * @throws MojoExecutionException if the target is not supported
+	 */
+	protected SvgTargets getTarget() throws MojoExecutionException {
+		for(SvgTargets t : SvgTargets.values()){
+			if(t.name().equals(this.target) && Svg2Vector_FH.TARGET_2_CONVERTER(t)!=null){
+				return t;
+			}
+		}
+		throw new MojoExecutionException("target <" + this.target + "> not supported");
+	}
+
+	/**
+	 * Returns the request for a file.
+	 * @param input the input file
+	 * @param svgTarget the target
+	 * @param output the output directory
+	 * @return request
+	 * @throws MojoExecutionException if an option is not valid
+	 */
+	protected ConversionRequest getRequest(File input, SvgTargets svgTarget, Path output) throws MojoExecutionException {
+		try{
+			ConversionRequest.Builder builder = ConversionRequest.forFile(input, svgTarget)
+					.layers(this.layers)
+					.switchOnAllLayers(this.switchOnAllLayers)
+					.transparent(this.transparent)
+					.background(this.background)
+					.clip(this.clip)
+					.textAsShapes(this.textAsShapes)
+					.offline(this.offline)
+					.clean(this.clean)
+					.optimize(this.optimize)
+					.cull(this.cull)
+					.outputDirectory(output)
+			;
+			if(!StringUtils.isBlank(this.layersInclude) || !StringUtils.isBlank(this.layersExclude)){
+				Pattern include = LayerFilter.parsePattern(this.layersInclude);
+				Pattern exclude = LayerFilter.parsePattern(this.layersExclude);
+				if((include==null && !StringUtils.isBlank(this.layersInclude)) || (exclude==null && !StringUtils.isBlank(this.layersExclude))){
+					throw new MojoExecutionException("layer pattern not valid, use a regular expression");
+				}
+				builder.layerFilter(new LayerFilter(include, exclude, null, null));
+			}
+			if(!StringUtils.isBlank(this.backgroundColor)){
+				builder.backgroundColor(Color.decode(this.backgroundColor.trim()));
+			}
+			return builder.build();
+		}
+		catch(IllegalArgumentException ex){
+			throw new MojoExecutionException("invalid option for <" + input + ">: " + ex.getMessage(), ex);
+		}
+	}
+}
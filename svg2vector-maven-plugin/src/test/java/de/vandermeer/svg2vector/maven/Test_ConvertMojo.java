@@ -0,0 +1,152 @@
+/* Copyright 2017 Sven van der Meer <vdmeer.sven@mykolab.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.vandermeer.svg2vector.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Test;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+/**
+ * Tests for {@link ConvertMojo}.
+ *
+ * @author     Sven van der Meer &lt;vdmeer.sven@mykolab.com&gt;
+ * @version    v2.0.0 build 170413 (13-Apr-17) for Java 1.8
+ * @since      v2.1.0
+ */
+public class Test_ConvertMojo {
+
+	/** A simple SVG document. */
+	static final String SVG = "<svg xmlns='http://www.w3.org/2000/svg' width='100' height='100'><rect width='50' height='50' fill='blue'/></svg>";
+
+	@Test
+	public void test_Convert() throws Exception {
+		File base = this.createProject("convert");
+		this.write(new File(base, "src/main/svg/a.svg"), SVG);
+		this.write(new File(base, "src/main/svg/sub/b.svg"), SVG);
+
+		ConvertMojo mojo = this.getMojo(base);
+		mojo.execute();
+		File a = new File(mojo.outputDirectory, "a.pdf");
+		File b = new File(mojo.outputDirectory, "sub/b.pdf");
+		assertTrue(a.length()>0);
+		assertTrue(b.length()>0);
+		assertTrue(mojo.stateFile.exists());
+
+		//nothing changed, outputs are not written again
+		long modified = a.lastModified();
+		Thread.sleep(20);
+		this.getMojo(base).execute();
+		assertEquals(modified, a.lastModified());
+	}
+
+	@Test
+	public void test_Failure() throws Exception {
+		File base = this.createProject("failure");
+		this.write(new File(base, "src/main/svg/broken.svg"), "<svg");
+
+		ConvertMojo mojo = this.getMojo(base);
+		try{
+			mojo.execute();
+			fail("expected failure for broken SVG file");
+		}
+		catch(MojoFailureException ex){
+			assertEquals("conversion failed for 1 SVG file(s)", ex.getMessage());
+		}
+
+		mojo = this.getMojo(base);
+		mojo.failOnError = false;
+		mojo.execute();
+		assertFalse(new File(mojo.outputDirectory, "broken.pdf").exists());
+	}
+
+	@Test
+	public void test_Options() throws Exception {
+		File base = this.createProject("options");
+		this.write(new File(base, "src/main/svg/a.svg"), SVG);
+
+		ConvertMojo mojo = this.getMojo(base);
+		mojo.target = "foo";
+		try{
+			mojo.execute();
+			fail("expected exception for unsupported target");
+		}
+		catch(MojoExecutionException ex){
+			assertEquals("target <foo> not supported", ex.getMessage());
+		}
+
+		mojo = this.getMojo(base);
+		mojo.skip = true;
+		mojo.execute();
+		assertFalse(mojo.outputDirectory.exists());
+	}
+
+	/**
+	 * Creates an empty project directory.
+	 * @param name name of the project
+	 * @return project base directory
+	 * @throws IOException if the directory could not be emptied
+	 */
+	private File createProject(String name) throws IOException {
+		File base = new File("target/output-tests/mojo/" + name);
+		if(base.exists()){
+			Files.walk(base.toPath()).sorted((p1, p2) -> p2.compareTo(p1)).forEach(p -> p.toFile().delete());
+		}
+		base.mkdirs();
+		return base;
+	}
+
+	/**
+	 * Writes a file, creating its directory.
+	 * @param file the file
+	 * @param content the content
+	 * @throws IOException if the file could not be written
+	 */
+	private void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns a mojo for a project, with the defaults of the plugin descriptor.
+	 * @param base the project base directory
+	 * @return mojo
+	 */
+	private ConvertMojo getMojo(File base){
+		ConvertMojo mojo = new ConvertMojo();
+		mojo.basedir = base;
+		mojo.outputDirectory = new File(base, "target/generated-resources/svg2vector");
+		mojo.stateFile = new File(base, "target/svg2vector-maven-plugin/state.properties");
+		mojo.target = "pdf";
+		mojo.threads = 2;
+		mojo.transparent = true;
+		mojo.background = true;
+		mojo.cull = true;
+		mojo.failOnError = true;
+		mojo.buildContext = new DefaultBuildContext();
+		return mojo;
+	}
+}